@@ -0,0 +1,66 @@
+package com.univocity.trader.benchmarks;
+
+import com.univocity.trader.*;
+import com.univocity.trader.account.*;
+import com.univocity.trader.candles.*;
+import com.univocity.trader.config.*;
+import com.univocity.trader.indicators.*;
+import com.univocity.trader.simulation.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Measures how long the {@link AccountManager} takes to calculate the funds available for a new trade.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountManagerBenchmark {
+
+	private AccountManager account;
+
+	@Setup
+	public void setup() {
+		SimulationConfiguration configuration = new SimulationConfiguration();
+		SimulationAccount accountCfg = configuration.account();
+		accountCfg
+				.referenceCurrency("USDT")
+				.tradeWithPair("ADA", "BNB")
+				.enableShorting()
+				.maximumInvestmentPercentagePerAsset(20.0)
+				.maximumInvestmentAmountPerTrade(50.0);
+
+		SimulatedClientAccount clientAccount = new SimulatedClientAccount(accountCfg, configuration.simulation());
+		account = clientAccount.getAccount();
+
+		trade("ADA", new Candle(1, 2, 0.4371, 0.4380, 0.4369, 0.4379, 100.0));
+		trade("BNB", new Candle(1, 2, 50, 50, 50, 50, 100.0));
+
+		account.setAmount("USDT", 1000);
+		account.setAmount("ADA", 200);
+		account.setAmount("BNB", 1);
+	}
+
+	private void trade(String assetSymbol, Candle candle) {
+		TradingManager m = new TradingManager(new SimulatedExchange(account), null, account, assetSymbol, "USDT", Parameters.NULL);
+		Trader trader = new Trader(m, null, new HashSet<>());
+		trader.trade(candle, Signal.NEUTRAL, null);
+	}
+
+	@Benchmark
+	public double allocateFundsLong() {
+		return account.allocateFunds("ADA", Trade.Side.LONG);
+	}
+
+	@Benchmark
+	public double allocateFundsShort() {
+		return account.allocateFunds("ADA", Trade.Side.SHORT);
+	}
+}
@@ -0,0 +1,70 @@
+package com.univocity.trader.benchmarks;
+
+import com.univocity.trader.candles.*;
+import com.univocity.trader.indicators.*;
+import com.univocity.trader.indicators.base.*;
+import com.univocity.trader.strategy.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.*;
+
+import java.util.concurrent.*;
+
+/**
+ * Measures the cost of aggregating synthetic 1 minute candles into candles of larger time intervals, with and without
+ * candle reuse, alone and feeding a group of indicators. Run with {@code -prof gc} to compare the bytes allocated per
+ * candle ({@code gc.alloc.rate.norm}), which should be close to zero with candle reuse.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AggregatorBenchmark {
+
+	@Param({"5m", "1h", "1d"})
+	public String interval;
+
+	@Param({"false", "true"})
+	public boolean reuseCandles;
+
+	private Aggregator aggregator;
+	private SyntheticCandles candles;
+	private Candle holder;
+	private Indicator[] indicators;
+	private Aggregator[] aggregators;
+
+	@Setup
+	public void setup() {
+		TimeInterval interval = TimeInterval.fromString(this.interval);
+		aggregator = new Aggregator("benchmark", reuseCandles).getInstance(interval);
+		candles = new SyntheticCandles(1);
+		holder = reuseCandles ? Candle.newHolder() : null;
+
+		Aggregator root = new Aggregator("indicators", reuseCandles);
+		indicators = new Indicator[]{new AverageTrueRange(14, interval), new MovingAverage(20, interval), new BollingerBand(interval)};
+		for (Indicator indicator : indicators) {
+			indicator.initialize(root);
+		}
+		aggregators = root.getAggregators();
+	}
+
+	@Benchmark
+	public void aggregate(Blackhole bh) {
+		aggregator.aggregate(holder == null ? candles.next() : candles.next(holder));
+		bh.consume(aggregator.getFull());
+	}
+
+	@Benchmark
+	public void accumulateIndicators() {
+		Candle candle = holder == null ? candles.next() : candles.next(holder);
+		for (int i = 0; i < aggregators.length; i++) {
+			aggregators[i].aggregate(candle);
+		}
+		for (int i = 0; i < indicators.length; i++) {
+			indicators[i].accumulate(candle);
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package com.univocity.trader.benchmarks;
+
+import com.univocity.trader.candles.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.*;
+import org.slf4j.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static com.univocity.trader.indicators.base.TimeInterval.*;
+
+/**
+ * Measures a full replay of 30 days of synthetic 1 minute candles stored in a {@link CandleFile} and in a
+ * {@link CompressedCandleFile}. Prices are either rounded to 4 decimal places, as the prices of an exchange, or kept
+ * as random doubles, which compressed files can't store as scaled integers.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CandleFileBenchmark {
+
+	private static final Logger log = LoggerFactory.getLogger(CandleFileBenchmark.class);
+
+	private static final int CANDLES = 30 * 24 * 60;
+
+	@Param({"plain", "compressed"})
+	public String format;
+
+	@Param({"true", "false"})
+	public boolean roundPrices;
+
+	private File file;
+	private CandleStore store;
+
+	@Setup
+	public void setup() throws IOException {
+		Candle[] candles = new SyntheticCandles(1).generate(1_577_836_800_000L, CANDLES);
+		if (roundPrices) {
+			for (Candle c : candles) {
+				c.update(c.openTime, c.closeTime, round(c.open), round(c.high), round(c.low), round(c.close), round(c.volume));
+			}
+		}
+
+		boolean compressed = format.equals("compressed");
+		file = File.createTempFile("BTCUSDT", compressed ? CompressedCandleFile.EXTENSION : CandleFile.EXTENSION);
+		file.delete();
+		store = compressed ? CompressedCandleFile.open(file, "BTCUSDT", MINUTE) : CandleFile.open(file, "BTCUSDT", MINUTE);
+		for (Candle candle : candles) {
+			store.append(candle);
+		}
+		store.flush();
+		log.info("{} file with {} candles: {} bytes", format, CANDLES, file.length());
+	}
+
+	private static double round(double value) {
+		return Math.round(value * 10_000) / 10_000.0;
+	}
+
+	@TearDown
+	public void tearDown() {
+		store.close();
+		file.delete();
+	}
+
+	@Benchmark
+	public void replay(Blackhole bh) {
+		Enumeration<Candle> candles = store.read(null, null);
+		while (candles.hasMoreElements()) {
+			bh.consume(candles.nextElement());
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package com.univocity.trader.benchmarks;
+
+import com.univocity.trader.utils.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Measures the operations of {@link CircularList} used by most indicators to keep their recent values.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CircularListBenchmark {
+
+	private static final int MASK = (1 << 12) - 1;
+
+	@Param({"14", "200", "1000"})
+	public int length;
+
+	private CircularList list;
+	private double[] values;
+	private int row;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(length);
+		values = new double[MASK + 1];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = random.nextDouble() * 100.0;
+		}
+		list = new CircularList(length);
+		for (int i = 0; i < length; i++) {
+			list.add(nextValue());
+		}
+	}
+
+	private double nextValue() {
+		return values[row++ & MASK];
+	}
+
+	@Benchmark
+	public void add() {
+		list.add(nextValue());
+	}
+
+	@Benchmark
+	public void update() {
+		list.accumulate(nextValue(), true);
+	}
+
+	@Benchmark
+	public double addAndGetAverage() {
+		list.add(nextValue());
+		return list.avg();
+	}
+
+	@Benchmark
+	public double addAndGetSum() {
+		list.add(nextValue());
+		return list.sum();
+	}
+
+	@Benchmark
+	public double addAndGetMin() {
+		list.add(nextValue());
+		return list.getMin(length);
+	}
+
+	@Benchmark
+	public double addAndGetMax() {
+		list.add(nextValue());
+		return list.getMax(length);
+	}
+
+	@Benchmark
+	public double updateAndGetMax() {
+		list.accumulate(nextValue(), true);
+		return list.getMax(length);
+	}
+
+	@Benchmark
+	public double getRecentValue() {
+		return list.getRecentValue(row++ % length + 1);
+	}
+}
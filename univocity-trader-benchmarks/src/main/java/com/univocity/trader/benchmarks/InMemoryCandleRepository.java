@@ -0,0 +1,101 @@
+package com.univocity.trader.benchmarks;
+
+import com.univocity.trader.candles.*;
+
+import java.time.*;
+import java.util.*;
+
+/**
+ * A {@link CandleRepository} that serves candles held in memory, so that simulations can be benchmarked without any
+ * database or file access.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+final class InMemoryCandleRepository extends CandleRepository {
+
+	private final Map<String, Candle[]> history = new TreeMap<>();
+
+	InMemoryCandleRepository() {
+		super(null);
+	}
+
+	/**
+	 * Assigns the history of a symbol
+	 *
+	 * @param symbol  the symbol
+	 * @param candles the candles of the symbol, ordered by time.
+	 */
+	void setHistory(String symbol, Candle[] candles) {
+		history.put(symbol, candles);
+	}
+
+	private static int indexOf(Candle[] candles, long openTime) {
+		int low = 0;
+		int high = candles.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (candles[mid].openTime < openTime) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	@Override
+	public Enumeration<Candle> iterate(String symbol, Instant from, Instant to, boolean cache) {
+		Candle[] candles = history.get(symbol);
+		if (candles == null) {
+			return Collections.emptyEnumeration();
+		}
+		final int start = from == null ? 0 : indexOf(candles, from.toEpochMilli());
+		final long end = to == null ? Long.MAX_VALUE : to.toEpochMilli();
+
+		return new Enumeration<>() {
+			int i = start;
+
+			@Override
+			public boolean hasMoreElements() {
+				return i < candles.length && candles[i].closeTime <= end;
+			}
+
+			@Override
+			public Candle nextElement() {
+				return candles[i++];
+			}
+		};
+	}
+
+	@Override
+	protected long performCandleCounting(String symbol, Instant from, Instant to) {
+		long count = 0;
+		Enumeration<Candle> e = iterate(symbol, from, to, false);
+		while (e.hasMoreElements()) {
+			e.nextElement();
+			count++;
+		}
+		return count;
+	}
+
+	@Override
+	public Set<String> getKnownSymbols() {
+		return Collections.unmodifiableSet(history.keySet());
+	}
+
+	@Override
+	public Candle lastCandle(String symbol) {
+		Candle[] candles = history.get(symbol);
+		return candles == null || candles.length == 0 ? null : candles[candles.length - 1];
+	}
+
+	@Override
+	public boolean addToHistory(String symbol, PreciseCandle tick, boolean initializing) {
+		throw new UnsupportedOperationException("Candles of " + symbol + " are read-only");
+	}
+
+	@Override
+	public int addToHistory(String symbol, List<PreciseCandle> candles) {
+		throw new UnsupportedOperationException("Candles of " + symbol + " are read-only");
+	}
+}
@@ -0,0 +1,159 @@
+package com.univocity.trader.benchmarks;
+
+import com.univocity.trader.candles.*;
+import com.univocity.trader.indicators.*;
+import com.univocity.trader.indicators.base.*;
+import com.univocity.trader.strategy.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.*;
+
+/**
+ * Measures the cost of feeding one synthetic 1 minute candle to each indicator, at different lengths and time intervals.
+ * Candles are reused, so the results reflect the calculations of the indicator and its aggregator only.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IndicatorBenchmark {
+
+	@Param({
+			"ADX", "AverageTrueRange", "AwesomeOscillator", "BollingerBand", "CHOP", "ChandelierExitLong", "ChandelierExitShort",
+			"ChangeIndicator", "ConnorsRSI", "DirectionIndicator", "DonchianChannel", "DoubleExponentialMovingAverage",
+			"EldersForceIndex", "ExponentialMovingAverage", "HighestValueIndicator", "InstantaneousTrendline", "KAMA", "KDJ",
+			"KeltnerChannel", "LowestValueIndicator", "MACD", "MVWAP", "ModifiedMovingAverage", "MovingAverage", "OBV", "PVT",
+			"ParabolicSAR", "PercentRankIndicator", "RSI", "RateOfChange", "StochasticOscillatorD", "StochasticOscillatorK",
+			"StochasticRSI", "StreakIndicator", "TTMTrend", "TrueRange", "VWAP", "VolumeRateOfChange", "YoYoExitLong",
+			"YoYoExitShort", "ZeroLagMovingAverage"
+	})
+	public String indicator;
+
+	@Param({"14", "200"})
+	public int length;
+
+	@Param({"1m", "5m", "1h"})
+	public String interval;
+
+	private Indicator instance;
+	private Aggregator[] aggregators;
+	private SyntheticCandles candles;
+	private Candle holder;
+
+	@Setup
+	public void setup() {
+		instance = newIndicator(indicator, length, TimeInterval.fromString(interval));
+		Aggregator root = new Aggregator("benchmark", true);
+		instance.initialize(root);
+		aggregators = root.getAggregators();
+		candles = new SyntheticCandles(indicator.hashCode());
+		holder = Candle.newHolder();
+
+		//fills up the indicator so the measurements don't include its warm up period.
+		for (int i = 0; i < length * 2 * TimeInterval.fromString(interval).ms / TimeInterval.MINUTE.ms; i++) {
+			accumulate();
+		}
+	}
+
+	@Benchmark
+	public boolean accumulate() {
+		Candle candle = candles.next(holder);
+		for (int i = 0; i < aggregators.length; i++) {
+			aggregators[i].aggregate(candle);
+		}
+		return instance.accumulate(candle);
+	}
+
+	static Indicator newIndicator(String name, int length, TimeInterval interval) {
+		switch (name) {
+			case "ADX":
+				return new ADX(length, interval);
+			case "AverageTrueRange":
+				return new AverageTrueRange(length, interval);
+			case "AwesomeOscillator":
+				return new AwesomeOscillator(Math.max(1, length / 6), length, interval);
+			case "BollingerBand":
+				return new BollingerBand(length, interval);
+			case "CHOP":
+				return new CHOP(length, interval);
+			case "ChandelierExitLong":
+				return new ChandelierExitLong(length, interval, 3.0);
+			case "ChandelierExitShort":
+				return new ChandelierExitShort(length, interval, 3.0);
+			case "ChangeIndicator":
+				return new ChangeIndicator(interval);
+			case "ConnorsRSI":
+				return new ConnorsRSI(3, 2, length, interval);
+			case "DirectionIndicator":
+				return new DirectionIndicator<>(new MovingAverage(length, interval));
+			case "DonchianChannel":
+				return new DonchianChannel(length, interval);
+			case "DoubleExponentialMovingAverage":
+				return new DoubleExponentialMovingAverage(length, interval);
+			case "EldersForceIndex":
+				return new EldersForceIndex(length, interval);
+			case "ExponentialMovingAverage":
+				return new ExponentialMovingAverage(length, interval);
+			case "HighestValueIndicator":
+				return new HighestValueIndicator(length, interval, c -> c.high);
+			case "InstantaneousTrendline":
+				return new InstantaneousTrendline(interval);
+			case "KAMA":
+				return new KAMA(length, 2, 30, interval, c -> c.close);
+			case "KDJ":
+				return new KDJ(3, length, interval);
+			case "KeltnerChannel":
+				return new KeltnerChannel(length, interval);
+			case "LowestValueIndicator":
+				return new LowestValueIndicator(length, interval, c -> c.low);
+			case "MACD":
+				return new MACD(Math.max(1, length / 2), length, 9, interval);
+			case "MVWAP":
+				return new MVWAP(length, length, interval);
+			case "ModifiedMovingAverage":
+				return new ModifiedMovingAverage(length, interval);
+			case "MovingAverage":
+				return new MovingAverage(length, interval);
+			case "OBV":
+				return new OBV(interval);
+			case "PVT":
+				return new PVT(interval);
+			case "ParabolicSAR":
+				return new ParabolicSAR(interval);
+			case "PercentRankIndicator":
+				return new PercentRankIndicator(length, interval);
+			case "RSI":
+				return new RSI(length, interval);
+			case "RateOfChange":
+				return new RateOfChange(length, interval);
+			case "StochasticOscillatorD":
+				return new StochasticOscillatorD(3, length, interval);
+			case "StochasticOscillatorK":
+				return new StochasticOscillatorK(length, interval);
+			case "StochasticRSI":
+				return new StochasticRSI(length, interval);
+			case "StreakIndicator":
+				return new StreakIndicator(interval);
+			case "TTMTrend":
+				return new TTMTrend(length, interval);
+			case "TrueRange":
+				return new TrueRange(interval);
+			case "VWAP":
+				return new VWAP(length, interval);
+			case "VolumeRateOfChange":
+				return new VolumeRateOfChange(length, interval);
+			case "YoYoExitLong":
+				return new YoYoExitLong(length, interval, 2.0);
+			case "YoYoExitShort":
+				return new YoYoExitShort(length, interval, 2.0);
+			case "ZeroLagMovingAverage":
+				return new ZeroLagMovingAverage(length, interval);
+			default:
+				throw new IllegalArgumentException("Unknown indicator: " + name);
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package com.univocity.trader.benchmarks;
+
+import com.fasterxml.jackson.databind.*;
+import com.univocity.trader.candles.*;
+import com.univocity.trader.exchange.binance.api.client.domain.event.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.*;
+
+import java.io.*;
+import java.math.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static com.univocity.trader.exchange.binance.api.client.domain.event.KlineEvent.*;
+
+/**
+ * Measures the conversion of Binance kline stream frames into candles, either with Jackson's data binding followed by
+ * parsing the price strings of the {@link CandlestickEvent}, or with the {@link KlineEventDecoder}. When
+ * {@code precise} is set, a {@link PreciseCandle} is created from each frame as well, as done for new candles that are
+ * persisted.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KlineDecoderBenchmark {
+
+	private static final int FRAMES = 1024;
+	private static final ObjectReader JACKSON = new ObjectMapper().readerFor(CandlestickEvent.class);
+
+	@Param({"jackson", "streaming"})
+	public String decoder;
+
+	@Param({"false", "true"})
+	public boolean precise;
+
+	private String[] frames;
+
+	@Setup
+	public void setup() {
+		Candle[] candles = new SyntheticCandles(1).generate(1_577_836_800_000L, FRAMES);
+		frames = new String[FRAMES];
+		for (int i = 0; i < FRAMES; i++) {
+			Candle c = candles[i];
+			frames[i] = String.format(Locale.ROOT, "{\"e\":\"kline\",\"E\":%d,\"s\":\"BTCUSDT\",\"k\":{\"t\":%d,\"T\":%d,\"s\":\"BTCUSDT\",\"i\":\"1m\",\"f\":%d,\"L\":%d," +
+							"\"o\":\"%.8f\",\"c\":\"%.8f\",\"h\":\"%.8f\",\"l\":\"%.8f\",\"v\":\"%.8f\",\"n\":%d,\"x\":false,\"q\":\"%.8f\",\"V\":\"%.8f\",\"Q\":\"%.8f\",\"B\":\"0\"}}",
+					c.closeTime - 1000, c.openTime, c.closeTime, 100_000L + i * 50, 100_049L + i * 50,
+					c.open, c.close, c.high, c.low, c.volume, 50, c.volume * c.close, c.volume / 2, c.volume * c.close / 2);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(FRAMES)
+	public void decode(Blackhole bh) throws IOException {
+		if (decoder.equals("jackson")) {
+			for (String frame : frames) {
+				CandlestickEvent e = JACKSON.readValue(frame);
+				bh.consume(new Candle(e.getOpenTime(), e.getCloseTime(), Double.parseDouble(e.getOpen()), Double.parseDouble(e.getHigh()), Double.parseDouble(e.getLow()), Double.parseDouble(e.getClose()), Double.parseDouble(e.getVolume())));
+				if (precise) {
+					bh.consume(new PreciseCandle(e.getOpenTime(), e.getCloseTime(), new BigDecimal(e.getOpen()), new BigDecimal(e.getHigh()), new BigDecimal(e.getLow()), new BigDecimal(e.getClose()), new BigDecimal(e.getVolume())));
+				}
+			}
+		} else {
+			for (String frame : frames) {
+				KlineEvent e = KlineEventDecoder.decode(frame);
+				bh.consume(new Candle(e.getOpenTime(), e.getCloseTime(), e.getDouble(OPEN), e.getDouble(HIGH), e.getDouble(LOW), e.getDouble(CLOSE), e.getDouble(VOLUME)));
+				if (precise) {
+					bh.consume(new PreciseCandle(e.getOpenTime(), e.getCloseTime(), e.getDecimal(OPEN), e.getDecimal(HIGH), e.getDecimal(LOW), e.getDecimal(CLOSE), e.getDecimal(VOLUME)));
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package com.univocity.trader.benchmarks;
+
+import com.univocity.trader.account.*;
+import com.univocity.trader.candles.*;
+import com.univocity.trader.config.*;
+import com.univocity.trader.indicators.*;
+import com.univocity.trader.simulation.*;
+import com.univocity.trader.strategy.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static com.univocity.trader.indicators.base.TimeInterval.*;
+
+/**
+ * Measures a complete {@link MarketSimulator} run, replaying synthetic 1 minute candles of multiple symbols held in memory
+ * through a simple moving average strategy.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+public class MarketSimulatorBenchmark {
+
+	private static final LocalDateTime START = LocalDate.of(2020, 1, 1).atStartOfDay();
+	private static final String[] ASSETS = {"BTC", "ETH", "ADA", "XRP", "LTC", "BNB", "EOS", "TRX"};
+
+	@Param({"1", "4", "8"})
+	public int symbols;
+
+	@Param({"7", "30"})
+	public int days;
+
+	private InMemoryCandleRepository repository;
+	private PrintStream out;
+
+	public static class MovingAverageStrategy extends IndicatorStrategy {
+		private final MovingAverage fast = new MovingAverage(10, minutes(5));
+		private final MovingAverage slow = new MovingAverage(50, minutes(5));
+
+		@Override
+		protected Set<Indicator> getAllIndicators() {
+			return Set.of(fast, slow);
+		}
+
+		@Override
+		public Signal getSignal(Candle candle) {
+			if (fast.getValue() > slow.getValue() && fast.movingUp()) {
+				return Signal.BUY;
+			}
+			if (fast.getValue() < slow.getValue() && fast.movingDown()) {
+				return Signal.SELL;
+			}
+			return Signal.NEUTRAL;
+		}
+	}
+
+	private final class Simulator extends MarketSimulator<SimulationConfiguration, SimulationAccount> {
+		Simulator() {
+			super(new SimulationConfiguration(), () -> null);
+		}
+
+		@Override
+		protected CandleRepository createCandleRepository() {
+			return repository;
+		}
+	}
+
+	@Setup
+	public void setup() {
+		repository = new InMemoryCandleRepository();
+		int count = (int) (days * 24 * 60);
+		long startTime = START.toInstant(ZoneOffset.UTC).toEpochMilli();
+		for (int i = 0; i < symbols; i++) {
+			repository.setHistory(ASSETS[i] + "USDT", new SyntheticCandles(i).generate(startTime, count));
+		}
+		//simulation reports are printed out at the end of each run.
+		out = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+	}
+
+	@TearDown
+	public void tearDown() {
+		System.setOut(out);
+	}
+
+	@Benchmark
+	public void simulate() {
+		Simulator simulator = new Simulator();
+		SimulationAccount account = simulator.configure().account();
+		account
+				.referenceCurrency("USDT")
+				.tradeWith(Arrays.copyOf(ASSETS, symbols))
+				.minimumInvestmentAmountPerTrade(10.0)
+				.strategies().add(MovingAverageStrategy::new);
+
+		simulator.configure().simulation()
+				.initialFunds(1000.0)
+				.tradingFees(SimpleTradingFees.percentage(0.1))
+				.simulateFrom(START)
+				.simulateTo(START.plusDays(days));
+
+		simulator.run();
+	}
+}
@@ -0,0 +1,72 @@
+package com.univocity.trader.benchmarks;
+
+import com.univocity.trader.utils.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Compares the cost of calculating the percent rank of each new value in a sliding window, as done by the
+ * {@link com.univocity.trader.indicators.PercentRankIndicator}, using a full scan of a {@link CircularList} against
+ * the {@link RankWindow}.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PercentRankBenchmark {
+
+	private static final int MASK = (1 << 16) - 1;
+
+	@Param({"100", "1000", "10000"})
+	public int length;
+
+	private double[] changes;
+	private int row;
+	private CircularList list;
+	private RankWindow window;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(length);
+		changes = new double[MASK + 1];
+		for (int i = 0; i < changes.length; i++) {
+			changes[i] = random.nextGaussian();
+		}
+		list = new CircularList(length);
+		window = new RankWindow(length);
+		for (int i = 0; i < length; i++) {
+			list.add(changes[i]);
+			window.add(changes[i]);
+		}
+	}
+
+	@Benchmark
+	public double scan() {
+		double change = changes[row++ & MASK];
+		list.add(change);
+
+		int size = list.size();
+		double count = 0.0;
+		for (int i = 0; i < size; i++) {
+			if (list.values[i] < change) {
+				count++;
+			}
+		}
+		return (count / size) * 100.0;
+	}
+
+	@Benchmark
+	public double rankWindow() {
+		double change = changes[row++ & MASK];
+		window.add(change);
+
+		double count = window.countBelow(change);
+		return (count / window.size()) * 100.0;
+	}
+}
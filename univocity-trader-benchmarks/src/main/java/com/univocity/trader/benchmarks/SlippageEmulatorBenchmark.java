@@ -0,0 +1,64 @@
+package com.univocity.trader.benchmarks;
+
+import com.univocity.trader.account.*;
+import com.univocity.trader.candles.*;
+import com.univocity.trader.simulation.orderfill.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.*;
+import java.util.concurrent.*;
+
+import static com.univocity.trader.account.Order.Side.*;
+
+/**
+ * Measures how long the {@link SlippageEmulator} takes to fill a new order against synthetic candles.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SlippageEmulatorBenchmark {
+
+	@Param({"LIMIT", "MARKET"})
+	public Order.Type type;
+
+	private final SlippageEmulator emulator = new SlippageEmulator();
+	private SyntheticCandles candles;
+	private long orderId;
+
+	@Setup
+	public void setup() {
+		candles = new SyntheticCandles(2);
+	}
+
+	private DefaultOrder newOrder(Order.Side side, Candle candle) {
+		DefaultOrder order = new DefaultOrder("BTC", "USDT", side, Trade.Side.LONG, candle.closeTime);
+		order.setType(type);
+		order.setOrderId(String.valueOf(++orderId));
+		order.setPrice(BigDecimal.valueOf(candle.open));
+		order.setStatus(Order.Status.NEW);
+		order.setExecutedQuantity(BigDecimal.ZERO);
+		order.setQuantity(BigDecimal.ONE);
+		return order;
+	}
+
+	@Benchmark
+	public DefaultOrder fillBuy() {
+		Candle candle = candles.next();
+		DefaultOrder order = newOrder(BUY, candle);
+		emulator.fillOrder(order, candle);
+		return order;
+	}
+
+	@Benchmark
+	public DefaultOrder fillSell() {
+		Candle candle = candles.next();
+		DefaultOrder order = newOrder(SELL, candle);
+		emulator.fillOrder(order, candle);
+		return order;
+	}
+}
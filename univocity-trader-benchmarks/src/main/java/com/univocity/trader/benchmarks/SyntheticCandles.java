@@ -0,0 +1,85 @@
+package com.univocity.trader.benchmarks;
+
+import com.univocity.trader.candles.*;
+
+import java.util.*;
+
+import static com.univocity.trader.indicators.base.TimeInterval.*;
+
+/**
+ * Generates a reproducible random walk of 1 minute candles, so that every benchmark run processes the same prices.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+final class SyntheticCandles {
+
+	private static final int SIZE = 1 << 16;
+	private static final int MASK = SIZE - 1;
+
+	private final double[] open = new double[SIZE];
+	private final double[] high = new double[SIZE];
+	private final double[] low = new double[SIZE];
+	private final double[] close = new double[SIZE];
+	private final double[] volume = new double[SIZE];
+
+	private long time;
+	private int row;
+
+	SyntheticCandles(long seed) {
+		Random random = new Random(seed);
+		double price = 100.0;
+		for (int i = 0; i < SIZE; i++) {
+			double o = price;
+			double c = Math.max(1.0, o + random.nextGaussian() * 0.2);
+			open[i] = o;
+			close[i] = c;
+			high[i] = Math.max(o, c) + random.nextDouble() * 0.1;
+			low[i] = Math.min(o, c) - random.nextDouble() * 0.1;
+			volume[i] = 1.0 + random.nextDouble() * 100.0;
+			price = c;
+		}
+	}
+
+	/**
+	 * Populates a given candle with the next synthetic 1 minute candle.
+	 *
+	 * @param holder the candle to update
+	 *
+	 * @return the given candle.
+	 */
+	Candle next(Candle holder) {
+		int i = row++ & MASK;
+		long openTime = time;
+		time += MINUTE.ms;
+		return holder.update(openTime, time - 1, open[i], high[i], low[i], close[i], volume[i]);
+	}
+
+	/**
+	 * Creates a new instance of the next synthetic 1 minute candle.
+	 *
+	 * @return a new candle.
+	 */
+	Candle next() {
+		int i = row++ & MASK;
+		long openTime = time;
+		time += MINUTE.ms;
+		return new Candle(openTime, time - 1, open[i], high[i], low[i], close[i], volume[i]);
+	}
+
+	/**
+	 * Generates a sequence of 1 minute candles.
+	 *
+	 * @param startTime the open time of the first candle
+	 * @param count     the number of candles to generate
+	 *
+	 * @return the generated candles, ordered by time.
+	 */
+	Candle[] generate(long startTime, int count) {
+		time = startTime;
+		Candle[] out = new Candle[count];
+		for (int i = 0; i < count; i++) {
+			out[i] = next();
+		}
+		return out;
+	}
+}
@@ -1,6 +1,7 @@
 package com.univocity.trader.exchange.binance;
 
 import com.univocity.trader.*;
+import com.univocity.trader.config.*;
 import com.univocity.trader.exchange.binance.api.client.domain.market.*;
 import com.univocity.trader.simulation.*;
 
@@ -10,10 +11,21 @@ import com.univocity.trader.simulation.*;
 public final class Binance implements EntryPoint {
 
 	public static final class Configuration extends com.univocity.trader.config.Configuration<Configuration, Account> {
+		private final PriceCacheConfiguration priceCache = new PriceCacheConfiguration();
+
 		private Configuration() {
 			super("binance.properties");
 		}
 
+		@Override
+		protected ConfigurationGroup[] getAdditionalConfigurationGroups() {
+			return new ConfigurationGroup[]{priceCache};
+		}
+
+		public PriceCacheConfiguration priceCache() {
+			return priceCache;
+		}
+
 		@Override
 		protected Account newAccountConfiguration(String id) {
 			return new Account(id);
@@ -28,7 +40,11 @@ public final class Binance implements EntryPoint {
 
 	public static final class Trader extends LiveTrader<Candlestick, Configuration, Account> {
 		private Trader() {
-			super(new BinanceExchange(), new Configuration());
+			this(new Configuration());
+		}
+
+		private Trader(Configuration configuration) {
+			super(new BinanceExchange(configuration.priceCache()), configuration);
 		}
 	}
 
@@ -11,6 +11,7 @@ import com.univocity.trader.exchange.binance.api.client.domain.*;
 import com.univocity.trader.exchange.binance.api.client.domain.account.Account;
 import com.univocity.trader.exchange.binance.api.client.domain.account.*;
 import com.univocity.trader.exchange.binance.api.client.domain.account.request.*;
+import com.univocity.trader.exchange.binance.api.client.domain.event.*;
 import com.univocity.trader.exchange.binance.api.client.domain.market.*;
 import com.univocity.trader.exchange.binance.api.client.exception.*;
 import io.netty.channel.*;
@@ -20,6 +21,7 @@ import org.slf4j.*;
 
 import java.math.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.function.*;
 
 import static com.univocity.trader.account.Order.Side.*;
@@ -36,6 +38,8 @@ class BinanceClientAccount implements ClientAccount {
 	private SymbolPriceDetails symbolPriceDetails;
 	private BinanceExchange exchangeApi;
 	private double minimumBnbAmountToKeep = 1.0;
+	private volatile BinanceUserDataStream userDataStream;
+	private final Map<String, String[]> symbolPairs = new ConcurrentHashMap<>();
 
 	public BinanceClientAccount(String apiKey, String secret, BinanceExchange exchangeApi) {
 		this.exchangeApi = exchangeApi;
@@ -171,6 +175,9 @@ class BinanceClientAccount implements ClientAccount {
 			orderPreparation.setQuantity(newQuantity);
 		}
 
+		//asset and fund symbols of the orders pushed by the user data stream
+		symbolPairs.putIfAbsent(orderPreparation.getSymbol(), new String[]{orderPreparation.getAssetsSymbol(), orderPreparation.getFundsSymbol()});
+
 		SymbolPriceDetails f = getPriceDetails().switchToSymbol(orderPreparation.getSymbol());
 		if (orderPreparation.getTotalOrderAmount().compareTo(f.getMinimumOrderAmount(orderPreparation.getPrice())) > 0) {
 			NewOrder order = null;
@@ -204,6 +211,67 @@ class BinanceClientAccount implements ClientAccount {
 		return out;
 	}
 
+	/**
+	 * Queries all open orders of the symbol with a single request when more than one order is due for an update.
+	 * Orders no longer open are queried individually to get their final state.
+	 */
+	@Override
+	public List<Order> updateOrderStatuses(String symbol, List<Order> orders) {
+		if (orders.size() <= 1) {
+			return ClientAccount.super.updateOrderStatuses(symbol, orders);
+		}
+		Map<String, com.univocity.trader.exchange.binance.api.client.domain.account.Order> openOrders = new HashMap<>();
+		for (var openOrder : client.getOpenOrders(new com.univocity.trader.exchange.binance.api.client.domain.account.request.OrderRequest(symbol))) {
+			openOrders.put(String.valueOf(openOrder.getOrderId()), openOrder);
+		}
+		List<Order> out = new ArrayList<>(orders.size());
+		for (Order order : orders) {
+			var openOrder = openOrders.get(order.getOrderId());
+			out.add(openOrder != null ? translate(order, openOrder) : updateOrderStatus(order));
+		}
+		return out;
+	}
+
+	/**
+	 * Opens the user data stream of the account, which pushes the execution reports of its orders.
+	 */
+	@Override
+	public synchronized void subscribeToOrderUpdates(Consumer<Order> listener) {
+		if (userDataStream != null) {
+			userDataStream.close();
+		}
+		userDataStream = new BinanceUserDataStream(client, factory.newWebSocketClient(), event -> {
+			Order order = translate(event);
+			if (order != null) {
+				listener.accept(order);
+			}
+		});
+		userDataStream.open();
+	}
+
+	@Override
+	public long getOrderUpdatesReceivedSince() {
+		BinanceUserDataStream userDataStream = this.userDataStream;
+		return userDataStream == null ? 0L : userDataStream.getConnectedSince();
+	}
+
+	private Order translate(OrderTradeUpdateEvent event) {
+		String[] pair = symbolPairs.get(event.getSymbol());
+		if (pair == null || event.getOrderId() == null || event.getOrderStatus() == null) {
+			//not an order placed by this account.
+			return null;
+		}
+		long time = event.getOrderCreationTime() != null ? event.getOrderCreationTime() : event.getEventTime();
+		DefaultOrder out = new DefaultOrder(pair[0], pair[1], translate(event.getSide()), Trade.Side.LONG, time);
+		out.setStatus(translate(event.getOrderStatus()));
+		out.setExecutedQuantity(new BigDecimal(event.getAccumulatedQuantity()));
+		out.setPrice(new BigDecimal(event.getPrice()));
+		out.setOrderId(String.valueOf(event.getOrderId()));
+		out.setType(translate(event.getType()));
+		out.setQuantity(new BigDecimal(event.getOriginalQuantity()));
+		return out;
+	}
+
 	@Override
 	public void cancel(Order order) {
 		CancelOrderResponse response = client.cancelOrder(new CancelOrderRequest(order.getSymbol(), Long.valueOf(order.getOrderId())));
@@ -24,14 +24,28 @@ class BinanceExchange implements Exchange<Candlestick, Account> {
 
 	private static final Logger log = LoggerFactory.getLogger(BinanceExchange.class);
 
+	private static final int HISTORY_PIPELINE_DEPTH = 4;
+	private static final int HISTORY_PAGES_PER_REQUEST = 16;
+
 	private BinanceApiWebSocketClient socketClient;
-	private org.asynchttpclient.ws.WebSocket socketClientCloseable;
+	private BinanceLiveStream liveStream;
+	private BinancePriceCache priceCache;
 	private BinanceApiRestClient restClient;
+	private BinanceApiAsyncRestClient asyncRestClient;
+	private RateLimiter historicalRequestRateLimiter;
 	private final Map<String, SymbolInformation> symbolInformation = new ConcurrentHashMap<>();
 
 	private final EventLoopGroup eventLoopGroup = new NioEventLoopGroup(2);
 	private final AsyncHttpClient asyncHttpClient = HttpUtils.newAsyncHttpClient(eventLoopGroup, 65536);
+	private final PriceCacheConfiguration priceCacheConfiguration;
+
+	BinanceExchange() {
+		this(new PriceCacheConfiguration());
+	}
 
+	BinanceExchange(PriceCacheConfiguration priceCacheConfiguration) {
+		this.priceCacheConfiguration = priceCacheConfiguration;
+	}
 
 	@Override
 	public BinanceClientAccount connectToAccount(Account clientConfiguration) {
@@ -56,13 +70,26 @@ class BinanceExchange implements Exchange<Candlestick, Account> {
 		}
 	}
 
+	/**
+	 * Periods longer than a single page of {@link #historicalCandleCountLimit()} candles are downloaded with up to
+	 * {@value #HISTORY_PIPELINE_DEPTH} page requests in flight, paced by the {@link #historicalRequestRateLimiter()}.
+	 */
 	@Override
 	public IncomingCandles<Candlestick> getHistoricalTicks(String symbol, TimeInterval interval, long startTime, long endTime) {
-		return IncomingCandles.fromCollection(restClient().getCandlestickBars(symbol, CandlestickInterval.fromTimeInterval(interval), 1000, startTime, endTime));
+		int limit = historicalCandleCountLimit();
+		CandlestickInterval candlestickInterval = CandlestickInterval.fromTimeInterval(interval);
+		if (endTime - startTime <= interval.ms * limit) {
+			return IncomingCandles.fromCollection(restClient().getCandlestickBars(symbol, candlestickInterval, limit, startTime, endTime));
+		}
+		return new HistoricalCandleDownload(asyncRestClient(), historicalRequestRateLimiter(), historicalRequestWeight(limit), symbol, candlestickInterval, interval.ms, limit, startTime, endTime, HISTORY_PIPELINE_DEPTH).start();
 	}
 
 	@Override
 	public Candle generateCandle(Candlestick exchangeCandle) {
+		if (exchangeCandle instanceof KlineEvent) {
+			KlineEvent event = (KlineEvent) exchangeCandle;
+			return new Candle(event.getOpenTime(), event.getCloseTime(), event.getDouble(KlineEvent.OPEN), event.getDouble(KlineEvent.HIGH), event.getDouble(KlineEvent.LOW), event.getDouble(KlineEvent.CLOSE), event.getDouble(KlineEvent.VOLUME));
+		}
 		return new Candle(
 				exchangeCandle.getOpenTime(),
 				exchangeCandle.getCloseTime(),
@@ -74,8 +101,34 @@ class BinanceExchange implements Exchange<Candlestick, Account> {
 		);
 	}
 
+	@Override
+	public Candle generateCandle(Candlestick exchangeCandle, Candle holder) {
+		if (exchangeCandle instanceof KlineEvent) {
+			KlineEvent event = (KlineEvent) exchangeCandle;
+			return holder.update(event.getOpenTime(), event.getCloseTime(), event.getDouble(KlineEvent.OPEN), event.getDouble(KlineEvent.HIGH), event.getDouble(KlineEvent.LOW), event.getDouble(KlineEvent.CLOSE), event.getDouble(KlineEvent.VOLUME));
+		}
+		return holder.update(
+				exchangeCandle.getOpenTime(),
+				exchangeCandle.getCloseTime(),
+				Double.parseDouble(exchangeCandle.getOpen()),
+				Double.parseDouble(exchangeCandle.getHigh()),
+				Double.parseDouble(exchangeCandle.getLow()),
+				Double.parseDouble(exchangeCandle.getClose()),
+				Double.parseDouble(exchangeCandle.getVolume())
+		);
+	}
+
+	@Override
+	public long getOpenTime(Candlestick exchangeCandle) {
+		return exchangeCandle.getOpenTime();
+	}
+
 	@Override
 	public PreciseCandle generatePreciseCandle(Candlestick exchangeCandle) {
+		if (exchangeCandle instanceof KlineEvent) {
+			KlineEvent event = (KlineEvent) exchangeCandle;
+			return new PreciseCandle(event.getOpenTime(), event.getCloseTime(), event.getDecimal(KlineEvent.OPEN), event.getDecimal(KlineEvent.HIGH), event.getDecimal(KlineEvent.LOW), event.getDecimal(KlineEvent.CLOSE), event.getDecimal(KlineEvent.VOLUME));
+		}
 		return new PreciseCandle(
 				exchangeCandle.getOpenTime(),
 				exchangeCandle.getCloseTime(),
@@ -87,49 +140,81 @@ class BinanceExchange implements Exchange<Candlestick, Account> {
 		);
 	}
 
+	/**
+	 * Opens a {@link BinanceLiveStream}, which spreads the symbols over multiple websocket connections and reconnects
+	 * each one independently. The {@link TickConsumer} is notified of ticks from worker threads, and is not notified
+	 * when a single connection is dropped.
+	 */
 	@Override
-	public void openLiveStream(String symbols, TimeInterval tickInterval, TickConsumer<Candlestick> consumer) {
-		CandlestickInterval interval = CandlestickInterval.fromTimeInterval(tickInterval);
+	public synchronized void openLiveStream(String symbols, TimeInterval tickInterval, TickConsumer<Candlestick> consumer) {
+		closeLiveStream();
 		log.info("Opening Binance {} live stream for: {}", tickInterval, symbols);
-		socketClientCloseable = socketClient().onCandlestickEvent(symbols, interval, new BinanceApiCallback<>() {
-			@Override
-			public void onResponse(CandlestickEvent response) {
-				consumer.tickReceived(response.getSymbol(), response);
-			}
-
-			public void onFailure(Throwable cause) {
-				consumer.streamError(cause);
-			}
-
-			public void onClose() {
-				consumer.streamClosed();
-			}
-		});
+		liveStream = new BinanceLiveStream(socketClient(), symbols, CandlestickInterval.fromTimeInterval(tickInterval), consumer);
+		liveStream.open();
 	}
 
 	@Override
-	public void closeLiveStream() {
-		if (socketClientCloseable != null) {
-			socketClientCloseable.sendCloseFrame();
-			socketClientCloseable = null;
+	public synchronized void closeLiveStream() {
+		if (liveStream != null) {
+			liveStream.close();
+			liveStream = null;
 		}
 	}
 
+	/**
+	 * Prices are taken from the {@link BinancePriceCache}, which is kept up to date by the all-market ticker stream.
+	 * All prices are requested from the REST API if any cached price is older than the
+	 * {@link PriceCacheConfiguration#maxAge()} and the stream may have missed changes to it.
+	 */
 	@Override
 	public Map<String, Double> getLatestPrices() {
+		BinancePriceCache priceCache = priceCache();
+		if (priceCache == null) {
+			return requestLatestPrices();
+		}
+		return priceCache.getPrices(priceCacheConfiguration.maxAge().ms, this::requestLatestPrices);
+	}
+
+	private Map<String, Double> requestLatestPrices() {
 		return restClient().getAllPrices().stream().collect(Collectors.toMap(TickerPrice::getSymbol, TickerPrice::getPriceAmount));
 	}
 
+	/**
+	 * The price is taken from the {@link BinancePriceCache} and only requested from the REST API if the cached price is
+	 * older than the {@link PriceCacheConfiguration#maxAge()} and the stream may have missed changes to it.
+	 */
 	@Override
 	public double getLatestPrice(String assetSymbol, String fundSymbol) {
+		String symbol = assetSymbol + fundSymbol;
+		BinancePriceCache priceCache = priceCache();
+		if (priceCache == null) {
+			return requestLatestPrice(symbol);
+		}
+		return priceCache.getPrice(symbol, priceCacheConfiguration.maxAge().ms, () -> requestLatestPrice(symbol));
+	}
+
+	private double requestLatestPrice(String symbol) {
 		try {
-			return Double.parseDouble(restClient().getPrice(assetSymbol + fundSymbol).getPrice());
+			return Double.parseDouble(restClient().getPrice(symbol).getPrice());
 		} catch (Exception e) {
-			log.error("Error getting latest price of " + assetSymbol + fundSymbol, e);
+			log.error("Error getting latest price of " + symbol, e);
 			return -1.0;
 		}
 	}
 
+	/**
+	 * Opens the all-market ticker stream that updates the price cache on first use.
+	 *
+	 * @return the price cache, or {@code null} if disabled with a {@link PriceCacheConfiguration#maxAge()} of {@code 0}.
+	 */
+	private synchronized BinancePriceCache priceCache() {
+		if (priceCache == null && priceCacheConfiguration.maxAge().ms > 0) {
+			priceCache = new BinancePriceCache(socketClient());
+			priceCache.open();
+		}
+		return priceCache;
+	}
+
 	@Override
 	public Map<String, SymbolInformation> getSymbolInformation() {
 		if (symbolInformation.isEmpty()) {
@@ -160,7 +245,7 @@ class BinanceExchange implements Exchange<Candlestick, Account> {
 	}
 
 
-	private BinanceApiWebSocketClient socketClient() {
+	private synchronized BinanceApiWebSocketClient socketClient() {
 		if (socketClient == null) {
 			BinanceApiClientFactory factory = BinanceApiClientFactory.newInstance(asyncHttpClient);
 			socketClient = factory.newWebSocketClient();
@@ -168,7 +253,7 @@ class BinanceExchange implements Exchange<Candlestick, Account> {
 		return socketClient;
 	}
 
-	private BinanceApiRestClient restClient() {
+	private synchronized BinanceApiRestClient restClient() {
 		if (restClient == null) {
 			BinanceApiClientFactory factory = BinanceApiClientFactory.newInstance(asyncHttpClient);
 			restClient = factory.newRestClient();
@@ -176,11 +261,57 @@ class BinanceExchange implements Exchange<Candlestick, Account> {
 		return restClient;
 	}
 
+	private synchronized BinanceApiAsyncRestClient asyncRestClient() {
+		if (asyncRestClient == null) {
+			BinanceApiClientFactory factory = BinanceApiClientFactory.newInstance(asyncHttpClient);
+			asyncRestClient = factory.newAsyncRestClient();
+		}
+		return asyncRestClient;
+	}
+
 	@Override
 	public int historicalCandleCountLimit() {
 		return 1000;
 	}
 
+	/**
+	 * Binance allows a total request weight of 1200 per minute per IP. Backfills use up to 1000 per minute, plus a burst of
+	 * 100, leaving the remaining weight to trading requests. The same limiter paces the pages downloaded concurrently by
+	 * {@link #getHistoricalTicks(String, TimeInterval, long, long)}.
+	 */
+	@Override
+	public synchronized RateLimiter historicalRequestRateLimiter() {
+		if (historicalRequestRateLimiter == null) {
+			historicalRequestRateLimiter = new RateLimiter(100, 1000, TimeInterval.MINUTE);
+		}
+		return historicalRequestRateLimiter;
+	}
+
+	/**
+	 * Weight of the {@code klines} endpoint, which depends on the number of candles requested.
+	 */
+	@Override
+	public int historicalRequestWeight(int candles) {
+		if (candles < 100) {
+			return 1;
+		} else if (candles < 500) {
+			return 2;
+		} else if (candles <= 1000) {
+			return 5;
+		}
+		return 10;
+	}
+
+	@Override
+	public int historicalRequestConcurrency() {
+		return 8;
+	}
+
+	@Override
+	public int historicalPagesPerRequest() {
+		return HISTORY_PAGES_PER_REQUEST;
+	}
+
 	//	@Override
 //	public boolean isDirectSwitchSupported(String currentAssetSymbol, String targetAssetSymbol) {
 //		return symbolInformation.containsKey(currentAssetSymbol + targetAssetSymbol);
@@ -0,0 +1,128 @@
+package com.univocity.trader.exchange.binance;
+
+import com.univocity.trader.candles.*;
+import com.univocity.trader.exchange.binance.api.client.*;
+import com.univocity.trader.exchange.binance.api.client.domain.event.*;
+import com.univocity.trader.exchange.binance.api.client.domain.market.*;
+import org.asynchttpclient.ws.*;
+import org.slf4j.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Live candle stream of multiple symbols, sharded across several websocket connections.
+ *
+ * Each shard subscribes to the kline streams of a subset of the symbols, up to the {@value #MAX_STREAMS_PER_CONNECTION}
+ * streams Binance allows per connection, and reconnects on its own when its connection fails, closes or stops sending
+ * events for {@value #SHARD_TIMEOUT} milliseconds. A dropped connection therefore only interrupts the symbols of its
+ * shard, while the {@link TickConsumer} keeps receiving the candles of all other symbols.
+ *
+ * Events are decoded and delivered to the {@link TickConsumer} on the I/O thread of the connection, in the order
+ * received. The consumer is expected to hand them off without blocking, as the {@code LiveTrader} does by queueing each
+ * tick on the lane of its symbol, which is where ticks are processed in parallel.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+final class BinanceLiveStream {
+
+	private static final Logger log = LoggerFactory.getLogger(BinanceLiveStream.class);
+
+	static final int MAX_STREAMS_PER_CONNECTION = 1024;
+	private static final int MIN_SHARDS = 4;
+	private static final long SHARD_TIMEOUT = 60_000;
+
+	private final BinanceApiWebSocketClient socketClient;
+	private final CandlestickInterval interval;
+	private final TickConsumer<Candlestick> consumer;
+	private final List<Shard> shards = new ArrayList<>();
+	private final ScheduledExecutorService scheduler;
+
+	BinanceLiveStream(BinanceApiWebSocketClient socketClient, String symbols, CandlestickInterval interval, TickConsumer<Candlestick> consumer) {
+		this.socketClient = socketClient;
+		this.interval = interval;
+		this.consumer = consumer;
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "Binance live stream monitor");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		List<String> symbolList = new ArrayList<>();
+		for (String symbol : symbols.split(",")) {
+			symbol = symbol.trim();
+			if (!symbol.isEmpty()) {
+				symbolList.add(symbol);
+			}
+		}
+
+		int shardCount = Math.max(MIN_SHARDS, (symbolList.size() + MAX_STREAMS_PER_CONNECTION - 1) / MAX_STREAMS_PER_CONNECTION);
+		shardCount = Math.max(1, Math.min(shardCount, symbolList.size()));
+		List<StringBuilder> shardSymbols = new ArrayList<>(shardCount);
+		for (int i = 0; i < shardCount; i++) {
+			shardSymbols.add(new StringBuilder());
+		}
+		for (int i = 0; i < symbolList.size(); i++) {
+			StringBuilder shard = shardSymbols.get(i % shardCount);
+			if (shard.length() > 0) {
+				shard.append(',');
+			}
+			shard.append(symbolList.get(i));
+		}
+		for (int i = 0; i < shardCount; i++) {
+			shards.add(new Shard(i + 1, shardSymbols.get(i).toString()));
+		}
+	}
+
+	void open() {
+		for (Shard shard : shards) {
+			shard.open();
+		}
+		scheduler.scheduleWithFixedDelay(this::checkShards, SHARD_TIMEOUT / 2, SHARD_TIMEOUT / 2, TimeUnit.MILLISECONDS);
+	}
+
+	void close() {
+		scheduler.shutdownNow();
+		for (Shard shard : shards) {
+			shard.close();
+		}
+	}
+
+	private void checkShards() {
+		for (Shard shard : shards) {
+			shard.reconnectIfIdle(SHARD_TIMEOUT);
+		}
+	}
+
+	/**
+	 * A websocket connection that receives the candles of a subset of the symbols.
+	 */
+	private final class Shard extends ReconnectingStream<CandlestickEvent> {
+		private final int id;
+		private final String symbols;
+
+		Shard(int id, String symbols) {
+			super("Binance live stream shard " + id, scheduler);
+			this.id = id;
+			this.symbols = symbols;
+		}
+
+		@Override
+		WebSocket openSocket(BinanceApiCallback<CandlestickEvent> callback) {
+			log.info("Opening Binance live stream shard {} for: {}", id, symbols);
+			return socketClient.onCandlestickEvent(symbols, interval, callback);
+		}
+
+		@Override
+		void eventReceived(Connection connection, CandlestickEvent event) {
+			String symbol = event.getSymbol();
+			if (symbol != null) {
+				try {
+					consumer.tickReceived(symbol, event);
+				} catch (Exception e) {
+					log.error("Error processing live candle of " + symbol, e);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,190 @@
+package com.univocity.trader.exchange.binance;
+
+import com.univocity.trader.exchange.binance.api.client.*;
+import com.univocity.trader.exchange.binance.api.client.domain.event.*;
+import org.asynchttpclient.ws.*;
+import org.slf4j.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+/**
+ * In-memory table with the latest price of every symbol traded on Binance, updated by the all-market ticker stream
+ * ({@code !ticker@arr}), which sends the tickers of the symbols whose prices changed about once per second.
+ *
+ * Prices are held in immutable entries of a concurrent map and are read without locking. Each entry records when it
+ * was updated and the connection it was received from, so it is only considered out of date if it is older than the
+ * maximum age given to {@link #getPrice(String, long, DoubleSupplier)} and {@link #getPrices(long, Supplier)}, and the
+ * stream may have missed a change since: the connection was replaced or stopped sending events. Prices requested from
+ * the REST API when the cache is out of date are added back to the table.
+ *
+ * The stream is reconnected when it stops sending events for {@value #STREAM_TIMEOUT} milliseconds.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+final class BinancePriceCache {
+
+	private static final Logger log = LoggerFactory.getLogger(BinancePriceCache.class);
+
+	private static final long STREAM_TIMEOUT = 30_000;
+
+	private final BinanceApiWebSocketClient socketClient;
+	private final Map<String, Price> prices = new ConcurrentHashMap<>();
+	private final ScheduledExecutorService scheduler;
+	private final TickerStream stream;
+
+	BinancePriceCache(BinanceApiWebSocketClient socketClient) {
+		this.socketClient = socketClient;
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "Binance price cache monitor");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.stream = new TickerStream();
+	}
+
+	void open() {
+		stream.open();
+		scheduler.scheduleWithFixedDelay(() -> stream.reconnectIfIdle(STREAM_TIMEOUT), STREAM_TIMEOUT / 2, STREAM_TIMEOUT / 2, TimeUnit.MILLISECONDS);
+	}
+
+	void close() {
+		scheduler.shutdownNow();
+		stream.close();
+	}
+
+	/**
+	 * Returns the cached price of a symbol, requesting it with the given fallback if it is not cached or is out of
+	 * date.
+	 *
+	 * @param symbol   the symbol, e.g. {@code BTCUSDT}
+	 * @param maxAge   the maximum age of the price, in milliseconds, when the stream may have missed updates to it
+	 * @param fallback requests the price from the REST API
+	 *
+	 * @return the latest price of the symbol.
+	 */
+	double getPrice(String symbol, long maxAge, DoubleSupplier fallback) {
+		Price price = prices.get(symbol);
+		long now = System.currentTimeMillis();
+		if (price != null && price.isCurrent(now, maxAge)) {
+			return price.price;
+		}
+		TickerStream.Connection source = currentConnection();
+		double out = fallback.getAsDouble();
+		if (out >= 0.0) {
+			update(symbol, new Price(out, now, source));
+		}
+		return out;
+	}
+
+	/**
+	 * Returns the cached prices of all symbols, or requests all prices with the given fallback if the cache is empty
+	 * or any price is out of date. The prices received from the fallback replace the entire table, so symbols no
+	 * longer traded are removed.
+	 *
+	 * @param maxAge   the maximum age of each price, in milliseconds, when the stream may have missed updates to it
+	 * @param fallback requests the prices of all symbols from the REST API
+	 *
+	 * @return a map of symbols and their latest prices.
+	 */
+	Map<String, Double> getPrices(long maxAge, Supplier<Map<String, Double>> fallback) {
+		long now = System.currentTimeMillis();
+		if (!prices.isEmpty()) {
+			Map<String, Double> out = new HashMap<>(prices.size() * 2);
+			for (Map.Entry<String, Price> e : prices.entrySet()) {
+				Price price = e.getValue();
+				if (!price.isCurrent(now, maxAge)) {
+					out = null;
+					break;
+				}
+				out.put(e.getKey(), price.price);
+			}
+			if (out != null) {
+				return out;
+			}
+		}
+		TickerStream.Connection source = currentConnection();
+		Map<String, Double> out = fallback.get();
+		out.forEach((symbol, price) -> update(symbol, new Price(price, now, source)));
+		prices.keySet().retainAll(out.keySet());
+		return out;
+	}
+
+	/**
+	 * Returns the time when the cached price of a symbol was last updated.
+	 *
+	 * @param symbol the symbol, e.g. {@code BTCUSDT}
+	 *
+	 * @return the time of the last update, in milliseconds, or {@code 0} if the symbol has no cached price.
+	 */
+	long getUpdateTime(String symbol) {
+		Price price = prices.get(symbol);
+		return price == null ? 0L : price.time;
+	}
+
+	/**
+	 * Prices requested from the REST API while the stream is receiving events stay up to date for as long as it keeps
+	 * receiving them, as any later change is sent by the stream.
+	 *
+	 * @return the current connection, if it has received events, otherwise {@code null}.
+	 */
+	private TickerStream.Connection currentConnection() {
+		TickerStream.Connection connection = stream.connection();
+		return connection != null && connection.getLastEvent() != 0 ? connection : null;
+	}
+
+	private void update(String symbol, Price price) {
+		prices.merge(symbol, price, (current, updated) -> current.time > updated.time ? current : updated);
+	}
+
+	private static final class Price {
+		private final double price;
+		private final long time;
+		private final TickerStream.Connection source;
+
+		Price(double price, long time, TickerStream.Connection source) {
+			this.price = price;
+			this.time = time;
+			this.source = source;
+		}
+
+		boolean isCurrent(long now, long maxAge) {
+			if (now - time <= maxAge) {
+				return true;
+			}
+			//unchanged prices are not sent by the stream, so prices are current while their connection is alive.
+			TickerStream.Connection source = this.source;
+			return source != null && source.isCurrent() && now - source.getLastEvent() <= maxAge;
+		}
+	}
+
+	private final class TickerStream extends ReconnectingStream<List<AllMarketTickersEvent>> {
+
+		TickerStream() {
+			super("Binance all-market ticker stream", scheduler);
+		}
+
+		@Override
+		WebSocket openSocket(BinanceApiCallback<List<AllMarketTickersEvent>> callback) {
+			log.info("Opening Binance all-market ticker stream");
+			return socketClient.onAllMarketTickersEvent(callback);
+		}
+
+		@Override
+		void eventReceived(Connection connection, List<AllMarketTickersEvent> events) {
+			long now = System.currentTimeMillis();
+			for (AllMarketTickersEvent event : events) {
+				String symbol = event.getSymbol();
+				String price = event.getCurrentDaysClosePrice();
+				if (symbol != null && price != null) {
+					try {
+						update(symbol, new Price(Double.parseDouble(price), now, connection));
+					} catch (NumberFormatException e) {
+						log.warn("Invalid price of {} received from Binance all-market ticker stream: {}", symbol, price);
+					}
+				}
+			}
+		}
+	}
+}
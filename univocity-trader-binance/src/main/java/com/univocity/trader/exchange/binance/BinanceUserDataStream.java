@@ -0,0 +1,112 @@
+package com.univocity.trader.exchange.binance;
+
+import com.univocity.trader.exchange.binance.api.client.*;
+import com.univocity.trader.exchange.binance.api.client.domain.event.*;
+import org.asynchttpclient.ws.*;
+import org.slf4j.*;
+
+import java.util.concurrent.*;
+import java.util.function.*;
+
+import static com.univocity.trader.exchange.binance.api.client.domain.event.UserDataUpdateEvent.UserDataUpdateEventType.*;
+
+/**
+ * User data stream of a Binance account, which pushes the execution reports of the orders of the account.
+ *
+ * The listen key that identifies the stream is kept alive every {@value #KEEP_ALIVE_INTERVAL} milliseconds, as Binance
+ * closes streams not kept alive for an hour. A new listen key is requested whenever the stream is reconnected, which
+ * also happens when the listen key can't be kept alive.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+final class BinanceUserDataStream {
+
+	private static final Logger log = LoggerFactory.getLogger(BinanceUserDataStream.class);
+
+	private static final long KEEP_ALIVE_INTERVAL = 30 * 60_000;
+
+	private final BinanceApiRestClient restClient;
+	private final BinanceApiWebSocketClient socketClient;
+	private final Consumer<OrderTradeUpdateEvent> consumer;
+	private final ScheduledExecutorService scheduler;
+	private final UpdateStream stream;
+
+	BinanceUserDataStream(BinanceApiRestClient restClient, BinanceApiWebSocketClient socketClient, Consumer<OrderTradeUpdateEvent> consumer) {
+		this.restClient = restClient;
+		this.socketClient = socketClient;
+		this.consumer = consumer;
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "Binance user data stream monitor");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.stream = new UpdateStream();
+	}
+
+	void open() {
+		stream.open();
+		scheduler.scheduleWithFixedDelay(this::keepAlive, KEEP_ALIVE_INTERVAL, KEEP_ALIVE_INTERVAL, TimeUnit.MILLISECONDS);
+	}
+
+	void close() {
+		scheduler.shutdownNow();
+		stream.close();
+	}
+
+	/**
+	 * Returns when the current connection was established.
+	 *
+	 * @return the time the current connection was opened, in milliseconds, or {@code 0} if disconnected.
+	 */
+	long getConnectedSince() {
+		UpdateStream.Connection connection = stream.connection();
+		return connection == null ? 0L : connection.getConnectedSince();
+	}
+
+	private void keepAlive() {
+		String listenKey = stream.listenKey;
+		if (listenKey != null && getConnectedSince() != 0L) {
+			try {
+				restClient.keepAliveUserDataStream(listenKey);
+			} catch (Exception e) {
+				log.error("Unable to keep Binance user data stream alive", e);
+				stream.scheduleReconnect();
+			}
+		}
+	}
+
+	private final class UpdateStream extends ReconnectingStream<UserDataUpdateEvent> {
+		private volatile String listenKey;
+
+		UpdateStream() {
+			super("Binance user data stream", scheduler);
+		}
+
+		@Override
+		WebSocket openSocket(BinanceApiCallback<UserDataUpdateEvent> callback) {
+			listenKey = restClient.startUserDataStream();
+			log.info("Opening Binance user data stream");
+			return socketClient.onUserDataUpdateEvent(listenKey, callback);
+		}
+
+		@Override
+		void eventReceived(Connection connection, UserDataUpdateEvent event) {
+			if (event.getEventType() == ORDER_TRADE_UPDATE && event.getOrderTradeUpdateEvent() != null) {
+				consumer.accept(event.getOrderTradeUpdateEvent());
+			}
+		}
+
+		@Override
+		void disconnected() {
+			String listenKey = this.listenKey;
+			this.listenKey = null;
+			if (listenKey != null) {
+				try {
+					restClient.closeUserDataStream(listenKey);
+				} catch (Exception e) {
+					log.debug("Error closing listen key of Binance user data stream", e);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,146 @@
+package com.univocity.trader.exchange.binance;
+
+import com.univocity.trader.exchange.binance.api.client.*;
+import com.univocity.trader.exchange.binance.api.client.domain.market.*;
+import com.univocity.trader.utils.*;
+import org.slf4j.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Downloads the candles of a symbol over a long period by splitting it into pages of up to
+ * {@link BinanceExchange#historicalCandleCountLimit()} candles, and keeping multiple page requests in flight through
+ * the asynchronous REST client. Pages may complete in any order, but are added to the {@link IncomingCandles} in time
+ * order as soon as every page before them has been received.
+ *
+ * Each page takes its weight from the rate limiter before being sent, except the first one, which is paced by the
+ * caller of {@link BinanceExchange#getHistoricalTicks(String, com.univocity.trader.indicators.base.TimeInterval, long, long)}.
+ * At most {@code depth} pages are in flight or waiting for earlier pages at any time, which bounds the memory used
+ * to reorder them.
+ *
+ * If a page can't be downloaded, the candles of all pages before it are still delivered and the download stops there,
+ * flagging the {@link IncomingCandles} as {@link IncomingCandles#failed() failed}.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+final class HistoricalCandleDownload implements Runnable {
+
+	private static final Logger log = LoggerFactory.getLogger(HistoricalCandleDownload.class);
+
+	private final BinanceApiAsyncRestClient client;
+	private final RateLimiter rateLimiter;
+	private final int weight;
+	private final String symbol;
+	private final CandlestickInterval interval;
+	private final int limit;
+	private final long startTime;
+	private final long endTime;
+	private final long pageLength;
+	private final int pages;
+	private final Semaphore slots;
+	private final IncomingCandles<Candlestick> out = new IncomingCandles<>();
+
+	private final Map<Integer, List<Candlestick>> received = new HashMap<>();
+	private int nextPage;
+	private volatile boolean failed;
+
+	HistoricalCandleDownload(BinanceApiAsyncRestClient client, RateLimiter rateLimiter, int weight, String symbol, CandlestickInterval interval, long intervalMs, int limit, long startTime, long endTime, int depth) {
+		this.client = client;
+		this.rateLimiter = rateLimiter;
+		this.weight = weight;
+		this.symbol = symbol;
+		this.interval = interval;
+		this.limit = limit;
+		this.startTime = startTime;
+		this.endTime = endTime;
+		this.pageLength = intervalMs * limit;
+		this.pages = (int) ((endTime - startTime + pageLength - 1) / pageLength);
+		this.slots = new Semaphore(depth);
+	}
+
+	/**
+	 * Starts sending the page requests from a new thread.
+	 *
+	 * @return the candles of all pages, in time order, as they are received.
+	 */
+	IncomingCandles<Candlestick> start() {
+		Thread thread = new Thread(this, "Binance " + symbol + " history download");
+		thread.setDaemon(true);
+		thread.start();
+		return out;
+	}
+
+	@Override
+	public void run() {
+		try {
+			for (int page = 0; page < pages; page++) {
+				while (!slots.tryAcquire(1, TimeUnit.SECONDS)) {
+					if (stopped()) {
+						return;
+					}
+				}
+				if (page > 0) {
+					rateLimiter.acquire(weight);
+				}
+				if (stopped()) {
+					return;
+				}
+				request(page);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			fail(nextPage, e);
+		}
+	}
+
+	private boolean stopped() {
+		return failed || out.consumerStopped();
+	}
+
+	private void request(int page) {
+		long pageStart = startTime + page * pageLength;
+		long pageEnd = page == pages - 1 ? endTime : pageStart + pageLength - 1;
+		client.getCandlestickBars(symbol, interval, limit, pageStart, pageEnd, new BinanceApiCallback<>() {
+			@Override
+			public void onResponse(List<Candlestick> candles) {
+				complete(page, candles);
+			}
+
+			@Override
+			public void onFailure(Throwable cause) {
+				fail(page, cause);
+			}
+		});
+	}
+
+	private synchronized void complete(int page, List<Candlestick> candles) {
+		if (failed) {
+			return;
+		}
+		received.put(page, candles == null ? Collections.emptyList() : candles);
+		List<Candlestick> next;
+		while ((next = received.remove(nextPage)) != null) {
+			for (Candlestick candle : next) {
+				out.add(candle);
+			}
+			nextPage++;
+			slots.release();
+		}
+		if (nextPage == pages) {
+			out.stopProducing();
+		}
+	}
+
+	private synchronized void fail(int page, Throwable cause) {
+		if (failed) {
+			return;
+		}
+		failed = true;
+		received.clear();
+		log.error("Error downloading " + symbol + " history from " + Instant.ofEpochMilli(startTime + page * pageLength) + ". Download stopped after " + nextPage + " of " + pages + " pages", cause);
+		out.stopProducing(cause);
+		slots.release();
+	}
+}
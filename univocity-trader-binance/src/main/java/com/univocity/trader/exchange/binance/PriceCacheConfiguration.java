@@ -0,0 +1,50 @@
+package com.univocity.trader.exchange.binance;
+
+import com.univocity.trader.config.*;
+import com.univocity.trader.indicators.base.*;
+
+/**
+ * Settings of the in-memory table of latest prices kept up to date by the all-market ticker stream of Binance.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+public class PriceCacheConfiguration implements ConfigurationGroup {
+
+	private TimeInterval maxAge = TimeInterval.seconds(15);
+
+	@Override
+	public void readProperties(PropertyBasedConfiguration properties) {
+		String maxAge = properties.getOptionalProperty("price.cache.max.age");
+		if (maxAge != null) {
+			maxAge(TimeInterval.fromString(maxAge.trim()));
+		}
+	}
+
+	@Override
+	public boolean isConfigured() {
+		return true;
+	}
+
+	public TimeInterval maxAge() {
+		return maxAge;
+	}
+
+	/**
+	 * Sets how old the price of a symbol can be before it is requested from the Binance REST API instead of being
+	 * taken from the price cache. A price is only considered old if it was received before the current connection to
+	 * the ticker stream was established, or if the stream stopped sending updates, since the stream only sends the
+	 * prices that changed.
+	 *
+	 * @param maxAge the maximum age of cached prices. Use {@code 0} to disable the cache and always request prices
+	 *               from the REST API.
+	 *
+	 * @return this configuration object, for further settings.
+	 */
+	public PriceCacheConfiguration maxAge(TimeInterval maxAge) {
+		if (maxAge == null || maxAge.ms < 0) {
+			throw new IllegalConfigurationException("Maximum age of cached prices can't be null or negative. Got: " + maxAge);
+		}
+		this.maxAge = maxAge;
+		return this;
+	}
+}
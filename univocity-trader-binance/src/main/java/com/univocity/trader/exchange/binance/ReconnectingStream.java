@@ -0,0 +1,238 @@
+package com.univocity.trader.exchange.binance;
+
+import com.univocity.trader.exchange.binance.api.client.*;
+import org.asynchttpclient.ws.*;
+import org.slf4j.*;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * A Binance websocket stream that keeps itself connected. When its connection fails, closes, or receives no events for
+ * too long (see {@link #reconnectIfIdle(long)}), the connection is replaced after a delay that doubles with each
+ * consecutive attempt, up to {@value #MAX_RECONNECT_DELAY} milliseconds.
+ *
+ * Each connection attempt gets its own {@link Connection} callback, so late notifications from a connection already
+ * replaced are ignored.
+ *
+ * @param <T> the type of event received from the stream
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+abstract class ReconnectingStream<T> {
+
+	private static final long MAX_RECONNECT_DELAY = 60_000;
+
+	private static final Logger log = LoggerFactory.getLogger(ReconnectingStream.class);
+
+	private final String name;
+	private final ScheduledExecutorService scheduler;
+	private final AtomicBoolean reconnecting = new AtomicBoolean();
+
+	private volatile Connection connection;
+	private volatile boolean closed;
+	private volatile int attempts;
+
+	/**
+	 * Creates a new stream, which is only connected once {@link #open()} is invoked.
+	 *
+	 * @param name      the description of the stream used in log messages
+	 * @param scheduler the executor that opens the connections of the stream. Not shut down by this stream.
+	 */
+	ReconnectingStream(String name, ScheduledExecutorService scheduler) {
+		this.name = name;
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * Opens the websocket of a new connection.
+	 *
+	 * @param callback the callback of the new connection
+	 *
+	 * @return the websocket opened, or {@code null} if it couldn't be opened.
+	 *
+	 * @throws Exception if the connection can't be established, in which case a new attempt is scheduled.
+	 */
+	abstract WebSocket openSocket(BinanceApiCallback<T> callback) throws Exception;
+
+	/**
+	 * Processes an event received by the current connection.
+	 *
+	 * @param connection the connection that received the event
+	 * @param event      the event received
+	 */
+	abstract void eventReceived(Connection connection, T event);
+
+	/**
+	 * Releases any resources held by the connection that was just closed. Does nothing by default.
+	 */
+	void disconnected() {
+	}
+
+	/**
+	 * Connects to the stream in background.
+	 */
+	final void open() {
+		scheduler.execute(this::connect);
+	}
+
+	/**
+	 * Closes the current connection. The stream is not reconnected afterwards.
+	 */
+	final void close() {
+		closed = true;
+		disconnect();
+	}
+
+	/**
+	 * Returns the current connection.
+	 *
+	 * @return the connection in use, or {@code null} if a new connection is being established.
+	 */
+	final Connection connection() {
+		return connection;
+	}
+
+	/**
+	 * Reconnects the stream if the current connection received no events in the given amount of time since it was
+	 * opened or since its last event.
+	 *
+	 * @param timeout the maximum time without events, in milliseconds.
+	 */
+	final void reconnectIfIdle(long timeout) {
+		Connection connection = this.connection;
+		if (connection == null) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+		long lastEvent = Math.max(connection.openTime, connection.lastEvent);
+		if (now - lastEvent > timeout) {
+			log.warn("No events received by {} in {} seconds. Reconnecting.", name, (now - lastEvent) / 1000);
+			scheduleReconnect();
+		}
+	}
+
+	/**
+	 * Replaces the current connection after a delay, unless a reconnection is already scheduled.
+	 */
+	final void scheduleReconnect() {
+		if (closed || !reconnecting.compareAndSet(false, true)) {
+			return;
+		}
+		Connection connection = this.connection;
+		if (connection != null) {
+			//events can be missed from now on
+			connection.connectedSince = 0L;
+		}
+		long delay = Math.min(MAX_RECONNECT_DELAY, 1000L << Math.min(attempts++, 16));
+		log.info("Reconnecting {} in {} seconds", name, delay / 1000);
+		try {
+			scheduler.schedule(() -> {
+				disconnect();
+				reconnecting.set(false);
+				connect();
+			}, delay, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			reconnecting.set(false);
+		}
+	}
+
+	private void connect() {
+		if (closed) {
+			return;
+		}
+		Connection connection = new Connection();
+		this.connection = connection;
+		WebSocket socket = null;
+		try {
+			socket = openSocket(connection);
+		} catch (Exception e) {
+			log.error("Unable to open " + name, e);
+		}
+		if (socket == null) {
+			scheduleReconnect();
+			return;
+		}
+		connection.socket = socket;
+		connection.connectedSince = System.currentTimeMillis();
+		attempts = 0;
+		if (closed) {
+			disconnect();
+		}
+	}
+
+	private void disconnect() {
+		Connection connection = this.connection;
+		this.connection = null;
+		if (connection != null) {
+			if (connection.socket != null) {
+				try {
+					connection.socket.sendCloseFrame();
+				} catch (Exception e) {
+					log.debug("Error closing " + name, e);
+				}
+			}
+			disconnected();
+		}
+	}
+
+	/**
+	 * A connection to the stream.
+	 */
+	final class Connection implements BinanceApiCallback<T> {
+		private final long openTime = System.currentTimeMillis();
+		private volatile WebSocket socket;
+		private volatile long lastEvent;
+		private volatile long connectedSince;
+
+		boolean isCurrent() {
+			return connection == this && !closed;
+		}
+
+		/**
+		 * Returns when this connection received its last event.
+		 *
+		 * @return the time of the last event, in milliseconds, or {@code 0} if no events were received.
+		 */
+		long getLastEvent() {
+			return lastEvent;
+		}
+
+		/**
+		 * Returns when this connection was established.
+		 *
+		 * @return the time the websocket was opened, in milliseconds, or {@code 0} if not open or being replaced.
+		 */
+		long getConnectedSince() {
+			return connectedSince;
+		}
+
+		@Override
+		public void onResponse(T event) {
+			if (isCurrent()) {
+				lastEvent = System.currentTimeMillis();
+				try {
+					eventReceived(this, event);
+				} catch (Exception e) {
+					log.error("Error processing event received by " + name, e);
+				}
+			}
+		}
+
+		@Override
+		public void onFailure(Throwable cause) {
+			if (isCurrent()) {
+				log.error("Error on " + name, cause);
+				scheduleReconnect();
+			}
+		}
+
+		@Override
+		public void onClose() {
+			if (isCurrent()) {
+				log.warn("{} closed", name);
+				scheduleReconnect();
+			}
+		}
+	}
+}
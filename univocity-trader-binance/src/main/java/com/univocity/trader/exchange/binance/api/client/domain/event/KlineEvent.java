@@ -0,0 +1,164 @@
+package com.univocity.trader.exchange.binance.api.client.domain.event;
+
+import java.math.*;
+import java.util.*;
+
+/**
+ * A candlestick stream event decoded by {@link KlineEventDecoder} directly from the text of a websocket frame.
+ *
+ * Prices and volumes are kept as their position in the frame, along with their unscaled value and scale when these
+ * fit in a {@code long}, and are converted to {@code double} with {@link #getDouble(int)} or to {@link BigDecimal} with
+ * {@link #getDecimal(int)} without creating intermediate strings. The string getters inherited from
+ * {@link com.univocity.trader.exchange.binance.api.client.domain.market.Candlestick} create their values on first use.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+public final class KlineEvent extends CandlestickEvent {
+
+	public static final int OPEN = 0;
+	public static final int HIGH = 1;
+	public static final int LOW = 2;
+	public static final int CLOSE = 3;
+	public static final int VOLUME = 4;
+	public static final int QUOTE_ASSET_VOLUME = 5;
+	public static final int TAKER_BUY_BASE_ASSET_VOLUME = 6;
+	public static final int TAKER_BUY_QUOTE_ASSET_VOLUME = 7;
+
+	static final int FIELDS = 8;
+
+	//powers of ten that are exactly representable as doubles
+	private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+	private static final long MAX_EXACT_DOUBLE = 1L << 53;
+	private static final byte NOT_UNSCALED = -1;
+
+	private final String frame;
+	private final int[] positions = new int[FIELDS * 2];
+	private final long[] unscaled = new long[FIELDS];
+	private final byte[] scales = new byte[FIELDS];
+
+	KlineEvent(String frame) {
+		this.frame = frame;
+		Arrays.fill(scales, NOT_UNSCALED);
+	}
+
+	/**
+	 * Records the position of a decimal value in the frame.
+	 *
+	 * @param field    the field of the value, e.g. {@link #OPEN}
+	 * @param start    the position of the first character of the value
+	 * @param end      the position after the last character of the value
+	 * @param unscaled the digits of the value as an integer, if valid
+	 * @param scale    the number of digits after the decimal point, or {@code -1} if the value can't be represented
+	 *                 by a {@code long} unscaled value
+	 */
+	void setDecimal(int field, int start, int end, long unscaled, int scale) {
+		positions[field * 2] = start;
+		positions[field * 2 + 1] = end;
+		this.unscaled[field] = unscaled;
+		this.scales[field] = (byte) scale;
+	}
+
+	private String text(int field) {
+		int end = positions[field * 2 + 1];
+		return end == 0 ? null : frame.substring(positions[field * 2], end);
+	}
+
+	/**
+	 * Returns a decimal value of this event as a {@code double}. Values of up to 15 significant digits are converted
+	 * with a single (correctly rounded) division, and longer values are parsed with {@link Double#parseDouble(String)},
+	 * so the result is always the same as parsing the text of the value.
+	 *
+	 * @param field the field to read, e.g. {@link #OPEN}
+	 *
+	 * @return the value of the field, or {@code NaN} if the frame didn't have it.
+	 */
+	public double getDouble(int field) {
+		int scale = scales[field];
+		long value = unscaled[field];
+		if (scale >= 0 && scale < POWERS_OF_TEN.length && value <= MAX_EXACT_DOUBLE && value >= -MAX_EXACT_DOUBLE) {
+			return value / POWERS_OF_TEN[scale];
+		}
+		String text = text(field);
+		return text == null ? Double.NaN : Double.parseDouble(text);
+	}
+
+	/**
+	 * Returns a decimal value of this event as a {@link BigDecimal}, with the same scale as its text.
+	 *
+	 * @param field the field to read, e.g. {@link #OPEN}
+	 *
+	 * @return the value of the field, or {@code null} if the frame didn't have it.
+	 */
+	public BigDecimal getDecimal(int field) {
+		int scale = scales[field];
+		if (scale >= 0) {
+			return BigDecimal.valueOf(unscaled[field], scale);
+		}
+		String text = text(field);
+		return text == null ? null : new BigDecimal(text);
+	}
+
+	@Override
+	public String getOpen() {
+		if (open == null) {
+			open = text(OPEN);
+		}
+		return open;
+	}
+
+	@Override
+	public String getHigh() {
+		if (high == null) {
+			high = text(HIGH);
+		}
+		return high;
+	}
+
+	@Override
+	public String getLow() {
+		if (low == null) {
+			low = text(LOW);
+		}
+		return low;
+	}
+
+	@Override
+	public String getClose() {
+		if (close == null) {
+			close = text(CLOSE);
+		}
+		return close;
+	}
+
+	@Override
+	public String getVolume() {
+		if (volume == null) {
+			volume = text(VOLUME);
+		}
+		return volume;
+	}
+
+	@Override
+	public String getQuoteAssetVolume() {
+		if (quoteAssetVolume == null) {
+			quoteAssetVolume = text(QUOTE_ASSET_VOLUME);
+		}
+		return quoteAssetVolume;
+	}
+
+	@Override
+	public String getTakerBuyBaseAssetVolume() {
+		if (takerBuyBaseAssetVolume == null) {
+			takerBuyBaseAssetVolume = text(TAKER_BUY_BASE_ASSET_VOLUME);
+		}
+		return takerBuyBaseAssetVolume;
+	}
+
+	@Override
+	public String getTakerBuyQuoteAssetVolume() {
+		if (takerBuyQuoteAssetVolume == null) {
+			takerBuyQuoteAssetVolume = text(TAKER_BUY_QUOTE_ASSET_VOLUME);
+		}
+		return takerBuyQuoteAssetVolume;
+	}
+}
@@ -0,0 +1,389 @@
+package com.univocity.trader.exchange.binance.api.client.domain.event;
+
+import java.io.*;
+
+import static com.univocity.trader.exchange.binance.api.client.domain.event.KlineEvent.*;
+
+/**
+ * Decodes the frames of candlestick streams into {@link KlineEvent}s in a single pass over their text, without building
+ * a tree of JSON nodes or strings for the prices and volumes of each candle. Produces the same values as
+ * {@link CandlestickEventDeserializer}. Fields of the frame not used by {@link CandlestickEvent} are skipped.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+public final class KlineEventDecoder {
+
+	private static final String KLINE = "kline";
+
+	private final String json;
+	private final int length;
+	private int pos;
+
+	private KlineEventDecoder(String json) {
+		this.json = json;
+		this.length = json.length();
+	}
+
+	/**
+	 * Decodes the text of a candlestick stream frame
+	 *
+	 * @param frame the frame received from the stream
+	 *
+	 * @return the decoded event
+	 *
+	 * @throws IOException if the frame is not a valid JSON object.
+	 */
+	public static KlineEvent decode(String frame) throws IOException {
+		return new KlineEventDecoder(frame).readEvent();
+	}
+
+	private KlineEvent readEvent() throws IOException {
+		KlineEvent event = new KlineEvent(json);
+		expect('{');
+		if (!consume('}')) {
+			do {
+				switch (readKey()) {
+					case 'e':
+						event.setEventType(readEventType());
+						break;
+					case 'E':
+						event.setEventTime(readLong());
+						break;
+					case 's':
+						event.setSymbol(readString());
+						break;
+					case 'k':
+						readKline(event);
+						break;
+					default:
+						skipValue();
+				}
+			} while (consume(','));
+			expect('}');
+		}
+		return event;
+	}
+
+	private void readKline(KlineEvent event) throws IOException {
+		expect('{');
+		if (consume('}')) {
+			return;
+		}
+		do {
+			switch (readKey()) {
+				case 't':
+					event.setOpenTime(readLong());
+					break;
+				case 'T':
+					event.setCloseTime(readLong());
+					break;
+				case 'i':
+					event.setIntervalId(readString());
+					break;
+				case 'f':
+					event.setFirstTradeId(readLong());
+					break;
+				case 'L':
+					event.setLastTradeId(readLong());
+					break;
+				case 'o':
+					readDecimal(event, OPEN);
+					break;
+				case 'c':
+					readDecimal(event, CLOSE);
+					break;
+				case 'h':
+					readDecimal(event, HIGH);
+					break;
+				case 'l':
+					readDecimal(event, LOW);
+					break;
+				case 'v':
+					readDecimal(event, VOLUME);
+					break;
+				case 'n':
+					event.setNumberOfTrades(readLong());
+					break;
+				case 'x':
+					event.setBarFinal(readBoolean());
+					break;
+				case 'q':
+					readDecimal(event, QUOTE_ASSET_VOLUME);
+					break;
+				case 'V':
+					readDecimal(event, TAKER_BUY_BASE_ASSET_VOLUME);
+					break;
+				case 'Q':
+					readDecimal(event, TAKER_BUY_QUOTE_ASSET_VOLUME);
+					break;
+				default:
+					skipValue();
+			}
+		} while (consume(','));
+		expect('}');
+	}
+
+	/**
+	 * Reads the key of an object entry and the colon after it.
+	 *
+	 * @return the key if it has a single character, otherwise {@code 0}.
+	 */
+	private char readKey() throws IOException {
+		expect('"');
+		int start = pos;
+		skipStringContent();
+		char out = pos - start == 2 ? json.charAt(start) : 0;
+		expect(':');
+		return out;
+	}
+
+	private String readEventType() throws IOException {
+		skipWhitespace();
+		if (pos < length && json.charAt(pos) == '"' && json.startsWith(KLINE, pos + 1) && pos + KLINE.length() + 1 < length && json.charAt(pos + KLINE.length() + 1) == '"') {
+			pos += KLINE.length() + 2;
+			return KLINE;
+		}
+		return readString();
+	}
+
+	private String readString() throws IOException {
+		expect('"');
+		int start = pos;
+		while (pos < length) {
+			char ch = json.charAt(pos);
+			if (ch == '"') {
+				return json.substring(start, pos++);
+			}
+			if (ch == '\\') {
+				return readEscapedString(start);
+			}
+			pos++;
+		}
+		throw error("unterminated string");
+	}
+
+	private String readEscapedString(int start) throws IOException {
+		StringBuilder out = new StringBuilder().append(json, start, pos);
+		while (pos < length) {
+			char ch = json.charAt(pos++);
+			if (ch == '"') {
+				return out.toString();
+			}
+			if (ch == '\\') {
+				if (pos >= length) {
+					break;
+				}
+				ch = json.charAt(pos++);
+				switch (ch) {
+					case 'b':
+						ch = '\b';
+						break;
+					case 'f':
+						ch = '\f';
+						break;
+					case 'n':
+						ch = '\n';
+						break;
+					case 'r':
+						ch = '\r';
+						break;
+					case 't':
+						ch = '\t';
+						break;
+					case 'u':
+						if (pos + 4 > length) {
+							throw error("invalid unicode escape");
+						}
+						try {
+							ch = (char) Integer.parseInt(json.substring(pos, pos + 4), 16);
+						} catch (NumberFormatException e) {
+							throw error("invalid unicode escape");
+						}
+						pos += 4;
+						break;
+				}
+			}
+			out.append(ch);
+		}
+		throw error("unterminated string");
+	}
+
+	/**
+	 * Skips the characters of a string after its opening quote, up to and including its closing quote.
+	 */
+	private void skipStringContent() throws IOException {
+		while (pos < length) {
+			char ch = json.charAt(pos++);
+			if (ch == '"') {
+				return;
+			}
+			if (ch == '\\') {
+				pos++;
+			}
+		}
+		throw error("unterminated string");
+	}
+
+	/**
+	 * Reads a decimal number, quoted or not, accumulating its digits into a {@code long} as long as they fit.
+	 */
+	private void readDecimal(KlineEvent event, int field) throws IOException {
+		skipWhitespace();
+		boolean quoted = pos < length && json.charAt(pos) == '"';
+		if (quoted) {
+			pos++;
+		}
+		int start = pos;
+		boolean negative = pos < length && json.charAt(pos) == '-';
+		if (negative) {
+			pos++;
+		}
+
+		long value = 0;
+		int scale = -1;
+		int digits = 0;
+		boolean valid = true;
+		for (; pos < length; pos++) {
+			char ch = json.charAt(pos);
+			if (ch >= '0' && ch <= '9') {
+				if (value > (Long.MAX_VALUE - 9) / 10) {
+					valid = false;
+				} else {
+					value = value * 10 + (ch - '0');
+				}
+				digits++;
+				if (scale >= 0) {
+					scale++;
+				}
+			} else if (ch == '.' && scale < 0) {
+				scale = 0;
+			} else {
+				break;
+			}
+		}
+
+		int end = pos;
+		if (quoted) {
+			if (pos >= length || json.charAt(pos) != '"') {
+				valid = false; //exponents and anything else are parsed from the text when requested
+				skipStringContent();
+				end = pos - 1;
+			} else {
+				pos++;
+			}
+		} else {
+			while (pos < length && "+-eE.0123456789".indexOf(json.charAt(pos)) >= 0) {
+				valid = false;
+				pos++;
+			}
+			end = pos;
+		}
+
+		if (end == start) {
+			throw error("empty number");
+		}
+		valid &= digits > 0 && scale <= Byte.MAX_VALUE;
+		event.setDecimal(field, start, end, negative ? -value : value, valid ? Math.max(scale, 0) : -1);
+	}
+
+	private long readLong() throws IOException {
+		skipWhitespace();
+		boolean quoted = consumeChar('"');
+		boolean negative = consumeChar('-');
+		int start = pos;
+		long out = 0;
+		while (pos < length) {
+			char ch = json.charAt(pos);
+			if (ch < '0' || ch > '9') {
+				break;
+			}
+			out = out * 10 + (ch - '0');
+			pos++;
+		}
+		if (pos == start) {
+			throw error("number expected");
+		}
+		if (quoted) {
+			expect('"');
+		}
+		return negative ? -out : out;
+	}
+
+	private boolean readBoolean() throws IOException {
+		skipWhitespace();
+		if (json.startsWith("true", pos)) {
+			pos += 4;
+			return true;
+		}
+		if (json.startsWith("false", pos)) {
+			pos += 5;
+			return false;
+		}
+		throw error("boolean expected");
+	}
+
+	private void skipValue() throws IOException {
+		skipWhitespace();
+		if (pos >= length) {
+			throw error("value expected");
+		}
+		char ch = json.charAt(pos);
+		if (ch == '"') {
+			pos++;
+			skipStringContent();
+		} else if (ch == '{' || ch == '[') {
+			char close = ch == '{' ? '}' : ']';
+			pos++;
+			if (!consume(close)) {
+				do {
+					if (ch == '{') {
+						readKey();
+					}
+					skipValue();
+				} while (consume(','));
+				expect(close);
+			}
+		} else {
+			int start = pos;
+			while (pos < length && ",}] \t\r\n".indexOf(json.charAt(pos)) < 0) {
+				pos++;
+			}
+			if (pos == start) {
+				throw error("value expected");
+			}
+		}
+	}
+
+	private void skipWhitespace() {
+		while (pos < length) {
+			char ch = json.charAt(pos);
+			if (ch != ' ' && ch != '\t' && ch != '\r' && ch != '\n') {
+				return;
+			}
+			pos++;
+		}
+	}
+
+	private boolean consumeChar(char ch) {
+		if (pos < length && json.charAt(pos) == ch) {
+			pos++;
+			return true;
+		}
+		return false;
+	}
+
+	private boolean consume(char ch) {
+		skipWhitespace();
+		return consumeChar(ch);
+	}
+
+	private void expect(char ch) throws IOException {
+		if (!consume(ch)) {
+			throw error("'" + ch + "' expected");
+		}
+	}
+
+	private IOException error(String message) {
+		return new IOException("Invalid kline frame: " + message + " at position " + pos + " of " + json);
+	}
+}
@@ -123,6 +123,12 @@ public class OrderTradeUpdateEvent {
 	@JsonProperty("t")
 	private Long tradeId;
 
+	/**
+	 * Order creation time.
+	 */
+	@JsonProperty("O")
+	private Long orderCreationTime;
+
 	public String getEventType() {
 		return eventType;
 	}
@@ -283,6 +289,14 @@ public class OrderTradeUpdateEvent {
 		this.tradeId = tradeId;
 	}
 
+	public Long getOrderCreationTime() {
+		return orderCreationTime;
+	}
+
+	public void setOrderCreationTime(Long orderCreationTime) {
+		this.orderCreationTime = orderCreationTime;
+	}
+
 
 	@Override
 	public String toString() {
@@ -307,6 +321,7 @@ public class OrderTradeUpdateEvent {
 				.append("commissionAsset", commissionAsset)
 				.append("orderTradeTime", orderTradeTime)
 				.append("tradeId", tradeId)
+				.append("orderCreationTime", orderCreationTime)
 				.toString();
 	}
 }
@@ -29,12 +29,19 @@ public class UserDataUpdateEventDeserializer extends JsonDeserializer<UserDataUp
 
 		final String eventTypeId = node.get("e").asText();
 		final Long eventTime = node.get("E").asLong();
-		UserDataUpdateEventType userDataUpdateEventType = UserDataUpdateEventType.fromEventTypeId(eventTypeId);
 
 		UserDataUpdateEvent userDataUpdateEvent = new UserDataUpdateEvent();
-		userDataUpdateEvent.setEventType(userDataUpdateEventType);
 		userDataUpdateEvent.setEventTime(eventTime);
 
+		UserDataUpdateEventType userDataUpdateEventType;
+		try {
+			userDataUpdateEventType = UserDataUpdateEventType.fromEventTypeId(eventTypeId);
+		} catch (IllegalArgumentException e) {
+			//other events of the stream (e.g. balanceUpdate) are returned without type and details instead of closing the stream.
+			return userDataUpdateEvent;
+		}
+		userDataUpdateEvent.setEventType(userDataUpdateEventType);
+
 		if (userDataUpdateEventType == UserDataUpdateEventType.ACCOUNT_UPDATE || userDataUpdateEventType == UserDataUpdateEventType.ACCOUNT_POSITION_UPDATE) {
 			AccountUpdateEvent accountUpdateEvent = getUserDataUpdateEventDetail(json, AccountUpdateEvent.class, mapper);
 			userDataUpdateEvent.setAccountUpdateEvent(accountUpdateEvent);
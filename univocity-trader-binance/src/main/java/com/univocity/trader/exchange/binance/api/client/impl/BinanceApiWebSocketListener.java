@@ -14,7 +14,7 @@ public class BinanceApiWebSocketListener<T> implements WebSocketListener {
     private static final Logger log = LoggerFactory.getLogger(BinanceApiWebSocketListener.class);
     private static final ObjectMapper MAPPER = new ObjectMapper();
 
-    private final ObjectReader objectReader;
+    private final FrameDecoder<? extends T> decoder;
     private final BinanceApiCallback<T> callback;
 
     private WebSocket webSocket = null;
@@ -22,12 +22,30 @@ public class BinanceApiWebSocketListener<T> implements WebSocketListener {
 
     public BinanceApiWebSocketListener(BinanceApiCallback<T> callback, Class<T> eventClass) {
         this.callback = callback;
-        this.objectReader = MAPPER.readerFor(eventClass);
+        ObjectReader objectReader = MAPPER.readerFor(eventClass);
+        this.decoder = objectReader::readValue;
     }
 
     public BinanceApiWebSocketListener(BinanceApiCallback<T> callback, TypeReference reference) {
         this.callback = callback;
-        this.objectReader = MAPPER.readerFor(reference);
+        ObjectReader objectReader = MAPPER.readerFor(reference);
+        this.decoder = objectReader::readValue;
+    }
+
+    /**
+     * Creates a listener that decodes text frames with the given decoder instead of Jackson's data binding.
+     */
+    public BinanceApiWebSocketListener(BinanceApiCallback<T> callback, FrameDecoder<? extends T> decoder) {
+        this.callback = callback;
+        this.decoder = decoder;
+    }
+
+    /**
+     * Converts the text of a frame into an event.
+     */
+    @FunctionalInterface
+    public interface FrameDecoder<T> {
+        T decode(String payload) throws IOException;
     }
 
     @Override
@@ -42,7 +60,7 @@ public class BinanceApiWebSocketListener<T> implements WebSocketListener {
     @Override
     public void onTextFrame(String payload, boolean finalFragment, int rsv) {
         try {
-            T event = objectReader.readValue(payload);
+            T event = decoder.decode(payload);
             this.callback.onResponse(event);
         } catch (IOException ex) {
             log.error("Error at WebSocket " + wsName, ex);
@@ -66,6 +84,7 @@ public class BinanceApiWebSocketListener<T> implements WebSocketListener {
     @Override
     public void onError(Throwable t) {
         log.error(String.format("Error at WebSocket %s: ", wsName), t);
+        callback.onFailure(t);
     }
 
     public WebSocket getWebSocket() {
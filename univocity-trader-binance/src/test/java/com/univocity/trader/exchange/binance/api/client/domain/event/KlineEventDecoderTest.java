@@ -0,0 +1,106 @@
+package com.univocity.trader.exchange.binance.api.client.domain.event;
+
+import com.fasterxml.jackson.databind.*;
+import org.junit.*;
+
+import java.io.*;
+import java.math.*;
+import java.nio.charset.*;
+import java.util.*;
+
+import static com.univocity.trader.exchange.binance.api.client.domain.event.KlineEvent.*;
+import static junit.framework.TestCase.*;
+
+public class KlineEventDecoderTest {
+
+	private static final ObjectReader JACKSON = new ObjectMapper().readerFor(CandlestickEvent.class);
+
+	private static List<String> frames() throws IOException {
+		List<String> out = new ArrayList<>();
+		try (BufferedReader in = new BufferedReader(new InputStreamReader(KlineEventDecoderTest.class.getResourceAsStream("/binance/kline-frames.txt"), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (!line.isBlank()) {
+					out.add(line);
+				}
+			}
+		}
+		return out;
+	}
+
+	@Test
+	public void testDecodesSameValuesAsJackson() throws IOException {
+		List<String> frames = frames();
+		assertTrue(frames.size() > 50);
+		for (String frame : frames) {
+			CandlestickEvent expected = JACKSON.readValue(frame);
+			KlineEvent event = KlineEventDecoder.decode(frame);
+
+			assertEquals(frame, expected.getEventType(), event.getEventType());
+			assertEquals(frame, expected.getEventTime(), event.getEventTime());
+			assertEquals(frame, expected.getSymbol(), event.getSymbol());
+			assertEquals(frame, expected.getOpenTime(), event.getOpenTime());
+			assertEquals(frame, expected.getCloseTime(), event.getCloseTime());
+			assertEquals(frame, expected.getIntervalId(), event.getIntervalId());
+			assertEquals(frame, expected.getFirstTradeId(), event.getFirstTradeId());
+			assertEquals(frame, expected.getLastTradeId(), event.getLastTradeId());
+			assertEquals(frame, expected.getNumberOfTrades(), event.getNumberOfTrades());
+			assertEquals(frame, expected.getBarFinal(), event.getBarFinal());
+
+			assertDecimal(frame, expected.getOpen(), event, OPEN);
+			assertDecimal(frame, expected.getHigh(), event, HIGH);
+			assertDecimal(frame, expected.getLow(), event, LOW);
+			assertDecimal(frame, expected.getClose(), event, CLOSE);
+			assertDecimal(frame, expected.getVolume(), event, VOLUME);
+			assertDecimal(frame, expected.getQuoteAssetVolume(), event, QUOTE_ASSET_VOLUME);
+			assertDecimal(frame, expected.getTakerBuyBaseAssetVolume(), event, TAKER_BUY_BASE_ASSET_VOLUME);
+			assertDecimal(frame, expected.getTakerBuyQuoteAssetVolume(), event, TAKER_BUY_QUOTE_ASSET_VOLUME);
+
+			assertEquals(frame, expected.getOpen(), event.getOpen());
+			assertEquals(frame, expected.getHigh(), event.getHigh());
+			assertEquals(frame, expected.getLow(), event.getLow());
+			assertEquals(frame, expected.getClose(), event.getClose());
+			assertEquals(frame, expected.getVolume(), event.getVolume());
+			assertEquals(frame, expected.getQuoteAssetVolume(), event.getQuoteAssetVolume());
+			assertEquals(frame, expected.getTakerBuyBaseAssetVolume(), event.getTakerBuyBaseAssetVolume());
+			assertEquals(frame, expected.getTakerBuyQuoteAssetVolume(), event.getTakerBuyQuoteAssetVolume());
+			assertEquals(frame, expected.toString().replace("CandlestickEvent", "KlineEvent"), event.toString());
+		}
+	}
+
+	private static void assertDecimal(String frame, String expected, KlineEvent event, int field) {
+		assertEquals(frame, Double.doubleToLongBits(Double.parseDouble(expected)), Double.doubleToLongBits(event.getDouble(field)));
+		assertEquals(frame, new BigDecimal(expected), event.getDecimal(field));
+	}
+
+	@Test
+	public void testNumbersOutsideFastPath() throws IOException {
+		KlineEvent event = KlineEventDecoder.decode("{\"k\":{\"o\":\"1.5e-7\",\"c\":123.25,\"h\":\"-0.0000000000000000000000001\",\"l\":\"98765432109876543210.123\",\"v\":\"9007199254740993\"}}");
+		assertEquals(1.5e-7, event.getDouble(OPEN));
+		assertEquals(new BigDecimal("1.5e-7"), event.getDecimal(OPEN));
+		assertEquals(123.25, event.getDouble(CLOSE));
+		assertEquals(new BigDecimal("123.25"), event.getDecimal(CLOSE));
+		assertEquals(-1e-25, event.getDouble(HIGH));
+		assertEquals(new BigDecimal("-0.0000000000000000000000001"), event.getDecimal(HIGH));
+		assertEquals(Double.parseDouble("98765432109876543210.123"), event.getDouble(LOW));
+		assertEquals(new BigDecimal("98765432109876543210.123"), event.getDecimal(LOW));
+		assertEquals(Double.parseDouble("9007199254740993"), event.getDouble(VOLUME));
+		assertEquals(new BigDecimal("9007199254740993"), event.getDecimal(VOLUME));
+
+		assertTrue(Double.isNaN(event.getDouble(QUOTE_ASSET_VOLUME)));
+		assertNull(event.getDecimal(QUOTE_ASSET_VOLUME));
+		assertNull(event.getQuoteAssetVolume());
+	}
+
+	@Test
+	public void testInvalidFrames() {
+		for (String frame : new String[]{"", "[]", "{\"e\":\"kline\"", "{\"k\":{\"o\":\"1.0}}", "{\"E\":abc}", "{\"k\":{\"x\":maybe}}"}) {
+			try {
+				KlineEventDecoder.decode(frame);
+				fail("Expected error decoding " + frame);
+			} catch (IOException e) {
+				//expected
+			}
+		}
+	}
+}
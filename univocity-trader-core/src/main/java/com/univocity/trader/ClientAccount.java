@@ -5,6 +5,7 @@ import com.univocity.trader.candles.*;
 import com.univocity.trader.config.*;
 
 import java.util.*;
+import java.util.function.*;
 
 /**
  * A {@code ClientAccount} implementation controls the account of a user on an exchange or broker,
@@ -36,7 +37,8 @@ public interface ClientAccount {
 	 * keep track of its status until it is filled or cancelled. The {@link OrderManager} associated with the symbol
 	 * being traded will be used to notify the user of updates (or lack thereof) on their order while it is still open:
 	 *
-	 * The order status will be updated by polling the state at a fixed interval defined by {@link OrderManager#getOrderUpdateFrequency).
+	 * The order status will be updated by polling the state at a fixed interval defined by {@link OrderManager#getOrderUpdateFrequency),
+	 * or as soon as the exchange pushes an update if the account supports {@link #subscribeToOrderUpdates(Consumer)}.
 	 *
 	 * Once the order reaches status {@code FILLED} or {@code CANCELLED}, {@link OrderManager#finalized(Order)} will be called
 	 * so its implementation can perform any cleanup necessary.
@@ -112,6 +114,52 @@ public interface ClientAccount {
 	 */
 	Order updateOrderStatus(Order order);
 
+	/**
+	 * Updates the status of multiple pending {@link Order}s of the same symbol. Used by the {@link AccountManager} to
+	 * poll the exchange for updates on all orders of a symbol that are due at the same time.
+	 *
+	 * By default, invokes {@link #updateOrderStatus(Order)} for each order. Exchanges that can return the status of
+	 * multiple orders with a single request (e.g. with an "open orders" endpoint) should override this method.
+	 *
+	 * @param symbol the symbol of the orders
+	 * @param orders the orders whose status needs to be updated.
+	 *
+	 * @return the updated orders.
+	 */
+	default List<Order> updateOrderStatuses(String symbol, List<Order> orders) {
+		List<Order> out = new ArrayList<>(orders.size());
+		for (Order order : orders) {
+			out.add(updateOrderStatus(order));
+		}
+		return out;
+	}
+
+	/**
+	 * Subscribes to updates of the orders of this account pushed by the exchange (e.g. through a websocket), which
+	 * are sent to the given listener as soon as they are received, with the same details as an {@link Order} returned
+	 * by {@link #updateOrderStatus(Order)}. Orders are then polled with {@link #updateOrderStatuses(String, List)} only
+	 * as a safety net, while {@link #getOrderUpdatesReceivedSince()} indicates updates are being received.
+	 *
+	 * Does nothing by default, as the status of orders is polled.
+	 *
+	 * @param listener the listener to be notified of order updates from any thread.
+	 */
+	default void subscribeToOrderUpdates(Consumer<Order> listener) {
+
+	}
+
+	/**
+	 * Returns since when order updates have been continuously pushed to the listener given to
+	 * {@link #subscribeToOrderUpdates(Consumer)}. Orders not polled since then are polled once more, as updates could
+	 * have been missed before.
+	 *
+	 * @return the time, in milliseconds, when the connection that pushes order updates was established, or {@code 0}
+	 * if order updates are not being pushed.
+	 */
+	default long getOrderUpdatesReceivedSince() {
+		return 0L;
+	}
+
 	/**
 	 * Cancels a given {@link Order} if it has not been {@code FILLED} yet.
 	 *
@@ -80,6 +80,39 @@ public interface Exchange<T, C extends AccountConfiguration<C>> {
 	 */
 	Candle generateCandle(T exchangeCandle);
 
+	/**
+	 * Converts an {@code Exchange}-specific candle/tick to a {@link Candle}, populating a given reusable instance
+	 * instead of allocating a new one. Used when candle reuse is enabled
+	 * (see {@link com.univocity.trader.config.AccountConfiguration#enableCandleReuse()}).
+	 *
+	 * Exchanges that can decode their candles directly into the given holder should override this method. By default,
+	 * the holder is updated with the values of the {@link Candle} produced by {@link #generateCandle(Object)}.
+	 *
+	 * @param exchangeCandle the {@code Exchange}-specific candle/tick details whose data need to be converted into a {@link Candle}.
+	 * @param holder         the {@link Candle} instance to populate
+	 *
+	 * @return the given holder, populated with all details available from the given exchange-specific candle
+	 */
+	default Candle generateCandle(T exchangeCandle, Candle holder) {
+		return holder.update(generateCandle(exchangeCandle));
+	}
+
+	/**
+	 * Returns the open time of an {@code Exchange}-specific candle/tick. Used to identify the candle updated by each
+	 * live tick received, before the tick is processed.
+	 *
+	 * Exchanges whose candles can't be converted without allocating a new {@link Candle} should override this method
+	 * to read the open time directly. By default, the open time of the {@link Candle} produced by
+	 * {@link #generateCandle(Object)} is returned.
+	 *
+	 * @param exchangeCandle the {@code Exchange}-specific candle/tick details.
+	 *
+	 * @return the open time of the given candle, in milliseconds.
+	 */
+	default long getOpenTime(T exchangeCandle) {
+		return generateCandle(exchangeCandle).openTime;
+	}
+
 	/**
 	 * Converts an {@code Exchange}-specific candle/tick to a {@link PreciseCandle} that is used by the framework for database storage with
 	 * no precision loss.
@@ -221,12 +254,60 @@ public interface Exchange<T, C extends AccountConfiguration<C>> {
 		return 1_000;
 	}
 
+	/**
+	 * Creates the rate limiter shared by all threads that request historical data from the exchange when performing a
+	 * history backfill through {@link CandleHistoryBackfill#fillHistoryGaps(Exchange, Collection, Instant, Instant, TimeInterval)}.
+	 * Each request takes the number of tokens given by {@link #historicalRequestWeight(int)}.
+	 *
+	 * By default, allows one request per {@link #timeToWaitPerRequest()}.
+	 *
+	 * @return a new rate limiter for historical data requests.
+	 */
+	default RateLimiter historicalRequestRateLimiter() {
+		return RateLimiter.onePer(TimeInterval.millis(timeToWaitPerRequest()));
+	}
+
+	/**
+	 * Returns the weight of a request for historical data, i.e. the number of tokens it takes from the
+	 * {@link #historicalRequestRateLimiter()}.
+	 *
+	 * @param candles the maximum number of candles requested.
+	 *
+	 * @return the weight of the request.
+	 */
+	default int historicalRequestWeight(int candles) {
+		return 1;
+	}
+
+	/**
+	 * Returns the maximum number of requests for historical data that can be sent to the exchange at the same time.
+	 * Exchanges whose historical data can be requested from multiple threads should return a number greater than 1 so
+	 * that the history of multiple symbols is updated concurrently, still within the limits of the
+	 * {@link #historicalRequestRateLimiter()}.
+	 *
+	 * @return the maximum number of concurrent requests for historical data.
+	 */
+	default int historicalRequestConcurrency() {
+		return 1;
+	}
+
+	/**
+	 * Returns the number of pages of up to {@link #historicalCandleCountLimit()} candles that a single call to
+	 * {@link #getHistoricalTicks(String, TimeInterval, long, long)} should cover during a history backfill. Exchanges that
+	 * download the pages of a longer period concurrently, and stream them in order into the {@link IncomingCandles}
+	 * returned, should return a number greater than 1 so each backfill thread keeps multiple requests in flight.
+	 *
+	 * @return the number of pages of historical data to request in a single call.
+	 */
+	default int historicalPagesPerRequest() {
+		return 1;
+	}
+
 	/**
 	 * Convenience method used to pace the rate at which requests to the exchange are made. Will make the current
 	 * thread sleep for the time interval specified by {@link #timeToWaitPerRequest()}.
 	 *
-	 * Currently used to when historical data increments are requested when performing a history
-	 * backfill through {@link CandleHistoryBackfill#fillHistoryGaps(Exchange, String, Instant, Instant, TimeInterval)}
+	 * History backfills don't use this method, and are paced by the {@link #historicalRequestRateLimiter()} instead.
 	 *
 	 * @param lastRequestTime timestamp of last request made, use to discount the time already spent processing
 	 *                        the response received from the previous request.
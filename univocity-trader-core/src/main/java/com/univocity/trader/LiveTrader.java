@@ -18,6 +18,13 @@ import java.util.concurrent.atomic.*;
 import static com.univocity.trader.indicators.base.TimeInterval.*;
 
 /**
+ * Trades live on an {@link Exchange}, using the candles received from its live stream (or polled when the stream is
+ * offline). Ticks are processed by a {@link StripedExecutor} with one lane per symbol, up to the number of available
+ * processors: the ticks of each symbol are processed in order, while different symbols are processed in parallel.
+ * This is the only thread hop between the exchange and the strategies, as {@link TickConsumer}s are notified directly
+ * on the threads that receive the ticks. If a lane falls behind, a tick waiting to be processed is replaced by newer
+ * ticks of the same candle, so each lane holds at most one pending tick per candle of its symbols.
+ *
  * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
  */
 public abstract class LiveTrader<T, C extends Configuration<C, A>, A extends AccountConfiguration<A>> implements Closeable {
@@ -35,6 +42,7 @@ public abstract class LiveTrader<T, C extends Configuration<C, A>, A extends Acc
 	private Map<String, String[]> allPairs;
 	private C configuration;
 	private CandleRepository candleRepository;
+	private volatile StripedExecutor tickDispatcher;
 
 	private class PollThread extends Thread {
 		public PollThread() {
@@ -61,7 +69,7 @@ public abstract class LiveTrader<T, C extends Configuration<C, A>, A extends Acc
 								T tick = exchange.getLatestTick(symbol, tickInterval);
 								if (tick != null) {
 									symbols.put(symbol, now);
-									clients.parallelStream().forEach(c -> c.processCandle(symbol, tick, false));
+									dispatchTick(symbol, tick);
 								}
 							} catch (Exception e) {
 								TimeInterval waitTime = exchange.handlePollingException(symbol, e);
@@ -132,6 +140,40 @@ public abstract class LiveTrader<T, C extends Configuration<C, A>, A extends Acc
 		}
 
 		updateDatabase();
+
+		if (tickDispatcher == null) {
+			tickDispatcher = new StripedExecutor("tick processor", Math.max(1, Math.min(allPairs.size(), Runtime.getRuntime().availableProcessors())));
+			for (String symbol : allPairs.keySet()) {
+				tickDispatcher.laneOf(symbol.toUpperCase()); //spreads symbols evenly across lanes
+			}
+		}
+	}
+
+	private void dispatchTick(String symbol, T tick) {
+		StripedExecutor dispatcher = tickDispatcher;
+		if (dispatcher == null) {
+			return;
+		}
+		try {
+			dispatcher.executeLatest(symbol.toUpperCase(), exchange.getOpenTime(tick), () -> {
+				for (ExchangeClient<T> client : clients) {
+					client.processCandle(symbol, tick, false);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			log.debug("Discarding tick of {} received after shutdown", symbol);
+		}
+	}
+
+	/**
+	 * Returns the number of live ticks waiting to be processed on each lane of the tick dispatcher. Consistently
+	 * growing numbers indicate the strategies of the symbols of a lane can't keep up with the ticks received.
+	 *
+	 * @return the number of pending ticks of each lane, or an empty array if trading hasn't started.
+	 */
+	public int[] getTickQueueDepths() {
+		StripedExecutor dispatcher = tickDispatcher;
+		return dispatcher == null ? new int[0] : dispatcher.getQueueDepths();
 	}
 
 	private void updateDatabase() {
@@ -149,13 +191,11 @@ public abstract class LiveTrader<T, C extends Configuration<C, A>, A extends Acc
 
 		this.allClientPairs = tmp.toString().toLowerCase();
 		//fill history with last 30 days of data
-		for (String symbol : allPairs.keySet()) {
-			backfill.fillHistoryGaps(exchange, symbol, Instant.now().minus(30, ChronoUnit.DAYS), tickInterval);
-		}
+		backfill.fillHistoryGaps(exchange, allPairs.keySet(), Instant.now().minus(30, ChronoUnit.DAYS), null, tickInterval);
 
 		//quick update for the last 30 minutes in case the previous step takes too long and we miss a few ticks
+		backfill.fillHistoryGaps(exchange, allPairs.keySet(), Instant.now().minus(30, ChronoUnit.MINUTES), null, tickInterval);
 		for (String symbol : allPairs.keySet()) {
-			backfill.fillHistoryGaps(exchange, symbol, Instant.now().minus(30, ChronoUnit.MINUTES), tickInterval);
 			symbols.put(symbol, System.currentTimeMillis());
 		}
 
@@ -192,7 +232,7 @@ public abstract class LiveTrader<T, C extends Configuration<C, A>, A extends Acc
 			log.debug("Starting web socket. Retry count: {}", retryCount);
 			if (retryCount.get() > 0) {
 				try {
-					close();
+					closeLiveStream();
 				} catch (Exception e) {
 					log.error("Error closing socket", e);
 				}
@@ -205,7 +245,7 @@ public abstract class LiveTrader<T, C extends Configuration<C, A>, A extends Acc
 				public void tickReceived(String symbol, T tick) {
 					long now = System.currentTimeMillis();
 					symbols.put(symbol, now);
-					clients.forEach(c -> c.processCandle(symbol, tick, false));
+					dispatchTick(symbol, tick);
 				}
 
 				@Override
@@ -234,8 +274,7 @@ public abstract class LiveTrader<T, C extends Configuration<C, A>, A extends Acc
 		runLiveStream();
 	}
 
-	@Override
-	public void close() {
+	private void closeLiveStream() {
 		try {
 			if (exchange != null) {
 				try {
@@ -248,4 +287,14 @@ public abstract class LiveTrader<T, C extends Configuration<C, A>, A extends Acc
 			throw new IllegalStateException(e);
 		}
 	}
+
+	@Override
+	public void close() {
+		closeLiveStream();
+		StripedExecutor dispatcher = tickDispatcher;
+		if (dispatcher != null) {
+			tickDispatcher = null;
+			dispatcher.shutdown();
+		}
+	}
 }
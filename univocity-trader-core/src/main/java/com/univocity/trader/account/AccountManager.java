@@ -25,6 +25,7 @@ public class AccountManager implements ClientAccount, SimulatedAccountConfigurat
 
 	private final AccountConfiguration<?> configuration;
 	private final Map<String, Order> pendingOrders = new ConcurrentHashMap<>();
+	private OrderTracker orderTracker;
 	private final Set<String> lockedPairs = ConcurrentHashMap.newKeySet();
 
 	private static final long BALANCE_EXPIRATION_TIME = minutes(10).ms;
@@ -629,6 +630,11 @@ public class AccountManager implements ClientAccount, SimulatedAccountConfigurat
 		return account.updateOrderStatus(order);
 	}
 
+	@Override
+	public List<Order> updateOrderStatuses(String symbol, List<Order> orders) {
+		return account.updateOrderStatuses(symbol, orders);
+	}
+
 	@Override
 	public void cancel(Order order) {
 		account.cancel(order);
@@ -666,32 +672,21 @@ public class AccountManager implements ClientAccount, SimulatedAccountConfigurat
 		if (isSimulated()) {
 			return;
 		}
-		new Thread(() -> {
-			Thread.currentThread().setName("Order " + order.getOrderId() + " monitor:" + order.getSide() + " " + order.getSymbol());
-			OrderManager orderManager = configuration.orderManager(order.getSymbol());
-			while (true) {
-				try {
-					try {
-						Thread.sleep(orderManager.getOrderUpdateFrequency().ms);
-					} catch (InterruptedException e) {
-						Thread.currentThread().interrupt();
-					}
-					Order updated = updateOrder(order);
-					if (updated.isFinalized()) {
-						return;
-					}
-				} catch (Exception e) {
-					log.error("Error tracking state of order " + order, e);
-					return;
-				}
-			}
-		}).start();
+		startOrderTracker();
+	}
+
+	private synchronized void startOrderTracker() {
+		if (orderTracker == null) {
+			orderTracker = new OrderTracker("Order monitor of account " + configuration.id(), account, pendingOrders, symbol -> configuration.orderManager(symbol).getOrderUpdateFrequency(), this::updateOrder);
+		}
 	}
 
 	public Order updateOrder(Order order) {
+		return updateOrder(order, account.updateOrderStatus(order));
+	}
+
+	private Order updateOrder(Order old, Order order) {
 		OrderManager orderManager = configuration.orderManager(order.getSymbol());
-		Order old = order;
-		order = account.updateOrderStatus(order);
 
 		Order.Status s = order.getStatus();
 		if (order.isFinalized()) {
@@ -15,6 +15,7 @@ public class ExchangeClient<T> implements Client {
 	private TradingManager root;
 
 	private final List<CandleProcessor<T>> candleProcessors = new ArrayList<>();
+	private final Map<String, List<CandleProcessor<T>>> candleProcessorsBySymbol = new HashMap<>();
 
 	private final AccountManager accountManager;
 
@@ -63,8 +64,9 @@ public class ExchangeClient<T> implements Client {
 
 			Engine engine = new Engine(tradingManager, allInstances);
 
-			CandleProcessor<T> processor = new CandleProcessor<T>(candleRepository, engine, exchange);
+			CandleProcessor<T> processor = new CandleProcessor<T>(candleRepository, engine, exchange, accountManager.configuration().candleReuseEnabled());
 			candleProcessors.add(processor);
+			candleProcessorsBySymbol.computeIfAbsent(engine.getSymbol().toUpperCase(), s -> new ArrayList<>()).add(processor);
 		}
 		allInstances.clear();
 	}
@@ -77,12 +79,24 @@ public class ExchangeClient<T> implements Client {
 		root.updateBalances();
 	}
 
+	private List<CandleProcessor<T>> candleProcessorsOf(String symbol) {
+		List<CandleProcessor<T>> out = candleProcessorsBySymbol.get(symbol);
+		if (out == null) {
+			out = candleProcessorsBySymbol.getOrDefault(symbol.toUpperCase(), Collections.emptyList());
+		}
+		return out;
+	}
+
 	public void processCandle(String symbol, Candle candle, boolean initializing) {
-		candleProcessors.forEach(c -> c.processCandle(symbol, candle, initializing));
+		for (CandleProcessor<T> processor : candleProcessorsOf(symbol)) {
+			processor.processCandle(symbol, candle, initializing);
+		}
 	}
 
 	public void processCandle(String symbol, T candle, boolean initializing) {
-		candleProcessors.forEach(c -> c.processCandle(symbol, candle, initializing));
+		for (CandleProcessor<T> processor : candleProcessorsOf(symbol)) {
+			processor.processCandle(symbol, candle, initializing);
+		}
 	}
 
 	public String getEmail() {
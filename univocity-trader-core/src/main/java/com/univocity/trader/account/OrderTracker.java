@@ -0,0 +1,185 @@
+package com.univocity.trader.account;
+
+import com.univocity.trader.*;
+import com.univocity.trader.indicators.base.*;
+import org.slf4j.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+/**
+ * Tracks the status of all pending orders of an account with a single thread, replacing a monitor thread per order.
+ *
+ * Every {@link OrderManager#getOrderUpdateFrequency()} each pending order is checked: the status of the orders due of
+ * the same symbol is requested at once with {@link ClientAccount#updateOrderStatuses(String, List)}, and the updates
+ * are handed to the {@link AccountManager}, which notifies the {@link OrderManager} of the order.
+ *
+ * If the {@link ClientAccount} pushes order updates (see {@link ClientAccount#subscribeToOrderUpdates(Consumer)}),
+ * they are processed as soon as they arrive. The exchange is then only queried as a safety net, every
+ * {@value #SAFETY_NET_INTERVAL} milliseconds, or when an order hasn't been queried since the updates started to be
+ * pushed. In between, the {@link OrderManager} is still notified at its update frequency with the latest status of the
+ * order, so it can cancel orders that remain open for too long.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+final class OrderTracker {
+
+	private static final Logger log = LoggerFactory.getLogger(OrderTracker.class);
+
+	static final long CHECK_INTERVAL = 250;
+	static final long SAFETY_NET_INTERVAL = TimeInterval.minutes(2).ms;
+	private static final long EARLY_UPDATE_EXPIRATION = TimeInterval.minutes(1).ms;
+
+	private final ClientAccount account;
+	private final Map<String, Order> pendingOrders;
+	private final Function<String, TimeInterval> updateFrequency;
+	private final BiConsumer<Order, Order> updateHandler;
+	private final ScheduledExecutorService scheduler;
+
+	//accessed by the scheduler thread only
+	private final Map<String, Schedule> schedules = new HashMap<>();
+	private final Map<String, Order> earlyUpdates = new HashMap<>();
+	private final Map<String, List<Order>> due = new HashMap<>();
+
+	/**
+	 * Creates and starts a tracker of pending orders.
+	 *
+	 * @param name            name of the thread that tracks the orders
+	 * @param account         the account that queries and pushes the status of orders
+	 * @param pendingOrders   the pending orders of the account, by order ID. Orders removed from this map are no
+	 *                        longer tracked.
+	 * @param updateFrequency the {@link OrderManager#getOrderUpdateFrequency()} of a given symbol
+	 * @param updateHandler   receives the previous state of a pending order and its latest update.
+	 */
+	OrderTracker(String name, ClientAccount account, Map<String, Order> pendingOrders, Function<String, TimeInterval> updateFrequency, BiConsumer<Order, Order> updateHandler) {
+		this.account = account;
+		this.pendingOrders = pendingOrders;
+		this.updateFrequency = updateFrequency;
+		this.updateHandler = updateHandler;
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, name);
+			thread.setDaemon(true);
+			return thread;
+		});
+		account.subscribeToOrderUpdates(this::orderUpdated);
+		scheduler.scheduleWithFixedDelay(this::checkOrders, CHECK_INTERVAL, CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+	}
+
+	void shutdown() {
+		scheduler.shutdownNow();
+	}
+
+	private void orderUpdated(Order update) {
+		try {
+			scheduler.execute(() -> {
+				try {
+					applyPushedUpdate(update, System.currentTimeMillis());
+				} catch (Exception e) {
+					log.error("Error processing update of order " + update, e);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			//shut down
+		}
+	}
+
+	private void applyPushedUpdate(Order update, long now) {
+		Order previous = pendingOrders.get(update.getOrderId());
+		if (previous == null) {
+			//order placed but not tracked yet.
+			earlyUpdates.put(update.getOrderId(), update);
+			return;
+		}
+		if (previous.isFinalized() || (previous.getStatus() == update.getStatus() && previous.getExecutedQuantity().compareTo(update.getExecutedQuantity()) == 0)) {
+			return;
+		}
+		Schedule schedule = schedule(previous, now);
+		updateHandler.accept(previous, update);
+		schedule.nextCheck = now + updateFrequency.apply(update.getSymbol()).ms;
+	}
+
+	private Schedule schedule(Order order, long now) {
+		Schedule schedule = schedules.get(order.getOrderId());
+		if (schedule == null) {
+			//the order was returned by the exchange when it was submitted, so it counts as queried.
+			schedule = new Schedule(now, now + updateFrequency.apply(order.getSymbol()).ms);
+			schedules.put(order.getOrderId(), schedule);
+		}
+		return schedule;
+	}
+
+	private void checkOrders() {
+		try {
+			long now = System.currentTimeMillis();
+			schedules.keySet().retainAll(pendingOrders.keySet());
+			if (!earlyUpdates.isEmpty()) {
+				applyEarlyUpdates(now);
+			}
+			if (pendingOrders.isEmpty()) {
+				return;
+			}
+
+			long pushedSince = account.getOrderUpdatesReceivedSince();
+			for (Order order : pendingOrders.values()) {
+				Schedule schedule = schedule(order, now);
+				if (now < schedule.nextCheck || order.isFinalized()) {
+					continue;
+				}
+				schedule.nextCheck = now + updateFrequency.apply(order.getSymbol()).ms;
+				if (pushedSince == 0 || schedule.lastQuery < pushedSince || now - schedule.lastQuery >= SAFETY_NET_INTERVAL) {
+					schedule.lastQuery = now;
+					due.computeIfAbsent(order.getSymbol(), s -> new ArrayList<>()).add(order);
+				} else {
+					//latest status is known from pushed updates.
+					updateHandler.accept(order, order);
+				}
+			}
+			if (!due.isEmpty()) {
+				queryOrders();
+			}
+		} catch (Exception e) {
+			log.error("Error tracking state of pending orders", e);
+		}
+	}
+
+	private void applyEarlyUpdates(long now) {
+		Iterator<Order> it = earlyUpdates.values().iterator();
+		while (it.hasNext()) {
+			Order update = it.next();
+			if (pendingOrders.containsKey(update.getOrderId())) {
+				it.remove();
+				applyPushedUpdate(update, now);
+			} else if (now - update.getTime() > EARLY_UPDATE_EXPIRATION) {
+				//order finalized when submitted, or not placed by this account.
+				it.remove();
+			}
+		}
+	}
+
+	private void queryOrders() {
+		for (Map.Entry<String, List<Order>> e : due.entrySet()) {
+			try {
+				for (Order update : account.updateOrderStatuses(e.getKey(), e.getValue())) {
+					Order previous = pendingOrders.get(update.getOrderId());
+					if (previous != null && !previous.isFinalized()) {
+						updateHandler.accept(previous, update);
+					}
+				}
+			} catch (Exception ex) {
+				log.error("Error updating status of " + e.getValue().size() + " pending order(s) of " + e.getKey(), ex);
+			}
+		}
+		due.clear();
+	}
+
+	private static final class Schedule {
+		private long lastQuery;
+		private long nextCheck;
+
+		Schedule(long lastQuery, long nextCheck) {
+			this.lastQuery = lastQuery;
+			this.nextCheck = nextCheck;
+		}
+	}
+}
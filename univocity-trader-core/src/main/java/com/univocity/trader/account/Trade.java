@@ -59,7 +59,7 @@ public class Trade implements Comparable<Trade> {
 	private double minChange;
 	private double maxChange;
 	private double change;
-	private Candle firstCandle;
+	private long firstCandleCloseTime;
 	private Strategy openingStrategy;
 	private boolean stopped = false;
 
@@ -91,7 +91,8 @@ public class Trade implements Comparable<Trade> {
 	}
 
 	private void initTrade(){
-		this.firstCandle = trader.latestCandle();
+		Candle firstCandle = trader.latestCandle();
+		this.firstCandleCloseTime = firstCandle.closeTime;
 		this.max = this.min = firstCandle.close;
 		finalized = false;
 	}
@@ -340,7 +341,7 @@ public class Trade implements Comparable<Trade> {
 
 	public long tradeDuration() {
 		if (traded()) {
-			return trader.latestCandle().closeTime - firstCandle.closeTime;
+			return trader.latestCandle().closeTime - firstCandleCloseTime;
 		}
 		return 0L;
 
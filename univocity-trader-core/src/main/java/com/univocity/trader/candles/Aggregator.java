@@ -18,11 +18,35 @@ public class Aggregator {
 	protected Candle full;
 	protected Candle partial;
 
+	private final Candle[] holders;
+	private int nextHolder;
+	private long updates;
+
 	public Aggregator(String description) {
-		this(new ConcurrentHashMap<>(), description, TimeInterval.millis(0));
+		this(description, false);
+	}
+
+	/**
+	 * Creates a root aggregator, used to obtain aggregators of candles of any given {@link TimeInterval}.
+	 *
+	 * @param description  a description of the aggregator, used for logging.
+	 * @param reuseCandles flag indicating whether the aggregators should update their candles in place instead of
+	 *                     creating a new {@link Candle} for each interval. When enabled, each aggregator alternates
+	 *                     between two {@link Candle#newHolder() holders}, so the values of a {@link #getFull() full} candle
+	 *                     remain valid until the full candle of the next interval is produced, and the
+	 *                     {@link Candle} instances given to {@link #aggregate(Candle)} are never retained, i.e. they
+	 *                     can be reused by the caller.
+	 */
+	public Aggregator(String description, boolean reuseCandles) {
+		this(new ConcurrentHashMap<>(), description, TimeInterval.millis(0), reuseCandles);
 	}
 
 	protected Aggregator(Map<Long, Aggregator> allInstances, String description, TimeInterval time) {
+		this(allInstances, description, time, false);
+	}
+
+	private Aggregator(Map<Long, Aggregator> allInstances, String description, TimeInterval time, boolean reuseCandles) {
+		this.holders = reuseCandles ? new Candle[]{Candle.newHolder(), Candle.newHolder()} : null;
 		this.minutes = time.ms / MINUTE.ms;
 		this.ms = time.ms % MINUTE.ms;
 		this.allInstances = allInstances;
@@ -37,7 +61,7 @@ public class Aggregator {
 	public Aggregator getInstance(TimeInterval time) {
 		Aggregator instance = allInstances.get(time.ms);
 		if (instance == null) {
-			return new Aggregator(allInstances, description, time);
+			return new Aggregator(allInstances, description, time, holders != null);
 		}
 		return instance;
 	}
@@ -47,6 +71,7 @@ public class Aggregator {
 	}
 
 	public void aggregate(Candle candle) {
+		updates++;
 		if (partial == null) {
 			partial = candle;
 			full = null;
@@ -56,26 +81,59 @@ public class Aggregator {
 
 		long elapsed = (candle.closeTime - partial.openTime) / (MINUTE.ms - 1L);
 		if (elapsed < minutes) {
-			partial = partial.merge(candle);
+			partial = merge(candle);
 		} else if (elapsed == minutes) {
 			if (ms > 1L) {
 				elapsed = candle.closeTime - partial.openTime;
 				if (elapsed < ms) {
-					partial = partial.merge(candle);
+					partial = merge(candle);
 				} else {
-					full = partial.merge(candle);
+					full = merge(candle);
 					partial = null;
 				}
 			} else {
-				full = partial.merge(candle);
+				full = merge(candle);
 				partial = null;
 			}
 		} else {
-			full = candle;
+			full = holders == null ? candle : (partial == candle ? nextHolder() : partial).update(candle);
 			partial = null;
 		}
 	}
 
+	//the holder returned is never the current full candle, which may still be referenced by indicators.
+	private Candle nextHolder() {
+		Candle out = holders[nextHolder];
+		nextHolder ^= 1;
+		return out;
+	}
+
+	private Candle merge(Candle candle) {
+		if (holders != null && partial == candle) {
+			return nextHolder().update(candle);
+		}
+		return partial.merge(candle);
+	}
+
+	/**
+	 * Returns the length of the interval of the candles produced by this aggregator
+	 *
+	 * @return the interval length, in milliseconds.
+	 */
+	public long getInterval() {
+		return minutes * MINUTE.ms + ms;
+	}
+
+	/**
+	 * Returns the number of candles given to {@link #aggregate(Candle)} so far, which identifies the current state of
+	 * this aggregator even when the same {@link Candle} instance is reused for every update.
+	 *
+	 * @return the number of candles aggregated.
+	 */
+	public long getUpdateCount() {
+		return updates;
+	}
+
 	public Candle getFull() {
 		return full;
 	}
@@ -0,0 +1,107 @@
+package com.univocity.trader.candles;
+
+import java.util.concurrent.atomic.*;
+
+/**
+ * Tracks the progress of a history backfill of multiple symbols, as performed by
+ * {@link CandleHistoryBackfill#fillHistoryGaps(com.univocity.trader.Exchange, java.util.Collection, java.time.Instant, java.time.Instant, com.univocity.trader.indicators.base.TimeInterval)}.
+ * Requests are counted as gaps are found, so the total number of requests may grow while the history of some symbols is
+ * still being checked.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+public final class BackfillProgress {
+
+	private final int symbols;
+	private final long startTime = System.currentTimeMillis();
+	private final AtomicInteger symbolsChecked = new AtomicInteger();
+	private final AtomicInteger symbolsComplete = new AtomicInteger();
+	private final AtomicInteger requests = new AtomicInteger();
+	private final AtomicInteger requestsComplete = new AtomicInteger();
+	private final AtomicLong candles = new AtomicLong();
+
+	BackfillProgress(int symbols) {
+		this.symbols = symbols;
+	}
+
+	void symbolChecked(int requests) {
+		this.requests.addAndGet(requests);
+		symbolsChecked.incrementAndGet();
+	}
+
+	void symbolComplete() {
+		symbolsComplete.incrementAndGet();
+	}
+
+	void requestComplete(int candles) {
+		this.candles.addAndGet(candles);
+		requestsComplete.incrementAndGet();
+	}
+
+	void requestSkipped() {
+		requestsComplete.incrementAndGet();
+	}
+
+	public int getSymbols() {
+		return symbols;
+	}
+
+	public int getSymbolsChecked() {
+		return symbolsChecked.get();
+	}
+
+	public int getSymbolsComplete() {
+		return symbolsComplete.get();
+	}
+
+	public int getRequests() {
+		return requests.get();
+	}
+
+	public int getRequestsComplete() {
+		return requestsComplete.get();
+	}
+
+	public long getCandles() {
+		return candles.get();
+	}
+
+	public long getElapsedTime() {
+		return System.currentTimeMillis() - startTime;
+	}
+
+	/**
+	 * Estimates the time required to complete the pending requests, based on the average time taken by the requests
+	 * completed so far.
+	 *
+	 * @return the estimated time to completion in milliseconds, or {@code -1} if no request has been completed yet.
+	 */
+	public long getEstimatedTimeRemaining() {
+		int complete = requestsComplete.get();
+		if (complete == 0) {
+			return -1;
+		}
+		return (long) ((double) getElapsedTime() / complete * (requests.get() - complete));
+	}
+
+	@Override
+	public String toString() {
+		int total = requests.get();
+		int complete = requestsComplete.get();
+		StringBuilder out = new StringBuilder();
+		out.append(symbolsComplete.get()).append('/').append(symbols).append(" symbols up to date, ");
+		if (symbolsChecked.get() < symbols) {
+			out.append(symbols - symbolsChecked.get()).append(" still being checked for gaps, ");
+		}
+		out.append(complete).append('/').append(total).append(" requests");
+		if (total > 0) {
+			out.append(String.format(" (%.1f%%)", complete * 100.0 / total));
+		}
+		out.append(", ").append(candles.get()).append(" candles loaded in ").append(getElapsedTime() / 1000).append(" seconds");
+		long remaining = getEstimatedTimeRemaining();
+		if (remaining >= 0 && complete < total) {
+			out.append(", about ").append(remaining / 1000).append(" seconds remaining");
+		}
+		return out.toString();
+	}
+}
@@ -16,7 +16,7 @@ public class Candle implements Comparable<Candle>, Cloneable {
 
 	public long openTime;
 	public long closeTime;
-	public final double open;
+	public double open;
 	public double high;
 	public double low;
 	public double close;
@@ -38,6 +38,53 @@ public class Candle implements Comparable<Candle>, Cloneable {
 		this.merged = merged;
 	}
 
+	/**
+	 * Creates a mutable candle to be reused as a holder of candle data (e.g. by {@link Aggregator}s that update their
+	 * candles in place, or by exchanges that decode ticks into a given instance with
+	 * {@link com.univocity.trader.Exchange#generateCandle(Object, Candle)}). Calls to {@link #merge(Candle)} on a
+	 * holder update the holder itself.
+	 *
+	 * @return a new candle holder, with all values set to zero.
+	 */
+	public static Candle newHolder() {
+		return new Candle(0L, 0L, 0.0, 0.0, 0.0, 0.0, 0.0, true);
+	}
+
+	/**
+	 * Replaces all values of this candle. Used to reuse candle instances without allocating new ones.
+	 *
+	 * @param openTime  the candle open time, in milliseconds
+	 * @param closeTime the candle close time, in milliseconds
+	 * @param open      the opening price
+	 * @param high      the highest price
+	 * @param low       the lowest price
+	 * @param close     the closing price
+	 * @param volume    the volume traded
+	 *
+	 * @return this candle, with the updated values.
+	 */
+	public Candle update(long openTime, long closeTime, double open, double high, double low, double close, double volume) {
+		this.openTime = openTime;
+		this.closeTime = closeTime;
+		this.open = open;
+		this.high = high;
+		this.low = low;
+		this.close = close;
+		this.volume = volume;
+		return this;
+	}
+
+	/**
+	 * Replaces all values of this candle with the values of another candle.
+	 *
+	 * @param candle the candle whose values will be copied
+	 *
+	 * @return this candle, with the updated values.
+	 */
+	public Candle update(Candle candle) {
+		return update(candle.openTime, candle.closeTime, candle.open, candle.high, candle.low, candle.close, candle.volume);
+	}
+
 	public String getFormattedCloseTime(String pattern) {
 		return getFormattedCloseTime(pattern, ZoneId.systemDefault());
 	}
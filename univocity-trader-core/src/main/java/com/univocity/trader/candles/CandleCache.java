@@ -0,0 +1,458 @@
+package com.univocity.trader.candles;
+
+import org.slf4j.*;
+
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * Candles loaded by a {@link CandleRepository}, kept in memory within a maximum budget of bytes. Each entry holds the
+ * candles of a symbol loaded for a given time range, which can also serve queries for any narrower range of the same
+ * symbol. When the budget is exceeded, the least recently used (or least frequently used) entries are evicted.
+ *
+ * The memory taken by each entry is estimated from the number of candles it holds. Entries of pinned symbols (see
+ * {@link #pin(String)}) are cached regardless of the budget and are not evicted to make room for others.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ * @see com.univocity.trader.config.DatabaseConfiguration#cacheMaxSize(long)
+ */
+public class CandleCache {
+
+	private static final Logger log = LoggerFactory.getLogger(CandleCache.class);
+
+	/**
+	 * How to select the entries to be evicted from the cache when its budget is exceeded.
+	 */
+	public enum EvictionPolicy {
+		/**
+		 * Evicts the entry that hasn't been used for the longest time.
+		 */
+		LRU,
+		/**
+		 * Evicts the entry that has been used the least number of times. Ties are resolved by evicting the least recently used.
+		 */
+		LFU
+	}
+
+	private static final class Entry {
+		final String symbol;
+		final long from;
+		final long to;
+		final Collection<Candle> candles;
+		final long bytes;
+		long hits;
+
+		Entry(String symbol, long from, long to, Collection<Candle> candles, long bytes) {
+			this.symbol = symbol;
+			this.from = from;
+			this.to = to;
+			this.candles = candles;
+			this.bytes = bytes;
+		}
+
+		boolean covers(long from, long to) {
+			return this.from <= from && this.to >= to;
+		}
+
+		boolean overlaps(long from, long to) {
+			return this.from <= to && this.to >= from;
+		}
+	}
+
+	private final long maxBytes;
+	private final EvictionPolicy policy;
+
+	private final Map<String, List<Entry>> symbols = new HashMap<>();
+	private final LinkedHashMap<Entry, Entry> usage = new LinkedHashMap<>(16, 0.75f, true);
+	private final Set<String> pinned = new HashSet<>();
+	private long bytes;
+
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long rejections;
+
+	/**
+	 * Creates a new cache
+	 *
+	 * @param maxBytes the maximum estimated number of bytes taken by the candles in the cache.
+	 * @param policy   the policy for selecting entries to evict when the budget is exceeded.
+	 */
+	public CandleCache(long maxBytes, EvictionPolicy policy) {
+		if (maxBytes <= 0) {
+			throw new IllegalArgumentException("Cache size must be positive. Got: " + maxBytes);
+		}
+		this.maxBytes = maxBytes;
+		this.policy = policy == null ? EvictionPolicy.LRU : policy;
+	}
+
+	static long toFrom(Long from) {
+		return from == null ? Long.MIN_VALUE : from;
+	}
+
+	static long toTo(Long to) {
+		return to == null ? Long.MAX_VALUE : to;
+	}
+
+	/**
+	 * Returns the cached candles of a symbol within a given time range, if they have been loaded for that range or for
+	 * a wider one.
+	 *
+	 * @param symbol the symbol whose candles are being queried
+	 * @param from   the earliest open time of the candles to return, or {@code null} for no lower bound
+	 * @param to     the latest close time of the candles to return, or {@code null} for no upper bound
+	 *
+	 * @return the candles in the given range, in the same order they were loaded, or {@code null} if not cached.
+	 */
+	public synchronized Enumeration<Candle> get(String symbol, Long from, Long to) {
+		long start = toFrom(from);
+		long end = toTo(to);
+
+		Entry selected = null;
+		List<Entry> entries = symbols.get(symbol);
+		if (entries != null) {
+			for (Entry entry : entries) {
+				if (entry.covers(start, end) && (selected == null || entry.candles.size() < selected.candles.size())) {
+					selected = entry;
+				}
+			}
+		}
+		if (selected == null) {
+			misses++;
+			return null;
+		}
+		hits++;
+		selected.hits++;
+		usage.get(selected); //moves entry to the end of the access order
+
+		if (selected.from == start && selected.to == end) {
+			return enumeration(selected.candles);
+		}
+		return range(selected.candles, start, end);
+	}
+
+	/**
+	 * Returns an enumeration over all candles of a collection, reading candles of a {@link ColumnarCandleStorage}
+	 * through a {@link ColumnarCandleStorage.Range}.
+	 *
+	 * @param candles the candles to enumerate
+	 *
+	 * @return an enumeration over the given candles.
+	 */
+	static Enumeration<Candle> enumeration(Collection<Candle> candles) {
+		if (candles instanceof ColumnarCandleStorage) {
+			return ((ColumnarCandleStorage) candles).range(Long.MIN_VALUE, Long.MAX_VALUE);
+		}
+		return Collections.enumeration(candles);
+	}
+
+	/**
+	 * Stores the candles of a symbol loaded for a given time range, evicting other entries as required to keep the
+	 * cache within its budget. Entries of the same symbol whose range is covered by the new entry are replaced.
+	 *
+	 * @param symbol         the symbol of the candles
+	 * @param from           the earliest open time of the candles, or {@code null} if loaded with no lower bound
+	 * @param to             the latest close time of the candles, or {@code null} if loaded with no upper bound
+	 * @param candles        the candles loaded, ordered by open time
+	 * @param bytesPerCandle the estimated number of bytes taken by each candle.
+	 *
+	 * @return {@code true} if the candles were cached, or {@code false} if they can't fit in the cache budget.
+	 */
+	public synchronized boolean put(String symbol, Long from, Long to, Collection<Candle> candles, long bytesPerCandle) {
+		long size = candles.size() * bytesPerCandle;
+		if (!pinned.contains(symbol) && size > maxBytes - pinnedBytes()) {
+			rejections++;
+			log.debug("Not caching {} {} candles: {} bytes required, cache limited to {} bytes", candles.size(), symbol, size, maxBytes);
+			return false;
+		}
+
+		Entry entry = new Entry(symbol, toFrom(from), toTo(to), candles, size);
+		List<Entry> entries = symbols.get(symbol);
+		if (entries != null) {
+			for (Entry existing : entries.toArray(new Entry[0])) {
+				if (entry.covers(existing.from, existing.to)) {
+					remove(existing);
+				}
+			}
+		}
+
+		evict(size);
+
+		symbols.computeIfAbsent(symbol, s -> new ArrayList<>()).add(entry);
+		usage.put(entry, entry);
+		bytes += size;
+		return true;
+	}
+
+	private void evict(long required) {
+		Entry evicted;
+		while (bytes + required > maxBytes && (evicted = selectEviction()) != null) {
+			log.debug("Evicting {} cached candles of {} to free {} bytes", evicted.candles.size(), evicted.symbol, evicted.bytes);
+			remove(evicted);
+			evictions++;
+		}
+	}
+
+	private Entry selectEviction() {
+		Entry out = null;
+		for (Entry next : usage.keySet()) {
+			if (pinned.contains(next.symbol)) {
+				continue;
+			}
+			if (out == null) {
+				out = next;
+				if (policy == EvictionPolicy.LRU) {
+					break;
+				}
+			} else if (next.hits < out.hits) {
+				out = next;
+			}
+		}
+		return out;
+	}
+
+	private long pinnedBytes() {
+		long out = 0;
+		if (!pinned.isEmpty()) {
+			for (Entry entry : usage.keySet()) {
+				if (pinned.contains(entry.symbol)) {
+					out += entry.bytes;
+				}
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * Keeps the candles of a symbol in the cache regardless of the budget, e.g. while they are read by parallel
+	 * simulations that would otherwise each load a copy of their own. Candles of pinned symbols are still discarded when
+	 * {@link #evict(String)} or {@link #evict(String, long, long)} is invoked.
+	 *
+	 * @param symbol the symbol whose candles must be kept in the cache.
+	 */
+	public synchronized void pin(String symbol) {
+		pinned.add(symbol);
+	}
+
+	/**
+	 * Makes the candles of a symbol pinned with {@link #pin(String)} subject to the cache budget again, evicting
+	 * entries as required to bring the cache back within the budget.
+	 *
+	 * @param symbol the symbol whose candles no longer need to be kept in the cache.
+	 */
+	public synchronized void unpin(String symbol) {
+		if (pinned.remove(symbol)) {
+			evict(0);
+		}
+	}
+
+	private void remove(Entry entry) {
+		usage.remove(entry);
+		List<Entry> entries = symbols.get(entry.symbol);
+		if (entries != null) {
+			entries.remove(entry);
+			if (entries.isEmpty()) {
+				symbols.remove(entry.symbol);
+			}
+		}
+		bytes -= entry.bytes;
+	}
+
+	/**
+	 * Discards all cached candles of a symbol
+	 *
+	 * @param symbol the symbol whose candles will be discarded.
+	 */
+	public synchronized void evict(String symbol) {
+		List<Entry> entries = symbols.get(symbol);
+		if (entries != null) {
+			for (Entry entry : entries.toArray(new Entry[0])) {
+				remove(entry);
+			}
+		}
+	}
+
+	/**
+	 * Discards the cached candles of a symbol that were loaded for a time range that overlaps a given time range.
+	 * Used to invalidate entries that become outdated when new candles are added to the history of the symbol.
+	 *
+	 * @param symbol the symbol whose candles will be discarded.
+	 * @param from   the start of the time range
+	 * @param to     the end of the time range
+	 */
+	public synchronized void evict(String symbol, long from, long to) {
+		if (symbols.isEmpty()) {
+			return;
+		}
+		List<Entry> entries = symbols.get(symbol);
+		if (entries != null) {
+			for (Entry entry : entries.toArray(new Entry[0])) {
+				if (entry.overlaps(from, to)) {
+					remove(entry);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Discards all cached candles. Statistics are preserved.
+	 */
+	public synchronized void clear() {
+		symbols.clear();
+		usage.clear();
+		bytes = 0;
+	}
+
+	/**
+	 * Returns the estimated number of bytes taken by all candles in the cache
+	 *
+	 * @return the current cache size, in bytes.
+	 */
+	public synchronized long size() {
+		return bytes;
+	}
+
+	/**
+	 * Returns the maximum estimated number of bytes the cached candles can take.
+	 *
+	 * @return the cache budget, in bytes.
+	 */
+	public long maxSize() {
+		return maxBytes;
+	}
+
+	/**
+	 * Returns the number of symbol/time range entries in the cache.
+	 *
+	 * @return the number of cached entries.
+	 */
+	public synchronized int entries() {
+		return usage.size();
+	}
+
+	/**
+	 * Returns the number of queries served from the cache.
+	 *
+	 * @return the number of cache hits.
+	 */
+	public synchronized long hits() {
+		return hits;
+	}
+
+	/**
+	 * Returns the number of queries that could not be served from the cache.
+	 *
+	 * @return the number of cache misses.
+	 */
+	public synchronized long misses() {
+		return misses;
+	}
+
+	/**
+	 * Returns the number of entries evicted to free space for new entries.
+	 *
+	 * @return the number of evictions.
+	 */
+	public synchronized long evictions() {
+		return evictions;
+	}
+
+	/**
+	 * Returns the number of query results that were not cached because they are larger than the cache budget.
+	 *
+	 * @return the number of rejected entries.
+	 */
+	public synchronized long rejections() {
+		return rejections;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "Candle cache: " + usage.size() + " entries, " + (bytes / 1024 / 1024) + "/" + (maxBytes / 1024 / 1024) + " MB used. "
+				+ hits + " hits, " + misses + " misses, " + evictions + " evictions, " + rejections + " rejections (" + policy + ")";
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Enumeration<Candle> range(Collection<Candle> candles, long from, long to) {
+		if (candles instanceof ColumnarCandleStorage) {
+			return ((ColumnarCandleStorage) candles).range(from, to);
+		}
+		IntFunction<Candle> rows = null;
+		if (candles instanceof List && candles instanceof RandomAccess) {
+			rows = ((List<Candle>) candles)::get;
+		}
+
+		if (rows == null) {
+			final Iterator<Candle> it = candles.iterator();
+			return new RangeEnumeration(to) {
+				@Override
+				Candle fetch() {
+					while (it.hasNext()) {
+						Candle candle = it.next();
+						if (candle.openTime >= from) {
+							return candle;
+						}
+					}
+					return null;
+				}
+			};
+		}
+
+		final IntFunction<Candle> get = rows;
+		final int size = candles.size();
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (get.apply(mid).openTime < from) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		final int start = low;
+		return new RangeEnumeration(to) {
+			int row = start;
+
+			@Override
+			Candle fetch() {
+				return row < size ? get.apply(row++) : null;
+			}
+		};
+	}
+
+	private static abstract class RangeEnumeration implements Enumeration<Candle> {
+		private final long to;
+		private Candle next;
+		private boolean fetched;
+		private boolean ended;
+
+		RangeEnumeration(long to) {
+			this.to = to;
+		}
+
+		abstract Candle fetch();
+
+		@Override
+		public boolean hasMoreElements() {
+			if (!fetched) {
+				next = ended ? null : fetch();
+				if (next == null || next.closeTime > to) {
+					next = null;
+					ended = true;
+				}
+				fetched = true;
+			}
+			return next != null;
+		}
+
+		@Override
+		public Candle nextElement() {
+			if (!hasMoreElements()) {
+				throw new NoSuchElementException();
+			}
+			fetched = false;
+			return next;
+		}
+	}
+}
@@ -0,0 +1,145 @@
+package com.univocity.trader.candles;
+
+import com.univocity.trader.utils.*;
+import org.slf4j.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Index of the time ranges covered by the candles stored in the {@code candle} table, persisted per symbol in the
+ * {@code candle_coverage} table. Each candle covers the range from its open time up to its close time, and ranges of
+ * consecutive candles are merged, so the index of a contiguous history takes a few bytes regardless of its length.
+ *
+ * The index of a symbol is built from its candles the first time it is required, and kept up to date as candles are
+ * added to the history. It can only fall behind if other processes add candles to the same database, in which case
+ * the backfill simply requests some candles that are already stored.
+ *
+ * The index of a symbol is persisted by one thread at a time, which takes a snapshot of the ranges and writes it. Changes
+ * made by other threads while a snapshot is being written are coalesced and written by that same thread afterwards, so
+ * an older snapshot never overwrites a newer one.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ * @see com.univocity.trader.config.DatabaseConfiguration#coverageIndex(boolean)
+ */
+final class CandleCoverage {
+
+	private static final Logger log = LoggerFactory.getLogger(CandleCoverage.class);
+
+	private final CandleRepository repository;
+	private final ConcurrentHashMap<String, Index> coverage = new ConcurrentHashMap<>();
+
+	CandleCoverage(CandleRepository repository) {
+		this.repository = repository;
+	}
+
+	/**
+	 * Returns the ranges covered by the candles of a symbol, loading or building its index if required.
+	 *
+	 * @param symbol the symbol whose coverage is required
+	 *
+	 * @return the live coverage of the symbol, updated as candles are added.
+	 */
+	IntervalSet get(String symbol) {
+		return index(symbol).ranges;
+	}
+
+	private Index index(String symbol) {
+		return coverage.computeIfAbsent(symbol, this::load);
+	}
+
+	private Index load(String symbol) {
+		List<byte[]> stored = repository.db().query("SELECT ranges FROM candle_coverage WHERE symbol = ?", (rs, rowNum) -> rs.getBytes(1), symbol);
+		if (!stored.isEmpty() && stored.get(0) != null) {
+			return new Index(IntervalSet.fromByteArray(stored.get(0)));
+		}
+
+		log.info("Building coverage index of {} candles", symbol);
+		long start = System.currentTimeMillis();
+		IntervalSet out = new IntervalSet();
+		Enumeration<Candle> candles = repository.streamHistory(symbol);
+		while (candles.hasMoreElements()) {
+			Candle candle = candles.nextElement();
+			if (candle != null) {
+				out.add(candle.openTime, candle.closeTime + 1);
+			}
+		}
+		Index index = new Index(out);
+		save(symbol, index);
+		log.info("Coverage index of {} built in {} seconds: {} contiguous ranges", symbol, (System.currentTimeMillis() - start) / 1000.0, out.size());
+		return index;
+	}
+
+	/**
+	 * Marks the time ranges of candles stored in the database as covered.
+	 *
+	 * @param symbol  the symbol of the candles
+	 * @param candles the candles stored.
+	 */
+	void add(String symbol, Collection<? extends PreciseCandle> candles) {
+		if (candles.isEmpty()) {
+			return;
+		}
+		Index index = index(symbol);
+		boolean changed = false;
+		for (PreciseCandle candle : candles) {
+			changed |= index.ranges.add(candle.openTime, candle.closeTime + 1);
+		}
+		if (changed) {
+			save(symbol, index);
+		}
+	}
+
+	void add(String symbol, PreciseCandle candle) {
+		add(symbol, Collections.singletonList(candle));
+	}
+
+	private void save(String symbol, Index index) {
+		synchronized (index) {
+			index.dirty = true;
+			if (index.saving) {
+				//written by the thread saving the index once it is done with the previous snapshot.
+				return;
+			}
+			index.saving = true;
+		}
+		while (true) {
+			synchronized (index) {
+				if (!index.dirty) {
+					index.saving = false;
+					return;
+				}
+				index.dirty = false;
+			}
+			write(symbol, index.ranges.toByteArray());
+		}
+	}
+
+	private void write(String symbol, byte[] bytes) {
+		try {
+			// update then insert instead of database-specific "upsert" statements, so any database can be used.
+			if (repository.db().update("UPDATE candle_coverage SET ranges = ? WHERE symbol = ?", bytes, symbol) == 0) {
+				repository.db().update("INSERT INTO candle_coverage (symbol, ranges) VALUES (?,?)", symbol, bytes);
+			}
+		} catch (Exception e) {
+			log.error("Error persisting coverage index of " + symbol, e);
+		}
+	}
+
+	void clear() {
+		coverage.clear();
+	}
+
+	/**
+	 * The coverage of a symbol and the state of its persistence, guarded by the index itself.
+	 */
+	private static final class Index {
+		private final IntervalSet ranges;
+		private boolean dirty;
+		private boolean saving;
+
+		Index(IntervalSet ranges) {
+			this.ranges = ranges;
+		}
+	}
+}
@@ -0,0 +1,328 @@
+package com.univocity.trader.candles;
+
+import com.univocity.trader.indicators.base.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * A local, append-only file with the candle history of a single symbol. The file starts with a small header that
+ * identifies the symbol and the {@link TimeInterval} of its candles, followed by fixed-width rows ordered by
+ * {@link Candle#openTime}:
+ *
+ * <pre>
+ * header (64 bytes): magic (int) | version (short) | interval in ms (long) | symbol length (short) | symbol (UTF-8)
+ * row    (56 bytes): open_time (long) | close_time (long) | open | high | low | close | volume (double)
+ * </pre>
+ *
+ * Rows are read through a {@link MappedByteBuffer}, and the rows within a given time range are located with a
+ * binary search on the open and close times, so no parsing or decoding is required to replay the history.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ * @see FileCandleRepository
+ * @see CompressedCandleFile
+ */
+public class CandleFile implements CandleStore {
+
+	public static final String EXTENSION = ".candles";
+
+	private static final int MAGIC = 0x55564354; // "UVCT"
+	private static final short VERSION = 1;
+	static final int HEADER_SIZE = 64;
+	static final int ROW_SIZE = Long.BYTES * 2 + Double.BYTES * 5;
+	private static final int MAX_SYMBOL_LENGTH = HEADER_SIZE - (Integer.BYTES + Short.BYTES + Long.BYTES + Short.BYTES);
+
+	private final File file;
+	private final String symbol;
+	private final long interval;
+	private final FileChannel channel;
+	private final ByteBuffer row = ByteBuffer.allocate(ROW_SIZE);
+
+	private volatile long rowCount;
+	private long lastOpenTime = Long.MIN_VALUE;
+	private long lastCloseTime = Long.MIN_VALUE;
+
+	private CandleFile(File file, String symbol, long interval, FileChannel channel) throws IOException {
+		this.file = file;
+		this.symbol = symbol;
+		this.interval = interval;
+		this.channel = channel;
+
+		long dataLength = channel.size() - HEADER_SIZE;
+		this.rowCount = dataLength / ROW_SIZE;
+		if (dataLength % ROW_SIZE != 0) {
+			//discards incomplete row left by an interrupted write
+			channel.truncate(HEADER_SIZE + rowCount * ROW_SIZE);
+		}
+		if (rowCount > 0) {
+			lastOpenTime = readLong(HEADER_SIZE + (rowCount - 1) * ROW_SIZE);
+			lastCloseTime = readLong(HEADER_SIZE + (rowCount - 1) * ROW_SIZE + Long.BYTES);
+		}
+	}
+
+	private long readLong(long position) throws IOException {
+		ByteBuffer tmp = ByteBuffer.allocate(Long.BYTES);
+		while (tmp.hasRemaining()) {
+			if (channel.read(tmp, position + tmp.position()) < 0) {
+				throw new EOFException("Unexpected end of file " + file);
+			}
+		}
+		return tmp.flip().getLong();
+	}
+
+	/**
+	 * Opens an existing candle file, or creates a new one if it doesn't exist yet.
+	 *
+	 * @param file     the file to open
+	 * @param symbol   the symbol whose candles are stored in the file
+	 * @param interval the interval of each candle stored in the file
+	 *
+	 * @return the candle file, ready to be read and appended to.
+	 */
+	public static CandleFile open(File file, String symbol, TimeInterval interval) {
+		byte[] symbolBytes = symbol.getBytes(StandardCharsets.UTF_8);
+		if (symbolBytes.length > MAX_SYMBOL_LENGTH) {
+			throw new IllegalArgumentException("Symbol '" + symbol + "' is too long. Up to " + MAX_SYMBOL_LENGTH + " bytes are supported");
+		}
+		try {
+			FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			try {
+				if (channel.size() == 0) {
+					ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+					header.putInt(MAGIC).putShort(VERSION).putLong(interval.ms).putShort((short) symbolBytes.length).put(symbolBytes);
+					header.clear();
+					while (header.hasRemaining()) {
+						channel.write(header, header.position());
+					}
+					return new CandleFile(file, symbol, interval.ms, channel);
+				}
+				CandleFile out = open(file, channel);
+				if (!out.symbol.equals(symbol)) {
+					throw new IllegalStateException("File " + file + " contains candles of " + out.symbol + ", not " + symbol);
+				}
+				if (out.interval != interval.ms) {
+					throw new IllegalStateException("File " + file + " contains candles with interval of " + TimeInterval.millis(out.interval) + ", not " + interval);
+				}
+				return out;
+			} catch (RuntimeException | IOException e) {
+				channel.close();
+				throw e;
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to open candle file " + file, e);
+		}
+	}
+
+	/**
+	 * Opens an existing candle file, reading the symbol and interval from its header.
+	 *
+	 * @param file the file to open
+	 *
+	 * @return the candle file, ready to be read and appended to.
+	 */
+	public static CandleFile open(File file) {
+		try {
+			FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+			try {
+				return open(file, channel);
+			} catch (RuntimeException | IOException e) {
+				channel.close();
+				throw e;
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to open candle file " + file, e);
+		}
+	}
+
+	private static CandleFile open(File file, FileChannel channel) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		while (header.hasRemaining()) {
+			if (channel.read(header, header.position()) < 0) {
+				throw new IllegalStateException("Invalid candle file " + file + ". Header is incomplete");
+			}
+		}
+		header.flip();
+		if (header.getInt() != MAGIC) {
+			throw new IllegalStateException("Invalid candle file " + file);
+		}
+		short version = header.getShort();
+		if (version != VERSION) {
+			throw new IllegalStateException("Unsupported version " + version + " of candle file " + file);
+		}
+		long interval = header.getLong();
+		byte[] symbol = new byte[header.getShort()];
+		header.get(symbol);
+		return new CandleFile(file, new String(symbol, StandardCharsets.UTF_8), interval, channel);
+	}
+
+	public String getSymbol() {
+		return symbol;
+	}
+
+	public long getInterval() {
+		return interval;
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Returns the number of candles stored in this file
+	 *
+	 * @return the candle count
+	 */
+	public long size() {
+		return rowCount;
+	}
+
+	/**
+	 * Returns the open time of the most recent candle stored in this file.
+	 *
+	 * @return the open time of the last candle, or {@code Long.MIN_VALUE} if the file is empty.
+	 */
+	public synchronized long lastOpenTime() {
+		return lastOpenTime;
+	}
+
+	/**
+	 * Appends a candle to the end of this file. Candles must be appended in order, and any candle whose open and close
+	 * times are not after the ones of the last candle stored is discarded.
+	 *
+	 * @param openTime  the candle open time, in milliseconds
+	 * @param closeTime the candle close time, in milliseconds
+	 * @param open      the opening price
+	 * @param high      the highest price
+	 * @param low       the lowest price
+	 * @param close     the closing price
+	 * @param volume    the volume traded
+	 *
+	 * @return {@code true} if the candle was appended, {@code false} if it was discarded.
+	 */
+	public synchronized boolean append(long openTime, long closeTime, double open, double high, double low, double close, double volume) {
+		if (openTime < lastOpenTime || (openTime == lastOpenTime && closeTime <= lastCloseTime)) {
+			return false;
+		}
+		row.clear();
+		row.putLong(openTime).putLong(closeTime).putDouble(open).putDouble(high).putDouble(low).putDouble(close).putDouble(volume);
+		row.flip();
+		long position = HEADER_SIZE + rowCount * ROW_SIZE;
+		try {
+			while (row.hasRemaining()) {
+				channel.write(row, position + row.position());
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Error appending candle to file " + file, e);
+		}
+		lastOpenTime = openTime;
+		lastCloseTime = closeTime;
+		rowCount++;
+		return true;
+	}
+
+	/**
+	 * Maps the rows of this file into memory and returns an enumeration of the candles with {@code open_time >= from} and
+	 * {@code close_time <= to}. Candles appended after this method is invoked are not returned.
+	 *
+	 * @param from the earliest open time of the candles to return, or {@code null} to read from the first candle
+	 * @param to   the latest close time of the candles to return, or {@code null} to read up to the last candle
+	 *
+	 * @return the candles within the given range, in order.
+	 */
+	public Enumeration<Candle> read(Long from, Long to) {
+		final long rows = rowCount;
+		if (rows == 0) {
+			return Collections.emptyEnumeration();
+		}
+
+		final MappedByteBuffer buffer = map(rows);
+		final int start = from == null ? 0 : firstRow(buffer, (int) rows, 0, from);
+		final int end = to == null ? (int) rows : firstRow(buffer, (int) rows, Long.BYTES, to + 1);
+
+		return new Enumeration<>() {
+			int row = start;
+
+			@Override
+			public boolean hasMoreElements() {
+				return row < end;
+			}
+
+			@Override
+			public Candle nextElement() {
+				if (row >= end) {
+					throw new NoSuchElementException();
+				}
+				int position = HEADER_SIZE + (row++) * ROW_SIZE;
+				return new Candle(
+						buffer.getLong(position),
+						buffer.getLong(position + 8),
+						buffer.getDouble(position + 16),
+						buffer.getDouble(position + 24),
+						buffer.getDouble(position + 32),
+						buffer.getDouble(position + 40),
+						buffer.getDouble(position + 48));
+			}
+		};
+	}
+
+	private MappedByteBuffer map(long rows) {
+		if (HEADER_SIZE + rows * ROW_SIZE > Integer.MAX_VALUE) {
+			throw new IllegalStateException("Candle file " + file + " is too large to be mapped into memory");
+		}
+		try {
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE + rows * ROW_SIZE);
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to map candle file " + file, e);
+		}
+	}
+
+	/**
+	 * Binary search for the first row whose time value (at the given offset within the row) is greater than or equal to the given time.
+	 */
+	private static int firstRow(ByteBuffer buffer, int rows, int offset, long time) {
+		int low = 0;
+		int high = rows;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			long value = buffer.getLong(HEADER_SIZE + mid * ROW_SIZE + offset);
+			if (value < time) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Counts the candles with {@code open_time >= from} and {@code close_time <= to}.
+	 *
+	 * @param from the earliest open time, or {@code null}
+	 * @param to   the latest close time, or {@code null}
+	 *
+	 * @return the number of candles in the given range.
+	 */
+	public long count(Long from, Long to) {
+		final long rows = rowCount;
+		if (rows == 0 || (from == null && to == null)) {
+			return rows;
+		}
+		final MappedByteBuffer buffer = map(rows);
+		final int start = from == null ? 0 : firstRow(buffer, (int) rows, 0, from);
+		final int end = to == null ? (int) rows : firstRow(buffer, (int) rows, Long.BYTES, to + 1);
+		return Math.max(0, end - start);
+	}
+
+	@Override
+	public void close() {
+		try {
+			channel.close();
+		} catch (IOException e) {
+			throw new IllegalStateException("Error closing candle file " + file, e);
+		}
+	}
+}
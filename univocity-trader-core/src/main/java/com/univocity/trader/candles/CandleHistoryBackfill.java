@@ -5,20 +5,42 @@ import com.univocity.trader.indicators.base.*;
 import com.univocity.trader.utils.*;
 import org.apache.commons.lang3.*;
 import org.slf4j.*;
+import org.springframework.jdbc.core.*;
 
 import java.time.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 
 import static com.univocity.trader.candles.Candle.*;
 
 /**
+ * Fills the gaps in the candle history of symbols with historical data requested from an {@link Exchange}.
+ *
+ * The history of multiple symbols is updated concurrently by up to {@link Exchange#historicalRequestConcurrency()}
+ * threads: each symbol is checked for gaps, and every request required to fill them is queued as soon as its gaps are
+ * found. All requests are paced by a single {@link RateLimiter}, given by {@link Exchange#historicalRequestRateLimiter()}
+ * unless one is provided with {@link #rateLimiter(RateLimiter)}, so the backfill runs as fast as the exchange allows.
+ *
+ * Candles received are persisted with each response, and intervals without data are recorded in the {@code gap}
+ * table. An interrupted backfill therefore resumes from the gaps that remain when it runs again.
+ *
+ * When the coverage index is enabled with {@link com.univocity.trader.config.DatabaseConfiguration#coverageIndex(boolean)},
+ * gaps are computed from the time ranges covered by the stored candles instead of by reading the entire history of
+ * each symbol.
+ *
  * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
  */
 public class CandleHistoryBackfill {
 
 	private static final Logger log = LoggerFactory.getLogger(CandleRepository.class);
+	private static final int DEFAULT_PAGE_SIZE = 1000;
+	private static final int MAX_EMPTY_REQUESTS = 20;
+	private static final long PROGRESS_LOG_INTERVAL = 10_000;
 	private final CandleRepository candleRepository;
 	private boolean resumeBackfill = false;
+	private RateLimiter rateLimiter;
+	private volatile BackfillProgress progress;
 
 	public CandleHistoryBackfill(CandleRepository candleRepository) {
 		this.candleRepository = candleRepository;
@@ -32,10 +54,50 @@ public class CandleHistoryBackfill {
 		this.resumeBackfill = resumeBackfill;
 	}
 
+	public synchronized RateLimiter rateLimiter() {
+		return rateLimiter;
+	}
+
+	/**
+	 * Defines the rate limiter that paces the requests for historical data, shared by all threads of this backfill.
+	 *
+	 * @param rateLimiter the rate limiter to use, or {@code null} to use the one provided by
+	 *                    {@link Exchange#historicalRequestRateLimiter()}.
+	 */
+	public synchronized void rateLimiter(RateLimiter rateLimiter) {
+		this.rateLimiter = rateLimiter;
+	}
+
+	/**
+	 * Returns the progress of the current (or last) backfill of multiple symbols.
+	 *
+	 * @return the backfill progress, or {@code null} if no backfill of multiple symbols was started.
+	 */
+	public BackfillProgress progress() {
+		return progress;
+	}
+
+	private synchronized RateLimiter rateLimiter(Exchange<?, ?> exchange) {
+		if (rateLimiter == null) {
+			rateLimiter = exchange.historicalRequestRateLimiter();
+		}
+		return rateLimiter;
+	}
+
+	private void waitForNextRequest(Exchange<?, ?> exchange) {
+		try {
+			rateLimiter(exchange).acquire(exchange.historicalRequestWeight(limitPerRequest(exchange)));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Thread interrupted waiting for next request to exchange " + exchange.getClass().getName(), e);
+		}
+	}
+
 	public <T> void fillHistory(Exchange<T, ?> exchange, String symbol, Instant from, Instant to, TimeInterval minGap) {
 		long start = resumeIfPossible(symbol, from).toEpochMilli();
 		long end = to.toEpochMilli();
 		log.info("Refreshing history of {} from {} to {}.", symbol, getFormattedDateTimeWithYear(start), getFormattedDateTimeWithYear(end));
+		waitForNextRequest(exchange);
 		IncomingCandles<T> ticks = exchange.getHistoricalTicks(symbol, minGap, start, end);
 		persistIncomingCandles(exchange, ticks, symbol, start);
 		log.info("{} history backfill process complete.", symbol);
@@ -47,15 +109,11 @@ public class CandleHistoryBackfill {
 
 		log.info("Refreshing tick history of {} from {} to {}.", symbol, getFormattedDateTimeWithYear(stop), getFormattedDateTimeWithYear(end));
 		long start = end - TimeInterval.HOUR.ms;
-		long lastRequest = -1;
 
 		while (end > stop) {
-			if (lastRequest != -1) {
-				exchange.waitBeforeNextRequest(lastRequest);
-			}
-			lastRequest = System.currentTimeMillis();
+			waitForNextRequest(exchange);
 			IncomingCandles<T> ticks = exchange.getHistoricalTicks(symbol, minGap, start, end);
-			persistIncomingCandles(exchange, ticks, symbol, start);
+			PreciseCandle firstCandleReceived = persistIncomingCandles(exchange, ticks, symbol, start);
 			if (firstCandleReceived == null) {
 				log.info("No more ticks available for {}.", symbol);
 				break;
@@ -73,6 +131,7 @@ public class CandleHistoryBackfill {
 
 	private Instant resume(String symbol) {
 		log.info("Checking if backfill process of {} can be resumed", symbol);
+		candleRepository.flushHistory();
 		var q = "SELECT max(close_time) FROM candle WHERE symbol = ? AND ts = (SELECT max(ts) FROM candle WHERE symbol = ? LIMIT 1)";
 		Number closeOfLatestCandleLoaded = candleRepository.db().queryForObject(q, new Object[]{symbol, symbol}, Number.class);
 		if (closeOfLatestCandleLoaded != null) {
@@ -94,31 +153,170 @@ public class CandleHistoryBackfill {
 	}
 
 	public <T> void fillHistoryGaps(Exchange<T, ?> exchange, String symbol, Instant from, Instant to, TimeInterval minGap) {
+		fillHistoryGaps(exchange, List.of(symbol), from, to, minGap);
+	}
+
+	/**
+	 * Fills the gaps in the history of multiple symbols concurrently, logging the {@link #progress()} periodically.
+	 * Returns when the history of all symbols is up to date.
+	 *
+	 * @param exchange the exchange that provides the historical data
+	 * @param symbols  the symbols whose history will be updated
+	 * @param from     the earliest time of the history to check for gaps
+	 * @param to       the latest time of the history to check for gaps, or {@code null} to check up to the current time
+	 * @param minGap   the interval of the candles, i.e. the smallest gap between two candles that is filled
+	 * @param <T>      the type of candle produced by the exchange
+	 */
+	public <T> void fillHistoryGaps(Exchange<T, ?> exchange, Collection<String> symbols, Instant from, Instant to, TimeInterval minGap) {
 		to = to == null ? Instant.now() : to;
 		final int limitPerRequest = exchange.historicalCandleCountLimit();
-		if (limitPerRequest <= 0) {
-			fillHistory(exchange, symbol, from, to, minGap);
+		if (limitPerRequest <= 0 || minGap.ms <= 1) {
+			for (String symbol : symbols) {
+				if (limitPerRequest <= 0) {
+					fillHistory(exchange, symbol, from, to, minGap);
+				} else {
+					fillTickHistory(exchange, symbol, from, to, minGap);
+				}
+			}
 			return;
 		}
 
-		if (minGap.ms <= 1) {
-			fillTickHistory(exchange, symbol, from, to, minGap);
+		final BackfillProgress progress = new BackfillProgress(symbols.size());
+		this.progress = progress;
+		final int threads = Math.max(1, exchange.historicalRequestConcurrency());
+		final AtomicInteger threadCount = new AtomicInteger();
+		final ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+			Thread thread = new Thread(r, "history backfill " + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		//every task registers its own party, so the phase only advances once all gaps of all symbols are filled.
+		final Phaser pending = new Phaser(1);
+		try {
+			final Instant end = to;
+			for (String symbol : symbols) {
+				submit(executor, pending, () -> fillHistoryGaps(exchange, symbol, from, end, minGap, executor, pending, progress));
+			}
+
+			int phase = pending.arrive();
+			while (true) {
+				try {
+					pending.awaitAdvanceInterruptibly(phase, PROGRESS_LOG_INTERVAL, TimeUnit.MILLISECONDS);
+					break;
+				} catch (TimeoutException e) {
+					log.info("History backfill progress: {}", progress);
+				}
+			}
+			log.info("History backfill complete: {}", progress);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			log.warn("History backfill interrupted: {}", progress);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static void submit(Executor executor, Phaser pending, Runnable task) {
+		pending.register();
+		try {
+			executor.execute(() -> {
+				try {
+					task.run();
+				} finally {
+					pending.arriveAndDeregister();
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			pending.arriveAndDeregister();
+		}
+	}
+
+	private <T> void fillHistoryGaps(Exchange<T, ?> exchange, String symbol, Instant from, Instant to, TimeInterval minGap, Executor executor, Phaser pending, BackfillProgress progress) {
+		List<long[]> gaps;
+		IntervalSet knownGaps;
+		try {
+			knownGaps = loadKnownGaps(symbol);
+			gaps = findGaps(exchange, symbol, from, to, minGap, knownGaps);
+		} catch (Exception e) {
+			log.error("Error looking for gaps in history of " + symbol, e);
+			progress.symbolChecked(0);
 			return;
 		}
+		progress.symbolChecked(gaps.size());
+		if (gaps.isEmpty()) {
+			progress.symbolComplete();
+			log.info("{} history backfill process complete", symbol);
+			return;
+		}
+
+		log.info("Filling {} gaps in history of {}", gaps.size(), symbol);
+		//most recent gaps first
+		Collections.reverse(gaps);
+		SymbolGaps state = new SymbolGaps(symbol, gaps.size(), knownGaps);
+		for (int i = 0; i < gaps.size(); ) {
+			int next = i + 1;
+			while (next < gaps.size() && gaps.get(next)[1] == gaps.get(next - 1)[0]) {
+				next++;
+			}
+			MissingRange range = new MissingRange(next - i);
+			for (int page = 0; i < next; i++, page++) {
+				long[] gap = gaps.get(i);
+				int p = page;
+				submit(executor, pending, () -> fillGap(exchange, state, range, p, minGap, gap[0], gap[1], progress));
+			}
+		}
+	}
 
+	private <T> List<long[]> findGaps(Exchange<T, ?> exchange, String symbol, Instant from, Instant to, TimeInterval minGap, IntervalSet knownGaps) {
 		log.info("Looking for gaps in history of {} between {} and {}", symbol, getFormattedDateTimeWithYear(from.toEpochMilli()), getFormattedDateTimeWithYear(to.toEpochMilli()));
 
+		waitForNextRequest(exchange);
 		IncomingCandles<T> ticks = exchange.getLatestTicks(symbol, minGap);
-		if (persistIncomingCandles(exchange, ticks, symbol, from.toEpochMilli()) == 0) {
+		if (persistIncomingCandles(exchange, ticks, symbol, from.toEpochMilli()) == null) {
 			throw new IllegalStateException("No recent history data received");
 		}
 
+		int limitPerRequest = exchange.historicalCandleCountLimit() * Math.max(1, exchange.historicalPagesPerRequest());
+		IntervalSet coverage = candleRepository.getCoverage(symbol);
+		if (coverage != null) {
+			return findGaps(symbol, coverage, knownGaps, from, to, minGap, limitPerRequest);
+		}
+		return scanForGaps(symbol, from, to, minGap, limitPerRequest);
+	}
+
+	/**
+	 * Finds the gaps in the history of a symbol by subtracting the time ranges covered by its candles, and the known
+	 * gaps, from the time range to check. Gaps after the most recent candle stored are ignored, as the latest candles
+	 * are always requested first.
+	 */
+	private List<long[]> findGaps(String symbol, IntervalSet coverage, IntervalSet knownGaps, Instant from, Instant to, TimeInterval minGap, int limitPerRequest) {
+		List<long[]> gaps = new ArrayList<>();
+		long end = Math.min(to.toEpochMilli(), coverage.getEnd());
+		coverage.addAll(knownGaps);
+		for (long[] missing : coverage.missing(from.toEpochMilli(), end)) {
+			long gap = missing[1] - missing[0];
+			if (gap < minGap.ms) {
+				continue;
+			}
+			for (long start = missing[0]; start < missing[1]; start += limitPerRequest * minGap.ms) {
+				gaps.add(new long[]{start, Math.min(missing[1], start + limitPerRequest * minGap.ms)});
+			}
+			log.warn("Historical data of {} has a gap of {} minutes between {} and {}", symbol, (gap / minGap.ms), getFormattedDateTimeWithYear(missing[0]), getFormattedDateTimeWithYear(missing[1]));
+		}
+		return gaps;
+	}
+
+	/**
+	 * Finds the gaps in the history of a symbol by reading all of its candles and comparing their open times, for
+	 * databases without a coverage index.
+	 */
+	private List<long[]> scanForGaps(String symbol, Instant from, Instant to, TimeInterval minGap, int limitPerRequest) {
 		List<long[]> gaps = new ArrayList<>();
 
 		long previous = from == null ? -1 : from.toEpochMilli();
 
 		Enumeration<Candle> result = candleRepository.iterate(symbol, from, to, false);
-		outer:
 		while (result.hasMoreElements()) {
 			Candle candle = result.nextElement();
 			if (candle == null) {
@@ -149,97 +347,159 @@ public class CandleHistoryBackfill {
 			}
 			previous = minute;
 		}
+		return gaps;
+	}
 
-//		settings.removeIgnoredIntervals(gaps);
-
-		if (!gaps.isEmpty()) {
-//			if (gaps.size() > 30) {
-//				log.warn("Too many gaps in history: {}. Will process the 30 most recent and ignore older transactions", gaps.size());
-//				gaps = gaps.subList(gaps.size() - 30, gaps.size());
-//			}
-			Collections.reverse(gaps);
-			fillGaps(exchange, symbol, minGap, gaps);
+	/**
+	 * Gap filling state of a symbol, shared by the threads that fill its gaps.
+	 */
+	private static final class SymbolGaps {
+		final String symbol;
+		final AtomicInteger remaining;
+		final IntervalSet knownGaps;
+
+		SymbolGaps(String symbol, int gaps, IntervalSet knownGaps) {
+			this.symbol = symbol;
+			this.remaining = new AtomicInteger(gaps);
+			this.knownGaps = knownGaps;
 		}
-		log.info("{} history backfill process complete", symbol);
 	}
 
-	private <T> void fillGaps(Exchange<T, ?> exchange, String symbol, TimeInterval minGap, List<long[]> gaps) {
-		log.info("Filling {} gaps in history of {}", gaps.size(), symbol);
+	/**
+	 * Pages of a contiguous time range missing from the history of a symbol, most recent first. Pages are requested
+	 * concurrently, and a page is skipped once the {@value #MAX_EMPTY_REQUESTS} more recent pages that precede it
+	 * returned no data, as the history of the symbol likely starts after it.
+	 */
+	private static final class MissingRange {
+		private final boolean[] empty;
+		private boolean aborted;
+
+		MissingRange(int pages) {
+			this.empty = new boolean[pages];
+		}
 
-		int noDataCount = 0;
-		for (long[] gap : gaps) {
-			long start = gap[0];
-			long end = gap[1];
+		synchronized void empty(int page) {
+			empty[page] = true;
+		}
 
-			if (noDataCount > 20) {
-				log.info("Aborting gap filling of {} as there is no data before {}", symbol, getFormattedDateTimeWithYear(start));
-				return;
+		synchronized boolean noDataBefore(int page) {
+			if (page < MAX_EMPTY_REQUESTS) {
+				return false;
+			}
+			for (int i = page - MAX_EMPTY_REQUESTS; i < page; i++) {
+				if (!empty[i]) {
+					return false;
+				}
 			}
+			empty[page] = true;
+			return true;
+		}
 
-			if (isKnownGap(symbol, start, end)) {
-				noDataCount++;
-				continue;
+		synchronized boolean abort() {
+			if (aborted) {
+				return false;
 			}
+			aborted = true;
+			return true;
+		}
+	}
 
-			try {
-				long lastRequest = System.currentTimeMillis();
-				IncomingCandles<T> ticks = exchange.getHistoricalTicks(symbol.toUpperCase(), minGap, start, end);
-				int count = 0;
-				for (T tick : ticks) {
-					count++;
-					PreciseCandle candle = exchange.generatePreciseCandle(tick);
-					candleRepository.addToHistory(symbol, candle, true);
+	private <T> void fillGap(Exchange<T, ?> exchange, SymbolGaps state, MissingRange range, int page, TimeInterval minGap, long start, long end, BackfillProgress progress) {
+		final String symbol = state.symbol;
+		int count = 0;
+		try {
+			if (range.noDataBefore(page)) {
+				if (range.abort()) {
+					log.info("Aborting gap filling of {} as there is no data before {}", symbol, getFormattedDateTimeWithYear(end));
 				}
+				return;
+			}
 
-				if (count <= 2 && exchange.historicalCandleCountLimit() > 0) {
-					noDataCount++;
-//						log.info("No Candles found for {} between {} and {}", symbol, getFormattedDateTimeWithYear(start), getFormattedDateTimeWithYear(end));
-					log.warn("Found a historical gap between {} and {}. Interval blacklisted.", getFormattedDateTimeWithYear(start), getFormattedDateTimeWithYear(end));
-					addGap(symbol, start, end);
-				} else {
-					log.info("Loaded {} {} candles between {} and {}", count, symbol, getFormattedDateTimeWithYear(start), getFormattedDateTimeWithYear(end));
-					noDataCount = 0;
-				}
+			if (state.knownGaps.contains(start, end)) {
+				range.empty(page);
+				return;
+			}
 
-				if (ticks.consumerStopped()) {
-					log.warn("Process interrupted while retrieving {} history between {} and {}", symbol, getFormattedDateTimeWithYear(start), getFormattedDateTimeWithYear(end));
+			waitForNextRequest(exchange);
+			IncomingCandles<T> ticks = exchange.getHistoricalTicks(symbol.toUpperCase(), minGap, start, end);
+			final int pageSize = limitPerRequest(exchange);
+			List<PreciseCandle> candles = new ArrayList<>(pageSize);
+			for (T tick : ticks) {
+				count++;
+				candles.add(exchange.generatePreciseCandle(tick));
+				if (candles.size() >= pageSize) {
+					candleRepository.addToHistory(symbol, candles);
+					candles.clear();
 				}
-
-				exchange.waitBeforeNextRequest(lastRequest);
-			} catch (Exception e) {
-				log.error("Error retrieving history between {} and {}", start, end);
+			}
+			candleRepository.addToHistory(symbol, candles);
+
+			if (ticks.failed()) {
+				//not a gap in the history of the exchange, so the interval must be requested again.
+				log.warn("Loaded {} {} candles between {} and {} before the download failed. Interval not blacklisted.", count, symbol, getFormattedDateTimeWithYear(start), getFormattedDateTimeWithYear(end));
+			} else if (ticks.consumerStopped()) {
+				log.warn("Process interrupted while retrieving {} history between {} and {}", symbol, getFormattedDateTimeWithYear(start), getFormattedDateTimeWithYear(end));
+			} else if (count <= 2 && exchange.historicalCandleCountLimit() > 0) {
+				range.empty(page);
+				log.warn("Found a historical gap of {} between {} and {}. Interval blacklisted.", symbol, getFormattedDateTimeWithYear(start), getFormattedDateTimeWithYear(end));
+				addGap(state, start, end);
+			} else {
+				log.info("Loaded {} {} candles between {} and {}", count, symbol, getFormattedDateTimeWithYear(start), getFormattedDateTimeWithYear(end));
+			}
+		} catch (Exception e) {
+			log.error("Error retrieving " + symbol + " history between " + getFormattedDateTimeWithYear(start) + " and " + getFormattedDateTimeWithYear(end), e);
+		} finally {
+			progress.requestComplete(count);
+			if (state.remaining.decrementAndGet() == 0) {
+				progress.symbolComplete();
+				log.info("{} history backfill process complete", symbol);
 			}
 		}
 	}
 
-	private boolean isKnownGap(String symbol, long start, long end) {
-		return candleRepository.count("SELECT COUNT(*) FROM gap WHERE symbol = ? AND open_time = ? AND close_time = ?", symbol.toUpperCase(), start, end) > 0;
+	/**
+	 * Loads the intervals of the history of a symbol known to have no data, which are skipped when filling gaps.
+	 */
+	private IntervalSet loadKnownGaps(String symbol) {
+		IntervalSet out = new IntervalSet();
+		candleRepository.db().query("SELECT open_time, close_time FROM gap WHERE symbol = ?",
+				(RowCallbackHandler) rs -> out.add(rs.getLong(1), rs.getLong(2)), symbol.toUpperCase());
+		return out;
 	}
 
-	private void addGap(String symbol, long start, long end) {
+	private void addGap(SymbolGaps state, long start, long end) {
+		state.knownGaps.add(start, end);
 		try {
-			candleRepository.db().update("INSERT INTO gap VALUES (?,?,?)", symbol.toUpperCase(), start, end);
+			candleRepository.db().update("INSERT INTO gap VALUES (?,?,?)", state.symbol.toUpperCase(), start, end);
 		} catch (Exception e) {
-			log.error("Error persisting gap details: " + StringUtils.join(symbol, start, end), e);
+			log.error("Error persisting gap details: " + StringUtils.join(state.symbol, start, end), e);
 		}
 	}
 
-	private PreciseCandle firstCandleReceived;
+	private static int limitPerRequest(Exchange<?, ?> exchange) {
+		int limit = exchange.historicalCandleCountLimit();
+		return limit <= 0 ? DEFAULT_PAGE_SIZE : limit;
+	}
 
-	private <T> int persistIncomingCandles(Exchange<T, ?> exchange, IncomingCandles<T> ticks, String symbol, long start) {
-		firstCandleReceived = null;
+	private <T> PreciseCandle persistIncomingCandles(Exchange<T, ?> exchange, IncomingCandles<T> ticks, String symbol, long start) {
+		PreciseCandle firstCandleReceived = null;
 		int persisted = 0;
 		int received = 0;
+		final int pageSize = limitPerRequest(exchange);
+		List<PreciseCandle> page = new ArrayList<>(pageSize);
 		for (T tick : ticks) {
 			PreciseCandle candle = exchange.generatePreciseCandle(tick);
 			if (firstCandleReceived == null) {
 				firstCandleReceived = candle;
 			}
-			if (candleRepository.addToHistory(symbol, candle, true)) {
-				persisted++;
+			page.add(candle);
+			if (page.size() >= pageSize) {
+				persisted += candleRepository.addToHistory(symbol, page);
+				page.clear();
 			}
 			received++;
 		}
+		persisted += candleRepository.addToHistory(symbol, page);
 		if (ticks.consumerStopped()) {
 			log.warn("Process interrupted while retrieving {} history since {}", symbol, getFormattedDateTimeWithYear(start));
 		}
@@ -252,13 +512,13 @@ public class CandleHistoryBackfill {
 			var delete = "DELETE FROM CANDLE WHERE symbol = ? AND open_time = ? AND close_time = ?";
 			candleRepository.db().update(delete, symbol, firstCandleReceived.openTime, firstCandleReceived.closeTime);
 
-			if (candleRepository.addToHistory(symbol, firstCandleReceived, true)) {
+			if (candleRepository.addToHistory(symbol, List.of(firstCandleReceived)) > 0) {
 				log.info("Made a checkpoint to resume future {} backfills from {}", symbol, getFormattedDateTimeWithYear(firstCandleReceived.closeTime));
 			}
 		}
 
 		log.info("{} {} candles received, {} new candles added to history.", received, symbol, persisted);
-		return received;
+		return firstCandleReceived;
 	}
 
 }
@@ -0,0 +1,35 @@
+package com.univocity.trader.candles;
+
+/**
+ * Identifies a candle of a symbol by its open and close times, matching the unique constraint of the {@code candle} table.
+ */
+final class CandleKey {
+	final long openTime;
+	final long closeTime;
+
+	CandleKey(long openTime, long closeTime) {
+		this.openTime = openTime;
+		this.closeTime = closeTime;
+	}
+
+	CandleKey(PreciseCandle candle) {
+		this(candle.openTime, candle.closeTime);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+		CandleKey other = (CandleKey) o;
+		return openTime == other.openTime && closeTime == other.closeTime;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * Long.hashCode(openTime) + Long.hashCode(closeTime);
+	}
+}
@@ -12,11 +12,27 @@ public class CandleProcessor<T> {
 	private final Engine consumer;
 	private final Exchange exchange;
 	private final CandleRepository candleRepository;
+	private final Candle holder;
+	private final Candle times = Candle.newHolder();
 
 	public CandleProcessor(CandleRepository candleRepository, Engine consumer, Exchange<T, ?> exchange) {
+		this(candleRepository, consumer, exchange, false);
+	}
+
+	/**
+	 * Creates a processor of the live ticks of the symbol handled by a given {@link Engine}
+	 *
+	 * @param candleRepository the repository where ticks are stored
+	 * @param consumer         the engine that processes each new tick
+	 * @param exchange         the exchange that produces the ticks
+	 * @param reuseCandles     flag indicating whether each tick should be decoded into the same {@link Candle} instance,
+	 *                         with {@link Exchange#generateCandle(Object, Candle)}, instead of creating a new one.
+	 */
+	public CandleProcessor(CandleRepository candleRepository, Engine consumer, Exchange<T, ?> exchange, boolean reuseCandles) {
 		this.candleRepository = candleRepository;
 		this.consumer = consumer;
 		this.exchange = exchange;
+		this.holder = reuseCandles ? Candle.newHolder() : null;
 	}
 
 	public void processCandle(String symbol, Candle candle, boolean initializing) {
@@ -39,11 +55,17 @@ public class CandleProcessor<T> {
 				return;
 			}
 			synchronized (consumer) {
+				//most ticks are updates of the current candle, which are discarded. Checks their times first so their
+				//precise representation is only created when the tick is persisted.
+				exchange.generateCandle(realTimeTick, times);
+				if (candleRepository.isMostRecent(consumer.getSymbol(), times.openTime, times.closeTime)) {
+					return;
+				}
 				PreciseCandle tick = exchange.generatePreciseCandle(realTimeTick);
 				if (!candleRepository.addToHistory(consumer.getSymbol(), tick, initializing)) {  //already processed, skip.
 					return;
 				}
-				Candle candle = exchange.generateCandle(realTimeTick);
+				Candle candle = holder == null ? exchange.generateCandle(realTimeTick) : exchange.generateCandle(realTimeTick, holder);
 
 				processCandle(symbol, candle, initializing);
 			}
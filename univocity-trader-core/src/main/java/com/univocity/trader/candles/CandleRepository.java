@@ -1,13 +1,18 @@
 package com.univocity.trader.candles;
 
 import com.univocity.trader.config.*;
+import com.univocity.trader.indicators.base.*;
+import com.univocity.trader.utils.*;
 import org.slf4j.*;
 import org.springframework.jdbc.core.*;
 
+import javax.sql.*;
 import java.sql.*;
 import java.time.*;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
 
 public class CandleRepository {
 	private static final Logger log = LoggerFactory.getLogger(CandleRepository.class);
@@ -25,20 +30,112 @@ public class CandleRepository {
 		return out;
 	};
 
-	protected final ConcurrentHashMap<String, Collection<Candle>> cachedResults = new ConcurrentHashMap<>();
+	protected final CandleCache cache;
+	private final ConcurrentHashMap<String, CompletableFuture<Collection<Candle>>> loading = new ConcurrentHashMap<>();
 	private final ConcurrentHashMap<String, Long> candleCounts = new ConcurrentHashMap<>();
+	private final DatabaseConfiguration config;
 	private final ThreadLocal<JdbcTemplate> db;
+	private volatile DataSource streamDataSource;
+	private final ReadAheadStream.Limit streamLimit;
+	private final CandleWriter writer;
+	private final int readBatchSize;
+	private final int readAheadBatches;
+	private final int readerThreads;
+	private volatile ExecutorService readers;
+	private final CandleRollups rollups;
+	private final CandleCoverage coverage;
 
 	public CandleRepository(DatabaseConfiguration config) {
-		this.db = ThreadLocal.withInitial(() -> new JdbcTemplate(config.dataSource()));
+		this.config = config;
+		this.db = ThreadLocal.withInitial(() -> new JdbcTemplate(config().dataSource()));
+		if (config == null) {
+			this.cache = new CandleCache(Runtime.getRuntime().maxMemory() / 2, CandleCache.EvictionPolicy.LRU);
+			this.readBatchSize = 500;
+			this.readAheadBatches = 8;
+			this.readerThreads = Runtime.getRuntime().availableProcessors();
+			this.streamLimit = new ReadAheadStream.Limit(Integer.MAX_VALUE);
+			this.rollups = null;
+			this.coverage = null;
+			this.writer = null;
+		} else {
+			this.cache = new CandleCache(config.cacheMaxSize(), config.cacheEvictionPolicy());
+			this.readBatchSize = config.readBatchSize();
+			this.readAheadBatches = config.readAheadBatches();
+			this.readerThreads = config.readerThreads() == 0 ? Runtime.getRuntime().availableProcessors() : config.readerThreads();
+			//one pooled connection is left for queries that don't stream candles
+			this.streamLimit = new ReadAheadStream.Limit(config.connectionPoolSize() == 0 ? Integer.MAX_VALUE : Math.max(1, config.connectionPoolSize() - 1));
+			this.rollups = config.rollupIntervals().length > 0 ? new CandleRollups(this, config.rollupIntervals()) : null;
+			this.coverage = config.coverageIndex() ? new CandleCoverage(this) : null;
+			this.writer = config.writeBatchSize() > 0 ? new CandleWriter(this, config.writeBatchSize(), config.writeMaxLatency(), config.writeQueueCapacity()) : null;
+		}
+	}
+
+	private DatabaseConfiguration config() {
+		if (config == null) {
+			throw new IllegalStateException("No database configured for " + getClass().getSimpleName());
+		}
+		return config;
 	}
 
 	public JdbcTemplate db() {
 		return db.get();
 	}
 
+	/**
+	 * Returns the maximum number of streams of candles that can read from the database at the same time. Each stream
+	 * holds a connection while reading, and further streams only start reading once another ends or is closed. When
+	 * a connection pool is used, one of its connections is left for other queries.
+	 *
+	 * @return the maximum number of open streams.
+	 *
+	 * @see DatabaseConfiguration#connectionPoolSize(int)
+	 */
+	public int getMaxOpenStreams() {
+		return streamLimit.getMax();
+	}
+
+	/**
+	 * Opens a connection used by a single stream of candles, which may be suspended and resumed by any reader thread.
+	 *
+	 * @return a new connection, to be closed once the stream ends.
+	 *
+	 * @throws SQLException if the connection can't be opened.
+	 */
+	private Connection openStreamConnection() throws SQLException {
+		if (streamDataSource == null) {
+			synchronized (this) {
+				if (streamDataSource == null) {
+					streamDataSource = config().streamDataSource();
+				}
+			}
+		}
+		return streamDataSource.getConnection();
+	}
+
+	/**
+	 * Returns the cache of candles loaded by this repository, with its usage statistics.
+	 *
+	 * @return the candle cache.
+	 */
+	public CandleCache getCache() {
+		return cache;
+	}
+
+	/**
+	 * Returns the estimated number of bytes taken by each candle kept in the cache.
+	 *
+	 * @return the estimated memory taken by each cached candle.
+	 */
+	protected long cachedCandleSize() {
+		return 80; //object header, 2 longs, 5 doubles, padding, plus a reference to it in the list
+	}
+
 	private String buildCandleQuery(String symbol) {
-		return "SELECT open_time, close_time, open, high, low, close, volume FROM candle WHERE symbol = '" + symbol + "'";
+		return buildCandleQuery("candle", symbol);
+	}
+
+	private String buildCandleQuery(String table, String symbol) {
+		return "SELECT open_time, close_time, open, high, low, close, volume FROM " + table + " WHERE symbol = '" + symbol + "'";
 	}
 
 	private PreparedStatement prepareInsert(PreparedStatement ps, String symbol, PreciseCandle tick) throws SQLException {
@@ -55,21 +152,193 @@ public class CandleRepository {
 
 	private final ConcurrentHashMap<String, long[]> recentCandles = new ConcurrentHashMap<>();
 
-	public boolean addToHistory(String symbol, PreciseCandle tick, boolean initializing) {
+	protected final void clearCandleCounts() {
 		candleCounts.clear();
+	}
+
+	/**
+	 * Marks a candle as the most recent candle added to the history of a symbol
+	 *
+	 * @return {@code true} if the given candle was already the most recent one
+	 */
+	private boolean markAsRecent(String symbol, PreciseCandle tick) {
+		long[] times = recentCandles.get(symbol);
+		if (times != null && times[0] == tick.openTime && times[1] == tick.closeTime) {
+			return true;
+		} else {
+			if (times == null) {
+				times = new long[2];
+				recentCandles.put(symbol, times);
+			}
+			times[0] = tick.openTime;
+			times[1] = tick.closeTime;
+		}
+		return false;
+	}
+
+	/**
+	 * Tests whether the given times belong to the most recent candle added to the history of a symbol, i.e. whether
+	 * {@link #addToHistory(String, PreciseCandle, boolean)} would discard a candle with these times as a duplicate.
+	 *
+	 * @param symbol    the symbol of the candle
+	 * @param openTime  the open time of the candle
+	 * @param closeTime the close time of the candle
+	 *
+	 * @return {@code true} if the last candle added to the history of the symbol has the same open and close times.
+	 */
+	public boolean isMostRecent(String symbol, long openTime, long closeTime) {
+		long[] times = recentCandles.get(symbol);
+		return times != null && times[0] == openTime && times[1] == closeTime;
+	}
+
+	/**
+	 * Adds a candle to the history of a symbol. Candles identical to the last candle added for the same symbol are
+	 * discarded. If write-behind is enabled (see {@link DatabaseConfiguration#writeBatchSize(int)}), the candle is
+	 * queued and persisted in background.
+	 *
+	 * @param symbol       the symbol of the candle
+	 * @param tick         the candle to add
+	 * @param initializing flag indicating whether the candle is being added during the initialization of the application
+	 *
+	 * @return {@code true} if the candle is new and was added to the history, otherwise {@code false}
+	 */
+	public boolean addToHistory(String symbol, PreciseCandle tick, boolean initializing) {
+		clearCandleCounts();
+		if (markAsRecent(symbol, tick)) {
+			return false; //duplicate, skip
+		}
+		evictCached(symbol, tick.openTime, tick.closeTime);
+		if (writer != null) {
+			writer.enqueue(symbol, tick);
+			return true;
+		}
+		if (insert(symbol, tick, initializing)) {
+			if (rollups != null) {
+				rollups.add(symbol, tick.openTime);
+			}
+			updateCoverage(symbol, Collections.singletonList(tick));
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Adds a sequence of candles, ordered by open time, to the history of a symbol. Candles already in the history are
+	 * identified with a single query over the time range of the given candles and discarded, and the remaining ones are
+	 * persisted with batch inserts.
+	 *
+	 * @param symbol  the symbol of the candles
+	 * @param candles the candles to add
+	 *
+	 * @return the number of new candles added to the history.
+	 */
+	public int addToHistory(String symbol, List<PreciseCandle> candles) {
+		if (candles.isEmpty()) {
+			return 0;
+		}
+		clearCandleCounts();
+
+		long from = Long.MAX_VALUE;
+		long to = Long.MIN_VALUE;
+		for (PreciseCandle candle : candles) {
+			from = Math.min(from, candle.openTime);
+			to = Math.max(to, candle.openTime);
+		}
+
+		Set<CandleKey> existing;
 		try {
-			long[] times = recentCandles.get(symbol);
-			if (times != null && times[0] == tick.openTime && times[1] == tick.closeTime) {
-				return false; //duplicate, skip
-			} else {
-				if (times == null) {
-					times = new long[2];
-					recentCandles.put(symbol, times);
+			existing = storedKeys(symbol, from, to);
+		} catch (Exception e) {
+			log.error("Error reading existing " + symbol + " candles from db()", e);
+			return 0;
+		}
+
+		markAsRecent(symbol, candles.get(candles.size() - 1));
+
+		List<PreciseCandle> toAdd = new ArrayList<>(candles.size());
+		List<PreciseCandle> stored = coverage == null ? null : new ArrayList<>();
+		for (PreciseCandle candle : candles) {
+			CandleKey key = new CandleKey(candle);
+			if (existing.add(key)) {
+				if (writer == null || !writer.isPending(symbol, key)) {
+					toAdd.add(candle);
 				}
-				times[0] = tick.openTime;
-				times[1] = tick.closeTime;
+			} else if (stored != null) {
+				stored.add(candle);
 			}
+		}
+		if (stored != null) {
+			updateCoverage(symbol, stored);
+		}
+		if (toAdd.isEmpty()) {
+			return 0;
+		}
+		evictCached(symbol, toAdd.get(0).openTime, toAdd.get(toAdd.size() - 1).closeTime);
+
+		if (writer != null) {
+			toAdd.forEach(candle -> writer.enqueue(symbol, candle));
+			return toAdd.size();
+		}
+		return persist(symbol, toAdd);
+	}
 
+	/**
+	 * Reads the keys of the candles of a symbol already in the history, within a range of open times.
+	 *
+	 * @param symbol the symbol of the candles
+	 * @param from   the earliest open time
+	 * @param to     the latest open time
+	 *
+	 * @return the open and close times of the candles stored in the given range.
+	 */
+	Set<CandleKey> storedKeys(String symbol, long from, long to) {
+		Set<CandleKey> out = new HashSet<>();
+		db().query("SELECT open_time, close_time FROM candle WHERE symbol = ? AND open_time >= ? AND open_time <= ?",
+				(RowCallbackHandler) rs -> out.add(new CandleKey(rs.getLong(1), rs.getLong(2))), symbol, from, to);
+		return out;
+	}
+
+	/**
+	 * Persists a batch of candles queued by the {@link CandleWriter}. Single candles are queued after being compared
+	 * against the last candle added in memory only, so the candles already in the history (e.g. stored before a
+	 * restart) are identified with a single query over the time range of the batch and discarded before the batch
+	 * insert.
+	 *
+	 * @param symbol  the symbol of the candles
+	 * @param candles the candles to persist
+	 *
+	 * @return the number of candles persisted.
+	 */
+	int persistNew(String symbol, List<PreciseCandle> candles) {
+		long from = Long.MAX_VALUE;
+		long to = Long.MIN_VALUE;
+		for (PreciseCandle candle : candles) {
+			from = Math.min(from, candle.openTime);
+			to = Math.max(to, candle.openTime);
+		}
+
+		Set<CandleKey> existing;
+		try {
+			existing = storedKeys(symbol, from, to);
+		} catch (Exception e) {
+			log.warn("Error reading existing {} candles from db(). Persisting batch of {} candles as is.", symbol, candles.size(), e);
+			return persist(symbol, candles);
+		}
+
+		List<PreciseCandle> toAdd = new ArrayList<>(candles.size());
+		for (PreciseCandle candle : candles) {
+			if (existing.add(new CandleKey(candle))) {
+				toAdd.add(candle);
+			}
+		}
+		if (toAdd.isEmpty()) {
+			return 0;
+		}
+		return persist(symbol, toAdd);
+	}
+
+	private boolean insert(String symbol, PreciseCandle tick, boolean initializing) {
+		try {
 			if (db().execute(INSERT, (PreparedStatementCallback<Integer>) ps -> prepareInsert(ps, symbol, tick).executeUpdate()) == 0) {
 				log.warn("Could not persist " + symbol + " Tick: " + tick);
 				return false;
@@ -87,79 +356,247 @@ public class CandleRepository {
 		return true;
 	}
 
-	protected Enumeration<Candle> cacheAndReturnResults(String symbol, String query, Instant from, Instant to, Collection<Candle> out) {
-		cachedResults.put(symbol, out);
-		return Collections.enumeration(out);
+	/**
+	 * Persists candles of a symbol with a batch insert. If the batch fails (e.g. because another process added some
+	 * of the candles in the meantime), the candles are persisted one by one.
+	 *
+	 * @param symbol  the symbol of the candles
+	 * @param candles the candles to persist
+	 *
+	 * @return the number of candles persisted.
+	 */
+	protected int persist(String symbol, List<PreciseCandle> candles) {
+		try {
+			db().batchUpdate(INSERT, new BatchPreparedStatementSetter() {
+				@Override
+				public void setValues(PreparedStatement ps, int i) throws SQLException {
+					prepareInsert(ps, symbol, candles.get(i));
+				}
+
+				@Override
+				public int getBatchSize() {
+					return candles.size();
+				}
+			});
+			clearCandleCounts();
+			updateRollups(symbol, candles);
+			updateCoverage(symbol, candles);
+			return candles.size();
+		} catch (Exception e) {
+			log.warn("Batch insert of {} {} candles failed ({}). Persisting candles individually.", candles.size(), symbol, e.getMessage());
+		}
+		List<PreciseCandle> inserted = new ArrayList<>(candles.size());
+		for (PreciseCandle candle : candles) {
+			if (insert(symbol, candle, true)) {
+				inserted.add(candle);
+			}
+		}
+		clearCandleCounts();
+		updateRollups(symbol, candles);
+		updateCoverage(symbol, inserted);
+		return inserted.size();
 	}
 
-	private Enumeration<Candle> toEnumeration(String symbol, String query, Instant from, Instant to, Runnable readingProcess, Collection<Candle> out, boolean[] ended) {
-		if (!(out instanceof BlockingQueue)) {
-			readingProcess.run();
-			return cacheAndReturnResults(symbol, query, from, to, out);
+	private void updateRollups(String symbol, List<PreciseCandle> candles) {
+		if (rollups != null && !candles.isEmpty()) {
+			long from = Long.MAX_VALUE;
+			long to = Long.MIN_VALUE;
+			for (PreciseCandle candle : candles) {
+				from = Math.min(from, candle.openTime);
+				to = Math.max(to, candle.openTime);
+			}
+			updateRollups(symbol, from, to);
 		}
+	}
 
-		final BlockingQueue<Candle> queue = (BlockingQueue<Candle>) out;
-		new Thread(readingProcess).start();
-		return new Enumeration<>() {
-			@Override
-			public boolean hasMoreElements() {
-				return !ended[0] || !queue.isEmpty();
+	/**
+	 * Recomputes the candles of the rollup tables (if any are configured, see
+	 * {@link DatabaseConfiguration#rollupIntervals(TimeInterval...)}) that contain the candles of a symbol within a
+	 * time range. Rollups are updated automatically as candles are added to the history, this method is only required
+	 * to build the rollups of candles persisted before rollups were enabled.
+	 *
+	 * @param symbol the symbol whose rollups will be updated
+	 * @param from   the earliest open time of the candles to roll up
+	 * @param to     the latest open time of the candles to roll up
+	 */
+	public void updateRollups(String symbol, long from, long to) {
+		if (rollups != null) {
+			rollups.update(symbol, from, to);
+		}
+	}
+
+	private void updateCoverage(String symbol, List<PreciseCandle> candles) {
+		if (coverage != null) {
+			try {
+				coverage.add(symbol, candles);
+			} catch (Exception e) {
+				log.error("Error updating coverage index of " + symbol, e);
 			}
+		}
+	}
 
-			@Override
-			public Candle nextElement() {
-				while (hasMoreElements()) {
-					Candle next = null;
-					try {
-						next = queue.poll(100L, TimeUnit.MILLISECONDS);
-					} catch (InterruptedException e) {
-						log.error("Candle reading process interrupted", e);
-						Thread.currentThread().interrupt();
-					}
-					if (next != null) {
-						return next;
-					}
-				}
-				return null;
+	/**
+	 * Returns the time ranges covered by the candles of a symbol stored in the database, if the coverage index is
+	 * enabled (see {@link DatabaseConfiguration#coverageIndex(boolean)}). Each candle covers the time from its open time
+	 * up to its close time, so the ranges of consecutive candles are contiguous.
+	 *
+	 * @param symbol the symbol whose coverage is required
+	 *
+	 * @return a copy of the ranges covered by the candles of the given symbol, or {@code null} if the coverage index is disabled.
+	 */
+	public IntervalSet getCoverage(String symbol) {
+		if (coverage == null) {
+			return null;
+		}
+		flushHistory();
+		return new IntervalSet(coverage.get(symbol));
+	}
+
+	/**
+	 * Streams every candle of a symbol stored in the {@code candle} table, without waiting for queued candles to be written.
+	 */
+	Enumeration<Candle> streamHistory(String symbol) {
+		return streamQuery(symbol, buildCandleQuery(symbol) + " ORDER BY open_time");
+	}
+
+	private static String rollupKey(String symbol, TimeInterval rollup) {
+		return symbol + "@" + rollup;
+	}
+
+	private void evictCached(String symbol, long from, long to) {
+		cache.evict(symbol, from, to);
+		if (rollups != null) {
+			for (TimeInterval rollup : rollups.intervals()) {
+				cache.evict(rollupKey(symbol, rollup), from - Math.floorMod(from, rollup.ms), to - Math.floorMod(to, rollup.ms) + rollup.ms - 1);
 			}
-		};
+		}
+	}
+
+	/**
+	 * Blocks until all candles queued to be persisted in background are written to the database, and the rollup
+	 * candles still receiving candles are up to date.
+	 */
+	public void flushHistory() {
+		if (writer != null) {
+			writer.flush();
+		}
+		if (rollups != null) {
+			rollups.flush();
+		}
+	}
+
+	private static String cacheKey(String symbol, Instant from, Instant to) {
+		return symbol + "_" + toEpochMilli(from) + "_" + toEpochMilli(to);
+	}
+
+	private static Long toEpochMilli(Instant instant) {
+		return instant == null ? null : instant.toEpochMilli();
+	}
+
+	protected Enumeration<Candle> cacheAndReturnResults(String symbol, String query, Instant from, Instant to, Collection<Candle> out) {
+		try {
+			cache.put(symbol, toEpochMilli(from), toEpochMilli(to), out, cachedCandleSize());
+		} finally {
+			CompletableFuture<Collection<Candle>> result = loading.remove(cacheKey(symbol, from, to));
+			if (result != null) {
+				result.complete(out);
+			}
+		}
+		return CandleCache.enumeration(out);
+	}
+
+	private void loadingFailed(String symbol, Instant from, Instant to, Throwable error) {
+		CompletableFuture<Collection<Candle>> result = loading.remove(cacheKey(symbol, from, to));
+		if (result != null) {
+			result.completeExceptionally(error);
+		}
 	}
 
 	protected void storeCandle(String symbol, Instant from, Instant to, Collection<Candle> out, Candle candle) {
 		out.add(candle);
 	}
 
-	protected void ended(String symbol, boolean[] ended) {
-		ended[0] = true;
+	protected Enumeration<Candle> executeQuery(String symbol, String query, Instant from, Instant to, Collection<Candle> out) {
+		final long start = System.currentTimeMillis();
+		log.debug("Executing SQL query: [{}]", query);
+		int count = 0;
+
+		try (Connection c = db().getDataSource().getConnection();
+			 final PreparedStatement s = c.prepareStatement(query);
+			 ResultSet rs = executeQuery(s)) {
+
+			while (rs.next()) {
+				Candle candle = CANDLE_MAPPER.mapRow(rs, 0);
+				storeCandle(symbol, from, to, out, candle);
+				count++;
+			}
+		} catch (SQLException e) {
+			//incomplete results must not be cached
+			throw new IllegalStateException("Error reading " + symbol + " candles from database", e);
+		} finally {
+			log.trace("Read all {} candles of {} in {} seconds", count, symbol, (System.currentTimeMillis() - start) / 1000.0);
+		}
+
+		return cacheAndReturnResults(symbol, query, from, to, out);
 	}
 
-	protected Enumeration<Candle> executeQuery(String symbol, String query, Instant from, Instant to, Collection<Candle> out) {
-		boolean[] ended = new boolean[]{false};
+	/**
+	 * Streams the results of a query through a {@link CandleStream}, which reads batches of candles in background
+	 * using the executor shared by all streams of this repository, with a connection of its own.
+	 *
+	 * @param symbol the symbol whose candles are being queried
+	 * @param query  the query to execute
+	 *
+	 * @return the candles returned by the query, as they are read from the database.
+	 */
+	protected Enumeration<Candle> streamQuery(String symbol, String query) {
+		return new CandleStream(symbol, new CandleStream.Source() {
+			private final long start = System.currentTimeMillis();
+			private Connection connection;
+			private PreparedStatement statement;
+			private ResultSet rs;
+			private int count;
 
-		final long start = System.currentTimeMillis();
-		Runnable readingProcess = () -> {
-			Thread.currentThread().setName(symbol + " candle reader");
-			log.debug("Executing SQL query: [{}]", query);
-			int count = 0;
-
-			try (Connection c = db().getDataSource().getConnection();
-				 final PreparedStatement s = c.prepareStatement(query);
-				 ResultSet rs = executeQuery(s)) {
-
-				while (rs.next()) {
-					Candle candle = CANDLE_MAPPER.mapRow(rs, 0);
-					storeCandle(symbol, from, to, out, candle);
-					count++;
+			@Override
+			public int read(Candle[] batch) throws SQLException {
+				if (rs == null) {
+					log.debug("Executing SQL query: [{}]", query);
+					connection = openStreamConnection();
+					statement = connection.prepareStatement(query);
+					rs = executeQuery(statement);
+				}
+				int i = 0;
+				while (i < batch.length && rs.next()) {
+					batch[i++] = CANDLE_MAPPER.mapRow(rs, 0);
 				}
-			} catch (SQLException e) {
-				log.error("Error reading " + symbol + " Candle from db().", e);
-			} finally {
-				log.trace("Read all {} candles of {} in {} seconds", count, symbol, (System.currentTimeMillis() - start) / 1000.0);
-				ended(symbol, ended);
+				count += i;
+				return i;
 			}
-		};
 
-		return toEnumeration(symbol, query, from, to, readingProcess, out, ended);
+			@Override
+			public void close() throws SQLException {
+				log.trace("Read {} candles of {} in {} seconds", count, symbol, (System.currentTimeMillis() - start) / 1000.0);
+				try (Connection c = connection; PreparedStatement s = statement; ResultSet r = rs) {
+					//closes all resources
+				}
+			}
+		}, readers(), streamLimit, readBatchSize, readAheadBatches);
+	}
+
+	private Executor readers() {
+		if (readers == null) {
+			synchronized (this) {
+				if (readers == null) {
+					AtomicInteger count = new AtomicInteger();
+					readers = Executors.newFixedThreadPool(readerThreads, r -> {
+						Thread thread = new Thread(r, "candle reader " + count.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					});
+				}
+			}
+		}
+		return readers;
 	}
 
 	private boolean isDatabaseMySQL() {
@@ -188,14 +625,46 @@ public class CandleRepository {
 	}
 
 	public void clearCaches() {
-		cachedResults.clear();
+		cache.clear();
+	}
+
+	/**
+	 * Keeps the cached candles of a symbol, including its rollup candles, in memory regardless of the cache budget.
+	 *
+	 * @param symbol the symbol whose cached candles must be kept in memory.
+	 *
+	 * @see CandleCache#pin(String)
+	 */
+	public void pinCached(String symbol) {
+		cache.pin(symbol);
+		if (rollups != null) {
+			for (TimeInterval rollup : rollups.intervals()) {
+				cache.pin(rollupKey(symbol, rollup));
+			}
+		}
+	}
+
+	/**
+	 * Makes the cached candles of a symbol pinned with {@link #pinCached(String)} subject to the cache budget again.
+	 *
+	 * @param symbol the symbol whose cached candles no longer need to be kept in memory.
+	 */
+	public void unpinCached(String symbol) {
+		cache.unpin(symbol);
+		if (rollups != null) {
+			for (TimeInterval rollup : rollups.intervals()) {
+				cache.unpin(rollupKey(symbol, rollup));
+			}
+		}
 	}
 
 	public void evictFromCache(String symbol) {
 		log.trace("Evicting cached candles of {}", symbol);
-		Collection<Candle> candles = cachedResults.remove(symbol);
-		if (candles != null) {
-			candles.clear();
+		cache.evict(symbol);
+		if (rollups != null) {
+			for (TimeInterval rollup : rollups.intervals()) {
+				cache.evict(rollupKey(symbol, rollup));
+			}
 		}
 	}
 
@@ -221,33 +690,36 @@ public class CandleRepository {
 		return narrowQueryToTimeInterval(query, from == null ? null : from.toEpochMilli(), to == null ? null : to.toEpochMilli());
 	}
 
+	/**
+	 * Returns the cached candles of a symbol within a time range. If the candles are not cached, and no other thread is
+	 * loading them, the current thread becomes responsible for loading them and {@code null} is returned. Otherwise,
+	 * the current thread blocks until the thread loading the same candles completes, and gets the same result (or error).
+	 *
+	 * @return the cached candles, or {@code null} if the caller must load them and then invoke
+	 * {@link #cacheAndReturnResults(String, String, Instant, Instant, Collection)}.
+	 */
 	protected Enumeration<Candle> getCachedResults(String symbol, String query, Instant from, Instant to) {
-		Collection<Candle> cachedResult;
-		boolean waitForCache;
-		synchronized (cachedResults) {
-			cachedResult = cachedResults.get(symbol);
+		final String key = cacheKey(symbol, from, to);
+		CompletableFuture<Collection<Candle>> pending;
+		synchronized (loading) {
+			Enumeration<Candle> cachedResult = cache.get(symbol, toEpochMilli(from), toEpochMilli(to));
 			if (cachedResult != null) {
-				waitForCache = true;
-			} else {
-				cachedResults.put(symbol, Collections.emptyList());
-				waitForCache = false;
+				return cachedResult;
+			}
+			pending = loading.putIfAbsent(key, new CompletableFuture<>());
+			if (pending == null) {
+				return null; //caller loads the candles
 			}
 		}
 
-		if (waitForCache) {
-			while (cachedResult == Collections.EMPTY_LIST) {
-				try {
-					Thread.sleep(100);
-					cachedResult = cachedResults.get(symbol);
-				} catch (InterruptedException e) {
-					log.error("Error waiting for cached result of query " + query, e);
-					clearCaches();
-					Thread.currentThread().interrupt();
-				}
-			}
-			return Collections.enumeration(cachedResult);
+		try {
+			return CandleCache.enumeration(pending.get());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for candles of " + symbol + " to be loaded", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Error loading candles of " + symbol + " with query " + query, e.getCause());
 		}
-		return null;
 	}
 
 	protected Collection<Candle> getCacheStorage(long cacheSize) {
@@ -255,35 +727,255 @@ public class CandleRepository {
 	}
 
 	public Enumeration<Candle> iterate(String symbol, Instant from, Instant to, boolean cache) {
-		String query = buildCandleQuery(symbol);
+		return read(symbol, null, from, to, cache);
+	}
+
+	/**
+	 * Returns the candles of a symbol, read from the coarsest rollup table that can provide candles with a given
+	 * resolution, i.e. the coarsest rollup whose interval divides the interval of the resolution. If no rollup tables
+	 * are configured, or none is suitable, the candles are read from the {@code candle} table.
+	 *
+	 * @param symbol     the symbol whose candles will be returned
+	 * @param from       the earliest open time of the candles to return, or {@code null} for no lower bound
+	 * @param to         the latest close time of the candles to return, or {@code null} for no upper bound
+	 * @param resolution the interval of the candles required by the caller, e.g. the greatest common divisor of
+	 *                   the intervals of all indicators that will process the candles. Use {@code null} to
+	 *                   read candles as stored in the {@code candle} table.
+	 * @param cache      flag indicating whether to keep the candles in memory for subsequent calls.
+	 *
+	 * @return the candles of the symbol, in time order.
+	 * @see DatabaseConfiguration#rollupIntervals(TimeInterval...)
+	 */
+	public Enumeration<Candle> iterate(String symbol, Instant from, Instant to, TimeInterval resolution, boolean cache) {
+		TimeInterval rollup = rollups == null ? null : rollups.select(resolution);
+		if (rollup == null) {
+			return iterate(symbol, from, to, cache);
+		}
+		return read(symbol, rollup, from, to, cache);
+	}
+
+	private Enumeration<Candle> read(String symbol, TimeInterval rollup, Instant from, Instant to, boolean cache) {
+		flushHistory();
+		String query = buildCandleQuery(rollup == null ? "candle" : CandleRollups.tableName(rollup), symbol);
 		query = narrowQueryToTimeInterval(query, from, to);
 		query += " ORDER BY open_time";
 
-		Collection<Candle> out;
-
 		if (cache) {
-			Enumeration<Candle> cached = getCachedResults(symbol, query, from, to);
+			String key = rollup == null ? symbol : rollupKey(symbol, rollup);
+			Enumeration<Candle> cached = getCachedResults(key, query, from, to);
 			if (cached != null) {
 				return cached;
 			}
-			long cacheSize = countCandles(symbol, from, to);
-			out = getCacheStorage(cacheSize);
-		} else {
-			out = new ArrayBlockingQueue<>(5000) {
-				public boolean add(Candle e) {
-					try {
-						super.put(e);
-					} catch (InterruptedException ex) {
-						log.error("Candle loading process interrupted", ex);
-						Thread.currentThread().interrupt();
-						return false;
-					}
-					return true;
+			try {
+				long cacheSize = countCandles(symbol, from, to);
+				if (rollup != null) {
+					cacheSize = CandleRollups.estimateCount(cacheSize, rollup);
 				}
-			};
+				return executeQuery(key, query, from, to, getCacheStorage(cacheSize));
+			} catch (RuntimeException | Error e) {
+				loadingFailed(key, from, to, e);
+				throw e;
+			}
+		}
+		return streamQuery(symbol, query);
+	}
+
+	/**
+	 * Streams the candles of multiple symbols, merged in a single sequence ordered by open time, close time and symbol
+	 * (i.e. the order in which a simulation processes them). Candles are read in time slices, each read with a single
+	 * query covering all symbols, so that only one cursor is open regardless of the number of symbols.
+	 *
+	 * @param symbols     the symbols whose candles will be returned
+	 * @param from        the earliest open time of the candles to return, or {@code null} for no lower bound
+	 * @param to          the latest close time of the candles to return, or {@code null} for no upper bound
+	 * @param sliceLength the time span covered by each query, in milliseconds.
+	 *
+	 * @return the candles of all symbols in time order, as they are read from the database.
+	 */
+	public Enumeration<SymbolCandle> iterate(Collection<String> symbols, Instant from, Instant to, long sliceLength) {
+		return read(symbols, null, from, to, sliceLength);
+	}
+
+	/**
+	 * Streams the candles of multiple symbols, merged in a single sequence ordered by open time, close time and symbol,
+	 * read from the coarsest rollup table that can provide candles with a given resolution.
+	 *
+	 * @param symbols     the symbols whose candles will be returned
+	 * @param from        the earliest open time of the candles to return, or {@code null} for no lower bound
+	 * @param to          the latest close time of the candles to return, or {@code null} for no upper bound
+	 * @param resolution  the interval of the candles required by the caller. Use {@code null} to read candles as
+	 *                    stored in the {@code candle} table.
+	 * @param sliceLength the time span covered by each query, in milliseconds.
+	 *
+	 * @return the candles of all symbols in time order, as they are read from the database.
+	 * @see #iterate(Collection, Instant, Instant, long)
+	 * @see #iterate(String, Instant, Instant, TimeInterval, boolean)
+	 */
+	public Enumeration<SymbolCandle> iterate(Collection<String> symbols, Instant from, Instant to, TimeInterval resolution, long sliceLength) {
+		TimeInterval rollup = rollups == null ? null : rollups.select(resolution);
+		if (rollup == null) {
+			return iterate(symbols, from, to, sliceLength);
+		}
+		return read(symbols, rollup, from, to, sliceLength);
+	}
+
+	private Enumeration<SymbolCandle> read(Collection<String> symbols, TimeInterval rollup, Instant from, Instant to, long sliceLength) {
+		if (sliceLength < 1) {
+			throw new IllegalArgumentException("Time slice length must be positive. Got: " + sliceLength);
 		}
+		flushHistory();
+		if (symbols.isEmpty()) {
+			return Collections.emptyEnumeration();
+		}
+
+		final String[] names = symbols.toArray(new String[0]);
+		final Map<String, String> canonical = new HashMap<>();
+		for (String name : names) {
+			canonical.put(name, name);
+		}
+		final String inClause = " WHERE symbol IN (" + String.join(",", Collections.nCopies(names.length, "?")) + ")";
+		final String table = rollup == null ? "candle" : CandleRollups.tableName(rollup);
+		final String sliceQuery = "SELECT open_time, close_time, open, high, low, close, volume, symbol FROM " + table + inClause
+				+ " AND open_time >= ? AND open_time < ?" + (to == null ? "" : " AND close_time <= ?")
+				+ " ORDER BY open_time, close_time, symbol";
+		final Long end = toEpochMilli(to);
+
+		return new ReadAheadStream<>(names.length + " symbols' candles", new ReadAheadStream.Source<>() {
+			private final long start = System.currentTimeMillis();
+			private Connection connection;
+			private PreparedStatement statement;
+			private ResultSet rs;
+			private long sliceStart = Long.MAX_VALUE;
+			private long last = Long.MIN_VALUE;
+			private int count;
+
+			private int setSymbols(PreparedStatement s) throws SQLException {
+				for (int i = 0; i < names.length; i++) {
+					s.setString(i + 1, names[i]);
+				}
+				return names.length;
+			}
 
-		return executeQuery(symbol, query, from, to, out);
+			private Long queryTime(String function) throws SQLException {
+				try (PreparedStatement s = connection.prepareStatement("SELECT " + function + " FROM " + table + inClause)) {
+					setSymbols(s);
+					try (ResultSet r = s.executeQuery()) {
+						long out = r.next() ? r.getLong(1) : 0;
+						return r.wasNull() ? null : out;
+					}
+				}
+			}
+
+			private boolean nextSlice() throws SQLException {
+				if (connection == null) {
+					connection = openStreamConnection();
+					Long first = from != null ? Long.valueOf(from.toEpochMilli()) : queryTime("MIN(open_time)");
+					Long lastOpen = end != null ? end : queryTime("MAX(open_time)");
+					if (first != null && lastOpen != null) { //otherwise there are no candles
+						sliceStart = first;
+						last = lastOpen;
+					}
+				}
+				if (sliceStart > last) {
+					return false;
+				}
+				long sliceEnd = last - sliceStart < sliceLength ? last + 1 : sliceStart + sliceLength;
+
+				log.debug("Executing SQL query: [{}] from {} to {}", sliceQuery, sliceStart, sliceEnd);
+				statement = connection.prepareStatement(sliceQuery);
+				int i = setSymbols(statement);
+				statement.setLong(++i, sliceStart);
+				statement.setLong(++i, sliceEnd);
+				if (end != null) {
+					statement.setLong(++i, end);
+				}
+				rs = executeQuery(statement);
+				sliceStart = sliceEnd;
+				return true;
+			}
+
+			@Override
+			public int read(SymbolCandle[] batch) throws SQLException {
+				int i = 0;
+				while (i < batch.length) {
+					if (rs == null && !nextSlice()) {
+						break;
+					}
+					if (rs.next()) {
+						String symbol = rs.getString(8);
+						batch[i++] = new SymbolCandle(canonical.getOrDefault(symbol, symbol), CANDLE_MAPPER.mapRow(rs, 0));
+					} else {
+						closeSlice();
+					}
+				}
+				count += i;
+				return i;
+			}
+
+			private void closeSlice() throws SQLException {
+				try (PreparedStatement s = statement; ResultSet r = rs) {
+					rs = null;
+					statement = null;
+				}
+			}
+
+			@Override
+			public void close() throws SQLException {
+				log.trace("Read {} candles of {} symbols in {} seconds", count, names.length, (System.currentTimeMillis() - start) / 1000.0);
+				try (Connection c = connection) {
+					closeSlice();
+				}
+			}
+		}, readers(), streamLimit, SymbolCandle[]::new, readBatchSize, readAheadBatches);
+	}
+
+	/**
+	 * Merges the candles of multiple symbols into a single sequence ordered by open time, close time and symbol.
+	 *
+	 * @param candles the candles of each symbol, each in time order.
+	 *
+	 * @return the candles of all symbols in time order.
+	 */
+	protected static Enumeration<SymbolCandle> merge(Map<String, Enumeration<Candle>> candles) {
+		final Comparator<SymbolCandle> order = Comparator.<SymbolCandle>comparingLong(c -> c.candle.openTime)
+				.thenComparingLong(c -> c.candle.closeTime)
+				.thenComparing(c -> c.symbol);
+		final PriorityQueue<SymbolCandle> heads = new PriorityQueue<>(Math.max(1, candles.size()), order);
+		final Function<String, SymbolCandle> next = symbol -> {
+			Enumeration<Candle> input = candles.get(symbol);
+			while (input.hasMoreElements()) {
+				Candle candle = input.nextElement();
+				if (candle != null) {
+					return new SymbolCandle(symbol, candle);
+				}
+			}
+			return null;
+		};
+		candles.keySet().forEach(symbol -> {
+			SymbolCandle head = next.apply(symbol);
+			if (head != null) {
+				heads.add(head);
+			}
+		});
+
+		return new Enumeration<>() {
+			@Override
+			public boolean hasMoreElements() {
+				return !heads.isEmpty();
+			}
+
+			@Override
+			public SymbolCandle nextElement() {
+				SymbolCandle out = heads.poll();
+				if (out != null) {
+					SymbolCandle head = next.apply(out.symbol);
+					if (head != null) {
+						heads.add(head);
+					}
+				}
+				return out;
+			}
+		};
 	}
 
 	long count(String query, Object... params) {
@@ -311,6 +1003,7 @@ public class CandleRepository {
 	}
 
 	protected long performCandleCounting(String symbol, Instant from, Instant to) {
+		flushHistory();
 		String query = "SELECT COUNT(*) FROM candle WHERE symbol = ?";
 		query = narrowQueryToTimeInterval(query, from, to);
 		return count(query, symbol);
@@ -321,6 +1014,7 @@ public class CandleRepository {
 	}
 
 	public Candle lastCandle(String symbol) {
+		flushHistory();
 		String query = buildCandleQuery(symbol);
 		query += " ORDER BY close_time DESC LIMIT 1";
 		return db().queryForObject(query, CANDLE_MAPPER);
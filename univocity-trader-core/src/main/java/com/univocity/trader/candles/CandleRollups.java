@@ -0,0 +1,250 @@
+package com.univocity.trader.candles;
+
+import com.univocity.trader.indicators.base.*;
+import org.slf4j.*;
+import org.springframework.jdbc.core.*;
+
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static com.univocity.trader.indicators.base.TimeInterval.*;
+
+/**
+ * Maintains rollup tables with the candles of the {@code candle} table pre-aggregated into higher timeframes (e.g.
+ * {@code candle_5m}, {@code candle_15m}, {@code candle_1h} and {@code candle_1d}), so that simulations that only need
+ * candles of these timeframes don't have to read and re-aggregate every 1 minute candle.
+ *
+ * Rollups are updated incrementally: whenever candles are added to the history of a symbol, only the rows of each
+ * rollup whose time span contains the new candles are recomputed. Each rollup is computed from the finest rollup
+ * whose interval divides its own interval, e.g. the 1 hour rollup is computed from at most 4 rows of the 15 minute
+ * rollup. The time spans of each rollup are aligned to the epoch, i.e. daily candles start at midnight UTC, and the
+ * last candle of a rollup may be partial, covering only the candles available so far.
+ *
+ * Candles added one at a time as they are received from the exchange don't recompute their rollup rows on every
+ * tick: the rows of the time span that is still receiving candles are only recomputed once a candle of the next time
+ * span arrives, or when the history is flushed (see {@link CandleRepository#flushHistory()}). Updates of the rollups
+ * of a symbol are serialized, so concurrent updates of overlapping time spans can't overwrite each other with
+ * rows aggregated from stale data.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ * @see com.univocity.trader.config.DatabaseConfiguration#rollupIntervals(TimeInterval...)
+ */
+final class CandleRollups {
+
+	private static final Logger log = LoggerFactory.getLogger(CandleRollups.class);
+
+	private final CandleRepository repository;
+	private final TimeInterval[] intervals;
+	private final ConcurrentHashMap<String, Object> locks = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<String, OpenSpans> open = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates the rollups of a repository
+	 *
+	 * @param repository the repository whose candles are rolled up
+	 * @param intervals  the intervals of each rollup, in ascending order.
+	 */
+	CandleRollups(CandleRepository repository, TimeInterval[] intervals) {
+		this.repository = repository;
+		this.intervals = intervals;
+	}
+
+	static String tableName(TimeInterval interval) {
+		return "candle_" + interval;
+	}
+
+	TimeInterval[] intervals() {
+		return intervals;
+	}
+
+	/**
+	 * Selects the coarsest rollup that can provide candles of a given resolution, i.e. whose interval divides the
+	 * interval of the resolution.
+	 *
+	 * @param resolution the interval of the candles required.
+	 *
+	 * @return the interval of the rollup to read from, or {@code null} if no rollup can be used.
+	 */
+	TimeInterval select(TimeInterval resolution) {
+		if (resolution == null) {
+			return null;
+		}
+		for (int i = intervals.length - 1; i >= 0; i--) {
+			if (resolution.ms % intervals[i].ms == 0) {
+				return intervals[i];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Recomputes the rollup candles that contain any candle of a symbol within a given time range.
+	 *
+	 * @param symbol the symbol whose rollups will be updated
+	 * @param from   the open time of the earliest candle added
+	 * @param to     the open time of the latest candle added.
+	 */
+	void update(String symbol, long from, long to) {
+		synchronized (lock(symbol)) {
+			for (int i = 0; i < intervals.length; i++) {
+				update(i, symbol, from, to);
+			}
+		}
+	}
+
+	/**
+	 * Registers a single candle added to the history of a symbol, recomputing the rollup candles whose time span
+	 * closed with its arrival. The rollup candles of the time span of the given candle are only recomputed when a
+	 * later time span starts or when {@link #flush()} is invoked.
+	 *
+	 * @param symbol   the symbol of the candle
+	 * @param openTime the open time of the candle added.
+	 */
+	void add(String symbol, long openTime) {
+		synchronized (lock(symbol)) {
+			OpenSpans spans = open.computeIfAbsent(symbol, s -> new OpenSpans(intervals.length));
+			for (int i = 0; i < intervals.length; i++) {
+				long start = openTime - Math.floorMod(openTime, intervals[i].ms);
+				if (start > spans.start[i]) {
+					if (spans.dirty[i]) {
+						update(i, symbol, spans.start[i], spans.start[i]);
+					}
+					spans.start[i] = start;
+					spans.dirty[i] = true;
+				} else if (start == spans.start[i]) {
+					spans.dirty[i] = true;
+				} else {
+					//late candle of a time span already closed
+					update(i, symbol, openTime, openTime);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Recomputes the rollup candles of the time spans still open, which received candles through
+	 * {@link #add(String, long)} since they were last computed.
+	 */
+	void flush() {
+		for (Map.Entry<String, OpenSpans> e : open.entrySet()) {
+			String symbol = e.getKey();
+			OpenSpans spans = e.getValue();
+			synchronized (lock(symbol)) {
+				for (int i = 0; i < intervals.length; i++) {
+					if (spans.dirty[i]) {
+						update(i, symbol, spans.start[i], spans.start[i]);
+						spans.dirty[i] = false;
+					}
+				}
+			}
+		}
+	}
+
+	private Object lock(String symbol) {
+		return locks.computeIfAbsent(symbol, s -> new Object());
+	}
+
+	private void update(int index, String symbol, long from, long to) {
+		TimeInterval interval = intervals[index];
+		String source = "candle";
+		for (int j = index - 1; j >= 0; j--) {
+			if (interval.ms % intervals[j].ms == 0) {
+				source = tableName(intervals[j]);
+				break;
+			}
+		}
+
+		long start = from - Math.floorMod(from, interval.ms);
+		long end = to - Math.floorMod(to, interval.ms) + interval.ms;
+		try {
+			replace(tableName(interval), symbol, start, end, aggregate(source, symbol, start, end, interval));
+		} catch (Exception e) {
+			log.error("Error updating " + interval + " rollup of " + symbol + " candles", e);
+		}
+	}
+
+	private List<PreciseCandle> aggregate(String source, String symbol, long start, long end, TimeInterval interval) {
+		List<PreciseCandle> out = new ArrayList<>();
+		repository.db().query("SELECT open_time, close_time, open, high, low, close, volume FROM " + source + " WHERE symbol = ? AND open_time >= ? AND open_time < ? ORDER BY open_time",
+				(RowCallbackHandler) rs -> {
+					long openTime = rs.getLong(1);
+					long bucket = openTime - Math.floorMod(openTime, interval.ms);
+					PreciseCandle current = out.isEmpty() ? null : out.get(out.size() - 1);
+					if (current == null || current.openTime != bucket) {
+						out.add(new PreciseCandle(bucket, rs.getLong(2), rs.getBigDecimal(3), rs.getBigDecimal(4), rs.getBigDecimal(5), rs.getBigDecimal(6), rs.getBigDecimal(7)));
+					} else {
+						current.closeTime = rs.getLong(2);
+						current.high = current.high.max(rs.getBigDecimal(4));
+						current.low = current.low.min(rs.getBigDecimal(5));
+						current.close = rs.getBigDecimal(6);
+						current.volume = current.volume.add(rs.getBigDecimal(7));
+					}
+				}, symbol, start, end);
+		return out;
+	}
+
+	private void replace(String table, String symbol, long start, long end, List<PreciseCandle> candles) {
+		repository.db().execute((ConnectionCallback<Void>) c -> {
+			boolean autoCommit = c.getAutoCommit();
+			c.setAutoCommit(false);
+			try (PreparedStatement delete = c.prepareStatement("DELETE FROM " + table + " WHERE symbol = ? AND open_time >= ? AND open_time < ?");
+				 PreparedStatement insert = c.prepareStatement("INSERT INTO " + table + " (symbol,open_time,close_time,open,high,low,close,volume) VALUES (?,?,?,?,?,?,?,?)")) {
+				delete.setString(1, symbol);
+				delete.setLong(2, start);
+				delete.setLong(3, end);
+				delete.executeUpdate();
+
+				for (PreciseCandle candle : candles) {
+					insert.setString(1, symbol);
+					insert.setLong(2, candle.openTime);
+					insert.setLong(3, candle.closeTime);
+					insert.setBigDecimal(4, candle.open);
+					insert.setBigDecimal(5, candle.high);
+					insert.setBigDecimal(6, candle.low);
+					insert.setBigDecimal(7, candle.close);
+					insert.setBigDecimal(8, candle.volume);
+					insert.addBatch();
+				}
+				if (!candles.isEmpty()) {
+					insert.executeBatch();
+				}
+				c.commit();
+			} catch (SQLException | RuntimeException e) {
+				c.rollback();
+				throw e;
+			} finally {
+				c.setAutoCommit(autoCommit);
+			}
+			return null;
+		});
+	}
+
+	/**
+	 * Returns the estimated number of rollup candles that cover a given number of candles of the {@code candle} table,
+	 * assuming these are 1 minute candles.
+	 *
+	 * @param candles  the number of 1 minute candles
+	 * @param interval the interval of the rollup
+	 *
+	 * @return the estimated number of rollup candles.
+	 */
+	static long estimateCount(long candles, TimeInterval interval) {
+		return candles / Math.max(1, interval.ms / MINUTE.ms) + 1;
+	}
+
+	/**
+	 * Start of the time span of each rollup that is still receiving candles of a symbol, and whether it received
+	 * candles since its rollup candle was last computed. Guarded by the lock of the symbol.
+	 */
+	private static final class OpenSpans {
+		private final long[] start;
+		private final boolean[] dirty;
+
+		OpenSpans(int intervals) {
+			start = new long[intervals];
+			dirty = new boolean[intervals];
+			Arrays.fill(start, Long.MIN_VALUE);
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package com.univocity.trader.candles;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * A local, append-only store with the candle history of a single symbol, used by {@link FileCandleRepository}.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ * @see CandleFile
+ * @see CompressedCandleFile
+ */
+public interface CandleStore extends Closeable {
+
+	String getSymbol();
+
+	long getInterval();
+
+	File getFile();
+
+	/**
+	 * Returns the number of candles stored
+	 *
+	 * @return the candle count
+	 */
+	long size();
+
+	/**
+	 * Returns the open time of the most recent candle stored.
+	 *
+	 * @return the open time of the last candle, or {@code Long.MIN_VALUE} if the store is empty.
+	 */
+	long lastOpenTime();
+
+	/**
+	 * Appends a candle to the end of this store. Candles must be appended in order, and any candle whose open and close
+	 * times are not after the ones of the last candle stored is discarded.
+	 *
+	 * @param openTime  the candle open time, in milliseconds
+	 * @param closeTime the candle close time, in milliseconds
+	 * @param open      the opening price
+	 * @param high      the highest price
+	 * @param low       the lowest price
+	 * @param close     the closing price
+	 * @param volume    the volume traded
+	 *
+	 * @return {@code true} if the candle was appended, {@code false} if it was discarded.
+	 */
+	boolean append(long openTime, long closeTime, double open, double high, double low, double close, double volume);
+
+	default boolean append(Candle candle) {
+		return append(candle.openTime, candle.closeTime, candle.open, candle.high, candle.low, candle.close, candle.volume);
+	}
+
+	/**
+	 * Returns an enumeration of the candles with {@code open_time >= from} and {@code close_time <= to}. Candles appended
+	 * after this method is invoked are not returned.
+	 *
+	 * @param from the earliest open time of the candles to return, or {@code null} to read from the first candle
+	 * @param to   the latest close time of the candles to return, or {@code null} to read up to the last candle
+	 *
+	 * @return the candles within the given range, in order.
+	 */
+	Enumeration<Candle> read(Long from, Long to);
+
+	/**
+	 * Counts the candles with {@code open_time >= from} and {@code close_time <= to}.
+	 *
+	 * @param from the earliest open time, or {@code null}
+	 * @param to   the latest close time, or {@code null}
+	 *
+	 * @return the number of candles in the given range.
+	 */
+	long count(Long from, Long to);
+
+	/**
+	 * Writes any candles appended to this store but still held in memory.
+	 */
+	default void flush() {
+	}
+
+	@Override
+	void close();
+}
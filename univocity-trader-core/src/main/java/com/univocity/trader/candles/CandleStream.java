@@ -0,0 +1,46 @@
+package com.univocity.trader.candles;
+
+import java.util.concurrent.*;
+
+/**
+ * Streams the candles of a symbol read in background by a shared executor.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ * @see ReadAheadStream
+ */
+public final class CandleStream extends ReadAheadStream<Candle> {
+
+	/**
+	 * Produces the candles of a stream.
+	 */
+	public interface Source extends ReadAheadStream.Source<Candle> {
+
+	}
+
+	/**
+	 * Creates a new stream and starts reading its first batches.
+	 *
+	 * @param symbol     the symbol whose candles are streamed
+	 * @param source     the source of candles
+	 * @param executor   the executor used to read candles in background
+	 * @param batchSize  the number of candles read at once
+	 * @param maxBatches the number of batches that can be read ahead of the consumer.
+	 */
+	public CandleStream(String symbol, Source source, Executor executor, int batchSize, int maxBatches) {
+		this(symbol, source, executor, null, batchSize, maxBatches);
+	}
+
+	/**
+	 * Creates a new stream and starts reading its first batches once the given limit of open sources allows.
+	 *
+	 * @param symbol     the symbol whose candles are streamed
+	 * @param source     the source of candles
+	 * @param executor   the executor used to read candles in background
+	 * @param limit      the limit of open sources shared with other streams, or {@code null} for no limit.
+	 * @param batchSize  the number of candles read at once
+	 * @param maxBatches the number of batches that can be read ahead of the consumer.
+	 */
+	public CandleStream(String symbol, Source source, Executor executor, Limit limit, int batchSize, int maxBatches) {
+		super(symbol + " candles", source, executor, limit, Candle[]::new, batchSize, maxBatches);
+	}
+}
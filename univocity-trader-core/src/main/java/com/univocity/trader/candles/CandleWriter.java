@@ -0,0 +1,164 @@
+package com.univocity.trader.candles;
+
+import org.slf4j.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Write-behind persistence of the candles added to a {@link CandleRepository}. Candles are handed to a bounded queue
+ * and written by a single background thread with JDBC batch inserts, grouped per symbol. A batch is written when it
+ * reaches the configured size or when its oldest candle has been waiting for longer than the configured latency.
+ * Candles of a batch that are already in the database are discarded before it is written (see
+ * {@link CandleRepository#persistNew(String, List)}).
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ * @see com.univocity.trader.config.DatabaseConfiguration#writeBatchSize(int)
+ */
+final class CandleWriter {
+
+	private static final Logger log = LoggerFactory.getLogger(CandleWriter.class);
+
+	private final CandleRepository repository;
+	private final int batchSize;
+	private final long maxLatency;
+	private final BlockingQueue<Entry> queue;
+	private final ConcurrentHashMap<String, Set<CandleKey>> pending = new ConcurrentHashMap<>();
+	private volatile Thread writer;
+
+	CandleWriter(CandleRepository repository, int batchSize, long maxLatency, int queueCapacity) {
+		this.repository = repository;
+		this.batchSize = batchSize;
+		this.maxLatency = maxLatency;
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+	}
+
+	private static final class Entry {
+		final String symbol;
+		final PreciseCandle candle;
+		final CountDownLatch flushed;
+
+		Entry(String symbol, PreciseCandle candle, CountDownLatch flushed) {
+			this.symbol = symbol;
+			this.candle = candle;
+			this.flushed = flushed;
+		}
+	}
+
+	private synchronized void start() {
+		if (writer == null) {
+			Thread thread = new Thread(this::run, "candle writer");
+			thread.setDaemon(true);
+			thread.start();
+			writer = thread;
+			Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "candle writer shutdown"));
+		}
+	}
+
+	boolean isPending(String symbol, CandleKey key) {
+		Set<CandleKey> keys = pending.get(symbol);
+		return keys != null && keys.contains(key);
+	}
+
+	/**
+	 * Queues a candle to be persisted, blocking if the queue is full.
+	 *
+	 * @param symbol the symbol of the candle
+	 * @param candle the candle to persist
+	 */
+	void enqueue(String symbol, PreciseCandle candle) {
+		if (writer == null) {
+			start();
+		}
+		pending.computeIfAbsent(symbol, s -> ConcurrentHashMap.newKeySet()).add(new CandleKey(candle));
+		put(new Entry(symbol, candle, null));
+	}
+
+	/**
+	 * Blocks until all candles queued so far are persisted.
+	 */
+	void flush() {
+		if (writer == null || Thread.currentThread() == writer || queue.isEmpty() && pending.values().stream().allMatch(Set::isEmpty)) {
+			return;
+		}
+		CountDownLatch flushed = new CountDownLatch(1);
+		put(new Entry(null, null, flushed));
+		try {
+			flushed.await();
+		} catch (InterruptedException e) {
+			log.error("Interrupted while waiting for candles to be persisted", e);
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void put(Entry entry) {
+		try {
+			queue.put(entry);
+		} catch (InterruptedException e) {
+			log.error("Interrupted while queueing candle to be persisted", e);
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void run() {
+		final Map<String, List<PreciseCandle>> batches = new LinkedHashMap<>();
+		long deadline = Long.MAX_VALUE;
+
+		while (true) {
+			Entry entry;
+			try {
+				long wait = deadline == Long.MAX_VALUE ? maxLatency : deadline - System.currentTimeMillis();
+				entry = wait > 0 ? queue.poll(wait, TimeUnit.MILLISECONDS) : queue.poll();
+			} catch (InterruptedException e) {
+				log.warn("Candle writer interrupted. Persisting pending candles and stopping.");
+				writeAll(batches);
+				return;
+			}
+
+			if (entry != null) {
+				if (entry.flushed != null) {
+					writeAll(batches);
+					deadline = Long.MAX_VALUE;
+					entry.flushed.countDown();
+					continue;
+				}
+				if (deadline == Long.MAX_VALUE) {
+					deadline = System.currentTimeMillis() + maxLatency;
+				}
+				List<PreciseCandle> batch = batches.computeIfAbsent(entry.symbol, s -> new ArrayList<>(batchSize));
+				batch.add(entry.candle);
+				if (batch.size() >= batchSize) {
+					write(entry.symbol, batch);
+				}
+			}
+
+			if (deadline != Long.MAX_VALUE && System.currentTimeMillis() >= deadline) {
+				writeAll(batches);
+				deadline = Long.MAX_VALUE;
+			}
+		}
+	}
+
+	private void writeAll(Map<String, List<PreciseCandle>> batches) {
+		batches.forEach(this::write);
+	}
+
+	private void write(String symbol, List<PreciseCandle> batch) {
+		if (batch.isEmpty()) {
+			return;
+		}
+		try {
+			repository.persistNew(symbol, batch);
+		} catch (Exception e) {
+			log.error("Error persisting " + batch.size() + " candles of " + symbol, e);
+		} finally {
+			Set<CandleKey> keys = pending.get(symbol);
+			if (keys != null) {
+				for (PreciseCandle candle : batch) {
+					keys.remove(new CandleKey(candle));
+				}
+			}
+			batch.clear();
+		}
+	}
+}
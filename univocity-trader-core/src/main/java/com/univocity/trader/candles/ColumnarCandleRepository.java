@@ -0,0 +1,28 @@
+package com.univocity.trader.candles;
+
+import com.univocity.trader.config.*;
+
+import java.util.*;
+
+/**
+ * A {@link CandleRepository} that caches candles in a {@link ColumnarCandleStorage}, i.e. in primitive columns
+ * allocated off-heap, instead of keeping one {@link Candle} object per row in memory.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+public class ColumnarCandleRepository extends CandleRepository {
+
+	public ColumnarCandleRepository(DatabaseConfiguration config) {
+		super(config);
+	}
+
+	@Override
+	protected long cachedCandleSize() {
+		return 56; //7 columns of 8 bytes
+	}
+
+	@Override
+	protected Collection<Candle> getCacheStorage(long cacheSize) {
+		return new ColumnarCandleStorage((int) Math.min(cacheSize, Integer.MAX_VALUE / Long.BYTES));
+	}
+}
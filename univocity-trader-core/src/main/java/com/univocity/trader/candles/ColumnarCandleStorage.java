@@ -0,0 +1,346 @@
+package com.univocity.trader.candles;
+
+import java.nio.*;
+import java.util.*;
+
+/**
+ * A {@link Collection} of {@link Candle} that keeps the open/close times and OHLCV values of each candle in primitive
+ * columns allocated outside of the java heap. Each candle stored takes 56 bytes, with no object header or reference
+ * overhead, which allows the history of a large number of symbols to be cached for simulations without exhausting the heap.
+ *
+ * Candles are only materialized when read through {@link #iterator()}. Use a {@link Cursor} (obtained via {@link #cursor()})
+ * to read the stored values directly without creating any objects. The {@link CandleRepository} returns cached candles
+ * through a {@link Range}, which simulations read into reusable {@link Candle} instances when candle reuse is enabled
+ * (see {@link com.univocity.trader.config.AccountConfiguration#enableCandleReuse()}).
+ *
+ * The columns are direct {@link ByteBuffer}s, so the total amount of candles stored is limited by the maximum direct
+ * memory of the JVM rather than by the heap size. This limit defaults to the maximum heap size ({@code -Xmx}) and can be
+ * raised with the {@code -XX:MaxDirectMemorySize} JVM option, e.g. {@code -XX:MaxDirectMemorySize=8g}. An
+ * {@link OutOfMemoryError} with the message "Direct buffer memory" is thrown when a column can't be allocated.
+ *
+ * Candles must be added by a single thread. Once loaded, the storage can be read concurrently by any number of
+ * iterators or cursors.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ * @see ColumnarCandleRepository
+ */
+public class ColumnarCandleStorage extends AbstractCollection<Candle> {
+
+	private static final int MIN_CAPACITY = 16;
+
+	private LongBuffer openTime;
+	private LongBuffer closeTime;
+	private DoubleBuffer open;
+	private DoubleBuffer high;
+	private DoubleBuffer low;
+	private DoubleBuffer close;
+	private DoubleBuffer volume;
+
+	private int capacity;
+	private volatile int size;
+
+	/**
+	 * Creates a new storage with space pre-allocated for a given number of candles. The storage grows as required if
+	 * more candles are added.
+	 *
+	 * @param expectedSize the expected number of candles to be stored.
+	 */
+	public ColumnarCandleStorage(int expectedSize) {
+		allocate(Math.max(expectedSize, MIN_CAPACITY));
+	}
+
+	private static LongBuffer longColumn(int capacity, LongBuffer previous, int size) {
+		LongBuffer out = ByteBuffer.allocateDirect(capacity * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+		for (int i = 0; i < size; i++) {
+			out.put(i, previous.get(i));
+		}
+		return out;
+	}
+
+	private static DoubleBuffer doubleColumn(int capacity, DoubleBuffer previous, int size) {
+		DoubleBuffer out = ByteBuffer.allocateDirect(capacity * Double.BYTES).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+		for (int i = 0; i < size; i++) {
+			out.put(i, previous.get(i));
+		}
+		return out;
+	}
+
+	private void allocate(int capacity) {
+		int size = this.size;
+		this.openTime = longColumn(capacity, openTime, size);
+		this.closeTime = longColumn(capacity, closeTime, size);
+		this.open = doubleColumn(capacity, open, size);
+		this.high = doubleColumn(capacity, high, size);
+		this.low = doubleColumn(capacity, low, size);
+		this.close = doubleColumn(capacity, close, size);
+		this.volume = doubleColumn(capacity, volume, size);
+		this.capacity = capacity;
+	}
+
+	@Override
+	public boolean add(Candle candle) {
+		return add(candle.openTime, candle.closeTime, candle.open, candle.high, candle.low, candle.close, candle.volume);
+	}
+
+	/**
+	 * Stores the details of a candle without requiring a {@link Candle} instance.
+	 *
+	 * @param openTime  the candle open time, in milliseconds
+	 * @param closeTime the candle close time, in milliseconds
+	 * @param open      the opening price
+	 * @param high      the highest price
+	 * @param low       the lowest price
+	 * @param close     the closing price
+	 * @param volume    the volume traded
+	 *
+	 * @return {@code true} as per the {@link Collection#add(Object)} contract.
+	 */
+	public boolean add(long openTime, long closeTime, double open, double high, double low, double close, double volume) {
+		int row = size;
+		if (row == capacity) {
+			if (capacity == Integer.MAX_VALUE / Long.BYTES) {
+				throw new IllegalStateException("Can't store more than " + capacity + " candles");
+			}
+			allocate((int) Math.min((long) capacity + (capacity >> 1), Integer.MAX_VALUE / Long.BYTES));
+		}
+		this.openTime.put(row, openTime);
+		this.closeTime.put(row, closeTime);
+		this.open.put(row, open);
+		this.high.put(row, high);
+		this.low.put(row, low);
+		this.close.put(row, close);
+		this.volume.put(row, volume);
+		size = row + 1;
+		return true;
+	}
+
+	/**
+	 * Creates a new {@link Candle} with the values stored at the given row.
+	 *
+	 * @param row the position of the candle in this storage.
+	 *
+	 * @return a new {@link Candle} with the values stored at the given row.
+	 */
+	public Candle get(int row) {
+		if (row < 0 || row >= size) {
+			throw new IndexOutOfBoundsException("Row " + row + " out of bounds. Size: " + size);
+		}
+		return new Candle(openTime.get(row), closeTime.get(row), open.get(row), high.get(row), low.get(row), close.get(row), volume.get(row));
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Discards all stored candles and shrinks the columns back to their minimum capacity. The off-heap memory of the
+	 * previous columns is released when they are garbage collected.
+	 */
+	@Override
+	public void clear() {
+		size = 0;
+		allocate(MIN_CAPACITY);
+	}
+
+	@Override
+	public Iterator<Candle> iterator() {
+		return new Iterator<>() {
+			private int row = 0;
+
+			@Override
+			public boolean hasNext() {
+				return row < size;
+			}
+
+			@Override
+			public Candle next() {
+				if (row >= size) {
+					throw new NoSuchElementException();
+				}
+				return get(row++);
+			}
+		};
+	}
+
+	/**
+	 * Returns a new {@link Cursor} positioned before the first candle of this storage.
+	 *
+	 * @return a flyweight that reads the stored values without creating any objects.
+	 */
+	public Cursor cursor() {
+		return new Cursor();
+	}
+
+	/**
+	 * Returns the stored candles within a time range. Candles must have been added in time order.
+	 *
+	 * @param from the earliest open time of the candles to return
+	 * @param to   the latest close time of the candles to return
+	 *
+	 * @return an enumeration over the candles in the given range.
+	 */
+	public Range range(long from, long to) {
+		return new Range(from, to);
+	}
+
+	/**
+	 * A flyweight over the columns of a {@link ColumnarCandleStorage}. Values returned by each getter correspond
+	 * to the candle at the current row of the cursor, which is moved forward with {@link #next()}.
+	 */
+	public final class Cursor {
+		private int row = -1;
+
+		private Cursor() {
+		}
+
+		/**
+		 * Moves this cursor to the next stored candle
+		 *
+		 * @return {@code true} if there is a candle at the new position, {@code false} if the end of the storage was reached.
+		 */
+		public boolean next() {
+			if (row + 1 < size) {
+				row++;
+				return true;
+			}
+			return false;
+		}
+
+		/**
+		 * Moves this cursor to the given row, so that the next call to {@link #next()} will point to the
+		 * candle at position {@code row + 1}.
+		 *
+		 * @param row the new position of this cursor. Use {@code -1} to move to the beginning of the storage.
+		 */
+		public void moveTo(int row) {
+			if (row < -1 || row >= size) {
+				throw new IndexOutOfBoundsException("Row " + row + " out of bounds. Size: " + size);
+			}
+			this.row = row;
+		}
+
+		/**
+		 * Moves this cursor to the position before the first candle with an open time equal to or after the given
+		 * time, so that the next call to {@link #next()} will point to it. Candles must have been added in time order.
+		 *
+		 * @param openTime the open time to search for, in milliseconds.
+		 */
+		public void seek(long openTime) {
+			int low = 0;
+			int high = size;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (ColumnarCandleStorage.this.openTime.get(mid) < openTime) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			this.row = low - 1;
+		}
+
+		public int row() {
+			return row;
+		}
+
+		public long openTime() {
+			return openTime.get(row);
+		}
+
+		public long closeTime() {
+			return closeTime.get(row);
+		}
+
+		public double open() {
+			return open.get(row);
+		}
+
+		public double high() {
+			return high.get(row);
+		}
+
+		public double low() {
+			return low.get(row);
+		}
+
+		public double close() {
+			return close.get(row);
+		}
+
+		public double volume() {
+			return volume.get(row);
+		}
+
+		/**
+		 * Creates a new {@link Candle} with the values at the current row of this cursor.
+		 *
+		 * @return a new {@link Candle} instance.
+		 */
+		public Candle toCandle() {
+			return get(row);
+		}
+
+		/**
+		 * Copies the values at the current row of this cursor into a given {@link Candle}.
+		 *
+		 * @param holder the candle to update
+		 *
+		 * @return the given candle, with the values at the current row.
+		 */
+		public Candle toCandle(Candle holder) {
+			return holder.update(openTime(), closeTime(), open(), high(), low(), close(), volume());
+		}
+	}
+
+	/**
+	 * The candles of a {@link ColumnarCandleStorage} within a time range, read through a {@link Cursor}. Candles
+	 * returned by {@link #nextElement()} are new instances, while {@link #nextElement(Candle)} copies the values of
+	 * each candle into a given instance, so the range can be read without creating any objects.
+	 */
+	public final class Range implements Enumeration<Candle> {
+		private final Cursor cursor = new Cursor();
+		private final long to;
+		private boolean fetched;
+		private boolean available;
+
+		private Range(long from, long to) {
+			this.to = to;
+			cursor.seek(from);
+		}
+
+		@Override
+		public boolean hasMoreElements() {
+			if (!fetched) {
+				available = cursor.next() && cursor.closeTime() <= to;
+				fetched = true;
+			}
+			return available;
+		}
+
+		@Override
+		public Candle nextElement() {
+			advance();
+			return cursor.toCandle();
+		}
+
+		/**
+		 * Copies the values of the next candle of this range into a given {@link Candle}.
+		 *
+		 * @param holder the candle to update
+		 *
+		 * @return the given candle, with the values of the next candle.
+		 */
+		public Candle nextElement(Candle holder) {
+			advance();
+			return cursor.toCandle(holder);
+		}
+
+		private void advance() {
+			if (!hasMoreElements()) {
+				throw new NoSuchElementException();
+			}
+			fetched = false;
+		}
+	}
+}
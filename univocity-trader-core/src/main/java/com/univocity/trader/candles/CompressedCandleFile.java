@@ -0,0 +1,783 @@
+package com.univocity.trader.candles;
+
+import com.univocity.trader.indicators.base.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+import static com.univocity.trader.indicators.base.TimeInterval.*;
+
+/**
+ * A local, append-only file with the compressed candle history of a single symbol. The file starts with a small header
+ * that identifies the symbol and the {@link TimeInterval} of its candles, followed by blocks with the candles of each
+ * day (or of a longer time span if the interval is large), aligned to the epoch:
+ *
+ * <pre>
+ * header (64 bytes): magic (int) | version (short) | interval in ms (long) | block span in ms (long) | symbol length (short) | symbol (UTF-8)
+ * block  (32 bytes): payload length (int) | candle count (int) | first open_time (long) | last open_time (long) | last close_time (long)
+ * payload          : price scale (byte) | volume scale (byte) | encoded candles
+ * </pre>
+ *
+ * Candles are encoded with variable length integers: open times are stored as delta-of-deltas (usually 0), and the
+ * duration of each candle as the difference from the duration of the previous one. Prices and volumes are stored as
+ * integers scaled by the smallest power of 10 that represents every value of the block exactly: the open price as
+ * the difference from the previous close, the close as the difference from the open, and the high and low prices as
+ * their distance from the open/close range. Blocks with values that can't be scaled (e.g. more than 10 decimal places)
+ * fall back to XOR-ing the bits of each value with the ones of the previous value of the same column. Either way,
+ * the values read back are identical to the ones appended, and a 1 minute candle typically takes 10 to 15 bytes
+ * instead of the 56 bytes of a {@link CandleFile} row.
+ *
+ * Candles of the most recent block are kept in memory and written when the block is complete, when {@link #flush()}
+ * or {@link #close()} is invoked, or before the file is read. Writing a block again replaces its previous contents, and
+ * an incomplete block left by an interrupted write is discarded when the file is opened.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ * @see CompressedCandleRepository
+ */
+public class CompressedCandleFile implements CandleStore {
+
+	public static final String EXTENSION = ".zcandles";
+
+	private static final int MAGIC = 0x5556435A; // "UVCZ"
+	private static final short VERSION = 1;
+	static final int HEADER_SIZE = 64;
+	static final int BLOCK_HEADER_SIZE = Integer.BYTES * 2 + Long.BYTES * 3;
+	private static final int MAX_SYMBOL_LENGTH = HEADER_SIZE - (Integer.BYTES + Short.BYTES + Long.BYTES * 2 + Short.BYTES);
+	private static final long BLOCK_SPAN = days(1).ms;
+	private static final int MIN_CANDLES_PER_BLOCK = 256;
+
+	private static final int MAX_SCALE = 10;
+	private static final byte UNSCALED = -1;
+	private static final double[] POWERS_OF_TEN = new double[MAX_SCALE + 1];
+	private static final double MAX_SCALED = 1L << 53;
+
+	static {
+		for (int i = 0; i <= MAX_SCALE; i++) {
+			POWERS_OF_TEN[i] = Math.pow(10, i);
+		}
+	}
+
+	private final File file;
+	private final String symbol;
+	private final long interval;
+	private final long blockSpan;
+	private final FileChannel channel;
+
+	// index of the blocks written to the file
+	private int blockCount;
+	private long[] blockPositions = new long[16];
+	private int[] blockCandles = new int[16];
+	private long[] blockFirstOpen = new long[16];
+	private long[] blockLastOpen = new long[16];
+	private long[] blockLastClose = new long[16];
+	private long end;
+
+	// candles of the most recent block, kept in memory until the block is complete
+	private final Block pending = new Block();
+	private long pendingBlock = Long.MIN_VALUE;
+	private boolean pendingWritten;
+	private boolean dirty;
+
+	private volatile long candleCount;
+	private long lastOpenTime = Long.MIN_VALUE;
+	private long lastCloseTime = Long.MIN_VALUE;
+
+	private CompressedCandleFile(File file, String symbol, long interval, long blockSpan, FileChannel channel) throws IOException {
+		this.file = file;
+		this.symbol = symbol;
+		this.interval = interval;
+		this.blockSpan = blockSpan;
+		this.channel = channel;
+
+		long size = channel.size();
+		long position = HEADER_SIZE;
+		ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+		while (position + BLOCK_HEADER_SIZE <= size) {
+			header.clear();
+			readFully(header, position);
+			header.flip();
+			int length = header.getInt();
+			int count = header.getInt();
+			if (length <= 0 || count <= 0 || position + BLOCK_HEADER_SIZE + length > size) {
+				break;
+			}
+			addBlock(position, count, header.getLong(), header.getLong(), header.getLong());
+			candleCount += count;
+			position += BLOCK_HEADER_SIZE + length;
+		}
+		this.end = position;
+		if (position != size) {
+			//discards incomplete block left by an interrupted write
+			channel.truncate(position);
+		}
+
+		if (blockCount > 0) {
+			int last = blockCount - 1;
+			pending.decode(readPayload(last), blockCandles[last], blockFirstOpen[last]);
+			pendingBlock = Math.floorDiv(blockFirstOpen[last], blockSpan);
+			pendingWritten = true;
+			lastOpenTime = blockLastOpen[last];
+			lastCloseTime = blockLastClose[last];
+		}
+	}
+
+	private void readFully(ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new EOFException("Unexpected end of file " + file);
+			}
+		}
+	}
+
+	private byte[] readPayload(int block) throws IOException {
+		long position = blockPositions[block];
+		long next = block + 1 < blockCount ? blockPositions[block + 1] : end;
+		ByteBuffer payload = ByteBuffer.allocate((int) (next - position - BLOCK_HEADER_SIZE));
+		readFully(payload, position + BLOCK_HEADER_SIZE);
+		return payload.array();
+	}
+
+	private void addBlock(long position, int count, long firstOpen, long lastOpen, long lastClose) {
+		if (blockCount == blockPositions.length) {
+			int length = blockCount * 2;
+			blockPositions = Arrays.copyOf(blockPositions, length);
+			blockCandles = Arrays.copyOf(blockCandles, length);
+			blockFirstOpen = Arrays.copyOf(blockFirstOpen, length);
+			blockLastOpen = Arrays.copyOf(blockLastOpen, length);
+			blockLastClose = Arrays.copyOf(blockLastClose, length);
+		}
+		blockPositions[blockCount] = position;
+		blockCandles[blockCount] = count;
+		blockFirstOpen[blockCount] = firstOpen;
+		blockLastOpen[blockCount] = lastOpen;
+		blockLastClose[blockCount] = lastClose;
+		blockCount++;
+	}
+
+	/**
+	 * Opens an existing compressed candle file, or creates a new one if it doesn't exist yet.
+	 *
+	 * @param file     the file to open
+	 * @param symbol   the symbol whose candles are stored in the file
+	 * @param interval the interval of each candle stored in the file
+	 *
+	 * @return the candle file, ready to be read and appended to.
+	 */
+	public static CompressedCandleFile open(File file, String symbol, TimeInterval interval) {
+		byte[] symbolBytes = symbol.getBytes(StandardCharsets.UTF_8);
+		if (symbolBytes.length > MAX_SYMBOL_LENGTH) {
+			throw new IllegalArgumentException("Symbol '" + symbol + "' is too long. Up to " + MAX_SYMBOL_LENGTH + " bytes are supported");
+		}
+		try {
+			FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			try {
+				if (channel.size() == 0) {
+					long blockSpan = Math.max(BLOCK_SPAN, interval.ms * MIN_CANDLES_PER_BLOCK);
+					ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+					header.putInt(MAGIC).putShort(VERSION).putLong(interval.ms).putLong(blockSpan).putShort((short) symbolBytes.length).put(symbolBytes);
+					header.clear();
+					while (header.hasRemaining()) {
+						channel.write(header, header.position());
+					}
+					return new CompressedCandleFile(file, symbol, interval.ms, blockSpan, channel);
+				}
+				CompressedCandleFile out = open(file, channel);
+				if (!out.symbol.equals(symbol)) {
+					throw new IllegalStateException("File " + file + " contains candles of " + out.symbol + ", not " + symbol);
+				}
+				if (out.interval != interval.ms) {
+					throw new IllegalStateException("File " + file + " contains candles with interval of " + TimeInterval.millis(out.interval) + ", not " + interval);
+				}
+				return out;
+			} catch (RuntimeException | IOException e) {
+				channel.close();
+				throw e;
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to open candle file " + file, e);
+		}
+	}
+
+	/**
+	 * Opens an existing compressed candle file, reading the symbol and interval from its header.
+	 *
+	 * @param file the file to open
+	 *
+	 * @return the candle file, ready to be read and appended to.
+	 */
+	public static CompressedCandleFile open(File file) {
+		try {
+			FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+			try {
+				return open(file, channel);
+			} catch (RuntimeException | IOException e) {
+				channel.close();
+				throw e;
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to open candle file " + file, e);
+		}
+	}
+
+	private static CompressedCandleFile open(File file, FileChannel channel) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		while (header.hasRemaining()) {
+			if (channel.read(header, header.position()) < 0) {
+				throw new IllegalStateException("Invalid candle file " + file + ". Header is incomplete");
+			}
+		}
+		header.flip();
+		if (header.getInt() != MAGIC) {
+			throw new IllegalStateException("Invalid candle file " + file);
+		}
+		short version = header.getShort();
+		if (version != VERSION) {
+			throw new IllegalStateException("Unsupported version " + version + " of candle file " + file);
+		}
+		long interval = header.getLong();
+		long blockSpan = header.getLong();
+		byte[] symbol = new byte[header.getShort()];
+		header.get(symbol);
+		return new CompressedCandleFile(file, new String(symbol, StandardCharsets.UTF_8), interval, blockSpan, channel);
+	}
+
+	@Override
+	public String getSymbol() {
+		return symbol;
+	}
+
+	@Override
+	public long getInterval() {
+		return interval;
+	}
+
+	@Override
+	public File getFile() {
+		return file;
+	}
+
+	@Override
+	public long size() {
+		return candleCount;
+	}
+
+	@Override
+	public synchronized long lastOpenTime() {
+		return lastOpenTime;
+	}
+
+	/**
+	 * Returns the number of bytes used by this file, including candles not yet written.
+	 *
+	 * @return the (estimated) file size.
+	 */
+	public synchronized long sizeInBytes() {
+		return dirty ? end + (pendingWritten ? 0 : BLOCK_HEADER_SIZE) + pending.encode().length : end;
+	}
+
+	@Override
+	public synchronized boolean append(long openTime, long closeTime, double open, double high, double low, double close, double volume) {
+		if (openTime < lastOpenTime || (openTime == lastOpenTime && closeTime <= lastCloseTime)) {
+			return false;
+		}
+		long block = Math.floorDiv(openTime, blockSpan);
+		if (block != pendingBlock) {
+			flush();
+			pending.clear();
+			pendingBlock = block;
+			pendingWritten = false;
+		}
+		pending.add(openTime, closeTime, open, high, low, close, volume);
+		dirty = true;
+		lastOpenTime = openTime;
+		lastCloseTime = closeTime;
+		candleCount++;
+		return true;
+	}
+
+	/**
+	 * Writes the candles of the most recent block, which are otherwise kept in memory until the block is complete.
+	 */
+	@Override
+	public synchronized void flush() {
+		if (!dirty) {
+			return;
+		}
+		byte[] payload = pending.encode();
+		long position = pendingWritten ? blockPositions[blockCount - 1] : end;
+
+		ByteBuffer buffer = ByteBuffer.allocate(BLOCK_HEADER_SIZE + payload.length);
+		buffer.putInt(payload.length).putInt(pending.size).putLong(pending.openTime[0]).putLong(lastOpenTime).putLong(lastCloseTime).put(payload);
+		buffer.flip();
+		try {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer, position + buffer.position());
+			}
+			end = position + BLOCK_HEADER_SIZE + payload.length;
+			if (channel.size() > end) {
+				channel.truncate(end);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Error writing candles to file " + file, e);
+		}
+
+		if (pendingWritten) {
+			int last = blockCount - 1;
+			blockCandles[last] = pending.size;
+			blockLastOpen[last] = lastOpenTime;
+			blockLastClose[last] = lastCloseTime;
+		} else {
+			addBlock(position, pending.size, pending.openTime[0], lastOpenTime, lastCloseTime);
+			pendingWritten = true;
+		}
+		dirty = false;
+	}
+
+	@Override
+	public synchronized Enumeration<Candle> read(Long from, Long to) {
+		final long start = from == null ? Long.MIN_VALUE : from;
+		final long limit = to == null ? Long.MAX_VALUE : to;
+
+		flush();
+		int first = firstBlock(blockLastOpen, blockCount, start);
+		int last = limit == Long.MAX_VALUE ? blockCount : firstBlock(blockFirstOpen, blockCount, limit + 1);
+		if (first >= last) {
+			return Collections.emptyEnumeration();
+		}
+		return new BlockReader(map(), Arrays.copyOfRange(blockPositions, first, last), Arrays.copyOfRange(blockCandles, first, last), Arrays.copyOfRange(blockFirstOpen, first, last), last < blockCount ? blockPositions[last] : end, start, limit);
+	}
+
+	/**
+	 * Decodes the blocks within a time range one at a time, returning the candles with {@code open_time >= start} and
+	 * {@code close_time <= limit}.
+	 */
+	private static final class BlockReader implements Enumeration<Candle> {
+		private final ByteBuffer buffer;
+		private final long[] positions;
+		private final int[] counts;
+		private final long[] firstOpen;
+		private final long end;
+		private final long start;
+		private final long limit;
+
+		private final Block block = new Block();
+		private int nextBlock;
+		private int row;
+		private Candle next;
+
+		BlockReader(ByteBuffer buffer, long[] positions, int[] counts, long[] firstOpen, long end, long start, long limit) {
+			this.buffer = buffer;
+			this.positions = positions;
+			this.counts = counts;
+			this.firstOpen = firstOpen;
+			this.end = end;
+			this.start = start;
+			this.limit = limit;
+			advance();
+		}
+
+		private void advance() {
+			next = null;
+			while (next == null) {
+				if (row >= block.size) {
+					if (nextBlock >= positions.length) {
+						return;
+					}
+					long position = positions[nextBlock] + BLOCK_HEADER_SIZE;
+					long blockEnd = nextBlock + 1 < positions.length ? positions[nextBlock + 1] : end;
+					byte[] payload = new byte[(int) (blockEnd - position)];
+					buffer.position((int) position);
+					buffer.get(payload);
+					block.decode(payload, counts[nextBlock], firstOpen[nextBlock]);
+					nextBlock++;
+					row = 0;
+				}
+				int i = row++;
+				if (block.closeTime[i] > limit) {
+					nextBlock = positions.length;
+					block.clear();
+					return;
+				}
+				if (block.openTime[i] >= start) {
+					next = block.candle(i);
+				}
+			}
+		}
+
+		@Override
+		public boolean hasMoreElements() {
+			return next != null;
+		}
+
+		@Override
+		public Candle nextElement() {
+			if (next == null) {
+				throw new NoSuchElementException();
+			}
+			Candle out = next;
+			advance();
+			return out;
+		}
+	}
+
+	private MappedByteBuffer map() {
+		if (end > Integer.MAX_VALUE) {
+			throw new IllegalStateException("Candle file " + file + " is too large to be mapped into memory");
+		}
+		try {
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, end);
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to map candle file " + file, e);
+		}
+	}
+
+	/**
+	 * Binary search for the first block whose time value is greater than or equal to the given time.
+	 */
+	private static int firstBlock(long[] times, int blocks, long time) {
+		int low = 0;
+		int high = blocks;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (times[mid] < time) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	@Override
+	public long count(Long from, Long to) {
+		if (from == null && to == null) {
+			return candleCount;
+		}
+		final long start = from == null ? Long.MIN_VALUE : from;
+		final long limit = to == null ? Long.MAX_VALUE : to;
+
+		long out = 0;
+		Block block = null;
+		synchronized (this) {
+			flush();
+			int last = limit == Long.MAX_VALUE ? blockCount : firstBlock(blockFirstOpen, blockCount, limit + 1);
+			for (int i = firstBlock(blockLastOpen, blockCount, start); i < last; i++) {
+				if (blockFirstOpen[i] >= start && blockLastClose[i] <= limit) {
+					out += blockCandles[i];
+					continue;
+				}
+				if (block == null) {
+					block = new Block();
+				}
+				try {
+					block.decode(readPayload(i), blockCandles[i], blockFirstOpen[i]);
+				} catch (IOException e) {
+					throw new IllegalStateException("Error reading candles from file " + file, e);
+				}
+				for (int j = 0; j < block.size; j++) {
+					if (block.closeTime[j] > limit) {
+						return out;
+					}
+					if (block.openTime[j] >= start) {
+						out++;
+					}
+				}
+			}
+		}
+		return out;
+	}
+
+	@Override
+	public synchronized void close() {
+		try {
+			flush();
+		} finally {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				throw new IllegalStateException("Error closing candle file " + file, e);
+			}
+		}
+	}
+
+	/**
+	 * The candles of a block, stored in columns and encoded/decoded all at once.
+	 */
+	private static final class Block {
+		int size;
+		long[] openTime = new long[64];
+		long[] closeTime = new long[64];
+		double[] open = new double[64];
+		double[] high = new double[64];
+		double[] low = new double[64];
+		double[] close = new double[64];
+		double[] volume = new double[64];
+
+		void clear() {
+			size = 0;
+		}
+
+		private void ensureCapacity(int length) {
+			if (length > openTime.length) {
+				length = Math.max(length, openTime.length * 2);
+				openTime = Arrays.copyOf(openTime, length);
+				closeTime = Arrays.copyOf(closeTime, length);
+				open = Arrays.copyOf(open, length);
+				high = Arrays.copyOf(high, length);
+				low = Arrays.copyOf(low, length);
+				close = Arrays.copyOf(close, length);
+				volume = Arrays.copyOf(volume, length);
+			}
+		}
+
+		void add(long openTime, long closeTime, double open, double high, double low, double close, double volume) {
+			ensureCapacity(size + 1);
+			this.openTime[size] = openTime;
+			this.closeTime[size] = closeTime;
+			this.open[size] = open;
+			this.high[size] = high;
+			this.low[size] = low;
+			this.close[size] = close;
+			this.volume[size] = volume;
+			size++;
+		}
+
+		Candle candle(int i) {
+			return new Candle(openTime[i], closeTime[i], open[i], high[i], low[i], close[i], volume[i]);
+		}
+
+		byte[] encode() {
+			byte priceScale = scaleOf(size, open, high, low, close);
+			byte volumeScale = scaleOf(size, volume);
+
+			Output out = new Output(size * 16 + 2);
+			out.write(priceScale);
+			out.write(volumeScale);
+
+			long previousOpenTime = openTime[0];
+			long previousDelta = 0;
+			long previousDuration = 0;
+			long previousClose = 0;
+			long previousVolume = 0;
+			for (int i = 0; i < size; i++) {
+				if (i > 0) {
+					long delta = openTime[i] - previousOpenTime;
+					out.writeSigned(delta - previousDelta);
+					previousDelta = delta;
+					previousOpenTime = openTime[i];
+				}
+				long duration = closeTime[i] - openTime[i];
+				out.writeSigned(duration - previousDuration);
+				previousDuration = duration;
+
+				if (priceScale == UNSCALED) {
+					if (i == 0) {
+						out.writeXor(0, open[i]);
+						out.writeXor(0, high[i]);
+						out.writeXor(0, low[i]);
+						out.writeXor(0, close[i]);
+					} else {
+						out.writeXor(close[i - 1], open[i]);
+						out.writeXor(high[i - 1], high[i]);
+						out.writeXor(low[i - 1], low[i]);
+						out.writeXor(close[i - 1], close[i]);
+					}
+				} else {
+					double power = POWERS_OF_TEN[priceScale];
+					long o = Math.round(open[i] * power);
+					long h = Math.round(high[i] * power);
+					long l = Math.round(low[i] * power);
+					long c = Math.round(close[i] * power);
+					out.writeSigned(o - previousClose);
+					out.writeSigned(c - o);
+					out.writeSigned(h - Math.max(o, c));
+					out.writeSigned(Math.min(o, c) - l);
+					previousClose = c;
+				}
+
+				if (volumeScale == UNSCALED) {
+					out.writeXor(i == 0 ? 0 : volume[i - 1], volume[i]);
+				} else {
+					long v = Math.round(volume[i] * POWERS_OF_TEN[volumeScale]);
+					out.writeSigned(v - previousVolume);
+					previousVolume = v;
+				}
+			}
+			return out.toByteArray();
+		}
+
+		void decode(byte[] payload, int count, long firstOpenTime) {
+			size = 0;
+			ensureCapacity(count);
+			Input in = new Input(payload);
+			byte priceScale = in.read();
+			byte volumeScale = in.read();
+			double pricePower = priceScale == UNSCALED ? 0 : POWERS_OF_TEN[priceScale];
+			double volumePower = volumeScale == UNSCALED ? 0 : POWERS_OF_TEN[volumeScale];
+
+			long previousOpenTime = firstOpenTime;
+			long previousDelta = 0;
+			long previousDuration = 0;
+			long previousClose = 0;
+			long previousVolume = 0;
+			for (int i = 0; i < count; i++) {
+				if (i > 0) {
+					previousDelta += in.readSigned();
+					previousOpenTime += previousDelta;
+				}
+				openTime[i] = previousOpenTime;
+				previousDuration += in.readSigned();
+				closeTime[i] = previousOpenTime + previousDuration;
+
+				if (priceScale == UNSCALED) {
+					if (i == 0) {
+						open[i] = in.readXor(0);
+						high[i] = in.readXor(0);
+						low[i] = in.readXor(0);
+						close[i] = in.readXor(0);
+					} else {
+						open[i] = in.readXor(close[i - 1]);
+						high[i] = in.readXor(high[i - 1]);
+						low[i] = in.readXor(low[i - 1]);
+						close[i] = in.readXor(close[i - 1]);
+					}
+				} else {
+					long o = previousClose + in.readSigned();
+					long c = o + in.readSigned();
+					long h = Math.max(o, c) + in.readSigned();
+					long l = Math.min(o, c) - in.readSigned();
+					open[i] = o / pricePower;
+					high[i] = h / pricePower;
+					low[i] = l / pricePower;
+					close[i] = c / pricePower;
+					previousClose = c;
+				}
+
+				if (volumeScale == UNSCALED) {
+					volume[i] = in.readXor(i == 0 ? 0 : volume[i - 1]);
+				} else {
+					previousVolume += in.readSigned();
+					volume[i] = previousVolume / volumePower;
+				}
+			}
+			size = count;
+		}
+	}
+
+	/**
+	 * Finds the smallest number of decimal places that represents all given values exactly as scaled integers.
+	 *
+	 * @return the scale, or {@link #UNSCALED} if no scale up to {@link #MAX_SCALE} represents all values.
+	 */
+	static byte scaleOf(int size, double[]... columns) {
+		int scale = 0;
+		for (double[] values : columns) {
+			for (int i = 0; i < size; i++) {
+				while (!isScaled(values[i], scale)) {
+					if (++scale > MAX_SCALE) {
+						return UNSCALED;
+					}
+				}
+			}
+		}
+		//values checked with a smaller scale may exceed the range of exact integers once scaled up.
+		for (double[] values : columns) {
+			for (int i = 0; i < size; i++) {
+				if (!isScaled(values[i], scale)) {
+					return UNSCALED;
+				}
+			}
+		}
+		return (byte) scale;
+	}
+
+	private static boolean isScaled(double value, int scale) {
+		double power = POWERS_OF_TEN[scale];
+		double scaled = value * power;
+		return Math.abs(scaled) < MAX_SCALED && Math.round(scaled) / power == value && (value != 0 || Double.doubleToRawLongBits(value) == 0);
+	}
+
+	private static final class Output {
+		private byte[] bytes;
+		private int length;
+
+		Output(int capacity) {
+			bytes = new byte[capacity];
+		}
+
+		void write(int b) {
+			if (length == bytes.length) {
+				bytes = Arrays.copyOf(bytes, length * 2);
+			}
+			bytes[length++] = (byte) b;
+		}
+
+		void writeUnsigned(long value) {
+			while ((value & ~0x7FL) != 0) {
+				write((int) ((value & 0x7F) | 0x80));
+				value >>>= 7;
+			}
+			write((int) value);
+		}
+
+		void writeSigned(long value) {
+			writeUnsigned((value << 1) ^ (value >> 63));
+		}
+
+		/**
+		 * Writes the bits that differ from the previous value as the number of trailing zeros, followed by the meaningful bits.
+		 */
+		void writeXor(double previous, double value) {
+			long xor = Double.doubleToRawLongBits(previous) ^ Double.doubleToRawLongBits(value);
+			int trailingZeros = Long.numberOfTrailingZeros(xor);
+			write(trailingZeros);
+			if (xor != 0) {
+				writeUnsigned(xor >>> trailingZeros);
+			}
+		}
+
+		byte[] toByteArray() {
+			return Arrays.copyOf(bytes, length);
+		}
+	}
+
+	private static final class Input {
+		private final byte[] bytes;
+		private int position;
+
+		Input(byte[] bytes) {
+			this.bytes = bytes;
+		}
+
+		byte read() {
+			return bytes[position++];
+		}
+
+		long readUnsigned() {
+			long out = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = bytes[position++];
+				out |= (long) (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+			return out;
+		}
+
+		long readSigned() {
+			long value = readUnsigned();
+			return (value >>> 1) ^ -(value & 1);
+		}
+
+		double readXor(double previous) {
+			int trailingZeros = read();
+			long xor = trailingZeros == 64 ? 0 : readUnsigned() << trailingZeros;
+			return Double.longBitsToDouble(Double.doubleToRawLongBits(previous) ^ xor);
+		}
+	}
+}
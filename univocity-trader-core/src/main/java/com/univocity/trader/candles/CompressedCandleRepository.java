@@ -0,0 +1,38 @@
+package com.univocity.trader.candles;
+
+import com.univocity.trader.indicators.base.*;
+
+import java.io.*;
+
+/**
+ * A {@link FileCandleRepository} that stores the history of each symbol in a {@link CompressedCandleFile}, which takes
+ * a fraction of the space of the {@code candle} table and of a {@link CandleFile}. Files are named after their symbol
+ * (e.g. {@code BTCUSDT.zcandles}) and stored in a given directory.
+ *
+ * Use {@link #importHistory(CandleRepository, java.time.Instant, java.time.Instant)} to convert the history stored in
+ * the database into compressed files.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+public class CompressedCandleRepository extends FileCandleRepository {
+
+	/**
+	 * Creates a repository of compressed candle files
+	 *
+	 * @param directory the directory where candle files are stored. Will be created if it doesn't exist.
+	 * @param interval  the interval of the candles stored in new files.
+	 */
+	public CompressedCandleRepository(File directory, TimeInterval interval) {
+		super(directory, interval);
+	}
+
+	@Override
+	protected String fileExtension() {
+		return CompressedCandleFile.EXTENSION;
+	}
+
+	@Override
+	protected CandleStore openFile(File file, String symbol, TimeInterval interval) {
+		return CompressedCandleFile.open(file, symbol, interval);
+	}
+}
@@ -0,0 +1,246 @@
+package com.univocity.trader.candles;
+
+import com.univocity.trader.indicators.base.*;
+import org.slf4j.*;
+
+import java.io.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * A {@link CandleRepository} that stores and replays the history of each symbol from a local {@link CandleFile},
+ * without any database access. Files are named after their symbol (e.g. {@code BTCUSDT.candles}) and stored in a
+ * given directory.
+ *
+ * Use {@link #importHistory(CandleRepository, String, Instant, Instant)} to copy the history of a symbol from the database
+ * into its candle file, and {@link #exportHistory(CandleRepository, String)} to copy it back.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+public class FileCandleRepository extends CandleRepository implements Closeable {
+
+	private static final Logger log = LoggerFactory.getLogger(FileCandleRepository.class);
+
+	private final File directory;
+	private final TimeInterval interval;
+	private final ConcurrentHashMap<String, CandleStore> files = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a repository of candle files
+	 *
+	 * @param directory the directory where candle files are stored. Will be created if it doesn't exist.
+	 * @param interval  the interval of the candles stored in new files.
+	 */
+	public FileCandleRepository(File directory, TimeInterval interval) {
+		super(null);
+		if (!directory.exists() && !directory.mkdirs()) {
+			throw new IllegalArgumentException("Unable to create directory for candle files: " + directory.getAbsolutePath());
+		}
+		if (!directory.isDirectory()) {
+			throw new IllegalArgumentException("Not a directory: " + directory.getAbsolutePath());
+		}
+		this.directory = directory;
+		this.interval = interval;
+	}
+
+	/**
+	 * Returns the extension of the files managed by this repository
+	 *
+	 * @return the file extension, including the leading dot.
+	 */
+	protected String fileExtension() {
+		return CandleFile.EXTENSION;
+	}
+
+	/**
+	 * Opens the file with the candles of a given symbol, creating it if required.
+	 *
+	 * @param file     the file to open
+	 * @param symbol   the symbol whose candles are stored in the file
+	 * @param interval the interval of the candles stored in the file
+	 *
+	 * @return the candle store backed by the given file.
+	 */
+	protected CandleStore openFile(File file, String symbol, TimeInterval interval) {
+		return CandleFile.open(file, symbol, interval);
+	}
+
+	private File fileOf(String symbol) {
+		return new File(directory, symbol + fileExtension());
+	}
+
+	private CandleStore getFile(String symbol, boolean create) {
+		CandleStore out = files.get(symbol);
+		if (out == null && (create || fileOf(symbol).exists())) {
+			out = files.computeIfAbsent(symbol, s -> openFile(fileOf(s), s, interval));
+		}
+		return out;
+	}
+
+	@Override
+	public boolean addToHistory(String symbol, PreciseCandle tick, boolean initializing) {
+		boolean added = getFile(symbol, true).append(tick.openTime, tick.closeTime, tick.open.doubleValue(), tick.high.doubleValue(), tick.low.doubleValue(), tick.close.doubleValue(), tick.volume.doubleValue());
+		if (added) {
+			clearCandleCounts();
+		} else if (!initializing) {
+			log.error("Skipping duplicate " + symbol + " Tick: " + tick);
+		}
+		return added;
+	}
+
+	@Override
+	public int addToHistory(String symbol, List<PreciseCandle> candles) {
+		int count = 0;
+		for (PreciseCandle candle : candles) {
+			if (addToHistory(symbol, candle, true)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Override
+	public Enumeration<Candle> iterate(String symbol, Instant from, Instant to, boolean cache) {
+		CandleStore file = getFile(symbol, false);
+		if (file == null) {
+			return Collections.emptyEnumeration();
+		}
+		//the operating system already caches mapped files, so the cache flag is ignored.
+		return file.read(from == null ? null : from.toEpochMilli(), to == null ? null : to.toEpochMilli());
+	}
+
+	@Override
+	public Enumeration<SymbolCandle> iterate(Collection<String> symbols, Instant from, Instant to, long sliceLength) {
+		//files are read without database cursors, so their candles are simply merged.
+		Map<String, Enumeration<Candle>> candles = new TreeMap<>();
+		for (String symbol : symbols) {
+			candles.put(symbol, iterate(symbol, from, to, false));
+		}
+		return merge(candles);
+	}
+
+	@Override
+	protected long performCandleCounting(String symbol, Instant from, Instant to) {
+		CandleStore file = getFile(symbol, false);
+		if (file == null) {
+			return 0;
+		}
+		return file.count(from == null ? null : from.toEpochMilli(), to == null ? null : to.toEpochMilli());
+	}
+
+	@Override
+	public Set<String> getKnownSymbols() {
+		TreeSet<String> out = new TreeSet<>(files.keySet());
+		String extension = fileExtension();
+		File[] all = directory.listFiles((dir, name) -> name.endsWith(extension));
+		if (all != null) {
+			for (File file : all) {
+				String name = file.getName();
+				out.add(name.substring(0, name.length() - extension.length()));
+			}
+		}
+		return out;
+	}
+
+	@Override
+	public Candle lastCandle(String symbol) {
+		CandleStore file = getFile(symbol, false);
+		if (file == null) {
+			return null;
+		}
+		Enumeration<Candle> e = file.read(file.lastOpenTime(), null);
+		Candle out = null;
+		while (e.hasMoreElements()) {
+			out = e.nextElement();
+		}
+		return out;
+	}
+
+	/**
+	 * Appends the candles of a given symbol, stored in another {@link CandleRepository} (typically a database), to
+	 * the candle file of that symbol. Only candles more recent than the last candle already in the file are added.
+	 *
+	 * @param source the repository with the candles to be copied
+	 * @param symbol the symbol whose history will be copied
+	 * @param from   the earliest candle open time to copy, or {@code null} to copy from the beginning of the history
+	 * @param to     the latest candle close time to copy, or {@code null} to copy up to the end of the history
+	 *
+	 * @return the number of candles added to the file.
+	 */
+	public long importHistory(CandleRepository source, String symbol, Instant from, Instant to) {
+		CandleStore file = getFile(symbol, true);
+		long lastOpenTime = file.lastOpenTime();
+		if (lastOpenTime != Long.MIN_VALUE && (from == null || from.toEpochMilli() < lastOpenTime)) {
+			from = Instant.ofEpochMilli(lastOpenTime);
+		}
+
+		final long start = System.currentTimeMillis();
+		long count = 0;
+		Enumeration<Candle> candles = source.iterate(symbol, from, to, false);
+		while (candles.hasMoreElements()) {
+			Candle candle = candles.nextElement();
+			if (candle != null && file.append(candle)) {
+				count++;
+			}
+		}
+		file.flush();
+		clearCandleCounts();
+		log.info("Imported {} {} candles into {} in {} seconds", count, symbol, file.getFile().getAbsolutePath(), (System.currentTimeMillis() - start) / 1000.0);
+		return count;
+	}
+
+	/**
+	 * Appends the candles of all symbols stored in another {@link CandleRepository} (typically a database) to the candle
+	 * file of each symbol, converting the whole history into the format of this repository.
+	 *
+	 * @param source the repository with the candles to be copied
+	 * @param from   the earliest candle open time to copy, or {@code null} to copy from the beginning of the history
+	 * @param to     the latest candle close time to copy, or {@code null} to copy up to the end of the history
+	 *
+	 * @return the number of candles added to the files.
+	 *
+	 * @see #importHistory(CandleRepository, String, Instant, Instant)
+	 */
+	public long importHistory(CandleRepository source, Instant from, Instant to) {
+		long count = 0;
+		for (String symbol : source.getKnownSymbols()) {
+			count += importHistory(source, symbol, from, to);
+		}
+		return count;
+	}
+
+	/**
+	 * Copies all candles of a given symbol stored in its candle file to another {@link CandleRepository} (typically a database).
+	 *
+	 * @param target the repository that will receive the candles
+	 * @param symbol the symbol whose history will be copied
+	 *
+	 * @return the number of candles added to the target repository.
+	 */
+	public long exportHistory(CandleRepository target, String symbol) {
+		long count = 0;
+		Enumeration<Candle> candles = iterate(symbol, null, null, false);
+		while (candles.hasMoreElements()) {
+			if (target.addToHistory(symbol, new PreciseCandle(candles.nextElement()), true)) {
+				count++;
+			}
+		}
+		log.info("Exported {} {} candles", count, symbol);
+		return count;
+	}
+
+	/**
+	 * Closes all open candle files. They will be opened again when required.
+	 */
+	@Override
+	public void clearCaches() {
+		close();
+	}
+
+	@Override
+	public void close() {
+		files.values().forEach(CandleStore::close);
+		files.clear();
+	}
+}
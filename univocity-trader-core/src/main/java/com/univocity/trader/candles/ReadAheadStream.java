@@ -0,0 +1,357 @@
+package com.univocity.trader.candles;
+
+import org.slf4j.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+/**
+ * Streams elements read in background by a shared executor, without dedicating a thread to each stream. Elements are
+ * read in batches, which are handed to the consumer through a bounded queue of batches.
+ *
+ * Reading is suspended whenever the queue is full, releasing the executor thread to read other streams, and resumed
+ * once the consumer drains half of the queue. The consumer blocks only while the queue is empty. Closing the stream
+ * stops reading and releases the underlying resources, e.g. when a simulation ends before consuming all candles.
+ *
+ * As a suspended stream may be resumed by any thread of the executor, its source must not depend on resources bound to
+ * a thread, such as a connection held by a thread local. Streams that share a {@link Limit} don't start reading while
+ * the limit of open sources is reached, e.g. to not hold more database cursors than there are pooled connections.
+ *
+ * @param <T> the type of elements streamed.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ * @see CandleStream
+ * @see com.univocity.trader.config.DatabaseConfiguration#readBatchSize(int)
+ */
+public class ReadAheadStream<T> implements Enumeration<T>, AutoCloseable, Runnable {
+
+	private static final Logger log = LoggerFactory.getLogger(ReadAheadStream.class);
+
+	/**
+	 * Produces the elements of a stream.
+	 *
+	 * @param <T> the type of elements produced.
+	 */
+	public interface Source<T> {
+		/**
+		 * Reads the next elements of the stream
+		 *
+		 * @param batch the array to be filled with the next elements.
+		 *
+		 * @return the number of elements read. Any value smaller than the length of the batch indicates the end of the
+		 * stream.
+		 *
+		 * @throws Exception if the elements can't be read.
+		 */
+		int read(T[] batch) throws Exception;
+
+		/**
+		 * Releases any resources used to read the elements. Invoked once, after the last batch is read, after a failure,
+		 * or when the stream is closed.
+		 *
+		 * @throws Exception if the resources can't be released.
+		 */
+		void close() throws Exception;
+	}
+
+	/**
+	 * Limits the number of streams whose sources are open at the same time. A stream takes a slot of the limit before
+	 * it reads its first batch, and gives it back once its source is closed. Streams waiting for a slot don't hold a
+	 * thread of the executor: they are resumed when another stream gives its slot back.
+	 */
+	public static final class Limit {
+		private final int max;
+		private final Set<ReadAheadStream<?>> waiting = new LinkedHashSet<>();
+		private int open;
+
+		/**
+		 * Creates a new limit of open sources.
+		 *
+		 * @param max the maximum number of streams that can have their sources open at the same time.
+		 */
+		public Limit(int max) {
+			if (max < 1) {
+				throw new IllegalArgumentException("Limit of open streams must be positive. Got: " + max);
+			}
+			this.max = max;
+		}
+
+		public int getMax() {
+			return max;
+		}
+
+		private synchronized boolean acquire(ReadAheadStream<?> stream) {
+			if (open < max) {
+				open++;
+				waiting.remove(stream);
+				return true;
+			}
+			waiting.add(stream);
+			return false;
+		}
+
+		private synchronized boolean isWaiting(ReadAheadStream<?> stream) {
+			return waiting.contains(stream);
+		}
+
+		private void release() {
+			ReadAheadStream<?> next;
+			synchronized (this) {
+				open--;
+				next = poll();
+			}
+			if (next != null) {
+				next.schedule();
+			}
+		}
+
+		private void cancel(ReadAheadStream<?> stream) {
+			ReadAheadStream<?> next = null;
+			synchronized (this) {
+				if (!waiting.remove(stream) && open < max) {
+					//stream was resumed to take the slot given back by another, which now goes to the next stream waiting
+					next = poll();
+				}
+			}
+			if (next != null) {
+				next.schedule();
+			}
+		}
+
+		private ReadAheadStream<?> poll() {
+			Iterator<ReadAheadStream<?>> it = waiting.iterator();
+			if (it.hasNext()) {
+				ReadAheadStream<?> out = it.next();
+				it.remove();
+				return out;
+			}
+			return null;
+		}
+	}
+
+	private final String description;
+	private final Source<T> source;
+	private final Executor executor;
+	private final Limit limit;
+	private final IntFunction<T[]> arrays;
+	private final T[] end;
+	private final int batchSize;
+	private final int maxBatches;
+	private final BlockingQueue<T[]> batches;
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+
+	private volatile boolean started;
+	private volatile boolean cancelled;
+	private volatile boolean finished;
+	private volatile Throwable error;
+
+	private T[] current;
+	private int position;
+
+	/**
+	 * Creates a new stream and starts reading its first batches.
+	 *
+	 * @param description what is being streamed, used in log and error messages
+	 * @param source      the source of elements
+	 * @param executor    the executor used to read elements in background
+	 * @param arrays      the function used to create arrays of elements
+	 * @param batchSize   the number of elements read at once
+	 * @param maxBatches  the number of batches that can be read ahead of the consumer.
+	 */
+	public ReadAheadStream(String description, Source<T> source, Executor executor, IntFunction<T[]> arrays, int batchSize, int maxBatches) {
+		this(description, source, executor, null, arrays, batchSize, maxBatches);
+	}
+
+	/**
+	 * Creates a new stream and starts reading its first batches once the given limit of open sources allows.
+	 *
+	 * @param description what is being streamed, used in log and error messages
+	 * @param source      the source of elements
+	 * @param executor    the executor used to read elements in background
+	 * @param limit       the limit of open sources shared with other streams, or {@code null} for no limit.
+	 * @param arrays      the function used to create arrays of elements
+	 * @param batchSize   the number of elements read at once
+	 * @param maxBatches  the number of batches that can be read ahead of the consumer.
+	 */
+	public ReadAheadStream(String description, Source<T> source, Executor executor, Limit limit, IntFunction<T[]> arrays, int batchSize, int maxBatches) {
+		if (batchSize < 1 || maxBatches < 1) {
+			throw new IllegalArgumentException("Batch size and number of batches must be positive");
+		}
+		this.description = description;
+		this.source = source;
+		this.executor = executor;
+		this.limit = limit;
+		this.arrays = arrays;
+		this.end = arrays.apply(0);
+		this.batchSize = batchSize;
+		this.maxBatches = maxBatches;
+		this.batches = new ArrayBlockingQueue<>(maxBatches + 1); //room for the end marker
+		schedule();
+	}
+
+	private void schedule() {
+		if (!finished && scheduled.compareAndSet(false, true)) {
+			try {
+				executor.execute(this);
+			} catch (RejectedExecutionException e) {
+				scheduled.set(false);
+				finish(e);
+			}
+		}
+	}
+
+	/**
+	 * Reads batches of elements until the queue is full or the source is exhausted. Invoked by the executor.
+	 */
+	@Override
+	public void run() {
+		if (!started) {
+			if (cancelled) {
+				finish(null);
+				return;
+			}
+			if (limit != null && !limit.acquire(this)) {
+				scheduled.set(false);
+				//a slot may have been given to this stream since it was found unavailable
+				if (cancelled || !limit.isWaiting(this)) {
+					schedule();
+				}
+				return;
+			}
+			started = true;
+		}
+		try {
+			while (!cancelled && batches.size() < maxBatches) {
+				T[] batch = arrays.apply(batchSize);
+				int count = source.read(batch);
+				if (count > 0) {
+					batches.add(count == batchSize ? batch : Arrays.copyOf(batch, count));
+				}
+				if (count < batchSize) {
+					finish(null);
+					return;
+				}
+			}
+			if (cancelled) {
+				finish(null);
+				return;
+			}
+		} catch (Throwable e) {
+			log.error("Error reading " + description, e);
+			finish(e);
+			return;
+		}
+
+		scheduled.set(false);
+		//the consumer may have drained the queue or closed the stream since the last check.
+		if (cancelled || batches.size() <= maxBatches / 2) {
+			schedule();
+		}
+	}
+
+	private void finish(Throwable e) {
+		if (finished) {
+			return;
+		}
+		error = e;
+		finished = true;
+		try {
+			source.close();
+		} catch (Exception ex) {
+			log.warn("Error releasing resources used to read " + description, ex);
+		}
+		if (limit != null) {
+			if (started) {
+				limit.release();
+			} else {
+				limit.cancel(this);
+			}
+		}
+		if (!cancelled) {
+			batches.add(end);
+		}
+	}
+
+	private T[] take() {
+		if (cancelled) {
+			return end;
+		}
+		try {
+			T[] out = batches.take();
+			if (out != end && batches.size() <= maxBatches / 2) {
+				schedule();
+			}
+			return out;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			close();
+			return end;
+		}
+	}
+
+	/**
+	 * Tests whether there are more elements to consume, blocking until the next batch is read if required.
+	 *
+	 * @return {@code true} if {@link #nextElement()} will return another element.
+	 *
+	 * @throws IllegalStateException if reading the elements failed.
+	 */
+	@Override
+	public boolean hasMoreElements() {
+		if (current != null && position < current.length) {
+			return true;
+		}
+		if (current == end) {
+			return false;
+		}
+		current = take();
+		position = 0;
+		if (current == end) {
+			Throwable e = error;
+			if (e != null && !cancelled) {
+				throw new IllegalStateException("Error reading " + description, e);
+			}
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the next element of the stream
+	 *
+	 * @return the next element, or {@code null} if there are no more elements.
+	 */
+	@Override
+	public T nextElement() {
+		if (hasMoreElements()) {
+			T out = current[position];
+			current[position++] = null;
+			return out;
+		}
+		return null;
+	}
+
+	/**
+	 * Stops reading and releases the resources of the underlying source. Elements not yet consumed are discarded.
+	 */
+	@Override
+	public void close() {
+		if (!cancelled) {
+			cancelled = true;
+			batches.clear();
+			current = end;
+			schedule();
+		}
+	}
+
+	/**
+	 * Indicates whether this stream has been closed before all elements were consumed.
+	 *
+	 * @return {@code true} if the stream has been closed.
+	 */
+	public boolean isClosed() {
+		return cancelled;
+	}
+}
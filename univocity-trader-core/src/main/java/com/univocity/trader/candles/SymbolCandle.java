@@ -0,0 +1,23 @@
+package com.univocity.trader.candles;
+
+/**
+ * A candle of a given symbol, as produced by streams that merge the candles of multiple symbols.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ * @see CandleRepository#iterate(java.util.Collection, java.time.Instant, java.time.Instant, long)
+ */
+public final class SymbolCandle {
+
+	public final String symbol;
+	public final Candle candle;
+
+	public SymbolCandle(String symbol, Candle candle) {
+		this.symbol = symbol;
+		this.candle = candle;
+	}
+
+	@Override
+	public String toString() {
+		return symbol + " " + candle;
+	}
+}
@@ -39,6 +39,7 @@ public abstract class AccountConfiguration<T extends AccountConfiguration<T>> im
 	private TimeZone timeZone;
 	private boolean shortingEnabled;
 	private int marginReservePercentage = 150;
+	private boolean candleReuseEnabled;
 	protected boolean parsingProperties = false;
 
 
@@ -78,6 +79,7 @@ public abstract class AccountConfiguration<T extends AccountConfiguration<T>> im
 			referenceCurrency = properties.getProperty(accountId + "reference.currency");
 			shortingEnabled = properties.getBoolean(accountId + "enable.shorting", false);
 			marginReservePercentage = properties.getInteger(accountId +"margin.reserve.percentage", 150);
+			candleReuseEnabled = properties.getBoolean(accountId + "reuse.candles", false);
 
 			String tz = properties.getOptionalProperty(accountId + "timezone");
 			timeZone = getTimeZone(tz);
@@ -553,6 +555,30 @@ public abstract class AccountConfiguration<T extends AccountConfiguration<T>> im
 		return shortingEnabled;
 	}
 
+	/**
+	 * Processes candles without allocating new {@link com.univocity.trader.candles.Candle} instances: the aggregated
+	 * candles used by indicators are updated in place, and live ticks are decoded into a reusable candle per symbol.
+	 *
+	 * Only enable this if the strategies and monitors of this account don't keep references to candles received
+	 * or obtained from indicators, as their values will change. The latest full candle of each interval remains
+	 * unchanged until the next one is produced.
+	 *
+	 * @return this configuration object, for further settings.
+	 */
+	public T enableCandleReuse() {
+		candleReuseEnabled = true;
+		return (T) this;
+	}
+
+	public T disableCandleReuse() {
+		candleReuseEnabled = false;
+		return (T) this;
+	}
+
+	public boolean candleReuseEnabled() {
+		return candleReuseEnabled;
+	}
+
 	public T marginReservePercentage(int marginReservePercentage) {
 		if (marginReservePercentage < 100) {
 			throw new IllegalArgumentException("Margin reserve percentage must be at least 100%");
@@ -1,10 +1,13 @@
 package com.univocity.trader.config;
 
+import com.univocity.trader.candles.*;
+import com.univocity.trader.indicators.base.*;
+import com.zaxxer.hikari.*;
 import org.apache.commons.lang3.*;
-import org.springframework.jdbc.core.*;
 import org.springframework.jdbc.datasource.*;
 
 import javax.sql.*;
+import java.util.*;
 import java.util.function.*;
 
 public class DatabaseConfiguration implements ConfigurationGroup {
@@ -14,7 +17,27 @@ public class DatabaseConfiguration implements ConfigurationGroup {
 	private char[] password;
 	private String jdbcDriver;
 	private Supplier<DataSource> dataSource;
-	private final ThreadLocal<JdbcTemplate> db = ThreadLocal.withInitial(() -> new JdbcTemplate(dataSource()));
+
+	private int connectionPoolSize = 0;
+	private int minimumIdleConnections = 1;
+	private long idleTimeout = 10 * 60_000L;
+	private long validationTimeout = 5_000L;
+	private String validationQuery;
+	private HikariDataSource connectionPool;
+
+	private int writeBatchSize = 0;
+	private long writeMaxLatency = 1_000L;
+	private int writeQueueCapacity = 10_000;
+
+	private int readBatchSize = 500;
+	private int readAheadBatches = 8;
+	private int readerThreads = 0;
+
+	private TimeInterval[] rollupIntervals = new TimeInterval[0];
+	private boolean coverageIndex = false;
+
+	private long cacheMaxSize = 0L;
+	private CandleCache.EvictionPolicy cacheEvictionPolicy = CandleCache.EvictionPolicy.LRU;
 
 	@Override
 	public void readProperties(PropertyBasedConfiguration properties) {
@@ -24,6 +47,46 @@ public class DatabaseConfiguration implements ConfigurationGroup {
 
 		String pwd = properties.getProperty("database.password");
 		password = pwd == null ? null : pwd.toCharArray();
+
+		connectionPoolSize(properties.getInteger("database.connection.pool.size", 0));
+		minimumIdleConnections(properties.getInteger("database.connection.pool.min.idle", 1));
+		idleTimeout(properties.getInteger("database.connection.pool.idle.timeout", 600) * 1000L);
+		validationTimeout(properties.getInteger("database.connection.pool.validation.timeout", 5) * 1000L);
+		validationQuery(properties.getOptionalProperty("database.connection.pool.validation.query"));
+
+		writeBatchSize(properties.getInteger("database.write.batch.size", 0));
+		writeMaxLatency(properties.getInteger("database.write.max.latency", 1000));
+		writeQueueCapacity(properties.getInteger("database.write.queue.capacity", 10_000));
+
+		readBatchSize(properties.getInteger("database.read.batch.size", 500));
+		readAheadBatches(properties.getInteger("database.read.ahead.batches", 8));
+		readerThreads(properties.getInteger("database.reader.threads", 0));
+
+		String rollups = properties.getOptionalProperty("database.rollups");
+		if (rollups != null) {
+			List<TimeInterval> intervals = new ArrayList<>();
+			for (String interval : rollups.split(",")) {
+				if (!interval.isBlank()) {
+					try {
+						intervals.add(TimeInterval.fromString(interval.trim()));
+					} catch (RuntimeException e) {
+						throw new IllegalConfigurationException("Invalid rollup interval '" + interval.trim() + "' in property 'database.rollups'", e);
+					}
+				}
+			}
+			rollupIntervals(intervals.toArray(new TimeInterval[0]));
+		}
+		coverageIndex(properties.getBoolean("database.coverage.index", false));
+
+		cacheMaxSize(properties.getInteger("database.cache.max.size", 0) * 1024L * 1024L);
+		String policy = properties.getOptionalProperty("database.cache.eviction.policy");
+		if (policy != null) {
+			try {
+				cacheEvictionPolicy(CandleCache.EvictionPolicy.valueOf(policy.trim().toUpperCase()));
+			} catch (IllegalArgumentException e) {
+				throw new IllegalConfigurationException("Invalid cache eviction policy '" + policy + "'. Expected one of " + Arrays.toString(CandleCache.EvictionPolicy.values()));
+			}
+		}
 	}
 
 	public String jdbcUrl() {
@@ -67,6 +130,327 @@ public class DatabaseConfiguration implements ConfigurationGroup {
 		return this;
 	}
 
+	public int connectionPoolSize() {
+		return connectionPoolSize;
+	}
+
+	/**
+	 * Enables a bounded pool of database connections, shared by all threads that read or write candles (e.g. the
+	 * concurrent symbol loads of a simulation, the backfill process and the persistence of live ticks).
+	 *
+	 * Without a pool, every thread that accesses the database obtains a dedicated connection which is held until the
+	 * application ends, and each stream of candles opens a connection of its own. When pooling, streams of candles
+	 * hold a pooled connection while reading, and at most one less than the pool size read at the same time, so the
+	 * size should be greater than {@link Simulation#activeQueryLimit()} for all candle readers of a simulation to run
+	 * in parallel.
+	 *
+	 * @param connectionPoolSize the maximum number of connections in the pool. Use {@code 0} to disable pooling (the default).
+	 *
+	 * @return this configuration object, for further settings.
+	 */
+	public DatabaseConfiguration connectionPoolSize(int connectionPoolSize) {
+		if (connectionPoolSize < 0) {
+			throw new IllegalConfigurationException("Connection pool size can't be negative. Got: " + connectionPoolSize);
+		}
+		this.connectionPoolSize = connectionPoolSize;
+		return this;
+	}
+
+	public int minimumIdleConnections() {
+		return minimumIdleConnections;
+	}
+
+	/**
+	 * Defines the minimum number of idle connections the pool tries to keep open.
+	 *
+	 * @param minimumIdleConnections the minimum number of idle connections, capped by the {@link #connectionPoolSize()}
+	 *
+	 * @return this configuration object, for further settings.
+	 */
+	public DatabaseConfiguration minimumIdleConnections(int minimumIdleConnections) {
+		if (minimumIdleConnections < 0) {
+			throw new IllegalConfigurationException("Minimum number of idle connections can't be negative. Got: " + minimumIdleConnections);
+		}
+		this.minimumIdleConnections = minimumIdleConnections;
+		return this;
+	}
+
+	public long idleTimeout() {
+		return idleTimeout;
+	}
+
+	/**
+	 * Defines for how long a connection can remain idle in the pool before being closed, if there are more idle
+	 * connections than the {@link #minimumIdleConnections()}.
+	 *
+	 * @param idleTimeout the maximum idle time of a connection, in milliseconds.
+	 *
+	 * @return this configuration object, for further settings.
+	 */
+	public DatabaseConfiguration idleTimeout(long idleTimeout) {
+		this.idleTimeout = idleTimeout;
+		return this;
+	}
+
+	public long validationTimeout() {
+		return validationTimeout;
+	}
+
+	/**
+	 * Defines the maximum amount of time to wait for a connection to be validated before it is handed out by the pool.
+	 *
+	 * @param validationTimeout the validation timeout, in milliseconds.
+	 *
+	 * @return this configuration object, for further settings.
+	 */
+	public DatabaseConfiguration validationTimeout(long validationTimeout) {
+		this.validationTimeout = validationTimeout;
+		return this;
+	}
+
+	public String validationQuery() {
+		return validationQuery;
+	}
+
+	/**
+	 * Defines a query used to validate pooled connections. Only required by JDBC drivers that don't support
+	 * {@link java.sql.Connection#isValid(int)}.
+	 *
+	 * @param validationQuery the validation query, e.g. {@code SELECT 1}
+	 *
+	 * @return this configuration object, for further settings.
+	 */
+	public DatabaseConfiguration validationQuery(String validationQuery) {
+		this.validationQuery = StringUtils.trimToNull(validationQuery);
+		return this;
+	}
+
+	public int writeBatchSize() {
+		return writeBatchSize;
+	}
+
+	/**
+	 * Enables persisting candles in background, with JDBC batch inserts of up to the given number of candles of a
+	 * symbol. Candles added to the history are handed to a background writer, so that processing live ticks or
+	 * backfilling the history doesn't wait for the database. Candles still queued are lost if the application
+	 * crashes.
+	 *
+	 * @param writeBatchSize the maximum number of candles per batch insert. Use {@code 0} to persist each candle
+	 *                       synchronously as soon as it is added to the history (the default).
+	 *
+	 * @return this configuration object, for further settings.
+	 */
+	public DatabaseConfiguration writeBatchSize(int writeBatchSize) {
+		if (writeBatchSize < 0) {
+			throw new IllegalConfigurationException("Write batch size can't be negative. Got: " + writeBatchSize);
+		}
+		this.writeBatchSize = writeBatchSize;
+		return this;
+	}
+
+	public long writeMaxLatency() {
+		return writeMaxLatency;
+	}
+
+	/**
+	 * Defines the maximum amount of time a candle waits in an incomplete batch before being persisted.
+	 *
+	 * @param writeMaxLatency the maximum delay before pending candles are written, in milliseconds.
+	 *
+	 * @return this configuration object, for further settings.
+	 */
+	public DatabaseConfiguration writeMaxLatency(long writeMaxLatency) {
+		if (writeMaxLatency < 1) {
+			throw new IllegalConfigurationException("Write latency must be at least 1ms. Got: " + writeMaxLatency);
+		}
+		this.writeMaxLatency = writeMaxLatency;
+		return this;
+	}
+
+	public int writeQueueCapacity() {
+		return writeQueueCapacity;
+	}
+
+	/**
+	 * Defines how many candles can be waiting to be persisted. Threads adding candles to the history are blocked
+	 * while the queue is full.
+	 *
+	 * @param writeQueueCapacity the maximum number of candles waiting to be written.
+	 *
+	 * @return this configuration object, for further settings.
+	 */
+	public DatabaseConfiguration writeQueueCapacity(int writeQueueCapacity) {
+		if (writeQueueCapacity < 1) {
+			throw new IllegalConfigurationException("Write queue capacity must be at least 1. Got: " + writeQueueCapacity);
+		}
+		this.writeQueueCapacity = writeQueueCapacity;
+		return this;
+	}
+
+	public int readBatchSize() {
+		return readBatchSize;
+	}
+
+	/**
+	 * Defines how many candles are read from the database at once and handed over to the consumer of a stream of
+	 * candles, i.e. when {@link CandleRepository#iterate(String, java.time.Instant, java.time.Instant, boolean)} is
+	 * invoked without caching.
+	 *
+	 * @param readBatchSize the number of candles per batch.
+	 *
+	 * @return this configuration object, for further settings.
+	 */
+	public DatabaseConfiguration readBatchSize(int readBatchSize) {
+		if (readBatchSize < 1) {
+			throw new IllegalConfigurationException("Read batch size must be at least 1. Got: " + readBatchSize);
+		}
+		this.readBatchSize = readBatchSize;
+		return this;
+	}
+
+	public int readAheadBatches() {
+		return readAheadBatches;
+	}
+
+	/**
+	 * Defines how many batches of candles can be read ahead of the consumer of a stream of candles. Reading is
+	 * suspended while this limit is reached, and resumed once the consumer processes half of the batches.
+	 *
+	 * @param readAheadBatches the maximum number of batches waiting to be consumed.
+	 *
+	 * @return this configuration object, for further settings.
+	 * @see #readBatchSize(int)
+	 */
+	public DatabaseConfiguration readAheadBatches(int readAheadBatches) {
+		if (readAheadBatches < 1) {
+			throw new IllegalConfigurationException("Number of batches read ahead must be at least 1. Got: " + readAheadBatches);
+		}
+		this.readAheadBatches = readAheadBatches;
+		return this;
+	}
+
+	public int readerThreads() {
+		return readerThreads;
+	}
+
+	/**
+	 * Defines how many threads read streams of candles from the database. Threads are shared among all streams and
+	 * only read the streams whose consumers are not far behind.
+	 *
+	 * @param readerThreads the number of threads reading candles. Use {@code 0} to use one thread per available
+	 *                      processor (the default).
+	 *
+	 * @return this configuration object, for further settings.
+	 * @see #readBatchSize(int)
+	 */
+	public DatabaseConfiguration readerThreads(int readerThreads) {
+		if (readerThreads < 0) {
+			throw new IllegalConfigurationException("Number of reader threads can't be negative. Got: " + readerThreads);
+		}
+		this.readerThreads = readerThreads;
+		return this;
+	}
+
+	public TimeInterval[] rollupIntervals() {
+		return rollupIntervals.clone();
+	}
+
+	/**
+	 * Enables rollup tables with candles pre-aggregated into the given intervals, e.g. {@code candle_5m},
+	 * {@code candle_15m}, {@code candle_1h} and {@code candle_1d} (see {@code db/mysql/candle_rollup.sql}). Rollups
+	 * are updated as 1 minute candles are added to the {@code candle} table, and simulations whose indicators only
+	 * use intervals that are multiples of a rollup interval read their candles from the coarsest rollup available.
+	 *
+	 * Use {@link CandleRepository#updateRollups(String, long, long)} to build the rollups of candles persisted before
+	 * the rollups were enabled.
+	 *
+	 * @param rollupIntervals the intervals of the rollup tables. Each must be a multiple of 1 minute.
+	 *
+	 * @return this configuration object, for further settings.
+	 */
+	public DatabaseConfiguration rollupIntervals(TimeInterval... rollupIntervals) {
+		TreeMap<Long, TimeInterval> intervals = new TreeMap<>();
+		for (TimeInterval interval : rollupIntervals) {
+			if (interval.ms <= TimeInterval.MINUTE.ms || interval.ms % TimeInterval.MINUTE.ms != 0) {
+				throw new IllegalConfigurationException("Rollup interval must be a multiple of 1 minute. Got: " + interval);
+			}
+			intervals.put(interval.ms, interval);
+		}
+		this.rollupIntervals = intervals.values().toArray(new TimeInterval[0]);
+		return this;
+	}
+
+	public boolean coverageIndex() {
+		return coverageIndex;
+	}
+
+	/**
+	 * Enables the index of time ranges covered by the candles of each symbol, stored in the {@code candle_coverage}
+	 * table (see {@code db/mysql/candle_coverage.sql}). The index is updated as candles are added to the history, and
+	 * allows history backfills to find gaps without reading every candle stored. The index of each symbol is built from
+	 * its candles the first time it is required.
+	 *
+	 * @param coverageIndex flag indicating whether the coverage index should be used and maintained.
+	 *
+	 * @return this configuration object, for further settings.
+	 *
+	 * @see CandleRepository#getCoverage(String)
+	 */
+	public DatabaseConfiguration coverageIndex(boolean coverageIndex) {
+		this.coverageIndex = coverageIndex;
+		return this;
+	}
+
+	/**
+	 * Returns the maximum estimated amount of memory taken by candles cached in memory, i.e. when loaded with
+	 * {@link CandleRepository#iterate(String, java.time.Instant, java.time.Instant, boolean)} and the cache flag is set.
+	 *
+	 * @return the cache budget in bytes. Defaults to half of the maximum heap size.
+	 */
+	public long cacheMaxSize() {
+		if (cacheMaxSize <= 0) {
+			return Runtime.getRuntime().maxMemory() / 2;
+		}
+		return cacheMaxSize;
+	}
+
+	/**
+	 * Defines how much memory can be taken by candles cached in memory, typically when running simulations with
+	 * {@link Simulation#cacheCandles(boolean)} enabled. Once the budget is exhausted, the candles of the symbol and time range
+	 * selected by the {@link #cacheEvictionPolicy()} are discarded. The memory taken is estimated from the number of
+	 * candles cached.
+	 *
+	 * @param cacheMaxSize the maximum size of the cache, in bytes. Use {@code 0} to use half of the maximum heap size (the default).
+	 *
+	 * @return this configuration object, for further settings.
+	 */
+	public DatabaseConfiguration cacheMaxSize(long cacheMaxSize) {
+		if (cacheMaxSize < 0) {
+			throw new IllegalConfigurationException("Cache size can't be negative. Got: " + cacheMaxSize);
+		}
+		this.cacheMaxSize = cacheMaxSize;
+		return this;
+	}
+
+	public CandleCache.EvictionPolicy cacheEvictionPolicy() {
+		return cacheEvictionPolicy;
+	}
+
+	/**
+	 * Defines which cached candles are discarded first when the {@link #cacheMaxSize()} is exceeded.
+	 *
+	 * @param cacheEvictionPolicy the eviction policy, {@link CandleCache.EvictionPolicy#LRU} by default.
+	 *
+	 * @return this configuration object, for further settings.
+	 */
+	public DatabaseConfiguration cacheEvictionPolicy(CandleCache.EvictionPolicy cacheEvictionPolicy) {
+		if (cacheEvictionPolicy == null) {
+			throw new IllegalConfigurationException("Cache eviction policy can't be null");
+		}
+		this.cacheEvictionPolicy = cacheEvictionPolicy;
+		return this;
+	}
+
 	@Override
 	public boolean isConfigured() {
 		return dataSource != null || StringUtils.isNoneBlank(jdbcUrl, jdbcDriver, user);
@@ -79,13 +463,6 @@ public class DatabaseConfiguration implements ConfigurationGroup {
 		return dataSource.get();
 	}
 
-	private DataSource getDataSource() {
-		if(dataSource == null){
-			return defaultDataSource();
-		}
-		return dataSource.get();
-	}
-
 	public void dataSource(DataSource dataSource) {
 		if (dataSource == null) {
 			throw new IllegalArgumentException("Data source can't be null");
@@ -103,7 +480,26 @@ public class DatabaseConfiguration implements ConfigurationGroup {
 		this.dataSource = dataSource;
 	}
 
-	private DataSource defaultDataSource() {
+	/**
+	 * Returns the data source that provides the connections of streams of candles. Each stream holds a connection of
+	 * its own until it ends, as streams are suspended and resumed by any of the threads that read candles, so their
+	 * connections can't be bound to a thread.
+	 *
+	 * @return the data source provided with {@link #dataSource(Supplier)}, if any. Otherwise the connection pool, if
+	 * {@link #connectionPoolSize()} is positive, or a data source that opens a new connection each time.
+	 */
+	public DataSource streamDataSource() {
+		if (dataSource != null) {
+			return dataSource.get();
+		}
+		loadDriver();
+		if (connectionPoolSize > 0) {
+			return connectionPool();
+		}
+		return new DriverManagerDataSource(jdbcUrl(), user(), password() == null ? null : new String(password()));
+	}
+
+	private void loadDriver() {
 		if (!isConfigured()) {
 			jdbcDriver("com.mysql.jdbc.Driver")
 					.jdbcUrl("jdbc:mysql://localhost:3306/trading?autoReconnect=true&useUnicode=true&useJDBCCompliantTimezoneShift=true&useLegacyDatetimeCode=false&serverTimezone=UTC&zeroDateTimeBehavior=convertToNull&useSSL=false")
@@ -115,6 +511,14 @@ public class DatabaseConfiguration implements ConfigurationGroup {
 		} catch (Exception e) {
 			throw new IllegalStateException(e);
 		}
+	}
+
+	private DataSource defaultDataSource() {
+		loadDriver();
+
+		if (connectionPoolSize > 0) {
+			return connectionPool();
+		}
 
 		SingleConnectionDataSource ds = new SingleConnectionDataSource();
 		ds.setUrl(jdbcUrl());
@@ -125,4 +529,35 @@ public class DatabaseConfiguration implements ConfigurationGroup {
 		ds.setSuppressClose(true);
 		return ds;
 	}
-}
\ No newline at end of file
+
+	private synchronized DataSource connectionPool() {
+		if (connectionPool == null || connectionPool.isClosed()) {
+			HikariConfig config = new HikariConfig();
+			config.setPoolName("candle-db");
+			config.setDriverClassName(jdbcDriver());
+			config.setJdbcUrl(jdbcUrl());
+			config.setUsername(user());
+			if (password() != null) {
+				config.setPassword(new String(password()));
+			}
+			config.setMaximumPoolSize(connectionPoolSize);
+			config.setMinimumIdle(Math.min(minimumIdleConnections, connectionPoolSize));
+			config.setIdleTimeout(idleTimeout);
+			config.setValidationTimeout(validationTimeout);
+			config.setConnectionTestQuery(validationQuery);
+			connectionPool = new HikariDataSource(config);
+		}
+		return connectionPool;
+	}
+
+	/**
+	 * Closes all connections of the connection pool, if one has been created. A new pool will be created if the
+	 * {@link #dataSource()} is used again.
+	 */
+	public synchronized void closeConnectionPool() {
+		if (connectionPool != null) {
+			connectionPool.close();
+			connectionPool = null;
+		}
+	}
+}
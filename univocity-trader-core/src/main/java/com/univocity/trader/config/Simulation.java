@@ -42,7 +42,13 @@ public class Simulation implements ConfigurationGroup, Cloneable {
 	private LocalDateTime simulationStart;
 	private LocalDateTime simulationEnd;
 	private boolean cacheCandles = false;
+	private boolean cacheCandlesOffHeap = false;
+	private File candleFiles = null;
+	private boolean compressCandleFiles = false;
 	private int activeQueryLimit = 15;
+	private boolean bulkLoading = false;
+	private Duration bulkLoadingSlice = Duration.ofDays(1);
+	private int parallelism = 1;
 	private TradingFees tradingFees = SimpleTradingFees.percentage(0.1);
 	private OrderFillEmulator orderFillEmulator = new PriceMatchEmulator();
 
@@ -129,7 +135,15 @@ public class Simulation implements ConfigurationGroup, Cloneable {
 		simulateFrom(parseDateTime(properties, "simulation.start"));
 		simulateTo(parseDateTime(properties, "simulation.end"));
 		cacheCandles(properties.getBoolean("simulation.cache.candles", false));
+		cacheCandlesOffHeap(properties.getBoolean("simulation.cache.candles.off.heap", false));
+		if (properties.getOptionalProperty("simulation.candle.files") != null) {
+			candleFiles(properties.getValidatedDirectory("simulation.candle.files", false, true, true, true));
+		}
+		compressCandleFiles(properties.getBoolean("simulation.candle.files.compressed", false));
 		activeQueryLimit(properties.getInteger("simulation.active.query.limit", 15));
+		bulkLoading(properties.getBoolean("simulation.bulk.loading", false));
+		bulkLoadingSlice(Duration.ofHours(properties.getInteger("simulation.bulk.loading.slice.hours", 24)));
+		parallelism(properties.getInteger("simulation.parallelism", 1));
 		tradingFees(parseTradingFees(properties, "simulation.trade.fees"));
 		orderFillEmulator(loadOrderFillEmulator(properties));
 		String backfill = properties.getOptionalProperty("simulation.history.backfill");
@@ -285,6 +299,84 @@ public class Simulation implements ConfigurationGroup, Cloneable {
 		return this;
 	}
 
+	/**
+	 * Indicates whether candles cached in memory are stored in primitive columns allocated outside of the java heap
+	 * (using a {@link com.univocity.trader.candles.ColumnarCandleStorage}) instead of a list of
+	 * {@link com.univocity.trader.candles.Candle} objects.
+	 *
+	 * @return {@code true} if cached candles are stored off-heap, otherwise {@code false}
+	 */
+	public boolean cacheCandlesOffHeap() {
+		return cacheCandlesOffHeap;
+	}
+
+	/**
+	 * Configures cached candles to be stored in primitive columns allocated outside of the java heap
+	 * (using a {@link com.univocity.trader.candles.ColumnarCandleStorage}) instead of a list of
+	 * {@link com.univocity.trader.candles.Candle} objects. Each candle then takes 56 bytes of direct memory, which is
+	 * limited to the maximum heap size ({@code -Xmx}) unless the {@code -XX:MaxDirectMemorySize} JVM option is used to
+	 * allow more. If all accounts enable candle reuse (see {@link AccountConfiguration#enableCandleReuse()}), cached
+	 * candles are replayed without creating a {@link com.univocity.trader.candles.Candle} per row.
+	 *
+	 * @param cacheCandlesOffHeap flag indicating whether to store cached candles off-heap
+	 *
+	 * @return this configuration object, for further settings.
+	 */
+	public Simulation cacheCandlesOffHeap(boolean cacheCandlesOffHeap) {
+		this.cacheCandlesOffHeap = cacheCandlesOffHeap;
+		return this;
+	}
+
+	/**
+	 * Returns the directory with local candle files, which are used to run simulations instead of querying the database.
+	 *
+	 * @return the directory of the candle files, or {@code null} if the candle history is to be read from the database.
+	 *
+	 * @see com.univocity.trader.candles.FileCandleRepository
+	 */
+	public File candleFiles() {
+		return candleFiles;
+	}
+
+	/**
+	 * Defines a directory with local candle files, which are used to run simulations instead of querying the database.
+	 * Use {@link MarketSimulator#exportHistoryToFiles()} to populate this directory with the history stored in the database.
+	 *
+	 * @param candleFiles the directory of the candle files, or {@code null} to read the candle history from the database.
+	 *
+	 * @return this configuration object, for further settings.
+	 *
+	 * @see com.univocity.trader.candles.FileCandleRepository
+	 */
+	public Simulation candleFiles(File candleFiles) {
+		this.candleFiles = candleFiles;
+		return this;
+	}
+
+	public Simulation candleFiles(String pathToCandleFiles) {
+		return candleFiles(pathToCandleFiles == null ? null : new File(pathToCandleFiles));
+	}
+
+	public boolean compressCandleFiles() {
+		return compressCandleFiles;
+	}
+
+	/**
+	 * Configures the local candle files given by {@link #candleFiles()} to be stored in a compressed format, which takes
+	 * a fraction of the disk space of uncompressed files and of the database, at the cost of decoding each block of
+	 * candles when they are read.
+	 *
+	 * @param compressCandleFiles flag indicating whether candle files are compressed.
+	 *
+	 * @return this configuration object, for further settings.
+	 *
+	 * @see com.univocity.trader.candles.CompressedCandleRepository
+	 */
+	public Simulation compressCandleFiles(boolean compressCandleFiles) {
+		this.compressCandleFiles = compressCandleFiles;
+		return this;
+	}
+
 	public Simulation initialFunds(double initialFunds) {
 		initialAmount("", initialFunds);
 		return this;
@@ -343,6 +435,77 @@ public class Simulation implements ConfigurationGroup, Cloneable {
 		return this;
 	}
 
+	public boolean bulkLoading() {
+		return bulkLoading;
+	}
+
+	/**
+	 * Enables loading the candles of all symbols of a simulation with a single stream, read in time slices with one
+	 * query per slice covering all symbols, instead of querying the candles of each symbol separately. The number of
+	 * open database cursors then no longer depends on the number of symbols, so the {@link #activeQueryLimit()} doesn't
+	 * apply. Ignored when candles are cached (see {@link #cacheCandles(boolean)}).
+	 *
+	 * @param bulkLoading flag indicating whether to load the candles of all symbols with a single stream.
+	 *
+	 * @return this configuration object, for further settings.
+	 */
+	public Simulation bulkLoading(boolean bulkLoading) {
+		this.bulkLoading = bulkLoading;
+		return this;
+	}
+
+	public Duration bulkLoadingSlice() {
+		return bulkLoadingSlice;
+	}
+
+	/**
+	 * Defines the time span of the candles read by each query when {@link #bulkLoading(boolean)} is enabled. Shorter
+	 * slices reduce the number of rows the database sorts at once, at the cost of more queries.
+	 *
+	 * @param bulkLoadingSlice the time span covered by each query. Defaults to 1 day.
+	 *
+	 * @return this configuration object, for further settings.
+	 */
+	public Simulation bulkLoadingSlice(Duration bulkLoadingSlice) {
+		if (bulkLoadingSlice == null || bulkLoadingSlice.toMillis() < 1) {
+			throw new IllegalConfigurationException("Bulk loading time slice must be positive. Got: " + bulkLoadingSlice);
+		}
+		this.bulkLoadingSlice = bulkLoadingSlice;
+		return this;
+	}
+
+	/**
+	 * Returns the maximum number of {@link Parameters} sets simulated concurrently. Defaults to {@code 1}, in
+	 * which case each set of parameters is simulated after the other.
+	 *
+	 * @return the number of worker threads used to run simulations with different parameters.
+	 */
+	public int parallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Defines the maximum number of {@link Parameters} sets simulated concurrently. Each concurrent simulation runs
+	 * with its own accounts, while all of them share a single in-memory copy of the candle history, which is kept in
+	 * memory for the whole run regardless of the {@link DatabaseConfiguration#cacheMaxSize(long)}, so it must fit in
+	 * the heap (or in the direct memory, see {@link #cacheCandlesOffHeap(boolean)}).
+	 * Results are always reported in the same order the parameters were provided.
+	 *
+	 * Any {@link com.univocity.trader.notification.OrderListener} instance shared among accounts must be
+	 * thread-safe when running simulations in parallel.
+	 *
+	 * @param parallelism the number of worker threads used to run simulations with different parameters.
+	 *
+	 * @return this configuration object, for further settings.
+	 */
+	public Simulation parallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalConfigurationException("Simulation parallelism must be at least 1. Got: " + parallelism);
+		}
+		this.parallelism = parallelism;
+		return this;
+	}
+
 	private void loadParameters(File parametersFile, Class<? extends Parameters> typeOfParameters) {
 		//TODO: load with univocity-parsers
 	}
@@ -7,7 +7,7 @@ import com.univocity.trader.utils.*;
 
 public class PercentRankIndicator extends SingleValueIndicator {
 
-	private CircularList values;
+	private RankWindow values;
 	private RateOfChange roc;
 	private double value;
 
@@ -17,7 +17,7 @@ public class PercentRankIndicator extends SingleValueIndicator {
 
 	public PercentRankIndicator(int length, TimeInterval interval) {
 		super(interval, null);
-		this.values = new CircularList(length);
+		this.values = new RankWindow(length);
 		this.roc = new RateOfChange(1, interval);
 	}
 
@@ -37,14 +37,8 @@ public class PercentRankIndicator extends SingleValueIndicator {
 				values.add(change);
 			}
 
-			int size = values.size();
-			double count = 0.0;
-			for (int i = 0; i < size; i++) {
-				if (values.values[i] < change) {
-					count++;
-				}
-			}
-			this.value = (count / size) * 100.0;
+			double count = values.countBelow(change);
+			this.value = (count / values.size()) * 100.0;
 			return true;
 		}
 
@@ -13,6 +13,11 @@ public class AggregatedTicksIndicator implements Indicator {
 	long accumulationCount;
 	private boolean recalculateEveryTick = false;
 	private Candle lastFullCandle;
+	private boolean shared = false;
+	private long lastUpdate = -1;
+	private long lastOpenTime;
+	private long lastCloseTime;
+	private boolean lastAccumulationResult;
 
 	public AggregatedTicksIndicator(TimeInterval timeInterval) {
 		this.timeInterval = timeInterval;
@@ -32,8 +37,37 @@ public class AggregatedTicksIndicator implements Indicator {
 		return new Indicator[0];
 	}
 
+	/**
+	 * Marks this indicator as shared among multiple {@link com.univocity.trader.strategy.IndicatorGroup}s, which
+	 * will all submit the same candle to {@link #accumulate(Candle)}. Only the first submission of each candle updates
+	 * the state of this indicator, as identified by the {@link Aggregator#getUpdateCount()} of the aggregator it reads
+	 * from, so the groups may submit the same {@link Candle} instance updated in place for every tick.
+	 *
+	 * @see com.univocity.trader.strategy.SharedIndicators
+	 */
+	public final void shareComputation() {
+		this.shared = true;
+	}
+
 	@Override
 	public final boolean accumulate(Candle candle) {
+		if (shared && aggregator != null) {
+			long update = aggregator.getUpdateCount();
+			if (update == lastUpdate) {
+				if (candle.openTime != lastOpenTime || candle.closeTime != lastCloseTime) {
+					throw new IllegalStateException("Shared indicator " + this + " received different candles from the groups that share it. Got " + candle + " after the candle open at " + lastOpenTime);
+				}
+				return lastAccumulationResult;
+			}
+			lastUpdate = update;
+			lastOpenTime = candle.openTime;
+			lastCloseTime = candle.closeTime;
+			return lastAccumulationResult = doAccumulate(candle);
+		}
+		return doAccumulate(candle);
+	}
+
+	private boolean doAccumulate(Candle candle) {
 		if (aggregator == null) {
 			try {
 				throw new IllegalStateException(getClass().getSimpleName() + " not properly initialized. Ensure nested indicators are returned in method `protected Indicator[] children()`");
@@ -1,6 +1,7 @@
 package com.univocity.trader.indicators.base;
 
 import com.univocity.trader.candles.*;
+import com.univocity.trader.utils.*;
 
 import java.util.function.*;
 
@@ -9,9 +10,8 @@ import java.util.function.*;
  */
 public abstract class ValueSelectionIndicator extends MultiValueIndicator {
 
-	private double updateValue = initialValue();
-	private double selectedValue = initialValue();
-	private int ticksLeft;
+	private final MonotonicDeque window;
+	private double value = initialValue();
 
 	public ValueSelectionIndicator(int length, TimeInterval interval) {
 		this(length, interval, c -> c.close);
@@ -19,50 +19,18 @@ public abstract class ValueSelectionIndicator extends MultiValueIndicator {
 
 	public ValueSelectionIndicator(int length, TimeInterval interval, ToDoubleFunction<Candle> valueGetter) {
 		super(length, interval, valueGetter);
-	}
-
-	private void recalculate() {
-		updateValue = selectedValue = initialValue();
-		final int len = values.size();
-		int tmp = len;
-		int start = values.i - 1;
-		while (--tmp >= 0) {
-			if (start < 0) {
-				start = len - 1;
-			}
-			double v = values.get(start--);
-
-			double selected = select(v, selectedValue);
-			if (selected == v) {
-				selectedValue = v;
-				ticksLeft = tmp;
-			}
-		}
+		this.window = new MonotonicDeque(length, this::select);
 	}
 
 	@Override
 	protected boolean calculateIndicatorValue(Candle candle, double value, boolean updating) {
 		if (updating) {
-			if (ticksLeft <= 0) {
-				recalculate();
-			}
-			double selected = select(value, selectedValue);
-			updateValue = selected == value ? selected : initialValue();
+			//the partial value takes the place of the oldest value in the window
+			this.value = window.select(value, window.length() - 1);
 		} else {
-			updateValue = initialValue();
-
-			ticksLeft--;
-			if (ticksLeft <= 0) {
-				recalculate();
-			} else {
-				double selected = select(value, selectedValue);
-				if (selected == value) {
-					selectedValue = value;
-					ticksLeft = values.size() - 1;
-				}
-			}
+			window.add(value);
+			this.value = window.get();
 		}
-
 		return true;
 	}
 
@@ -72,7 +40,7 @@ public abstract class ValueSelectionIndicator extends MultiValueIndicator {
 
 	@Override
 	public double getValue() {
-		return select(selectedValue, updateValue);
+		return value;
 	}
 
 }
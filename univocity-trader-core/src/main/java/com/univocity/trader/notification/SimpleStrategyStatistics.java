@@ -17,8 +17,8 @@ public class SimpleStrategyStatistics implements OrderListener {
 
 	private final String symbol;
 
-	private Candle firstCandle;
-	private Candle lastCandle;
+	private double firstClose;
+	private double lastClose;
 
 	public SimpleStrategyStatistics() {
 		this(null);
@@ -42,14 +42,14 @@ public class SimpleStrategyStatistics implements OrderListener {
 		if (this.trader == null) {
 			this.trader = trade.trader();
 			initialInvestment = this.trader.totalFundsInReferenceCurrency();
-			firstCandle = this.trader.latestCandle();
+			firstClose = this.trader.latestCandle().close;
 		}
 		if (order.isLongSell()) {
 			register(longReturns, trade);
 		} else if (order.isShortCover()) {
 			register(shortReturns, trade);
 		}
-		lastCandle = trader.latestCandle();
+		lastClose = trader.latestCandle().close;
 	}
 
 	private void printTradeStats() {
@@ -103,7 +103,7 @@ public class SimpleStrategyStatistics implements OrderListener {
 
 			if (returns == shortReturns) {
 				if (symbol != null) {
-					double buyAndHold = (initialInvestment / firstCandle.close) * lastCandle.close;
+					double buyAndHold = (initialInvestment / firstClose) * lastClose;
 					pl = buyAndHold - initialInvestment;
 					System.out.println("Buy&Hold: " + printAmountAndPercentage(pl, (pl / initialInvestment) * 100));
 				}
@@ -25,19 +25,31 @@ public abstract class AbstractSimulator<C extends Configuration<C, A>, A extends
 
 	protected AccountManager[] accounts() {
 		if (accounts == null) {
-			List<A> accountConfigs = configuration.accounts();
-			if (accountConfigs.isEmpty()) {
-				throw new IllegalStateException("No account configuration defined");
-			}
-			this.accounts = new AccountManager[accountConfigs.size()];
-			int i = 0;
-			for (A accountConfig : accountConfigs) {
-				this.accounts[i++] = createAccountInstance(accountConfig).getAccount();
-			}
+			accounts = createAccounts();
 		}
 		return accounts;
 	}
 
+	/**
+	 * Creates a new set of simulated accounts, one for each account configuration. The {@link AccountManager}
+	 * instances returned are not shared with any other simulation, which allows independent simulations to run
+	 * concurrently.
+	 *
+	 * @return a new array of {@link AccountManager}, each backed by its own {@link SimulatedClientAccount}
+	 */
+	protected final AccountManager[] createAccounts() {
+		List<A> accountConfigs = configuration.accounts();
+		if (accountConfigs.isEmpty()) {
+			throw new IllegalStateException("No account configuration defined");
+		}
+		AccountManager[] out = new AccountManager[accountConfigs.size()];
+		int i = 0;
+		for (A accountConfig : accountConfigs) {
+			out[i++] = createAccountInstance(accountConfig).getAccount();
+		}
+		return out;
+	}
+
 	private SimulatedClientAccount createAccountInstance(A accountConfiguration) {
 		return new SimulatedClientAccount(accountConfiguration, configuration.simulation());
 	}
@@ -73,7 +85,11 @@ public abstract class AbstractSimulator<C extends Configuration<C, A>, A extends
 	}
 
 	protected void resetBalances() {
-		for (AccountManager account : accounts()) {
+		resetBalances(accounts());
+	}
+
+	protected void resetBalances(AccountManager[] accounts) {
+		for (AccountManager account : accounts) {
 			account.resetBalances();
 			double[] total = new double[]{0};
 			simulation.initialAmounts().forEach((symbol, amount) -> {
@@ -34,11 +34,28 @@ public class MarketHistory {
 	}
 
 	public void simulate(Consumer<Candle> consumer, Instant from, Instant to, boolean cache) {
+		simulate(consumer, from, to, cache, false);
+	}
+
+	/**
+	 * Sends the candles of this market within a time range to a consumer.
+	 *
+	 * @param consumer     the consumer of candles
+	 * @param from         the earliest open time of the candles, or {@code null} for no lower bound
+	 * @param to           the latest close time of the candles, or {@code null} for no upper bound
+	 * @param cache        flag indicating whether to keep the candles in memory for subsequent calls.
+	 * @param reuseCandles flag indicating whether candles cached in a {@link ColumnarCandleStorage} can be sent to
+	 *                     the consumer in a single {@link Candle} instance, updated with the values of each candle, in
+	 *                     which case the consumer must not keep references to the candles it receives.
+	 */
+	public void simulate(Consumer<Candle> consumer, Instant from, Instant to, boolean cache, boolean reuseCandles) {
 		Enumeration<Candle> result = candleRepository.iterate(symbol, from, to, cache);
+		ColumnarCandleStorage.Range range = reuseCandles && result instanceof ColumnarCandleStorage.Range ? (ColumnarCandleStorage.Range) result : null;
+		Candle holder = range == null ? null : Candle.newHolder();
 		final long start = System.currentTimeMillis();
 		int count = 0;
 		while (result.hasMoreElements()) {
-			Candle candle = result.nextElement();
+			Candle candle = range == null ? result.nextElement() : range.nextElement(holder);
 			if (candle == null) {
 				break;
 			}
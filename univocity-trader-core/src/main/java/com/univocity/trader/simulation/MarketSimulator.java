@@ -4,13 +4,17 @@ import com.univocity.trader.*;
 import com.univocity.trader.account.*;
 import com.univocity.trader.candles.*;
 import com.univocity.trader.config.*;
+import com.univocity.trader.indicators.base.*;
 import com.univocity.trader.strategy.*;
 import org.apache.commons.lang3.*;
 import org.slf4j.*;
 
+import java.io.*;
+import java.nio.charset.*;
 import java.time.*;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 import java.util.function.*;
 
 import static com.univocity.trader.indicators.base.TimeInterval.*;
@@ -37,28 +41,100 @@ public abstract class MarketSimulator<C extends Configuration<C, A>, A extends A
 	}
 
 	protected CandleRepository createCandleRepository() {
+		if (simulation.candleFiles() != null) {
+			return createFileCandleRepository();
+		}
+		if (simulation.cacheCandlesOffHeap()) {
+			return new ColumnarCandleRepository(configure().database());
+		}
 		return new CandleRepository(configure().database());
 	}
 
+	private FileCandleRepository createFileCandleRepository() {
+		if (simulation.compressCandleFiles()) {
+			return new CompressedCandleRepository(simulation.candleFiles(), configuration.tickInterval());
+		}
+		return new FileCandleRepository(simulation.candleFiles(), configuration.tickInterval());
+	}
+
 	@Override
 	protected final void executeSimulation(Collection<Parameters> parameters) {
 		candleRepository = createCandleRepository();
 		executor = Executors.newCachedThreadPool();
 		try {
-			for (Parameters p : parameters) {
-				initialize();
-				executeSimulation(p);
-				reportResults(p);
+			int parallelism = Math.min(simulation.parallelism(), parameters.size());
+			if (parallelism > 1) {
+				executeParallelSimulation(parameters, parallelism);
+			} else {
+				for (Parameters p : parameters) {
+					initialize();
+					executeSimulation(p);
+					reportResults(accounts(), p, System.out);
+				}
 			}
 		} finally {
 			executor.shutdown();
+			CandleCache cache = candleRepository.getCache();
+			if (cache.hits() + cache.misses() > 0) {
+				log.info(cache.toString());
+			}
 			candleRepository.clearCaches();
 		}
 
 	}
 
+	private void executeParallelSimulation(Collection<Parameters> parameters, int parallelism) {
+		log.info("Running simulations of {} parameter sets using {} threads", parameters.size(), parallelism);
+		AtomicInteger workerCount = new AtomicInteger(0);
+		ExecutorService workers = Executors.newFixedThreadPool(parallelism, r -> {
+			Thread thread = new Thread(r, "simulation worker " + workerCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		//all workers must read from the same cached candles, otherwise each one would load its own copy of the history
+		Set<String> symbols = getAllPairs().keySet();
+		symbols.forEach(candleRepository::pinCached);
+		try {
+			List<Future<String>> results = new ArrayList<>(parameters.size());
+			for (Parameters p : parameters) {
+				results.add(workers.submit(() -> {
+					AccountManager[] accounts = createAccounts();
+					resetBalances(accounts);
+					executeSimulation(accounts, p, true);
+
+					ByteArrayOutputStream report = new ByteArrayOutputStream();
+					try (PrintStream out = new PrintStream(report, true, StandardCharsets.UTF_8)) {
+						reportResults(accounts, p, out);
+					}
+					return report.toString(StandardCharsets.UTF_8);
+				}));
+			}
+
+			for (Future<String> result : results) {
+				System.out.print(result.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Simulation interrupted", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException("Error executing simulation", e.getCause());
+		} finally {
+			workers.shutdownNow();
+			symbols.forEach(candleRepository::unpinCached);
+		}
+	}
+
 	protected final void executeSimulation(Parameters parameters) {
+		executeSimulation(accounts(), parameters, simulation.cacheCandles());
+	}
+
+	private void executeSimulation(AccountManager[] accounts, Parameters parameters, boolean cacheCandles) {
 		Set<Object> allInstances = new HashSet<>();
+		SharedIndicators sharedIndicators = new SharedIndicators();
 		Map<String, Engine[]> symbolHandlers = new HashMap<>();
 
 		getAllPairs().forEach((symbol, pair) -> {
@@ -70,7 +146,7 @@ public abstract class MarketSimulator<C extends Configuration<C, A>, A extends A
 			}
 
 			List<AccountManager> accountsTradingSymbol = new ArrayList<>();
-			for (AccountManager account : accounts()) {
+			for (AccountManager account : accounts) {
 				if (account.configuration().symbolPairs().keySet().contains(symbol)) {
 					accountsTradingSymbol.add(account);
 				}
@@ -85,7 +161,7 @@ public abstract class MarketSimulator<C extends Configuration<C, A>, A extends A
 
 				TradingManager tradingManager = new TradingManager(exchange, symbolPriceDetails, accountManager, assetSymbol, fundSymbol, parameters);
 
-				Engine engine = new Engine(tradingManager, parameters, allInstances);
+				Engine engine = new Engine(tradingManager, parameters, allInstances, sharedIndicators);
 				engines[i] = engine;
 			}
 
@@ -96,19 +172,41 @@ public abstract class MarketSimulator<C extends Configuration<C, A>, A extends A
 
 		allInstances.clear();
 
-		ConcurrentHashMap<String, Enumeration<Candle>> markets = new ConcurrentHashMap<>();
-
 		LocalDateTime start = getSimulationStart();
 		LocalDateTime end = getSimulationEnd();
 
+		Map<String, TimeInterval> resolutions = new HashMap<>();
+		symbolHandlers.forEach((symbol, engines) -> resolutions.put(symbol, getCandleResolution(engines)));
+
+		if (simulation.bulkLoading() && !cacheCandles) {
+			TimeInterval resolution = Engine.getCandleResolution(resolutions.values());
+			Enumeration<SymbolCandle> candles = candleRepository.iterate(new TreeSet<>(symbolHandlers.keySet()), start.toInstant(ZoneOffset.UTC), end.toInstant(ZoneOffset.UTC), resolution, simulation.bulkLoadingSlice().toMillis());
+			try {
+				executeSimulation(candles, symbolHandlers);
+			} finally {
+				if (candles instanceof AutoCloseable) {
+					try {
+						((AutoCloseable) candles).close();
+					} catch (Exception e) {
+						log.warn("Error closing candle stream", e);
+					}
+				}
+			}
+			return;
+		}
+
+		ConcurrentHashMap<String, Enumeration<Candle>> markets = new ConcurrentHashMap<>();
+
 		int activeQueries = 0;
+		//markets are read in lockstep, so all streams must be able to read at the same time.
+		int activeQueryLimit = Math.min(simulation.activeQueryLimit(), candleRepository.getMaxOpenStreams());
 		Map<String, CompletableFuture<Enumeration<Candle>>> futures = new HashMap<>();
 		for (String symbol : symbolHandlers.keySet()) {
 			activeQueries++;
-			boolean loadAllDataFirst = simulation.cacheCandles() || activeQueries > simulation.activeQueryLimit();
+			boolean loadAllDataFirst = cacheCandles || activeQueries > activeQueryLimit;
 
 			futures.put(symbol, CompletableFuture.supplyAsync(
-					() -> candleRepository.iterate(symbol, start.toInstant(ZoneOffset.UTC), end.toInstant(ZoneOffset.UTC), loadAllDataFirst), executor)
+					() -> candleRepository.iterate(symbol, start.toInstant(ZoneOffset.UTC), end.toInstant(ZoneOffset.UTC), resolutions.get(symbol), loadAllDataFirst), executor)
 			);
 		}
 
@@ -122,62 +220,100 @@ public abstract class MarketSimulator<C extends Configuration<C, A>, A extends A
 
 		//TODO: allow the original randomized candle processing to happen via configuration.
 		final var sortedMarkets = new TreeMap<>(markets);
-		MarketReader[] readers = buildMarketReaderList(sortedMarkets, symbolHandlers);
+		boolean reuseCandles = true;
+		for (AccountManager account : accounts) {
+			reuseCandles &= account.configuration().candleReuseEnabled();
+		}
+		MarketReader[] readers = buildMarketReaderList(sortedMarkets, symbolHandlers, reuseCandles);
 
-		executeSimulation(readers);
+		try {
+			executeSimulation(readers);
+		} finally {
+			for (MarketReader reader : readers) {
+				reader.close();
+			}
+		}
 	}
 
+	/**
+	 * Replays the candles of all markets in time order, merging the candle streams of each symbol through a min-heap
+	 * keyed on the open and close times of the next candle of each market, i.e. performing a k-way merge, so the cost
+	 * is proportional to the number of candles rather than to the simulation period. Candles with the same open and
+	 * close times are processed in the order of their symbols.
+	 */
 	private void executeSimulation(MarketReader[] readers) {
 		LocalDateTime start = getSimulationStart();
 		LocalDateTime end = getSimulationEnd();
 
-		final long startTime = getStartTime();
 		final long endTime = getEndTime();
 
 		long candlesProcessed = 0;
 
-		for (long clock = startTime; clock <= endTime; clock += MINUTE.ms) {
-			boolean resetClock = false;
-			for (int i = 0; i < readers.length; i++) {
-				MarketReader reader = readers[i];
-				Candle candle = reader.pending;
-				if (candle != null) {
-					if (candle.openTime + 1 >= clock && candle.openTime <= clock + MINUTE.ms - 1) {
-						for (int j = 0; j < reader.engines.length; j++) {
-							reader.engines[j].process(candle, false);
-						}
-
-						reader.pending = null;
-						if (reader.input.hasMoreElements()) {
-							Candle next = reader.input.nextElement();
-							if (next != null) {
-								reader.pending = next;
-								if (!resetClock && next.openTime + 1 >= clock && next.openTime <= clock + MINUTE.ms - 1) {
-									resetClock = true;
-								}
-							}
-						}
-					}
-				} else {
-					if (reader.input.hasMoreElements()) {
-						Candle next = reader.input.nextElement();
-						if (next != null) {
-							candlesProcessed++;
-							reader.pending = next;
-						}
-					}
-				}
+		PriorityQueue<MarketReader> queue = new PriorityQueue<>(Math.max(1, readers.length));
+		for (int i = 0; i < readers.length; i++) {
+			MarketReader reader = readers[i];
+			reader.position = i;
+			if (reader.next()) {
+				queue.add(reader);
+			}
+		}
+
+		MarketReader reader;
+		while ((reader = queue.poll()) != null) {
+			Candle candle = reader.pending;
+			if (candle.openTime > endTime) {
+				reader.close(); //no more candles of this market within the simulation period
+				continue;
 			}
-			if (resetClock) {
-				clock -= MINUTE.ms;
+
+			for (int j = 0; j < reader.engines.length; j++) {
+				reader.engines[j].process(candle, false);
+			}
+			candlesProcessed++;
+
+			if (reader.next()) {
+				queue.add(reader);
 			}
 		}
+
 		if (candlesProcessed == 0) {
 			throw new IllegalStateException("No candles processed in real time trading simulation from " + start + " to " + end);
 		}
 	}
 
-	private MarketReader[] buildMarketReaderList(Map<String, Enumeration<Candle>> markets, Map<String, Engine[]> symbolHandlers) {
+	private static TimeInterval getCandleResolution(Engine[] engines) {
+		List<TimeInterval> resolutions = new ArrayList<>(engines.length);
+		for (Engine engine : engines) {
+			resolutions.add(engine.getCandleResolution());
+		}
+		return Engine.getCandleResolution(resolutions);
+	}
+
+	/**
+	 * Replays the candles of all markets from a single stream, already merged in time order.
+	 */
+	private void executeSimulation(Enumeration<SymbolCandle> candles, Map<String, Engine[]> symbolHandlers) {
+		final long endTime = getEndTime();
+
+		long candlesProcessed = 0;
+		while (candles.hasMoreElements()) {
+			SymbolCandle next = candles.nextElement();
+			if (next == null || next.candle.openTime > endTime) {
+				break; //no more candles within the simulation period
+			}
+			Engine[] engines = symbolHandlers.get(next.symbol);
+			for (int j = 0; j < engines.length; j++) {
+				engines[j].process(next.candle, false);
+			}
+			candlesProcessed++;
+		}
+
+		if (candlesProcessed == 0) {
+			throw new IllegalStateException("No candles processed in real time trading simulation from " + getSimulationStart() + " to " + getSimulationEnd());
+		}
+	}
+
+	private MarketReader[] buildMarketReaderList(Map<String, Enumeration<Candle>> markets, Map<String, Engine[]> symbolHandlers, boolean reuseCandles) {
 		List<MarketReader> out = new ArrayList<>();
 
 		for (Map.Entry<String, Enumeration<Candle>> e : markets.entrySet()) {
@@ -185,29 +321,33 @@ public abstract class MarketSimulator<C extends Configuration<C, A>, A extends A
 			reader.symbol = e.getKey();
 			reader.engines = symbolHandlers.get(e.getKey());
 			reader.input = e.getValue();
+			if (reuseCandles && reader.input instanceof ColumnarCandleStorage.Range) {
+				reader.range = (ColumnarCandleStorage.Range) reader.input;
+				reader.holders = new Candle[]{Candle.newHolder(), Candle.newHolder()};
+			}
 			out.add(reader);
 		}
 
 		return out.toArray(new MarketReader[0]);
 	}
 
-	private void reportResults(Parameters parameters) {
-		for (AccountManager account : accounts()) {
+	private void reportResults(AccountManager[] accounts, Parameters parameters, PrintStream out) {
+		for (AccountManager account : accounts) {
 			account.getAllTradingManagers().forEach(t -> t.getTrader().liquidateOpenPositions());
 		}
 
-		for (AccountManager account : accounts()) {
+		for (AccountManager account : accounts) {
 			String id = account.getClient().getId();
-			System.out.print("-------");
+			out.print("-------");
 			if (parameters != null && parameters != Parameters.NULL) {
-				System.out.print(" | Parameters: " + parameters);
+				out.print(" | Parameters: " + parameters);
 			}
 			if (StringUtils.isNotBlank(id)) {
-				System.out.print(" | Client: " + id);
+				out.print(" | Client: " + id);
 			}
-			System.out.println(" | -------");
-			System.out.print(account.toString());
-			System.out.println("Approximate holdings: $" + account.getTotalFundsInReferenceCurrency() + " " + account.getReferenceCurrencySymbol());
+			out.println(" | -------");
+			out.print(account.toString());
+			out.println("Approximate holdings: $" + account.getTotalFundsInReferenceCurrency() + " " + account.getReferenceCurrencySymbol());
 
 			account.getAllTradingManagers().forEach(t -> t.getTrader().notifySimulationEnd());
 		}
@@ -237,16 +377,71 @@ public abstract class MarketSimulator<C extends Configuration<C, A>, A extends A
 		final Instant end = simulation.backfillTo().toInstant(ZoneOffset.UTC);
 		CandleHistoryBackfill backfill = new CandleHistoryBackfill(candleRepository);
 		backfill.resumeBackfill(configuration.simulation().resumeBackfill());
-		for (String symbol : symbols) {
-			backfill.fillHistoryGaps(exchange, symbol, start, end, configuration.tickInterval());
+		backfill.fillHistoryGaps(exchange, symbols, start, end, configuration.tickInterval());
+	}
+
+	/**
+	 * Copies the candle history of all symbols traded by the configured accounts from the database into local candle files,
+	 * stored in the directory given by {@link Simulation#candleFiles()}. Only candles more recent than the ones already in
+	 * each file are copied, so this can be invoked after every {@link #backfillHistory()} to keep the files up to date.
+	 */
+	public void exportHistoryToFiles() {
+		if (simulation.candleFiles() == null) {
+			throw new IllegalConfigurationException("Directory of candle files not defined. Please configure simulation.candleFiles()");
+		}
+		CandleRepository database = new CandleRepository(configure().database());
+		try (FileCandleRepository files = createFileCandleRepository()) {
+			for (String symbol : getAllPairs().keySet()) {
+				files.importHistory(database, symbol, null, null);
+			}
 		}
 	}
 
-	private static class MarketReader {
+	private static class MarketReader implements Comparable<MarketReader> {
 		String symbol;
 		Enumeration<Candle> input;
 		Candle pending;
 		Engine[] engines;
+		int position;
+
+		//candles cached in columns are read into two alternating holders, so the candle processed last, which traders
+		//keep as their latest candle, is not overwritten by a future candle while the other markets catch up.
+		ColumnarCandleStorage.Range range;
+		Candle[] holders;
+		int holder;
+
+		boolean next() {
+			pending = null;
+			if (range != null) {
+				if (range.hasMoreElements()) {
+					pending = range.nextElement(holders[holder]);
+					holder ^= 1;
+				}
+				return pending != null;
+			}
+			while (pending == null && input.hasMoreElements()) {
+				pending = input.nextElement();
+			}
+			return pending != null;
+		}
+
+		void close() {
+			if (input instanceof CandleStream) {
+				((CandleStream) input).close(); //stops reading candles that won't be processed
+			}
+		}
+
+		@Override
+		public int compareTo(MarketReader o) {
+			int result = Long.compare(this.pending.openTime, o.pending.openTime);
+			if (result == 0) {
+				result = Long.compare(this.pending.closeTime, o.pending.closeTime);
+				if (result == 0) {
+					result = Integer.compare(this.position, o.position);
+				}
+			}
+			return result;
+		}
 	}
 
 	public CandleRepository getCandleRepository() {
@@ -3,6 +3,7 @@ package com.univocity.trader.strategy;
 import com.univocity.trader.account.*;
 import com.univocity.trader.candles.*;
 import com.univocity.trader.indicators.*;
+import com.univocity.trader.indicators.base.*;
 import com.univocity.trader.simulation.*;
 import com.univocity.trader.utils.*;
 import org.slf4j.*;
@@ -31,11 +32,34 @@ public class Engine {
 	}
 
 	public Engine(TradingManager tradingManager, Parameters parameters, Set<Object> allInstances) {
+		this(tradingManager, parameters, allInstances, null);
+	}
+
+	/**
+	 * Creates a new engine to process the candles of the symbol handled by the given {@link TradingManager}.
+	 *
+	 * @param tradingManager    the trading manager of the symbol and account
+	 * @param parameters        the parameters used to create the {@link Strategy} and {@link StrategyMonitor} instances
+	 * @param allInstances      all strategy and monitor instances created so far, used to ensure no instance is reused
+	 * @param sharedIndicators  indicators shared among all engines that process the same candles, if any.
+	 *                          Can be {@code null}.
+	 */
+	public Engine(TradingManager tradingManager, Parameters parameters, Set<Object> allInstances, SharedIndicators sharedIndicators) {
 		this.tradingManager = tradingManager;
-		this.trader = new Trader(tradingManager, parameters, allInstances);
 
-		NewInstances<Strategy> strategies = tradingManager.getAccount().configuration().strategies();
-		this.strategies = getInstances(tradingManager.getSymbol(), parameters, strategies, "Strategy", true, allInstances);
+		if (sharedIndicators != null) {
+			sharedIndicators.activate(tradingManager.getSymbol());
+		}
+		try {
+			this.trader = new Trader(tradingManager, parameters, allInstances);
+
+			NewInstances<Strategy> strategies = tradingManager.getAccount().configuration().strategies();
+			this.strategies = getInstances(tradingManager.getSymbol(), parameters, strategies, "Strategy", true, allInstances);
+		} finally {
+			if (sharedIndicators != null) {
+				sharedIndicators.deactivate();
+			}
+		}
 
 		Set<IndicatorGroup> groups = new LinkedHashSet<>();
 		Set<Strategy> plainStrategies = new LinkedHashSet<>();
@@ -49,7 +73,10 @@ public class Engine {
 		Collections.addAll(groups, trader.monitors());
 		indicatorGroups = groups.toArray(new IndicatorGroup[0]);
 
-		Aggregator rootAggregator = new Aggregator(trader.symbol() + parameters.toString());
+		Aggregator rootAggregator = new Aggregator(trader.symbol() + parameters.toString(), tradingManager.getAccount().configuration().candleReuseEnabled());
+		if (sharedIndicators != null) {
+			sharedIndicators.bind(tradingManager.getSymbol(), rootAggregator);
+		}
 		for (int i = 0; i < indicatorGroups.length; i++) {
 			indicatorGroups[i].initialize(rootAggregator);
 		}
@@ -88,6 +115,51 @@ public class Engine {
 		}
 	}
 
+	/**
+	 * Returns the coarsest interval of candles that can be given to this engine without changing the values of its
+	 * indicators, i.e. the greatest common divisor of the intervals used by all {@link IndicatorGroup}s (strategies and
+	 * monitors). Used to read candles pre-aggregated into higher timeframes when simulating.
+	 *
+	 * @return the interval of candles required by this engine, or {@code null} if it can't be determined, e.g. when
+	 * strategies that are not {@link IndicatorGroup}s must receive every candle.
+	 */
+	public TimeInterval getCandleResolution() {
+		if (plainStrategies.length > 0 || aggregators.length == 0) {
+			return null;
+		}
+		List<TimeInterval> intervals = new ArrayList<>(aggregators.length);
+		for (int i = 0; i < aggregators.length; i++) {
+			intervals.add(aggregators[i].getInterval() > 0 ? TimeInterval.millis(aggregators[i].getInterval()) : null);
+		}
+		return getCandleResolution(intervals);
+	}
+
+	/**
+	 * Returns the coarsest interval of candles that satisfies all given resolutions, i.e. their greatest common divisor.
+	 *
+	 * @param resolutions the resolutions to combine, as returned by {@link #getCandleResolution()}.
+	 *
+	 * @return the combined resolution, or {@code null} if any of the given resolutions is {@code null}, or if there
+	 * are no resolutions.
+	 */
+	public static TimeInterval getCandleResolution(Collection<TimeInterval> resolutions) {
+		long out = 0;
+		for (TimeInterval resolution : resolutions) {
+			if (resolution == null) {
+				return null;
+			}
+			long a = out;
+			long b = resolution.ms;
+			while (b != 0) {
+				long t = a % b;
+				a = b;
+				b = t;
+			}
+			out = a;
+		}
+		return out == 0 ? null : TimeInterval.millis(out);
+	}
+
 	public TradingManager getTradingManager() {
 		return tradingManager;
 	}
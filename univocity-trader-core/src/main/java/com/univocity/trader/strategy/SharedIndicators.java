@@ -0,0 +1,127 @@
+package com.univocity.trader.strategy;
+
+import com.univocity.trader.candles.*;
+import com.univocity.trader.indicators.base.*;
+import org.apache.commons.lang3.reflect.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+/**
+ * Allows {@link Indicator} instances to be shared among all {@link IndicatorGroup}s that process the candles of a
+ * symbol, so that identical indicators are calculated only once per candle.
+ *
+ * A {@link Strategy} or {@link StrategyMonitor} requests a shared indicator with {@link #shared(Class, Object...)}
+ * when creating its indicators. Indicators are identified by the symbol being processed, their type and their
+ * constructor arguments (including the {@link TimeInterval}), e.g. when five accounts trade {@code BTCUSDT} using
+ * the same strategy, a call to {@code shared(BollingerBand.class, TimeInterval.minutes(5))} returns the same
+ * {@link com.univocity.trader.indicators.BollingerBand} to the strategy instance of each account, and it will be
+ * updated once for every candle received.
+ *
+ * Indicators are only shared among {@link Engine}s created with the same {@code SharedIndicators} instance, which
+ * must aggregate candles of the same interval and receive the same candles in sequence, first by the engine created
+ * first (as done by {@link com.univocity.trader.simulation.MarketSimulator}). Outside of that context,
+ * {@link #shared(Class, Object...)} simply returns a new indicator instance.
+ *
+ * Shared indicators must not be modified by the groups that use them (e.g. by calling
+ * {@link Indicator#recalculateEveryTick(boolean)} with a different value).
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ * @see Engine
+ * @see IndicatorGroup
+ */
+public final class SharedIndicators {
+
+	private static final ThreadLocal<Map<List<Object>, Indicator>> activeScope = new ThreadLocal<>();
+
+	private final Map<String, Map<List<Object>, Indicator>> indicatorsPerSymbol = new ConcurrentHashMap<>();
+	private final Map<String, Aggregator> roots = new ConcurrentHashMap<>();
+
+	void activate(String symbol) {
+		activeScope.set(indicatorsPerSymbol.computeIfAbsent(symbol, s -> new HashMap<>()));
+	}
+
+	void deactivate() {
+		activeScope.remove();
+	}
+
+	/**
+	 * Registers the root aggregator of an engine that shares the indicators of a symbol.
+	 *
+	 * @param symbol the symbol processed by the engine
+	 * @param root   the root aggregator of the engine
+	 *
+	 * @throws IllegalStateException if the root aggregator of another engine sharing the indicators of the same symbol
+	 *                               aggregates candles of a different interval.
+	 */
+	void bind(String symbol, Aggregator root) {
+		Aggregator first = roots.putIfAbsent(symbol, root);
+		if (first != null && first.getInterval() != root.getInterval()) {
+			throw new IllegalStateException("Indicators of " + symbol + " can't be shared by engines that aggregate candles of different intervals: " + first + " and " + root);
+		}
+	}
+
+	/**
+	 * Returns the number of distinct indicator instances shared for a given symbol
+	 *
+	 * @param symbol the symbol whose indicators are shared
+	 *
+	 * @return the number of shared indicators created for the given symbol
+	 */
+	public int count(String symbol) {
+		Map<List<Object>, Indicator> indicators = indicatorsPerSymbol.get(symbol);
+		return indicators == null ? 0 : indicators.size();
+	}
+
+	/**
+	 * Returns an indicator of the given type, created with the given constructor arguments. If an identical indicator
+	 * was already requested for the symbol being processed, the existing instance will be returned.
+	 *
+	 * @param type      the type of indicator
+	 * @param arguments the arguments to pass to the constructor of the indicator
+	 * @param <T>       the type of indicator
+	 *
+	 * @return the shared indicator instance.
+	 */
+	public static <T extends AggregatedTicksIndicator> T shared(Class<T> type, Object... arguments) {
+		return shared(type, () -> {
+			try {
+				return ConstructorUtils.invokeConstructor(type, arguments);
+			} catch (Exception e) {
+				throw new IllegalArgumentException("Unable to create instance of " + type.getName() + " with arguments " + Arrays.toString(arguments), e);
+			}
+		}, arguments);
+	}
+
+	/**
+	 * Returns an indicator of the given type, created with a given factory. If an indicator of the same type and with the
+	 * same key was already requested for the symbol being processed, the existing instance will be returned.
+	 *
+	 * @param type    the type of indicator
+	 * @param factory the function that creates a new indicator instance if required
+	 * @param key     the values that identify the indicator created by the factory, typically its constructor arguments.
+	 * @param <T>     the type of indicator
+	 *
+	 * @return the shared indicator instance.
+	 */
+	public static <T extends AggregatedTicksIndicator> T shared(Class<T> type, Supplier<T> factory, Object... key) {
+		Map<List<Object>, Indicator> scope = activeScope.get();
+		if (scope == null) {
+			return factory.get();
+		}
+
+		List<Object> id = new ArrayList<>(key.length + 1);
+		id.add(type);
+		Collections.addAll(id, key);
+
+		Indicator out = scope.get(id);
+		if (out == null) {
+			T indicator = factory.get();
+			indicator.shareComputation();
+			scope.put(id, indicator);
+			return indicator;
+		}
+		return type.cast(out);
+	}
+}
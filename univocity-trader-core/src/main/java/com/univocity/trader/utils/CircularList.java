@@ -1,5 +1,7 @@
 package com.univocity.trader.utils;
 
+import java.util.function.*;
+
 public class CircularList {
 	public final double[] values;
 	public int i;
@@ -7,6 +9,8 @@ public class CircularList {
 	private double last;
 	private boolean updating;
 	private long count;
+	private MonotonicDeque min;
+	private MonotonicDeque max;
 
 	public CircularList(int length) {
 		this.values = new double[length];
@@ -50,6 +54,12 @@ public class CircularList {
 		update(value, false);
 		count++;
 		i = (i + 1) % values.length;
+		if (min != null) {
+			min.add(value);
+		}
+		if (max != null) {
+			max.add(value);
+		}
 
 	}
 
@@ -96,35 +106,55 @@ public class CircularList {
 		boolean test(double d1, double d2);
 	}
 
-	private double calculateOnSection(int backwardCount, DoublePredicate predicate) {
-		final int len = size();
-		int start = i - backwardCount;
-		if (start < 0) {
-			start = 0;
+	private MonotonicDeque newDeque(DoubleBinaryOperator selector) {
+		MonotonicDeque out = new MonotonicDeque(values.length, selector);
+		int added = (int) Math.min(count, values.length);
+		if (updating && added == values.length) {
+			added--; //oldest value was overwritten by the update
 		}
-		double out = 0.0;
-		for (int i = start; i < len && backwardCount > 0; i++, backwardCount--) {
-			double v = values[i];
-			if (v != 0.0 && (out == 0.0 || predicate.test(out, v))) {
-				out = v;
-			}
+		for (int j = added; j > 0; j--) {
+			out.add(values[Math.floorMod(i - j, values.length)]);
 		}
-		for (int i = len; i >= 0 && backwardCount > 0; i--, backwardCount--) {
-			double v = values[i];
-			if (v != 0.0 && (out == 0.0 || predicate.test(out, v))) {
-				out = v;
-			}
-		}
-
 		return out;
 	}
 
+	private double calculateOnSection(int backwardCount, MonotonicDeque deque) {
+		backwardCount = Math.min(backwardCount, size());
+		if (backwardCount <= 0) {
+			return 0.0;
+		}
+		if (updating) {
+			return deque.select(last, backwardCount - 1);
+		}
+		return deque.get(backwardCount);
+	}
+
+	/**
+	 * Returns the lowest of the most recent values in this list. Runs in constant time when the whole list is considered, logarithmic otherwise.
+	 *
+	 * @param backwardCount the number of most recent values to consider, including the value of the latest {@link #update(double)}.
+	 *
+	 * @return the lowest value, or {@code 0.0} if the list is empty.
+	 */
 	public double getMin(int backwardCount) {
-		return calculateOnSection(backwardCount, (min, v) -> v < min);
+		if (min == null) {
+			min = newDeque(Math::min);
+		}
+		return calculateOnSection(backwardCount, min);
 	}
 
+	/**
+	 * Returns the highest of the most recent values in this list. Runs in constant time when the whole list is considered, logarithmic otherwise.
+	 *
+	 * @param backwardCount the number of most recent values to consider, including the value of the latest {@link #update(double)}.
+	 *
+	 * @return the highest value, or {@code 0.0} if the list is empty.
+	 */
 	public double getMax(int backwardCount) {
-		return calculateOnSection(backwardCount, (max, v) -> v > max);
+		if (max == null) {
+			max = newDeque(Math::max);
+		}
+		return calculateOnSection(backwardCount, max);
 	}
 
 	public double getRecentValue(int backwardCount) {
@@ -21,6 +21,9 @@ import java.util.concurrent.*;
  * implementation can check if {@link #consumerStopped()} produces {@code true} to close any open resources instead
  * of running indefinitely.
  *
+ * If the exchange can't provide all candles requested, it should stop with {@link #stopProducing(Throwable)}, so the
+ * consumer can tell an incomplete result (see {@link #failed()}) from a period without candles.
+ *
  * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
  */
 public class IncomingCandles<T> implements Enumeration<T>, Iterable<T> {
@@ -32,6 +35,7 @@ public class IncomingCandles<T> implements Enumeration<T>, Iterable<T> {
 
 	private boolean noMoreCandles = false;
 	private boolean consuming = true;
+	private volatile Throwable error;
 
 	private final long timeout;
 
@@ -48,6 +52,30 @@ public class IncomingCandles<T> implements Enumeration<T>, Iterable<T> {
 		notifyNotEmpty();
 	}
 
+	/**
+	 * Stops producing candles because of an error, e.g. a failed request to the exchange. Candles added before the
+	 * error can still be consumed.
+	 *
+	 * @param error the cause of the failure.
+	 */
+	public void stopProducing(Throwable error) {
+		this.error = error;
+		stopProducing();
+	}
+
+	/**
+	 * Indicates whether the exchange failed to produce all candles requested.
+	 *
+	 * @return {@code true} if {@link #stopProducing(Throwable)} was invoked.
+	 */
+	public boolean failed() {
+		return error != null;
+	}
+
+	public Throwable getError() {
+		return error;
+	}
+
 	public void stopConsuming() {
 		consuming = false;
 		notifyNotEmpty();
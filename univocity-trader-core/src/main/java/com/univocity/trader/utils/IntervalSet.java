@@ -0,0 +1,214 @@
+package com.univocity.trader.utils;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * A set of time ranges stored as disjoint, half-open intervals {@code [start, end)}. Ranges that overlap or touch are
+ * merged as they are added, so a contiguous history of any length takes a single entry.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+public final class IntervalSet {
+
+	private final TreeMap<Long, Long> ranges = new TreeMap<>();
+
+	public IntervalSet() {
+	}
+
+	public IntervalSet(IntervalSet other) {
+		synchronized (other) {
+			ranges.putAll(other.ranges);
+		}
+	}
+
+	/**
+	 * Adds a range to this set, merging it with any range it overlaps or touches.
+	 *
+	 * @param start the start of the range (inclusive)
+	 * @param end   the end of the range (exclusive)
+	 *
+	 * @return {@code true} if this set changed, i.e. the range wasn't entirely in the set already.
+	 */
+	public synchronized boolean add(long start, long end) {
+		if (end <= start) {
+			return false;
+		}
+		Map.Entry<Long, Long> previous = ranges.floorEntry(start);
+		if (previous != null && previous.getValue() >= start) {
+			if (previous.getValue() >= end) {
+				return false;
+			}
+			start = previous.getKey();
+		}
+		Map.Entry<Long, Long> next = ranges.ceilingEntry(start);
+		while (next != null && next.getKey() <= end) {
+			end = Math.max(end, next.getValue());
+			ranges.remove(next.getKey());
+			next = ranges.higherEntry(next.getKey());
+		}
+		ranges.put(start, end);
+		return true;
+	}
+
+	public void addAll(IntervalSet other) {
+		for (long[] range : other.toList()) {
+			add(range[0], range[1]);
+		}
+	}
+
+	/**
+	 * Tests whether a range is entirely contained in this set.
+	 *
+	 * @param start the start of the range (inclusive)
+	 * @param end   the end of the range (exclusive)
+	 *
+	 * @return {@code true} if every point of the range is in this set.
+	 */
+	public synchronized boolean contains(long start, long end) {
+		Map.Entry<Long, Long> entry = ranges.floorEntry(start);
+		return entry != null && entry.getValue() >= end;
+	}
+
+	/**
+	 * Returns the parts of a given range that are not in this set.
+	 *
+	 * @param from the start of the range (inclusive)
+	 * @param to   the end of the range (exclusive)
+	 *
+	 * @return the missing ranges as {@code [start, end)} pairs, in ascending order.
+	 */
+	public synchronized List<long[]> missing(long from, long to) {
+		List<long[]> out = new ArrayList<>();
+		long position = from;
+		Map.Entry<Long, Long> entry = ranges.floorEntry(from);
+		if (entry == null || entry.getValue() <= from) {
+			entry = ranges.higherEntry(from);
+		}
+		while (position < to && entry != null && entry.getKey() < to) {
+			if (entry.getKey() > position) {
+				out.add(new long[]{position, entry.getKey()});
+			}
+			position = Math.max(position, entry.getValue());
+			entry = ranges.higherEntry(entry.getKey());
+		}
+		if (position < to) {
+			out.add(new long[]{position, to});
+		}
+		return out;
+	}
+
+	/**
+	 * Returns the start of the first range in this set
+	 *
+	 * @return the lowest value in this set, or {@code Long.MAX_VALUE} if the set is empty.
+	 */
+	public synchronized long getStart() {
+		return ranges.isEmpty() ? Long.MAX_VALUE : ranges.firstKey();
+	}
+
+	/**
+	 * Returns the end of the last range in this set
+	 *
+	 * @return the (exclusive) end of the last range, or {@code Long.MIN_VALUE} if the set is empty.
+	 */
+	public synchronized long getEnd() {
+		return ranges.isEmpty() ? Long.MIN_VALUE : ranges.lastEntry().getValue();
+	}
+
+	/**
+	 * Returns the number of disjoint ranges in this set
+	 *
+	 * @return the number of ranges.
+	 */
+	public synchronized int size() {
+		return ranges.size();
+	}
+
+	public synchronized boolean isEmpty() {
+		return ranges.isEmpty();
+	}
+
+	public synchronized List<long[]> toList() {
+		List<long[]> out = new ArrayList<>(ranges.size());
+		ranges.forEach((start, end) -> out.add(new long[]{start, end}));
+		return out;
+	}
+
+	/**
+	 * Encodes this set into a compact byte array, with the distance between consecutive range boundaries stored as
+	 * variable length integers.
+	 *
+	 * @return the encoded ranges.
+	 *
+	 * @see #fromByteArray(byte[])
+	 */
+	public synchronized byte[] toByteArray() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(ranges.size() * 8 + 4);
+		writeUnsigned(out, ranges.size());
+		long previous = 0;
+		for (Map.Entry<Long, Long> e : ranges.entrySet()) {
+			long start = e.getKey();
+			long end = e.getValue();
+			long delta = start - previous;
+			writeUnsigned(out, (delta << 1) ^ (delta >> 63));
+			writeUnsigned(out, end - start);
+			previous = end;
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Decodes a set of ranges encoded with {@link #toByteArray()}
+	 *
+	 * @param bytes the encoded ranges
+	 *
+	 * @return a new set with the decoded ranges.
+	 */
+	public static IntervalSet fromByteArray(byte[] bytes) {
+		IntervalSet out = new IntervalSet();
+		int[] position = new int[1];
+		long count = readUnsigned(bytes, position);
+		long previous = 0;
+		for (long i = 0; i < count; i++) {
+			long delta = readUnsigned(bytes, position);
+			long start = previous + ((delta >>> 1) ^ -(delta & 1));
+			long end = start + readUnsigned(bytes, position);
+			out.ranges.put(start, end);
+			previous = end;
+		}
+		return out;
+	}
+
+	private static void writeUnsigned(ByteArrayOutputStream out, long value) {
+		while ((value & ~0x7FL) != 0) {
+			out.write((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.write((int) value);
+	}
+
+	private static long readUnsigned(byte[] bytes, int[] position) {
+		long out = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = bytes[position[0]++];
+			out |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while (b < 0);
+		return out;
+	}
+
+	@Override
+	public synchronized String toString() {
+		StringBuilder out = new StringBuilder("[");
+		ranges.forEach((start, end) -> {
+			if (out.length() > 1) {
+				out.append(", ");
+			}
+			out.append('[').append(start).append(", ").append(end).append(')');
+		});
+		return out.append(']').toString();
+	}
+}
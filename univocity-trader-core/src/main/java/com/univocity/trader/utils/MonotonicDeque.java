@@ -0,0 +1,141 @@
+package com.univocity.trader.utils;
+
+import java.util.function.*;
+
+/**
+ * Keeps track of the highest (or lowest) value among the most recent values added to a sliding window of fixed length,
+ * in amortised constant time per value added.
+ *
+ * Only values that can still become the selected value of the window are retained: when a new value is added, every
+ * older value it supersedes is discarded from the end of the deque, and values that fall out of the window are
+ * discarded from its start. The values retained are therefore ordered by age and by "selectiveness", and the value
+ * selected for the whole window is always the first one.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+public final class MonotonicDeque {
+
+	private final DoubleBinaryOperator selector;
+	private final int length;
+	private final double[] values;
+	private final long[] positions;
+	private int head;
+	private int size;
+	private long count;
+
+	/**
+	 * Creates a sliding window of values
+	 *
+	 * @param length   the number of most recent values that are part of the window
+	 * @param selector the function that selects one of two values, e.g. {@code Math::max} or {@code Math::min}.
+	 */
+	public MonotonicDeque(int length, DoubleBinaryOperator selector) {
+		if (length <= 0) {
+			throw new IllegalArgumentException("Window length must be positive");
+		}
+		this.length = length;
+		this.selector = selector;
+		this.values = new double[length];
+		this.positions = new long[length];
+	}
+
+	private int index(int offset) {
+		int out = head + offset;
+		return out >= length ? out - length : out;
+	}
+
+	/**
+	 * Adds a value to the window, discarding the oldest value if the window is full.
+	 *
+	 * @param value the new value
+	 */
+	public void add(double value) {
+		final long oldest = count - length;
+		while (size > 0 && positions[head] <= oldest) {
+			head = index(1);
+			size--;
+		}
+		while (size > 0) {
+			double previous = values[index(size - 1)];
+			if (selector.applyAsDouble(previous, value) == value) {
+				size--;
+			} else {
+				break;
+			}
+		}
+		int tail = index(size++);
+		values[tail] = value;
+		positions[tail] = count++;
+	}
+
+	/**
+	 * Returns the value selected among all values in the window.
+	 *
+	 * @return the selected value, or {@code NaN} if no value has been added yet.
+	 */
+	public double get() {
+		return size == 0 ? Double.NaN : values[head];
+	}
+
+	/**
+	 * Returns the value selected among the most recent values in the window.
+	 *
+	 * @param backwardCount the number of most recent values to consider.
+	 *
+	 * @return the selected value, or {@code NaN} if there are no values to consider.
+	 */
+	public double get(int backwardCount) {
+		if (size == 0 || backwardCount <= 0) {
+			return Double.NaN;
+		}
+		if (backwardCount >= length) {
+			return values[head];
+		}
+		final long first = count - backwardCount;
+
+		//positions are in ascending order and the most recent value is always retained, find the first one in range.
+		int low = 0;
+		int high = size - 1;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (positions[index(mid)] < first) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return values[index(low)];
+	}
+
+	/**
+	 * Selects between a given value and the most recent values in the window, without adding it to the window. Used to
+	 * evaluate partial values that will be replaced by subsequent updates.
+	 *
+	 * @param value         the value to compare against the values in the window
+	 * @param backwardCount the number of most recent values to consider.
+	 *
+	 * @return the selected value.
+	 */
+	public double select(double value, int backwardCount) {
+		double selected = get(backwardCount);
+		return selected != selected ? value : selector.applyAsDouble(value, selected);
+	}
+
+	/**
+	 * Returns the number of values added to this window so far.
+	 *
+	 * @return the count of values added.
+	 */
+	public long count() {
+		return count;
+	}
+
+	/**
+	 * Returns the number of most recent values that are part of the window
+	 *
+	 * @return the window length.
+	 */
+	public int length() {
+		return length;
+	}
+}
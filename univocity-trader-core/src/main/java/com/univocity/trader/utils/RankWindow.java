@@ -0,0 +1,267 @@
+package com.univocity.trader.utils;
+
+/**
+ * A sliding window of the most recent values added to it, which counts how many of these values are below a given
+ * value in logarithmic time. Values are kept in the same positions as in a {@link CircularList}, including the handling
+ * of partial values provided via {@link #update(double)}, and are also indexed by a treap (a randomized binary search
+ * tree) built over primitive arrays, whose nodes store each distinct value with the number of times it occurs in the
+ * window and the size of its subtree.
+ *
+ * Windows of up to {@link #SORTED_ARRAY_LIMIT} values are indexed by a sorted array instead, as moving small blocks
+ * of memory is faster than rebalancing the tree.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+public final class RankWindow {
+
+	static final int SORTED_ARRAY_LIMIT = 512;
+	private static final int NIL = 0;
+
+	private final double[] window;
+	private int i;
+	private long count;
+	private boolean updating;
+
+	private final double[] sorted;
+	private int sortedSize;
+
+	private final double[] keys;
+	private final int[] counts;
+	private final int[] sizes;
+	private final int[] left;
+	private final int[] right;
+	private final int[] priorities;
+	private int root = NIL;
+	private int free;
+	private int seed = 0x2545F491;
+
+	/**
+	 * Creates a window of values
+	 *
+	 * @param length the number of most recent values that are part of the window
+	 */
+	public RankWindow(int length) {
+		this.window = new double[length];
+		if (length <= SORTED_ARRAY_LIMIT) {
+			sorted = new double[length + 1];
+			keys = null;
+			counts = sizes = left = right = priorities = null;
+			return;
+		}
+		sorted = null;
+
+		//node 0 is the empty node, and at most length + 1 distinct values are stored while a value is being replaced.
+		int nodes = length + 2;
+		keys = new double[nodes];
+		counts = new int[nodes];
+		sizes = new int[nodes];
+		left = new int[nodes];
+		right = new int[nodes];
+		priorities = new int[nodes];
+		for (int n = 1; n < nodes - 1; n++) {
+			right[n] = n + 1;
+		}
+		free = 1;
+	}
+
+	/**
+	 * Adds a value to the window, discarding the oldest value if the window is full.
+	 *
+	 * @param value the new value
+	 */
+	public void add(double value) {
+		replace(value);
+		updating = false;
+		count++;
+		i = (i + 1) % window.length;
+	}
+
+	/**
+	 * Updates the latest value of the window, replacing the value provided by the previous update or, if the
+	 * window is full and no update has been made since the last {@link #add(double)}, the oldest value.
+	 *
+	 * @param value the partial value
+	 */
+	public void update(double value) {
+		replace(value);
+		updating = true;
+	}
+
+	private void replace(double value) {
+		if (updating || count >= window.length) {
+			remove(normalize(window[i]));
+		}
+		window[i] = value;
+		insert(normalize(value));
+	}
+
+	private void insert(double value) {
+		if (sorted == null) {
+			root = insert(root, value);
+		} else {
+			int position = lowerBound(value);
+			System.arraycopy(sorted, position, sorted, position + 1, sortedSize - position);
+			sorted[position] = value;
+			sortedSize++;
+		}
+	}
+
+	private void remove(double value) {
+		if (sorted == null) {
+			root = remove(root, value);
+		} else {
+			int position = lowerBound(value);
+			System.arraycopy(sorted, position + 1, sorted, position, sortedSize - position - 1);
+			sortedSize--;
+		}
+	}
+
+	private int lowerBound(double value) {
+		int low = 0;
+		int high = sortedSize;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (Double.compare(sorted[mid], value) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Returns the number of values in the window.
+	 *
+	 * @return the current size of the window.
+	 */
+	public int size() {
+		return sorted == null ? sizes[root] : sortedSize;
+	}
+
+	/**
+	 * Returns the number of values in the window that are less than the given value
+	 *
+	 * @param value the value to compare
+	 *
+	 * @return the number of values in the window for which {@code v < value} holds.
+	 */
+	public int countBelow(double value) {
+		if (value != value) {
+			return 0;
+		}
+		value = normalize(value);
+		if (sorted != null) {
+			return lowerBound(value);
+		}
+		int out = 0;
+		int node = root;
+		while (node != NIL) {
+			if (Double.compare(value, keys[node]) <= 0) {
+				node = left[node];
+			} else {
+				out += sizes[left[node]] + counts[node];
+				node = right[node];
+			}
+		}
+		return out;
+	}
+
+	private static double normalize(double value) {
+		return value + 0.0; //-0.0 and 0.0 must be treated as the same value
+	}
+
+	private int nextPriority() {
+		seed ^= seed << 13;
+		seed ^= seed >>> 17;
+		seed ^= seed << 5;
+		return seed;
+	}
+
+	private int newNode(double key) {
+		int node = free;
+		free = right[node];
+		keys[node] = key;
+		counts[node] = 1;
+		sizes[node] = 1;
+		left[node] = NIL;
+		right[node] = NIL;
+		priorities[node] = nextPriority();
+		return node;
+	}
+
+	private void release(int node) {
+		right[node] = free;
+		free = node;
+	}
+
+	private void resize(int node) {
+		sizes[node] = sizes[left[node]] + sizes[right[node]] + counts[node];
+	}
+
+	private int rotateRight(int node) {
+		int out = left[node];
+		left[node] = right[out];
+		right[out] = node;
+		resize(node);
+		resize(out);
+		return out;
+	}
+
+	private int rotateLeft(int node) {
+		int out = right[node];
+		right[node] = left[out];
+		left[out] = node;
+		resize(node);
+		resize(out);
+		return out;
+	}
+
+	private int insert(int node, double key) {
+		if (node == NIL) {
+			return newNode(key);
+		}
+		int c = Double.compare(key, keys[node]);
+		if (c == 0) {
+			counts[node]++;
+		} else if (c < 0) {
+			left[node] = insert(left[node], key);
+			if (priorities[left[node]] > priorities[node]) {
+				return rotateRight(node);
+			}
+		} else {
+			right[node] = insert(right[node], key);
+			if (priorities[right[node]] > priorities[node]) {
+				return rotateLeft(node);
+			}
+		}
+		resize(node);
+		return node;
+	}
+
+	private int remove(int node, double key) {
+		if (node == NIL) {
+			return NIL;
+		}
+		int c = Double.compare(key, keys[node]);
+		if (c < 0) {
+			left[node] = remove(left[node], key);
+		} else if (c > 0) {
+			right[node] = remove(right[node], key);
+		} else if (counts[node] > 1) {
+			counts[node]--;
+		} else if (left[node] == NIL || right[node] == NIL) {
+			int child = left[node] == NIL ? right[node] : left[node];
+			release(node);
+			return child;
+		} else if (priorities[left[node]] > priorities[right[node]]) {
+			node = rotateRight(node);
+			right[node] = remove(right[node], key);
+		} else {
+			node = rotateLeft(node);
+			left[node] = remove(left[node], key);
+		}
+		resize(node);
+		return node;
+	}
+}
@@ -0,0 +1,110 @@
+package com.univocity.trader.utils;
+
+import com.univocity.trader.indicators.base.*;
+
+import java.util.concurrent.*;
+
+/**
+ * A token bucket shared by threads that send requests to an exchange. The bucket holds up to a given number of
+ * tokens and is refilled at a constant rate. Each request takes a number of tokens matching its weight (e.g. the
+ * request weight reported by Binance), and threads wait until enough tokens are available.
+ *
+ * The number of tokens consumed within any period is therefore limited to the capacity of the bucket plus the
+ * tokens refilled in that period, so the capacity should be kept small when an exchange enforces a hard limit
+ * over a time window.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+public final class RateLimiter {
+
+	private final int capacity;
+	private final double tokensPerNano;
+
+	private double tokens;
+	private long lastRefill;
+
+	/**
+	 * Creates a rate limiter that starts with a full bucket
+	 *
+	 * @param capacity the maximum number of tokens available at once, i.e. the largest burst of requests allowed
+	 * @param permits  the number of tokens refilled every {@code period}
+	 * @param period   the time it takes to refill the given number of permits.
+	 */
+	public RateLimiter(int capacity, int permits, TimeInterval period) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be positive");
+		}
+		if (permits <= 0 || period.ms <= 0) {
+			throw new IllegalArgumentException("Refill rate must be positive");
+		}
+		this.capacity = capacity;
+		this.tokensPerNano = permits / (double) TimeUnit.MILLISECONDS.toNanos(period.ms);
+		this.tokens = capacity;
+		this.lastRefill = System.nanoTime();
+	}
+
+	/**
+	 * Creates a rate limiter that allows one request after each given time interval.
+	 *
+	 * @param period the minimum time between requests.
+	 *
+	 * @return a new rate limiter.
+	 */
+	public static RateLimiter onePer(TimeInterval period) {
+		return new RateLimiter(1, 1, period);
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	private void refill() {
+		long now = System.nanoTime();
+		tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+		lastRefill = now;
+	}
+
+	/**
+	 * Takes tokens from the bucket if enough are available.
+	 *
+	 * @param weight the number of tokens to take. Weights larger than the capacity of the bucket take all tokens.
+	 *
+	 * @return {@code true} if the tokens were taken, {@code false} otherwise
+	 */
+	public synchronized boolean tryAcquire(int weight) {
+		weight = Math.min(weight, capacity);
+		refill();
+		if (tokens >= weight) {
+			tokens -= weight;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Takes tokens from the bucket, waiting until enough tokens are available.
+	 *
+	 * @param weight the number of tokens to take. Weights larger than the capacity of the bucket take all tokens.
+	 *
+	 * @throws InterruptedException if the current thread is interrupted while waiting.
+	 */
+	public synchronized void acquire(int weight) throws InterruptedException {
+		weight = Math.min(weight, capacity);
+		refill();
+		while (tokens < weight) {
+			long nanos = (long) Math.ceil((weight - tokens) / tokensPerNano);
+			TimeUnit.NANOSECONDS.timedWait(this, Math.max(nanos, 1));
+			refill();
+		}
+		tokens -= weight;
+	}
+
+	/**
+	 * Empties the bucket, e.g. after the exchange rejected a request for exceeding its rate limit, so that no request is
+	 * sent until tokens are refilled.
+	 */
+	public synchronized void drain() {
+		refill();
+		tokens = Math.min(tokens, 0);
+	}
+}
@@ -0,0 +1,210 @@
+package com.univocity.trader.utils;
+
+import org.slf4j.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Runs tasks on a fixed number of single-threaded lanes, where all tasks submitted with the same key run on the same
+ * lane, in the order they were submitted. Tasks of keys assigned to different lanes run in parallel.
+ *
+ * Keys are assigned to lanes in round-robin order the first time they are seen, so a set of keys known in advance
+ * (e.g. the symbols traded) is evenly spread across the lanes.
+ *
+ * Tasks submitted with {@link #executeLatest(Object, long, Runnable)} replace the task of the same key and version
+ * still waiting to run, so a lane that falls behind holds at most one pending task per version of each key (e.g. one
+ * update per candle of a symbol) instead of every task submitted.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+public final class StripedExecutor {
+
+	private static final Logger log = LoggerFactory.getLogger(StripedExecutor.class);
+
+	private final Lane[] lanes;
+	private final Map<Object, Lane> assignments = new ConcurrentHashMap<>();
+	private final Map<Object, LatestTask> latest = new ConcurrentHashMap<>();
+	private final AtomicInteger nextLane = new AtomicInteger();
+	private volatile boolean shutdown;
+
+	/**
+	 * Creates a new executor and starts its lanes.
+	 *
+	 * @param name  the name of the executor, used to name the thread of each lane
+	 * @param lanes the number of lanes (i.e. threads) to create.
+	 */
+	public StripedExecutor(String name, int lanes) {
+		if (lanes <= 0) {
+			throw new IllegalArgumentException("Number of lanes must be positive");
+		}
+		this.lanes = new Lane[lanes];
+		for (int i = 0; i < lanes; i++) {
+			this.lanes[i] = new Lane(name + " " + (i + 1));
+			this.lanes[i].start();
+		}
+	}
+
+	private Lane lane(Object key) {
+		Lane lane = assignments.get(key);
+		if (lane == null) {
+			lane = assignments.computeIfAbsent(key, k -> lanes[Math.floorMod(nextLane.getAndIncrement(), lanes.length)]);
+		}
+		return lane;
+	}
+
+	/**
+	 * Queues a task to run on the lane of the given key, after all tasks previously submitted with the same key.
+	 *
+	 * @param key  the key that identifies the lane, e.g. a symbol
+	 * @param task the task to run
+	 *
+	 * @throws RejectedExecutionException if this executor has been shut down.
+	 */
+	public void execute(Object key, Runnable task) {
+		if (shutdown) {
+			throw new RejectedExecutionException("Executor has been shut down");
+		}
+		lane(key).queue.offer(task);
+	}
+
+	/**
+	 * Queues a task to run on the lane of the given key, after all tasks previously submitted with the same key. If the
+	 * last task submitted with this method for the same key and version hasn't started yet, it is replaced by the given
+	 * task instead, and never runs.
+	 *
+	 * @param key     the key that identifies the lane, e.g. a symbol
+	 * @param version the version of the state of the key updated by the task, e.g. the open time of a candle
+	 * @param task    the task to run
+	 *
+	 * @throws RejectedExecutionException if this executor has been shut down.
+	 */
+	public void executeLatest(Object key, long version, Runnable task) {
+		if (shutdown) {
+			throw new RejectedExecutionException("Executor has been shut down");
+		}
+		Lane lane = lane(key);
+		latest.compute(key, (k, last) -> {
+			if (last != null && last.replace(version, task)) {
+				return last;
+			}
+			LatestTask next = new LatestTask(version, task);
+			lane.queue.offer(next);
+			return next;
+		});
+	}
+
+	public int getLaneCount() {
+		return lanes.length;
+	}
+
+	/**
+	 * Returns the lane that runs the tasks of a key, assigning one if the key hasn't been seen yet.
+	 *
+	 * @param key the key that identifies the lane
+	 *
+	 * @return the index of the lane, between {@code 0} and {@link #getLaneCount()} - 1.
+	 */
+	public int laneOf(Object key) {
+		Lane lane = lane(key);
+		for (int i = 0; i < lanes.length; i++) {
+			if (lanes[i] == lane) {
+				return i;
+			}
+		}
+		throw new IllegalStateException("Unknown lane");
+	}
+
+	/**
+	 * Returns the number of tasks waiting to run on a lane, not counting the task currently running.
+	 *
+	 * @param lane the index of the lane
+	 *
+	 * @return the number of pending tasks of the lane.
+	 */
+	public int getQueueDepth(int lane) {
+		return lanes[lane].queue.size();
+	}
+
+	/**
+	 * Returns the number of tasks waiting to run on each lane, not counting the tasks currently running.
+	 *
+	 * @return the number of pending tasks of each lane, indexed by lane.
+	 */
+	public int[] getQueueDepths() {
+		int[] out = new int[lanes.length];
+		for (int i = 0; i < lanes.length; i++) {
+			out[i] = lanes[i].queue.size();
+		}
+		return out;
+	}
+
+	/**
+	 * Stops all lanes. Tasks still waiting to run are discarded.
+	 */
+	public void shutdown() {
+		shutdown = true;
+		for (Lane lane : lanes) {
+			lane.interrupt();
+		}
+	}
+
+	/**
+	 * A task that can be replaced by a newer task of the same version until it starts running.
+	 */
+	private static final class LatestTask implements Runnable {
+		private final long version;
+		private Runnable task;
+
+		LatestTask(long version, Runnable task) {
+			this.version = version;
+			this.task = task;
+		}
+
+		synchronized boolean replace(long version, Runnable task) {
+			if (this.task != null && this.version == version) {
+				this.task = task;
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		public void run() {
+			Runnable task;
+			synchronized (this) {
+				task = this.task;
+				this.task = null;
+			}
+			task.run();
+		}
+	}
+
+	private static final class Lane extends Thread {
+		private final BlockingQueue<Runnable> queue = new LinkedBlockingQueue<>();
+
+		Lane(String name) {
+			super(name);
+			setDaemon(true);
+		}
+
+		@Override
+		public void run() {
+			while (!isInterrupted()) {
+				Runnable task;
+				try {
+					task = queue.take();
+				} catch (InterruptedException e) {
+					break;
+				}
+				try {
+					task.run();
+				} catch (Exception e) {
+					log.error("Error running task on " + getName(), e);
+				}
+			}
+			queue.clear();
+		}
+	}
+}
@@ -0,0 +1,12 @@
+# Optional index of the time ranges covered by the candles of each symbol, used to find gaps in the history without
+# reading every candle stored. Enable it with the "database.coverage.index" property. The index of each symbol is
+# built from its candles the first time it is required, and updated as candles are added to the candle table.
+# Delete the row of a symbol to have its index built again.
+
+CREATE TABLE candle_coverage
+(
+	symbol VARCHAR(32) NOT NULL,
+	ranges MEDIUMBLOB  NOT NULL,
+
+	CONSTRAINT candle_coverage_symbol_uq UNIQUE (symbol)
+);
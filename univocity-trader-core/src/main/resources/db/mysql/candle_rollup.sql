@@ -0,0 +1,9 @@
+# Optional rollup tables with candles pre-aggregated into higher timeframes.
+# Enable them with the "database.rollups" property (e.g. database.rollups=5m,15m,1h,1d). Rollups are updated
+# as 1 minute candles are added to the candle table, and simulations read from the coarsest rollup compatible with
+# the intervals of their indicators.
+
+CREATE TABLE candle_5m LIKE candle;
+CREATE TABLE candle_15m LIKE candle;
+CREATE TABLE candle_1h LIKE candle;
+CREATE TABLE candle_1d LIKE candle;
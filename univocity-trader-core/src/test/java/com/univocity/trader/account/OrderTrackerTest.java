@@ -0,0 +1,147 @@
+package com.univocity.trader.account;
+
+import com.univocity.trader.*;
+import com.univocity.trader.indicators.base.*;
+import org.junit.*;
+
+import java.math.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+import static junit.framework.TestCase.*;
+
+public class OrderTrackerTest {
+
+	private static final TimeInterval FREQUENCY = TimeInterval.millis(100);
+
+	private static class Account implements ClientAccount {
+		final Map<String, Order.Status> statuses = new ConcurrentHashMap<>();
+		final List<String> batches = new CopyOnWriteArrayList<>();
+		final AtomicLong receivedSince = new AtomicLong();
+		Consumer<Order> listener;
+
+		@Override
+		public Order executeOrder(OrderRequest orderDetails) {
+			return null;
+		}
+
+		@Override
+		public Map<String, Balance> updateBalances() {
+			return new HashMap<>();
+		}
+
+		@Override
+		public OrderBook getOrderBook(String symbol, int depth) {
+			return null;
+		}
+
+		@Override
+		public Order updateOrderStatus(Order order) {
+			return order(order.getAssetsSymbol(), order.getOrderId(), statuses.getOrDefault(order.getOrderId(), Order.Status.NEW));
+		}
+
+		@Override
+		public List<Order> updateOrderStatuses(String symbol, List<Order> orders) {
+			batches.add(symbol + ":" + orders.size());
+			return ClientAccount.super.updateOrderStatuses(symbol, orders);
+		}
+
+		@Override
+		public void cancel(Order order) {
+		}
+
+		@Override
+		public void subscribeToOrderUpdates(Consumer<Order> listener) {
+			this.listener = listener;
+		}
+
+		@Override
+		public long getOrderUpdatesReceivedSince() {
+			return receivedSince.get();
+		}
+	}
+
+	private static DefaultOrder order(String asset, String id, Order.Status status) {
+		DefaultOrder out = new DefaultOrder(asset, "USDT", Order.Side.BUY, Trade.Side.LONG, System.currentTimeMillis());
+		out.setOrderId(id);
+		out.setStatus(status);
+		out.setQuantity(BigDecimal.ONE);
+		out.setPrice(BigDecimal.ONE);
+		out.setExecutedQuantity(status == Order.Status.FILLED ? BigDecimal.ONE : BigDecimal.ZERO);
+		return out;
+	}
+
+	private final Map<String, Order> pending = new ConcurrentHashMap<>();
+	private final List<String> updates = new CopyOnWriteArrayList<>();
+
+	private OrderTracker tracker(Account account) {
+		return new OrderTracker("test order monitor", account, pending, symbol -> FREQUENCY, (previous, update) -> {
+			updates.add(update.getOrderId() + ":" + update.getStatus() + (previous == update ? ":local" : ""));
+			if (update.isFinalized()) {
+				pending.remove(update.getOrderId());
+			} else {
+				pending.put(update.getOrderId(), update);
+			}
+		});
+	}
+
+	private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+		long start = System.currentTimeMillis();
+		while (!condition.getAsBoolean()) {
+			assertTrue("Timeout", System.currentTimeMillis() - start < 5000);
+			Thread.sleep(10);
+		}
+	}
+
+	@Test
+	public void testPollsPendingOrdersInBatchesPerSymbol() throws Exception {
+		Account account = new Account();
+		pending.put("1", order("ADA", "1", Order.Status.NEW));
+		pending.put("2", order("ADA", "2", Order.Status.NEW));
+		pending.put("3", order("BTC", "3", Order.Status.NEW));
+		OrderTracker tracker = tracker(account);
+		try {
+			waitFor(() -> account.batches.size() >= 2);
+			assertTrue(account.batches.contains("ADAUSDT:2"));
+			assertTrue(account.batches.contains("BTCUSDT:1"));
+
+			account.statuses.put("2", Order.Status.FILLED);
+			waitFor(() -> !pending.containsKey("2"));
+			assertTrue(updates.contains("2:FILLED"));
+			assertEquals(2, pending.size());
+		} finally {
+			tracker.shutdown();
+		}
+	}
+
+	@Test
+	public void testPushedUpdatesReplacePolling() throws Exception {
+		Account account = new Account();
+		account.receivedSince.set(System.currentTimeMillis());
+		OrderTracker tracker = tracker(account);
+		try {
+			assertNotNull(account.listener);
+
+			//update received before the order is tracked
+			account.listener.accept(order("ADA", "1", Order.Status.PARTIALLY_FILLED));
+			pending.put("1", order("ADA", "1", Order.Status.NEW));
+			pending.put("2", order("ADA", "2", Order.Status.NEW));
+			waitFor(() -> updates.contains("1:PARTIALLY_FILLED"));
+
+			account.listener.accept(order("ADA", "2", Order.Status.FILLED));
+			waitFor(() -> !pending.containsKey("2"));
+
+			//order managers are still notified at the update frequency, without querying the exchange
+			waitFor(() -> updates.contains("1:PARTIALLY_FILLED:local"));
+			assertTrue(account.batches.isEmpty());
+
+			//updates could have been missed, so pending orders are queried again
+			account.receivedSince.set(0L);
+			waitFor(() -> account.batches.contains("ADAUSDT:1"));
+		} finally {
+			tracker.shutdown();
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package com.univocity.trader.candles;
+
+import org.junit.*;
+
+import java.util.*;
+
+import static com.univocity.trader.candles.CandleHelper.*;
+import static com.univocity.trader.indicators.base.TimeInterval.*;
+import static junit.framework.TestCase.*;
+
+public class CandleCacheTest {
+
+	private static List<Candle> candles(int count) {
+		List<Candle> out = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			out.add(newCandle(i, i));
+		}
+		return out;
+	}
+
+	private static List<Candle> toList(Enumeration<Candle> e) {
+		return e == null ? null : Collections.list(e);
+	}
+
+	@Test
+	public void testNarrowerRangeServedFromCache() {
+		CandleCache cache = new CandleCache(10_000, CandleCache.EvictionPolicy.LRU);
+		cache.put("BTCUSDT", null, null, candles(10), 10);
+
+		List<Candle> result = toList(cache.get("BTCUSDT", MINUTE.ms * 3, MINUTE.ms * 6 - 1));
+		assertEquals(3, result.size());
+		assertEquals(3.0, result.get(0).close);
+		assertEquals(5.0, result.get(2).close);
+
+		assertEquals(10, toList(cache.get("BTCUSDT", null, null)).size());
+		assertEquals(7, toList(cache.get("BTCUSDT", MINUTE.ms * 3, null)).size());
+		assertNull(cache.get("ETHUSDT", null, null));
+
+		cache.put("ETHUSDT", MINUTE.ms * 2, MINUTE.ms * 5, candles(3), 10);
+		assertNull(cache.get("ETHUSDT", MINUTE.ms, MINUTE.ms * 5));
+
+		assertEquals(3, cache.hits());
+		assertEquals(2, cache.misses());
+	}
+
+	@Test
+	public void testColumnarStorageRange() {
+		CandleCache cache = new CandleCache(10_000, CandleCache.EvictionPolicy.LRU);
+		ColumnarCandleStorage storage = new ColumnarCandleStorage(10);
+		storage.addAll(candles(10));
+		cache.put("BTCUSDT", null, null, storage, 10);
+
+		List<Candle> result = toList(cache.get("BTCUSDT", MINUTE.ms * 8, null));
+		assertEquals(2, result.size());
+		assertEquals(8.0, result.get(0).close);
+		assertEquals(9.0, result.get(1).close);
+	}
+
+	@Test
+	public void testLeastRecentlyUsedIsEvicted() {
+		CandleCache cache = new CandleCache(250, CandleCache.EvictionPolicy.LRU);
+		cache.put("A", null, null, candles(10), 10);
+		cache.put("B", null, null, candles(10), 10);
+		assertNotNull(cache.get("A", null, null));
+
+		cache.put("C", null, null, candles(10), 10); //B is the least recently used
+		assertNull(cache.get("B", null, null));
+		assertNotNull(cache.get("A", null, null));
+		assertNotNull(cache.get("C", null, null));
+		assertEquals(1, cache.evictions());
+		assertEquals(200, cache.size());
+		assertEquals(2, cache.entries());
+
+		assertFalse(cache.put("D", null, null, candles(30), 10)); //too big for the cache
+		assertEquals(1, cache.rejections());
+		assertEquals(2, cache.entries());
+	}
+
+	@Test
+	public void testLeastFrequentlyUsedIsEvicted() {
+		CandleCache cache = new CandleCache(250, CandleCache.EvictionPolicy.LFU);
+		cache.put("A", null, null, candles(10), 10);
+		cache.put("B", null, null, candles(10), 10);
+		cache.get("A", null, null);
+		cache.get("A", null, null);
+		cache.get("B", null, null);
+
+		cache.put("C", null, null, candles(10), 10); //B used less often than A
+		assertNull(cache.get("B", null, null));
+		assertNotNull(cache.get("A", null, null));
+	}
+
+	@Test
+	public void testPinnedEntriesIgnoreBudget() {
+		CandleCache cache = new CandleCache(250, CandleCache.EvictionPolicy.LRU);
+		cache.put("A", null, null, candles(10), 10);
+		cache.pin("B");
+		cache.pin("C");
+
+		assertTrue(cache.put("B", null, null, candles(30), 10)); //larger than the budget
+		assertNull(cache.get("A", null, null)); //evicted to make room
+		assertTrue(cache.put("C", null, null, candles(10), 10));
+		assertFalse(cache.put("D", null, null, candles(10), 10)); //no room left by pinned entries
+		assertEquals(400, cache.size());
+		assertEquals(1, cache.rejections());
+
+		cache.unpin("B");
+		assertNull(cache.get("B", null, null)); //evicted to bring the cache back within budget
+		assertNotNull(cache.get("C", null, null));
+		assertEquals(100, cache.size());
+	}
+
+	@Test
+	public void testOverlappingEntriesAreInvalidated() {
+		CandleCache cache = new CandleCache(10_000, CandleCache.EvictionPolicy.LRU);
+		cache.put("A", null, MINUTE.ms * 5, candles(5), 10);
+		cache.put("A", MINUTE.ms * 5, null, candles(5), 10);
+
+		cache.evict("A", MINUTE.ms * 7, MINUTE.ms * 8);
+		assertNotNull(cache.get("A", null, MINUTE.ms * 5));
+		assertNull(cache.get("A", MINUTE.ms * 5, null));
+		assertEquals(50, cache.size());
+
+		cache.put("A", null, null, candles(10), 10); //replaces narrower entry
+		assertEquals(1, cache.entries());
+		assertEquals(100, cache.size());
+	}
+}
@@ -0,0 +1,78 @@
+package com.univocity.trader.candles;
+
+import com.univocity.trader.utils.*;
+import org.junit.*;
+import org.springframework.jdbc.core.*;
+
+import java.math.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static junit.framework.TestCase.*;
+
+public class CandleCoverageTest {
+
+	@Test
+	public void testConcurrentChangesAreSavedInOrder() throws Exception {
+		AtomicInteger writing = new AtomicInteger();
+		AtomicInteger maxWriting = new AtomicInteger();
+		AtomicReference<byte[]> saved = new AtomicReference<>();
+		JdbcTemplate db = new JdbcTemplate() {
+			@Override
+			public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+				return Collections.emptyList();
+			}
+
+			@Override
+			public int update(String sql, Object... args) {
+				maxWriting.accumulateAndGet(writing.incrementAndGet(), Math::max);
+				try {
+					Thread.sleep(1);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				saved.set((byte[]) args[0]);
+				writing.decrementAndGet();
+				return 1;
+			}
+		};
+		CandleRepository repository = new CandleRepository(null) {
+			@Override
+			public JdbcTemplate db() {
+				return db;
+			}
+
+			@Override
+			Enumeration<Candle> streamHistory(String symbol) {
+				return Collections.emptyEnumeration();
+			}
+		};
+		CandleCoverage coverage = new CandleCoverage(repository);
+		coverage.get("ADAUSDT");
+
+		int threads = 4;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> tasks = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				int offset = t;
+				tasks.add(executor.submit(() -> {
+					for (int i = 0; i < 50; i++) {
+						//gaps between candles, so every candle changes the index
+						long openTime = (i * threads + offset) * 120_000L;
+						coverage.add("ADAUSDT", new PreciseCandle(openTime, openTime + 59_999, BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE));
+					}
+				}));
+			}
+			for (Future<?> task : tasks) {
+				task.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertEquals(1, maxWriting.get());
+		assertEquals(threads * 50, IntervalSet.fromByteArray(saved.get()).size());
+	}
+}
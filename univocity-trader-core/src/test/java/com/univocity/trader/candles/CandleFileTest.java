@@ -0,0 +1,70 @@
+package com.univocity.trader.candles;
+
+import org.junit.*;
+
+import java.io.*;
+import java.util.*;
+
+import static com.univocity.trader.candles.AggregatorTest.*;
+import static com.univocity.trader.indicators.base.TimeInterval.*;
+import static junit.framework.TestCase.*;
+
+public class CandleFileTest {
+
+	private static List<Candle> read(CandleFile file, Long from, Long to) {
+		return Collections.list(file.read(from, to));
+	}
+
+	@Test
+	public void testAppendAndReadRange() throws Exception {
+		File tmp = File.createTempFile("ADAUSDT", CandleFile.EXTENSION);
+		tmp.delete();
+		tmp.deleteOnExit();
+
+		try (CandleFile file = CandleFile.open(tmp, "ADAUSDT", minutes(1))) {
+			for (Candle candle : SEQUENCE) {
+				assertTrue(file.append(candle));
+			}
+			assertFalse(file.append(SEQUENCE[3])); //out of order
+			assertEquals(SEQUENCE.length, file.size());
+		}
+
+		try (CandleFile file = CandleFile.open(tmp)) {
+			assertEquals("ADAUSDT", file.getSymbol());
+			assertEquals(MINUTE.ms, file.getInterval());
+			assertEquals(SEQUENCE.length, file.size());
+			assertEquals(SEQUENCE[SEQUENCE.length - 1].openTime, file.lastOpenTime());
+
+			List<Candle> all = read(file, null, null);
+			assertEquals(SEQUENCE.length, all.size());
+			for (int i = 0; i < SEQUENCE.length; i++) {
+				assertEquals(SEQUENCE[i].openTime, all.get(i).openTime);
+				assertEquals(SEQUENCE[i].closeTime, all.get(i).closeTime);
+				assertEquals(SEQUENCE[i].open, all.get(i).open);
+				assertEquals(SEQUENCE[i].high, all.get(i).high);
+				assertEquals(SEQUENCE[i].low, all.get(i).low);
+				assertEquals(SEQUENCE[i].close, all.get(i).close);
+				assertEquals(SEQUENCE[i].volume, all.get(i).volume);
+			}
+
+			List<Candle> range = read(file, SEQUENCE[2].openTime, SEQUENCE[5].closeTime);
+			assertEquals(4, range.size());
+			assertEquals(SEQUENCE[2].openTime, range.get(0).openTime);
+			assertEquals(SEQUENCE[5].openTime, range.get(3).openTime);
+			assertEquals(4, file.count(SEQUENCE[2].openTime, SEQUENCE[5].closeTime));
+
+			assertEquals(2, read(file, SEQUENCE[2].openTime + 1, SEQUENCE[5].closeTime - 1).size());
+			assertEquals(0, read(file, SEQUENCE[9].closeTime, null).size());
+
+			assertTrue(file.append(new Candle(SEQUENCE[9].closeTime + 1, SEQUENCE[9].closeTime + MINUTE.ms, 1, 1, 1, 1, 1)));
+			assertEquals(SEQUENCE.length + 1, read(file, null, null).size());
+		}
+
+		try {
+			CandleFile.open(tmp, "ETHUSDT", minutes(1));
+			fail("Expecting error opening file of another symbol");
+		} catch (IllegalStateException e) {
+			//expected
+		}
+	}
+}
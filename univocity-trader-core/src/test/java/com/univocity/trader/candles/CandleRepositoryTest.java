@@ -0,0 +1,131 @@
+package com.univocity.trader.candles;
+
+import com.univocity.trader.config.*;
+import org.junit.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static com.univocity.trader.candles.AggregatorTest.*;
+import static junit.framework.TestCase.*;
+
+public class CandleRepositoryTest {
+
+	private static class SlowRepository extends CandleRepository {
+		final AtomicInteger loads = new AtomicInteger();
+		final CountDownLatch release = new CountDownLatch(1);
+		volatile RuntimeException error;
+
+		SlowRepository() {
+			super(new DatabaseConfiguration());
+		}
+
+		@Override
+		protected long performCandleCounting(String symbol, Instant from, Instant to) {
+			return SEQUENCE.length;
+		}
+
+		@Override
+		protected Enumeration<Candle> executeQuery(String symbol, String query, Instant from, Instant to, Collection<Candle> out) {
+			loads.incrementAndGet();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			if (error != null) {
+				throw error;
+			}
+			out.addAll(Arrays.asList(SEQUENCE));
+			return cacheAndReturnResults(symbol, query, from, to, out);
+		}
+	}
+
+	private static List<Future<Integer>> iterateConcurrently(ExecutorService executor, CandleRepository repository, int threads) {
+		List<Future<Integer>> out = new ArrayList<>();
+		for (int i = 0; i < threads; i++) {
+			out.add(executor.submit(() -> Collections.list(repository.iterate("ADAUSDT", null, null, true)).size()));
+		}
+		return out;
+	}
+
+	@Test
+	public void testConcurrentCallersShareSingleLoad() throws Exception {
+		SlowRepository repository = new SlowRepository();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Integer>> results = iterateConcurrently(executor, repository, 4);
+			Thread.sleep(100);
+			repository.release.countDown();
+
+			for (Future<Integer> result : results) {
+				assertEquals(SEQUENCE.length, (int) result.get(5, TimeUnit.SECONDS));
+			}
+			assertEquals(1, repository.loads.get());
+
+			assertEquals(SEQUENCE.length, Collections.list(repository.iterate("ADAUSDT", null, null, true)).size());
+			assertEquals(1, repository.loads.get());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testLoadingErrorPropagatesToAllCallers() throws Exception {
+		SlowRepository repository = new SlowRepository();
+		repository.error = new IllegalStateException("database unavailable");
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Integer>> results = iterateConcurrently(executor, repository, 4);
+			Thread.sleep(100);
+			repository.release.countDown();
+
+			for (Future<Integer> result : results) {
+				try {
+					result.get(5, TimeUnit.SECONDS);
+					fail("Expected loading error");
+				} catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (cause != repository.error) {
+						cause = cause.getCause();
+					}
+					assertSame(repository.error, cause);
+				}
+			}
+			assertEquals(1, repository.loads.get());
+
+			//nothing left pending, next call tries again
+			repository.error = null;
+			assertEquals(SEQUENCE.length, Collections.list(repository.iterate("ADAUSDT", null, null, true)).size());
+			assertEquals(2, repository.loads.get());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testMergeOrdersCandlesOfAllSymbols() {
+		Map<String, Enumeration<Candle>> candles = new TreeMap<>();
+		candles.put("BTCUSDT", Collections.enumeration(Arrays.asList(SEQUENCE).subList(3, 6)));
+		candles.put("ADAUSDT", Collections.enumeration(Arrays.asList(SEQUENCE)));
+		candles.put("ETHUSDT", Collections.emptyEnumeration());
+
+		List<SymbolCandle> merged = Collections.list(CandleRepository.merge(candles));
+		assertEquals(SEQUENCE.length + 3, merged.size());
+
+		for (int i = 1; i < merged.size(); i++) {
+			SymbolCandle previous = merged.get(i - 1);
+			SymbolCandle current = merged.get(i);
+			assertTrue(previous.candle.openTime <= current.candle.openTime);
+			if (previous.candle.openTime == current.candle.openTime) {
+				assertEquals("ADAUSDT", previous.symbol);
+				assertEquals("BTCUSDT", current.symbol);
+			}
+		}
+		assertEquals("ADAUSDT", merged.get(3).symbol);
+		assertEquals("BTCUSDT", merged.get(4).symbol);
+		assertSame(SEQUENCE[3], merged.get(4).candle);
+	}
+}
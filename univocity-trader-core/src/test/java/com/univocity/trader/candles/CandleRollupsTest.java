@@ -0,0 +1,134 @@
+package com.univocity.trader.candles;
+
+import com.univocity.trader.indicators.base.*;
+import org.junit.*;
+import org.springframework.jdbc.core.*;
+
+import java.util.*;
+
+import static com.univocity.trader.indicators.base.TimeInterval.*;
+import static junit.framework.TestCase.*;
+
+public class CandleRollupsTest {
+
+	private final CandleRollups rollups = new CandleRollups(null, new TimeInterval[]{minutes(5), minutes(15), hours(1), days(1)});
+
+	@Test
+	public void testSelectCoarsestRollupDividingResolution() {
+		assertNull(rollups.select(null));
+		assertNull(rollups.select(minutes(1)));
+		assertNull(rollups.select(minutes(3)));
+		assertEquals(minutes(5), rollups.select(minutes(5)));
+		assertEquals(minutes(5), rollups.select(minutes(10)));
+		assertEquals(minutes(15), rollups.select(minutes(30)));
+		assertEquals(hours(1), rollups.select(hours(4)));
+		assertEquals(days(1), rollups.select(days(7)));
+		assertEquals("candle_15m", CandleRollups.tableName(rollups.select(minutes(45))));
+	}
+
+	@Test
+	public void testAggregatingRollupsProducesSameCandles() {
+		long start = 1527724800000L; //midnight UTC
+		List<Candle> minuteCandles = new ArrayList<>();
+		Random random = new Random(0);
+		double price = 100;
+		for (int i = 0; i < 240; i++) {
+			double next = price + random.nextGaussian();
+			long openTime = start + i * MINUTE.ms;
+			minuteCandles.add(new Candle(openTime, openTime + MINUTE.ms - 1, price, Math.max(price, next) + 0.5, Math.min(price, next) - 0.5, next, random.nextInt(1000)));
+			price = next;
+		}
+
+		//15 minute rollup, as computed from 1 minute candles
+		List<Candle> rollup = new ArrayList<>();
+		Candle current = null;
+		for (Candle candle : minuteCandles) {
+			if (current == null || candle.openTime - Math.floorMod(candle.openTime, minutes(15).ms) != current.openTime) {
+				current = new Candle(candle.openTime, candle.closeTime, candle.open, candle.high, candle.low, candle.close, candle.volume);
+				rollup.add(current);
+			} else {
+				current = current.merge(candle);
+				rollup.set(rollup.size() - 1, current);
+			}
+		}
+		assertEquals(16, rollup.size());
+
+		Aggregator fromMinutes = new Aggregator("minutes").getInstance(hours(1));
+		Aggregator fromRollup = new Aggregator("rollup").getInstance(hours(1));
+		List<Candle> expected = new ArrayList<>();
+		List<Candle> actual = new ArrayList<>();
+		for (Candle candle : minuteCandles) {
+			fromMinutes.aggregate(candle);
+			if (fromMinutes.getFull() != null && (expected.isEmpty() || expected.get(expected.size() - 1) != fromMinutes.getFull())) {
+				expected.add(fromMinutes.getFull());
+			}
+		}
+		for (Candle candle : rollup) {
+			fromRollup.aggregate(candle);
+			if (fromRollup.getFull() != null && (actual.isEmpty() || actual.get(actual.size() - 1) != fromRollup.getFull())) {
+				actual.add(fromRollup.getFull());
+			}
+		}
+
+		assertEquals(4, expected.size());
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			Candle e = expected.get(i);
+			Candle a = actual.get(i);
+			assertEquals(e.openTime, a.openTime);
+			assertEquals(e.closeTime, a.closeTime);
+			assertEquals(e.open, a.open, 1e-9);
+			assertEquals(e.high, a.high, 1e-9);
+			assertEquals(e.low, a.low, 1e-9);
+			assertEquals(e.close, a.close, 1e-9);
+			assertEquals(e.volume, a.volume, 1e-6);
+		}
+	}
+
+	@Test
+	public void testLiveCandlesUpdateRollupsWhenTimeSpanCloses() {
+		List<String> updates = new ArrayList<>();
+		JdbcTemplate db = new JdbcTemplate() {
+			@Override
+			public void query(String sql, RowCallbackHandler rch, Object... args) {
+				updates.add(sql.substring(sql.indexOf(" FROM ") + 6, sql.indexOf(" WHERE")) + "@" + args[1]);
+			}
+
+			@Override
+			public <T> T execute(ConnectionCallback<T> action) {
+				return null;
+			}
+		};
+		CandleRepository repository = new CandleRepository(null) {
+			@Override
+			public JdbcTemplate db() {
+				return db;
+			}
+		};
+		CandleRollups rollups = new CandleRollups(repository, new TimeInterval[]{minutes(5), minutes(15)});
+
+		long start = 1527724800000L; //midnight UTC
+		for (int i = 0; i < 5; i++) {
+			rollups.add("ADAUSDT", start + i * MINUTE.ms);
+		}
+		assertTrue(updates.isEmpty());
+
+		rollups.add("ADAUSDT", start + minutes(5).ms);
+		assertEquals(Collections.singletonList("candle@" + start), updates);
+
+		updates.clear();
+		rollups.add("ADAUSDT", start + minutes(15).ms);
+		assertEquals(Arrays.asList("candle@" + (start + minutes(5).ms), "candle_5m@" + start), updates);
+
+		updates.clear();
+		rollups.flush();
+		assertEquals(Arrays.asList("candle@" + (start + minutes(15).ms), "candle_5m@" + (start + minutes(15).ms)), updates);
+
+		updates.clear();
+		rollups.flush();
+		assertTrue(updates.isEmpty());
+
+		rollups.add("ADAUSDT", start + minutes(1).ms); //late candle
+		assertEquals(Arrays.asList("candle@" + start, "candle_5m@" + start), updates);
+	}
+}
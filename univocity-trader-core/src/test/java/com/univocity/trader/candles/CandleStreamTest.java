@@ -0,0 +1,216 @@
+package com.univocity.trader.candles;
+
+import org.junit.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static junit.framework.TestCase.*;
+
+public class CandleStreamTest {
+
+	private static ExecutorService executor;
+
+	@BeforeClass
+	public static void startExecutor() {
+		executor = Executors.newSingleThreadExecutor(r -> {
+			Thread thread = new Thread(r, "test candle reader");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	@AfterClass
+	public static void stopExecutor() {
+		executor.shutdownNow();
+	}
+
+	private static class CountingSource implements CandleStream.Source {
+		final int total;
+		final AtomicInteger read = new AtomicInteger();
+		final CountDownLatch closed = new CountDownLatch(1);
+		volatile RuntimeException error;
+
+		CountingSource(int total) {
+			this.total = total;
+		}
+
+		@Override
+		public int read(Candle[] batch) {
+			if (error != null && read.get() > 0) {
+				throw error;
+			}
+			int i = 0;
+			while (i < batch.length && read.get() < total) {
+				int n = read.getAndIncrement();
+				batch[i++] = new Candle(n * 60_000L, n * 60_000L + 59_999L, 1, 1, 1, 1, 1);
+			}
+			return i;
+		}
+
+		@Override
+		public void close() {
+			closed.countDown();
+		}
+	}
+
+	@Test
+	public void testCandlesAreStreamedInOrder() throws Exception {
+		CountingSource source = new CountingSource(1003);
+		CandleStream stream = new CandleStream("ADAUSDT", source, executor, 10, 4);
+
+		int count = 0;
+		while (stream.hasMoreElements()) {
+			Candle candle = stream.nextElement();
+			assertEquals(count * 60_000L, candle.openTime);
+			count++;
+		}
+		assertEquals(1003, count);
+		assertNull(stream.nextElement());
+		assertTrue(source.closed.await(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testReadingIsSuspendedWhileConsumerIsBehind() throws Exception {
+		CountingSource source = new CountingSource(10_000);
+		CandleStream stream = new CandleStream("ADAUSDT", source, executor, 10, 4);
+
+		assertTrue(stream.hasMoreElements());
+		Thread.sleep(100);
+		assertTrue(source.read.get() <= 50); //4 batches queued plus the one being consumed
+
+		stream.close();
+		assertTrue(source.closed.await(5, TimeUnit.SECONDS));
+		assertFalse(stream.hasMoreElements());
+		assertTrue(source.read.get() < 10_000);
+	}
+
+	@Test
+	public void testStreamsShareExecutorWithoutBlockingEachOther() {
+		CountingSource[] sources = new CountingSource[20];
+		CandleStream[] streams = new CandleStream[sources.length];
+		for (int i = 0; i < sources.length; i++) {
+			sources[i] = new CountingSource(500);
+			streams[i] = new CandleStream("S" + i, sources[i], executor, 7, 2);
+		}
+
+		//consumes all streams in lockstep, as a simulation does.
+		for (int n = 0; n < 500; n++) {
+			for (CandleStream stream : streams) {
+				assertTrue(stream.hasMoreElements());
+				assertEquals(n * 60_000L, stream.nextElement().openTime);
+			}
+		}
+		for (CandleStream stream : streams) {
+			assertFalse(stream.hasMoreElements());
+		}
+	}
+
+	@Test
+	public void testReadingErrorIsPropagatedToConsumer() {
+		CountingSource source = new CountingSource(1000);
+		source.error = new IllegalArgumentException("connection lost");
+		CandleStream stream = new CandleStream("ADAUSDT", source, executor, 10, 4);
+
+		int count = 0;
+		try {
+			while (stream.hasMoreElements()) {
+				stream.nextElement();
+				count++;
+			}
+			fail("Expected reading error");
+		} catch (IllegalStateException e) {
+			assertSame(source.error, e.getCause());
+		}
+		assertEquals(10, count);
+	}
+
+	@Test
+	public void testOpenSourcesAreLimitedWithoutBlockingReaders() throws Exception {
+		AtomicInteger open = new AtomicInteger();
+		AtomicInteger maxOpen = new AtomicInteger();
+		AtomicInteger concurrentReads = new AtomicInteger();
+
+		class Cursor extends CountingSource {
+			final AtomicBoolean reading = new AtomicBoolean();
+			boolean opened;
+
+			Cursor(int total) {
+				super(total);
+			}
+
+			@Override
+			public int read(Candle[] batch) {
+				if (!reading.compareAndSet(false, true)) {
+					concurrentReads.incrementAndGet();
+				}
+				try {
+					if (!opened) {
+						opened = true;
+						maxOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+					}
+					return super.read(batch);
+				} finally {
+					reading.set(false);
+				}
+			}
+
+			@Override
+			public void close() {
+				if (opened) {
+					open.decrementAndGet();
+				}
+				super.close();
+			}
+		}
+
+		ExecutorService readers = Executors.newFixedThreadPool(2);
+		ExecutorService consumers = Executors.newFixedThreadPool(10);
+		try {
+			ReadAheadStream.Limit limit = new ReadAheadStream.Limit(3);
+			Cursor[] sources = new Cursor[10];
+			CandleStream[] streams = new CandleStream[sources.length];
+			for (int i = 0; i < sources.length; i++) {
+				sources[i] = new Cursor(300);
+				streams[i] = new CandleStream("S" + i, sources[i], readers, limit, 5, 2);
+			}
+
+			//closed while waiting for a slot
+			while (open.get() < 3) {
+				Thread.sleep(1);
+			}
+			Cursor cancelled = new Cursor(300);
+			new CandleStream("cancelled", cancelled, readers, limit, 5, 2).close();
+
+			List<Future<Integer>> counts = new ArrayList<>();
+			for (CandleStream stream : streams) {
+				counts.add(consumers.submit(() -> {
+					int count = 0;
+					while (stream.hasMoreElements()) {
+						assertEquals(count++ * 60_000L, stream.nextElement().openTime);
+						if (count % 50 == 0) {
+							Thread.sleep(1); //lets the other streams take turns in the reader threads
+						}
+					}
+					return count;
+				}));
+			}
+			for (Future<Integer> count : counts) {
+				assertEquals(300, (int) count.get(10, TimeUnit.SECONDS));
+			}
+			for (Cursor source : sources) {
+				assertTrue(source.closed.await(5, TimeUnit.SECONDS));
+			}
+			assertTrue(cancelled.closed.await(5, TimeUnit.SECONDS));
+			assertEquals(0, cancelled.read.get());
+
+			assertEquals(3, maxOpen.get());
+			assertEquals(0, open.get());
+			assertEquals(0, concurrentReads.get());
+		} finally {
+			readers.shutdownNow();
+			consumers.shutdownNow();
+		}
+	}
+}
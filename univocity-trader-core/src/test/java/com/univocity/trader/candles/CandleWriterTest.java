@@ -0,0 +1,89 @@
+package com.univocity.trader.candles;
+
+import com.univocity.trader.config.*;
+import org.junit.*;
+
+import java.util.*;
+
+import static com.univocity.trader.candles.AggregatorTest.*;
+import static junit.framework.TestCase.*;
+
+public class CandleWriterTest {
+
+	private static class RecordingRepository extends CandleRepository {
+		final List<List<PreciseCandle>> batches = Collections.synchronizedList(new ArrayList<>());
+		final Set<CandleKey> stored = Collections.synchronizedSet(new HashSet<>());
+
+		RecordingRepository(int batchSize, long maxLatency) {
+			super(new DatabaseConfiguration().writeBatchSize(batchSize).writeMaxLatency(maxLatency));
+		}
+
+		@Override
+		protected int persist(String symbol, List<PreciseCandle> candles) {
+			batches.add(new ArrayList<>(candles));
+			return candles.size();
+		}
+
+		@Override
+		Set<CandleKey> storedKeys(String symbol, long from, long to) {
+			Set<CandleKey> out = new HashSet<>();
+			synchronized (stored) {
+				for (CandleKey key : stored) {
+					if (key.openTime >= from && key.openTime <= to) {
+						out.add(key);
+					}
+				}
+			}
+			return out;
+		}
+	}
+
+	@Test
+	public void testCandlesArePersistedInBatches() {
+		RecordingRepository repository = new RecordingRepository(2, 10_000);
+
+		for (int i = 0; i < 5; i++) {
+			assertTrue(repository.addToHistory("ADAUSDT", new PreciseCandle(SEQUENCE[i]), false));
+		}
+		assertFalse(repository.addToHistory("ADAUSDT", new PreciseCandle(SEQUENCE[4]), false)); //duplicate
+
+		repository.flushHistory();
+
+		assertEquals(3, repository.batches.size());
+		assertEquals(2, repository.batches.get(0).size());
+		assertEquals(2, repository.batches.get(1).size());
+		assertEquals(1, repository.batches.get(2).size());
+		assertEquals(SEQUENCE[4].openTime, repository.batches.get(2).get(0).openTime);
+	}
+
+	@Test
+	public void testIncompleteBatchIsPersistedAfterMaxLatency() throws Exception {
+		RecordingRepository repository = new RecordingRepository(100, 50);
+
+		assertTrue(repository.addToHistory("ADAUSDT", new PreciseCandle(SEQUENCE[0]), false));
+		assertTrue(repository.addToHistory("BTCUSDT", new PreciseCandle(SEQUENCE[0]), false));
+
+		long timeout = System.currentTimeMillis() + 5_000;
+		while (repository.batches.size() < 2 && System.currentTimeMillis() < timeout) {
+			Thread.sleep(10);
+		}
+		assertEquals(2, repository.batches.size());
+	}
+
+	@Test
+	public void testCandlesAlreadyStoredAreNotPersisted() {
+		RecordingRepository repository = new RecordingRepository(3, 10_000);
+		//stored before a restart, so not known to be duplicates in memory
+		repository.stored.add(new CandleKey(new PreciseCandle(SEQUENCE[1])));
+
+		for (int i = 0; i < 3; i++) {
+			assertTrue(repository.addToHistory("ADAUSDT", new PreciseCandle(SEQUENCE[i]), false));
+		}
+		repository.flushHistory();
+
+		assertEquals(1, repository.batches.size());
+		assertEquals(2, repository.batches.get(0).size());
+		assertEquals(SEQUENCE[0].openTime, repository.batches.get(0).get(0).openTime);
+		assertEquals(SEQUENCE[2].openTime, repository.batches.get(0).get(1).openTime);
+	}
+}
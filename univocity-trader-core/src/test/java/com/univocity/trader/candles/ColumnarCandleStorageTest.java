@@ -0,0 +1,80 @@
+package com.univocity.trader.candles;
+
+import org.junit.*;
+
+import java.util.*;
+
+import static com.univocity.trader.candles.AggregatorTest.*;
+import static junit.framework.TestCase.*;
+
+public class ColumnarCandleStorageTest {
+
+	@Test
+	public void testStorageGrowsAndPreservesValues() {
+		ColumnarCandleStorage storage = new ColumnarCandleStorage(1);
+		for (int i = 0; i < 5; i++) {
+			Collections.addAll(storage, SEQUENCE);
+		}
+		assertEquals(SEQUENCE.length * 5, storage.size());
+
+		int i = 0;
+		for (Candle candle : storage) {
+			Candle expected = SEQUENCE[i++ % SEQUENCE.length];
+			assertEquals(expected.openTime, candle.openTime);
+			assertEquals(expected.closeTime, candle.closeTime);
+			assertEquals(expected.open, candle.open);
+			assertEquals(expected.high, candle.high);
+			assertEquals(expected.low, candle.low);
+			assertEquals(expected.close, candle.close);
+			assertEquals(expected.volume, candle.volume);
+		}
+		assertEquals(storage.size(), i);
+	}
+
+	@Test
+	public void testCursor() {
+		ColumnarCandleStorage storage = new ColumnarCandleStorage(SEQUENCE.length);
+		Collections.addAll(storage, SEQUENCE);
+
+		ColumnarCandleStorage.Cursor cursor = storage.cursor();
+		int i = 0;
+		while (cursor.next()) {
+			assertEquals(i, cursor.row());
+			assertEquals(SEQUENCE[i].openTime, cursor.openTime());
+			assertEquals(SEQUENCE[i].close, cursor.close());
+			assertEquals(SEQUENCE[i].volume, cursor.volume());
+			i++;
+		}
+		assertEquals(SEQUENCE.length, i);
+
+		cursor.moveTo(4);
+		assertTrue(cursor.next());
+		assertEquals(SEQUENCE[5].high, cursor.high());
+		assertEquals(SEQUENCE[5].low, cursor.toCandle().low);
+
+		storage.clear();
+		assertEquals(0, storage.size());
+		assertFalse(storage.iterator().hasNext());
+	}
+
+	@Test
+	public void testRange() {
+		ColumnarCandleStorage storage = new ColumnarCandleStorage(SEQUENCE.length);
+		Collections.addAll(storage, SEQUENCE);
+
+		ColumnarCandleStorage.Range range = storage.range(SEQUENCE[2].openTime - 1, SEQUENCE[6].closeTime);
+		Candle holder = Candle.newHolder();
+		int i = 2;
+		while (range.hasMoreElements()) {
+			Candle candle = i % 2 == 0 ? range.nextElement(holder) : range.nextElement();
+			assertEquals(i % 2 == 0, candle == holder);
+			assertEquals(SEQUENCE[i].openTime, candle.openTime);
+			assertEquals(SEQUENCE[i].closeTime, candle.closeTime);
+			assertEquals(SEQUENCE[i].close, candle.close);
+			assertEquals(SEQUENCE[i].volume, candle.volume);
+			i++;
+		}
+		assertEquals(7, i);
+		assertFalse(storage.range(SEQUENCE[SEQUENCE.length - 1].openTime + 1, Long.MAX_VALUE).hasMoreElements());
+	}
+}
@@ -0,0 +1,169 @@
+package com.univocity.trader.candles;
+
+import org.junit.*;
+
+import java.io.*;
+import java.util.*;
+
+import static com.univocity.trader.candles.AggregatorTest.*;
+import static com.univocity.trader.indicators.base.TimeInterval.*;
+import static junit.framework.TestCase.*;
+
+public class CompressedCandleFileTest {
+
+	private static List<Candle> read(CompressedCandleFile file, Long from, Long to) {
+		return Collections.list(file.read(from, to));
+	}
+
+	private static File newFile() throws IOException {
+		File tmp = File.createTempFile("ADAUSDT", CompressedCandleFile.EXTENSION);
+		tmp.delete();
+		tmp.deleteOnExit();
+		return tmp;
+	}
+
+	private static void assertSameCandle(Candle expected, Candle actual) {
+		assertEquals(expected.openTime, actual.openTime);
+		assertEquals(expected.closeTime, actual.closeTime);
+		assertEquals(expected.open, actual.open);
+		assertEquals(expected.high, actual.high);
+		assertEquals(expected.low, actual.low);
+		assertEquals(expected.close, actual.close);
+		assertEquals(expected.volume, actual.volume);
+	}
+
+	@Test
+	public void testAppendAndReadRange() throws Exception {
+		File tmp = newFile();
+
+		try (CompressedCandleFile file = CompressedCandleFile.open(tmp, "ADAUSDT", minutes(1))) {
+			for (Candle candle : SEQUENCE) {
+				assertTrue(file.append(candle));
+			}
+			assertFalse(file.append(SEQUENCE[3])); //out of order
+			assertEquals(SEQUENCE.length, file.size());
+		}
+
+		try (CompressedCandleFile file = CompressedCandleFile.open(tmp)) {
+			assertEquals("ADAUSDT", file.getSymbol());
+			assertEquals(MINUTE.ms, file.getInterval());
+			assertEquals(SEQUENCE.length, file.size());
+			assertEquals(SEQUENCE[SEQUENCE.length - 1].openTime, file.lastOpenTime());
+
+			List<Candle> all = read(file, null, null);
+			assertEquals(SEQUENCE.length, all.size());
+			for (int i = 0; i < SEQUENCE.length; i++) {
+				assertSameCandle(SEQUENCE[i], all.get(i));
+			}
+
+			List<Candle> range = read(file, SEQUENCE[2].openTime, SEQUENCE[5].closeTime);
+			assertEquals(4, range.size());
+			assertEquals(SEQUENCE[2].openTime, range.get(0).openTime);
+			assertEquals(SEQUENCE[5].openTime, range.get(3).openTime);
+			assertEquals(4, file.count(SEQUENCE[2].openTime, SEQUENCE[5].closeTime));
+
+			assertEquals(2, read(file, SEQUENCE[2].openTime + 1, SEQUENCE[5].closeTime - 1).size());
+			assertEquals(0, read(file, SEQUENCE[9].closeTime, null).size());
+
+			//appends to the last block, which is written again
+			assertTrue(file.append(new Candle(SEQUENCE[9].closeTime + 1, SEQUENCE[9].closeTime + MINUTE.ms, 1, 1, 1, 1, 1)));
+			assertEquals(SEQUENCE.length + 1, read(file, null, null).size());
+		}
+
+		try (CompressedCandleFile file = CompressedCandleFile.open(tmp)) {
+			assertEquals(SEQUENCE.length + 1, file.size());
+			assertEquals(SEQUENCE.length + 1, read(file, null, null).size());
+		}
+
+		try {
+			CompressedCandleFile.open(tmp, "ETHUSDT", minutes(1));
+			fail("Expecting error opening file of another symbol");
+		} catch (IllegalStateException e) {
+			//expected
+		}
+	}
+
+	@Test
+	public void testCandlesOfMultipleDaysAreCompressedLosslessly() throws Exception {
+		Random random = new Random(1);
+		List<Candle> candles = new ArrayList<>();
+		long price = 280_000; //0.28 with 6 decimal places
+		long time = 1_500_000_000_000L;
+		for (int i = 0; i < 5 * 1440; i++) {
+			long o = price;
+			long c = Math.max(1, o + random.nextInt(201) - 100);
+			long h = Math.max(o, c) + random.nextInt(50);
+			long l = Math.max(1, Math.min(o, c) - random.nextInt(50));
+			double volume = random.nextInt(10_000_000) / 100.0;
+			candles.add(new Candle(time, time + MINUTE.ms - 1, o / 1e6, h / 1e6, l / 1e6, c / 1e6, volume));
+			price = c;
+			time += MINUTE.ms;
+			if (i % 1000 == 999) {
+				time += 10 * MINUTE.ms; //gap in the history
+			}
+		}
+		//values that can't be represented with up to 10 decimal places
+		candles.add(new Candle(time, time + MINUTE.ms - 1, Math.PI, Math.E * 2, 1.0 / 3.0, Math.sqrt(5), Double.MIN_VALUE));
+
+		File tmp = newFile();
+		try (CompressedCandleFile file = CompressedCandleFile.open(tmp, "ADAUSDT", minutes(1))) {
+			for (Candle candle : candles) {
+				assertTrue(file.append(candle));
+			}
+			file.flush();
+			assertTrue(file.sizeInBytes() < candles.size() * (long) CandleFile.ROW_SIZE / 3);
+		}
+
+		try (CompressedCandleFile file = CompressedCandleFile.open(tmp)) {
+			assertEquals(candles.size(), file.size());
+			List<Candle> all = read(file, null, null);
+			assertEquals(candles.size(), all.size());
+			for (int i = 0; i < candles.size(); i++) {
+				assertSameCandle(candles.get(i), all.get(i));
+			}
+
+			Candle from = candles.get(1000);
+			Candle to = candles.get(4000);
+			List<Candle> range = read(file, from.openTime, to.closeTime);
+			assertEquals(3001, range.size());
+			assertSameCandle(from, range.get(0));
+			assertSameCandle(to, range.get(3000));
+			assertEquals(3001, file.count(from.openTime, to.closeTime));
+			assertEquals(candles.size() - 1000, file.count(from.openTime, null));
+		}
+	}
+
+	@Test
+	public void testRepositoryConvertsHistory() throws Exception {
+		File source = File.createTempFile("candles", "");
+		source.delete();
+		File target = File.createTempFile("compressed", "");
+		target.delete();
+
+		try (FileCandleRepository files = new FileCandleRepository(source, minutes(1));
+			 CompressedCandleRepository compressed = new CompressedCandleRepository(target, minutes(1))) {
+			for (Candle candle : SEQUENCE) {
+				files.addToHistory("ADAUSDT", new PreciseCandle(candle), false);
+			}
+			assertEquals(SEQUENCE.length, compressed.importHistory(files, null, null));
+			assertEquals(Collections.singleton("ADAUSDT"), compressed.getKnownSymbols());
+			assertEquals(SEQUENCE.length, compressed.countCandles("ADAUSDT", null, null));
+			assertEquals(SEQUENCE[SEQUENCE.length - 1].openTime, compressed.lastCandle("ADAUSDT").openTime);
+
+			List<Candle> all = Collections.list(compressed.iterate("ADAUSDT", null, null, false));
+			for (int i = 0; i < SEQUENCE.length; i++) {
+				assertSameCandle(SEQUENCE[i], all.get(i));
+			}
+		} finally {
+			for (File dir : new File[]{source, target}) {
+				File[] files = dir.listFiles();
+				if (files != null) {
+					for (File file : files) {
+						file.delete();
+					}
+				}
+				dir.delete();
+			}
+		}
+	}
+}
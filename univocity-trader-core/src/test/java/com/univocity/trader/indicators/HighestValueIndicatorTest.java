@@ -1,8 +1,11 @@
 package com.univocity.trader.indicators;
 
 
+import com.univocity.trader.candles.*;
 import org.junit.*;
 
+import java.util.*;
+
 import static com.univocity.trader.candles.CandleHelper.*;
 import static com.univocity.trader.indicators.base.TimeInterval.*;
 import static org.junit.Assert.*;
@@ -41,4 +44,32 @@ public class HighestValueIndicatorTest {
 		assertEquals(1.6, accumulate(b, 8, 1.0), 0.1);
 		assertEquals(1.6, accumulate(b, 9, 1.1), 0.1);
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void testPartialUpdates() {
+		Random random = new Random(0);
+		HighestValueIndicator highest = new HighestValueIndicator(5, minutes(3), c -> c.close);
+		LowestValueIndicator lowest = new LowestValueIndicator(5, minutes(3), c -> c.close);
+		highest.recalculateEveryTick(true);
+		lowest.recalculateEveryTick(true);
+
+		List<Double> closes = new ArrayList<>();
+		for (int minute = 0; minute < 300; minute++) {
+			double close = random.nextInt(100);
+			Candle candle = CandleHelper.newCandle(minute, close);
+			highest.accumulate(candle);
+			lowest.accumulate(candle);
+
+			//partial candles take the place of the oldest candle in the window
+			if (minute % 3 == 2) {
+				closes.add(close);
+			}
+			List<Double> window = new ArrayList<>(closes.subList(Math.max(0, closes.size() - (minute % 3 == 2 ? 5 : 4)), closes.size()));
+			if (minute % 3 != 2) {
+				window.add(close);
+			}
+			assertEquals(Collections.max(window), highest.getValue(), 0.0);
+			assertEquals(Collections.min(window), lowest.getValue(), 0.0);
+		}
+	}
+}
@@ -1,8 +1,11 @@
 package com.univocity.trader.indicators;
 
 
+import com.univocity.trader.candles.*;
 import org.junit.*;
 
+import java.util.*;
+
 import static com.univocity.trader.candles.CandleHelper.*;
 import static com.univocity.trader.indicators.base.TimeInterval.*;
 import static junit.framework.TestCase.*;
@@ -54,4 +57,34 @@ public class PercentRankIndicatorTest {
 		assertEquals(0.0, b.getValue(), 0.001);
 
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void testPartialUpdatesOnLongWindow() {
+		Random random = new Random(0);
+		int length = 50;
+		PercentRankIndicator b = new PercentRankIndicator(length, minutes(2));
+		b.recalculateEveryTick(true);
+		RateOfChange roc = new RateOfChange(1, minutes(2));
+		roc.recalculateEveryTick(true);
+
+		List<Double> changes = new ArrayList<>();
+		for (int minute = 0; minute < 1000; minute++) {
+			Candle candle = newCandle(minute, 1.0 + random.nextInt(10));
+			boolean accumulated = b.accumulate(candle);
+			assertEquals(roc.accumulate(candle), accumulated);
+			if (!accumulated) {
+				continue;
+			}
+
+			//window has the last full values, with a partial value in place of the oldest
+			List<Double> window = new ArrayList<>(changes);
+			window.add(roc.getValue());
+			if (minute % 2 == 1) {
+				changes.add(roc.getValue());
+			}
+			window = window.subList(Math.max(0, window.size() - length), window.size());
+			double below = window.stream().filter(v -> v < roc.getValue()).count();
+			assertEquals((below / window.size()) * 100.0, b.getValue(), 0.0);
+		}
+	}
+}
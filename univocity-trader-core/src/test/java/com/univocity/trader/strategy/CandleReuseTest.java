@@ -0,0 +1,65 @@
+package com.univocity.trader.strategy;
+
+import com.univocity.trader.candles.*;
+import com.univocity.trader.indicators.*;
+import org.junit.*;
+
+import java.util.*;
+
+import static com.univocity.trader.indicators.base.TimeInterval.*;
+import static junit.framework.TestCase.*;
+
+/**
+ * Verifies that aggregators and indicators produce the same results with and without candle reuse. The memory allocated
+ * per candle is measured by {@code AggregatorBenchmark} in the benchmarks module.
+ */
+public class CandleReuseTest {
+
+	class TestGroup extends IndicatorGroup {
+		final AverageTrueRange atr = new AverageTrueRange(14, minutes(5));
+		final MovingAverage ma = new MovingAverage(20, minutes(15));
+		final BollingerBand bb = new BollingerBand(hours(1));
+
+		@Override
+		protected Set<Indicator> getAllIndicators() {
+			return Set.of(atr, ma, bb);
+		}
+	}
+
+	private static long time;
+
+	private static void feed(TestGroup group, Aggregator[] aggregators, Candle holder, int count) {
+		for (int i = 0; i < count; i++) {
+			double price = 100.0 + (i % 50) - (i % 7);
+			Candle candle = holder == null ? new Candle(time, time + 59_999, price, price + 1, price - 1, price, 10.0) : holder.update(time, time + 59_999, price, price + 1, price - 1, price, 10.0);
+			time += 60_000;
+			for (int j = 0; j < aggregators.length; j++) {
+				aggregators[j].aggregate(candle);
+			}
+			group.accumulate(candle);
+		}
+	}
+
+	private TestGroup process(boolean reuse, int candles) {
+		time = 0;
+		TestGroup group = new TestGroup();
+		Aggregator root = new Aggregator("allocation", reuse);
+		group.initialize(root);
+		Aggregator[] aggregators = root.getAggregators();
+		Candle holder = reuse ? Candle.newHolder() : null;
+
+		feed(group, aggregators, holder, candles);
+		return group;
+	}
+
+	@Test
+	public void testCandleReuseProducesSameResults() {
+		TestGroup expected = process(false, 50_000);
+		TestGroup actual = process(true, 50_000);
+
+		assertEquals(expected.atr.getValue(), actual.atr.getValue(), 0.0);
+		assertEquals(expected.ma.getValue(), actual.ma.getValue(), 0.0);
+		assertEquals(expected.bb.getValue(), actual.bb.getValue(), 0.0);
+		assertEquals(expected.atr.getAccumulationCount(), actual.atr.getAccumulationCount());
+	}
+}
@@ -45,6 +45,132 @@ public class IndicatorGroupTest {
 	}
 
 
+	@Test
+	public void testSharedIndicatorsAreCalculatedOnce() {
+		SharedIndicators sharedIndicators = new SharedIndicators();
+
+		SharingStrategy[] strategies = new SharingStrategy[3];
+		Aggregator[][] aggregators = new Aggregator[strategies.length][];
+		for (int i = 0; i < strategies.length; i++) {
+			sharedIndicators.activate("BTCUSDT");
+			try {
+				strategies[i] = new SharingStrategy();
+			} finally {
+				sharedIndicators.deactivate();
+			}
+			Aggregator root = new Aggregator("parent" + i);
+			strategies[i].initialize(root);
+			aggregators[i] = root.getAggregators();
+		}
+		assertEquals(1, sharedIndicators.count("BTCUSDT"));
+		assertSame(strategies[0].atr, strategies[1].atr);
+		assertSame(strategies[0].atr, strategies[2].atr);
+
+		TestStrategy reference = new TestStrategy();
+		Aggregator referenceRoot = new Aggregator("reference");
+		reference.initialize(referenceRoot);
+		Aggregator[] referenceAggregators = referenceRoot.getAggregators();
+
+		for (int i = 0; i < prices.length; i++) {
+			Candle c = newCandle(i, prices[i][2], prices[i][2], prices[i][0], prices[i][1]);
+
+			for (int j = 0; j < strategies.length; j++) {
+				for (Aggregator aggregator : aggregators[j]) {
+					aggregator.aggregate(c);
+				}
+				strategies[j].accumulate(c);
+			}
+
+			for (Aggregator aggregator : referenceAggregators) {
+				aggregator.aggregate(c);
+			}
+			reference.accumulate(c);
+		}
+
+		assertEquals(reference.atr_5_2.getValue(), strategies[0].atr.getValue(), 0.000000001);
+		assertEquals(reference.atr_5_2.getAccumulationCount(), strategies[0].atr.getAccumulationCount());
+	}
+
+	private SharingStrategy[] sharingStrategies(SharedIndicators sharedIndicators, Aggregator[][] aggregators) {
+		SharingStrategy[] out = new SharingStrategy[aggregators.length];
+		for (int i = 0; i < out.length; i++) {
+			sharedIndicators.activate("BTCUSDT");
+			try {
+				out[i] = new SharingStrategy();
+			} finally {
+				sharedIndicators.deactivate();
+			}
+			Aggregator root = new Aggregator("parent" + i, true);
+			sharedIndicators.bind("BTCUSDT", root);
+			out[i].initialize(root);
+			aggregators[i] = root.getAggregators();
+		}
+		return out;
+	}
+
+	@Test
+	public void testSharedIndicatorsWithReusedCandle() {
+		Aggregator[][] aggregators = new Aggregator[3][];
+		SharingStrategy[] strategies = sharingStrategies(new SharedIndicators(), aggregators);
+
+		TestStrategy reference = new TestStrategy();
+		Aggregator referenceRoot = new Aggregator("reference");
+		reference.initialize(referenceRoot);
+		Aggregator[] referenceAggregators = referenceRoot.getAggregators();
+
+		Candle holder = Candle.newHolder();
+		for (int i = 0; i < prices.length; i++) {
+			Candle c = newCandle(i, prices[i][2], prices[i][2], prices[i][0], prices[i][1]);
+			holder.update(c);
+
+			for (int j = 0; j < strategies.length; j++) {
+				for (Aggregator aggregator : aggregators[j]) {
+					aggregator.aggregate(holder);
+				}
+				strategies[j].accumulate(holder);
+			}
+
+			for (Aggregator aggregator : referenceAggregators) {
+				aggregator.aggregate(c);
+			}
+			reference.accumulate(c);
+		}
+
+		assertEquals(reference.atr_5_2.getValue(), strategies[0].atr.getValue(), 0.000000001);
+		assertEquals(reference.atr_5_2.getAccumulationCount(), strategies[0].atr.getAccumulationCount());
+	}
+
+	@Test
+	public void testSharedIndicatorsRejectDifferentCandles() {
+		Aggregator[][] aggregators = new Aggregator[2][];
+		SharingStrategy[] strategies = sharingStrategies(new SharedIndicators(), aggregators);
+
+		Candle first = newCandle(0, prices[0][2], prices[0][2], prices[0][0], prices[0][1]);
+		Candle second = newCandle(1, prices[1][2], prices[1][2], prices[1][0], prices[1][1]);
+		for (Aggregator aggregator : aggregators[0]) {
+			aggregator.aggregate(first);
+		}
+		strategies[0].accumulate(first);
+		for (Aggregator aggregator : aggregators[1]) {
+			aggregator.aggregate(second);
+		}
+		try {
+			strategies[1].accumulate(second);
+			fail("Expected shared indicator to reject a different candle");
+		} catch (IllegalStateException e) {
+			//expected
+		}
+	}
+
+	class SharingStrategy extends IndicatorGroup {
+		final AverageTrueRange atr = SharedIndicators.shared(AverageTrueRange.class, 5, minutes(2));
+
+		@Override
+		protected Set<Indicator> getAllIndicators() {
+			return Set.of(atr);
+		}
+	}
+
 	class TestStrategy extends IndicatorGroup {
 
 		final AverageTrueRange atr_13_1;
@@ -2,6 +2,8 @@ package com.univocity.trader.utils;
 
 import org.junit.*;
 
+import java.util.*;
+
 import static junit.framework.TestCase.*;
 
 public class CircularListTest {
@@ -158,4 +160,45 @@ public class CircularListTest {
 		assertEquals(8, l.get(1), 0.1);
 		assertEquals(9, l.get(2), 0.1);
 	}
-}
\ No newline at end of file
+
+	private static double bruteForce(CircularList l, int backwardCount, boolean highest) {
+		double out = l.getRecentValue(1);
+		for (int j = 2; j <= Math.min(backwardCount, l.size()); j++) {
+			double v = l.getRecentValue(j);
+			out = highest ? Math.max(out, v) : Math.min(out, v);
+		}
+		return out;
+	}
+
+	@Test
+	public void testMinMax() {
+		Random random = new Random(0);
+		for (int length : new int[]{1, 3, 10}) {
+			CircularList l = new CircularList(length);
+			for (int n = 0; n < 500; n++) {
+				double v = random.nextInt(20) + 1;
+				if (random.nextInt(3) == 0) {
+					l.update(v);
+				} else {
+					l.add(v);
+				}
+				if (n == 100) { //state before the first call must be replayed correctly
+					l = copy(l);
+				}
+				for (int k = 1; k <= length + 1; k++) {
+					assertEquals(bruteForce(l, k, true), l.getMax(k), 0.0);
+					assertEquals(bruteForce(l, k, false), l.getMin(k), 0.0);
+				}
+			}
+		}
+	}
+
+	private static CircularList copy(CircularList l) {
+		CircularList out = new CircularList(l.capacity());
+		for (int j = Math.min(l.size(), l.capacity()); j > 1; j--) {
+			out.add(l.getRecentValue(j));
+		}
+		out.update(l.getRecentValue(1));
+		return out;
+	}
+}
@@ -0,0 +1,85 @@
+package com.univocity.trader.utils;
+
+import org.junit.*;
+
+import java.util.*;
+
+import static junit.framework.TestCase.*;
+
+public class IntervalSetTest {
+
+	@Test
+	public void testAddMergesRanges() {
+		IntervalSet set = new IntervalSet();
+		assertTrue(set.add(10, 20));
+		assertTrue(set.add(30, 40));
+		assertEquals(2, set.size());
+
+		assertFalse(set.add(12, 18)); //already in the set
+		assertTrue(set.add(20, 25)); //touches the first range
+		assertEquals("[[10, 25), [30, 40)]", set.toString());
+
+		assertTrue(set.add(5, 35)); //overlaps both ranges
+		assertEquals("[[5, 40)]", set.toString());
+		assertEquals(5, set.getStart());
+		assertEquals(40, set.getEnd());
+
+		assertFalse(set.add(50, 50));
+		assertEquals(1, set.size());
+	}
+
+	@Test
+	public void testContains() {
+		IntervalSet set = new IntervalSet();
+		assertFalse(set.contains(0, 1));
+
+		set.add(10, 20);
+		set.add(30, 40);
+		assertTrue(set.contains(10, 20));
+		assertTrue(set.contains(15, 16));
+		assertFalse(set.contains(5, 15));
+		assertFalse(set.contains(15, 35));
+		assertFalse(set.contains(20, 30));
+	}
+
+	@Test
+	public void testMissing() {
+		IntervalSet set = new IntervalSet();
+		assertEquals("[[0, 100)]", toString(set.missing(0, 100)));
+
+		set.add(10, 20);
+		set.add(30, 40);
+		assertEquals("[[0, 10), [20, 30), [40, 100)]", toString(set.missing(0, 100)));
+		assertEquals("[[20, 30)]", toString(set.missing(15, 35)));
+		assertEquals("[]", toString(set.missing(10, 20)));
+		assertEquals("[[22, 28)]", toString(set.missing(22, 28)));
+		assertEquals("[[20, 30)]", toString(set.missing(10, 40)));
+	}
+
+	@Test
+	public void testByteArrayRoundTrip() {
+		IntervalSet set = new IntervalSet();
+		assertEquals("[]", IntervalSet.fromByteArray(set.toByteArray()).toString());
+
+		long minute = 60_000;
+		long start = 1_500_000_000_000L;
+		set.add(start, start + 1000 * minute);
+		set.add(start + 1005 * minute, start + 50_000 * minute);
+		set.add(-minute, 0);
+
+		byte[] bytes = set.toByteArray();
+		assertTrue(bytes.length < 3 * 16); //smaller than two longs per range
+		assertEquals(set.toString(), IntervalSet.fromByteArray(bytes).toString());
+	}
+
+	private static String toString(List<long[]> ranges) {
+		StringBuilder out = new StringBuilder("[");
+		for (long[] range : ranges) {
+			if (out.length() > 1) {
+				out.append(", ");
+			}
+			out.append('[').append(range[0]).append(", ").append(range[1]).append(')');
+		}
+		return out.append(']').toString();
+	}
+}
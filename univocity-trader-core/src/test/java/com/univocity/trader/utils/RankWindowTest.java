@@ -0,0 +1,47 @@
+package com.univocity.trader.utils;
+
+import org.junit.*;
+
+import java.util.*;
+
+import static junit.framework.TestCase.*;
+
+public class RankWindowTest {
+
+	private static int scan(CircularList values, double value) {
+		int count = 0;
+		for (int i = 0; i < values.size(); i++) {
+			if (values.values[i] < value) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Test
+	public void testRankMatchesFullScan() {
+		Random random = new Random(0);
+		double[] specialValues = {0.0, -0.0, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+
+		for (int length : new int[]{1, 2, 7, 100, RankWindow.SORTED_ARRAY_LIMIT + 1, 1000}) {
+			CircularList expected = new CircularList(length);
+			RankWindow actual = new RankWindow(length);
+
+			for (int n = 0; n < 5_000; n++) {
+				double value = random.nextInt(50) == 0 ? specialValues[random.nextInt(specialValues.length)] : random.nextInt(30) - 15;
+				if (random.nextInt(3) == 0) {
+					expected.update(value);
+					actual.update(value);
+				} else {
+					expected.add(value);
+					actual.add(value);
+				}
+				assertEquals(expected.size(), actual.size());
+				assertEquals(scan(expected, value), actual.countBelow(value));
+
+				double other = random.nextInt(40) - 20;
+				assertEquals(scan(expected, other), actual.countBelow(other));
+			}
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package com.univocity.trader.utils;
+
+import org.junit.*;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static com.univocity.trader.indicators.base.TimeInterval.*;
+import static junit.framework.TestCase.*;
+
+public class RateLimiterTest {
+
+	@Test
+	public void testBurstUpToCapacity() {
+		RateLimiter limiter = new RateLimiter(5, 1, minutes(1));
+		for (int i = 0; i < 5; i++) {
+			assertTrue(limiter.tryAcquire(1));
+		}
+		assertFalse(limiter.tryAcquire(1));
+	}
+
+	@Test
+	public void testWeightedRequests() {
+		RateLimiter limiter = new RateLimiter(10, 1, minutes(1));
+		assertTrue(limiter.tryAcquire(5));
+		assertFalse(limiter.tryAcquire(6));
+		assertTrue(limiter.tryAcquire(5));
+		assertFalse(limiter.tryAcquire(1));
+
+		limiter = new RateLimiter(10, 1, minutes(1));
+		assertTrue(limiter.tryAcquire(50)); //heavier than capacity: takes all tokens
+		assertFalse(limiter.tryAcquire(1));
+	}
+
+	@Test
+	public void testDrain() {
+		RateLimiter limiter = new RateLimiter(10, 1, minutes(1));
+		limiter.drain();
+		assertFalse(limiter.tryAcquire(1));
+	}
+
+	@Test
+	public void testThreadsWaitForRefill() throws Exception {
+		RateLimiter limiter = new RateLimiter(2, 10, millis(100)); //1 token every 10ms
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		AtomicInteger acquired = new AtomicInteger();
+		long start = System.nanoTime();
+		try {
+			for (int i = 0; i < 22; i++) {
+				executor.execute(() -> {
+					try {
+						limiter.acquire(1);
+						acquired.incrementAndGet();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				});
+			}
+			executor.shutdown();
+			assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdownNow();
+		}
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		assertEquals(22, acquired.get());
+		assertTrue("Elapsed " + elapsed + "ms", elapsed >= 180); //2 immediately, 20 refilled at 10ms each
+	}
+}
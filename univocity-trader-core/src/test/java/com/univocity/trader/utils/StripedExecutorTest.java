@@ -0,0 +1,141 @@
+package com.univocity.trader.utils;
+
+import org.junit.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static junit.framework.TestCase.*;
+
+public class StripedExecutorTest {
+
+	private StripedExecutor executor;
+
+	@After
+	public void tearDown() {
+		if (executor != null) {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testKeysSpreadAcrossLanes() {
+		executor = new StripedExecutor("test", 3);
+		assertEquals(0, executor.laneOf("A"));
+		assertEquals(1, executor.laneOf("B"));
+		assertEquals(2, executor.laneOf("C"));
+		assertEquals(0, executor.laneOf("D"));
+		assertEquals(1, executor.laneOf("B"));
+	}
+
+	@Test
+	public void testTasksOfKeyRunInOrder() throws Exception {
+		executor = new StripedExecutor("test", 4);
+		String[] keys = {"BTCUSDT", "ETHUSDT", "ADAUSDT", "BNBUSDT", "XRPUSDT", "LTCUSDT"};
+		Map<String, List<Integer>> received = new ConcurrentHashMap<>();
+		Map<String, Set<Thread>> threads = new ConcurrentHashMap<>();
+		int count = 10_000;
+		CountDownLatch done = new CountDownLatch(keys.length * count);
+
+		for (int i = 0; i < count; i++) {
+			for (String key : keys) {
+				final int value = i;
+				executor.execute(key, () -> {
+					received.computeIfAbsent(key, k -> new ArrayList<>()).add(value);
+					threads.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(Thread.currentThread());
+					done.countDown();
+				});
+			}
+		}
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+
+		for (String key : keys) {
+			List<Integer> values = received.get(key);
+			assertEquals(count, values.size());
+			for (int i = 0; i < count; i++) {
+				assertEquals(i, (int) values.get(i));
+			}
+			assertEquals(1, threads.get(key).size());
+		}
+	}
+
+	@Test
+	public void testQueueDepth() throws Exception {
+		executor = new StripedExecutor("test", 2);
+		CountDownLatch blocked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		executor.execute("A", () -> {
+			blocked.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		assertTrue(blocked.await(5, TimeUnit.SECONDS));
+
+		CountDownLatch done = new CountDownLatch(6);
+		for (int i = 0; i < 5; i++) {
+			executor.execute("A", done::countDown);
+		}
+		executor.execute("B", done::countDown);
+
+		int lane = executor.laneOf("A");
+		assertEquals(5, executor.getQueueDepth(lane));
+		release.countDown();
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertTrue(Arrays.equals(new int[]{0, 0}, executor.getQueueDepths()));
+	}
+
+	@Test
+	public void testLatestTaskOfVersionReplacesPendingOne() throws Exception {
+		executor = new StripedExecutor("test", 1);
+		CountDownLatch blocked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		executor.execute("A", () -> {
+			blocked.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		assertTrue(blocked.await(5, TimeUnit.SECONDS));
+
+		List<String> received = new CopyOnWriteArrayList<>();
+		CountDownLatch done = new CountDownLatch(2);
+		for (int i = 0; i < 3; i++) {
+			String update = "1." + i;
+			executor.executeLatest("A", 1, () -> received.add(update));
+		}
+		executor.executeLatest("B", 1, () -> received.add("B"));
+		for (int i = 0; i < 3; i++) {
+			String update = "2." + i;
+			executor.executeLatest("A", 2, () -> {
+				received.add(update);
+				done.countDown();
+			});
+		}
+		executor.executeLatest("B", 1, () -> {
+			received.add("B.latest");
+			done.countDown();
+		});
+		assertEquals(3, executor.getQueueDepth(0));
+
+		release.countDown();
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertEquals(Arrays.asList("1.2", "B.latest", "2.2"), received);
+
+		//tasks that already started are not replaced
+		CountDownLatch last = new CountDownLatch(1);
+		executor.executeLatest("A", 2, last::countDown);
+		assertTrue(last.await(5, TimeUnit.SECONDS));
+	}
+
+	@Test(expected = RejectedExecutionException.class)
+	public void testRejectsAfterShutdown() {
+		executor = new StripedExecutor("test", 1);
+		executor.shutdown();
+		executor.execute("A", () -> {});
+	}
+}
@@ -13,8 +13,8 @@ public class ExampleStrategy extends IndicatorStrategy {
 	private final BollingerBand boll1h;
 
 	public ExampleStrategy() {
-		indicators.add(boll5m = new BollingerBand(TimeInterval.minutes(5)));
-		indicators.add(boll1h = new BollingerBand(TimeInterval.hours(1)));
+		indicators.add(boll5m = SharedIndicators.shared(BollingerBand.class, TimeInterval.minutes(5)));
+		indicators.add(boll1h = SharedIndicators.shared(BollingerBand.class, TimeInterval.hours(1)));
 	}
 
 	@Override
@@ -6,6 +6,7 @@ import com.univocity.trader.candles.*;
 import com.univocity.trader.config.*;
 import com.univocity.trader.exchange.interactivebrokers.api.*;
 import com.univocity.trader.indicators.base.*;
+import com.univocity.trader.utils.*;
 import org.slf4j.*;
 
 import java.util.*;
@@ -134,4 +135,13 @@ class IB implements Exchange<Candle, Account> {
 	public long timeToWaitPerRequest() {
 		return 10_000L;
 	}
+
+	/**
+	 * Interactive Brokers rejects more than 60 historical data requests within any 10 minute period, and 6 or more
+	 * requests for the same contract within 2 seconds. Allows bursts of 5 requests and 55 more every 10 minutes.
+	 */
+	@Override
+	public RateLimiter historicalRequestRateLimiter() {
+		return new RateLimiter(5, 55, TimeInterval.minutes(10));
+	}
 }
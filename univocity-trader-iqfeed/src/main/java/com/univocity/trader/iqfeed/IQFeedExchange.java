@@ -134,6 +134,24 @@ class IQFeedExchange implements Exchange<IQFeedCandle, Account> {
 		);
 	}
 
+	@Override
+	public Candle generateCandle(IQFeedCandle c, Candle holder) {
+		return holder.update(
+				c.getOpenTime(),
+				c.getCloseTime(),
+				c.getOpen(),
+				c.getHigh(),
+				c.getLow(),
+				c.getClose(),
+				c.getVolume()
+		);
+	}
+
+	@Override
+	public long getOpenTime(IQFeedCandle c) {
+		return c.getOpenTime();
+	}
+
 	public PreciseCandle generatePreciseCandle(IQFeedCandle c) {
 		return new PreciseCandle(
 				c.getOpenTime(),